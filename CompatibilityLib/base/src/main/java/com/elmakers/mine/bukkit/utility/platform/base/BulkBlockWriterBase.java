@@ -0,0 +1,194 @@
+package com.elmakers.mine.bukkit.utility.platform.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
+import com.elmakers.mine.bukkit.utility.platform.Platform;
+
+/**
+ * Groups queued block changes by the 16x16x16 chunk section they are in, so each
+ * platform only has to write whole sections at once.
+ *
+ * <p>Each platform decides what a block state looks like, and resolves materials and
+ * state strings to them once each rather than once per block.
+ */
+public abstract class BulkBlockWriterBase<T> implements BulkBlockWriter {
+    protected final Platform platform;
+    private final Map<World, Map<Long, Section<T>>> worlds = new HashMap<>();
+    private final List<Section<T>> sections = new ArrayList<>();
+    private final Map<Material, Map<String, T>> states = new HashMap<>();
+    private Section<T> lastSection;
+    private int size = 0;
+
+    protected static class Section<T> {
+        private final World world;
+        private final int x;
+        private final int y;
+        private final int z;
+        private short[] positions = new short[64];
+        private Object[] states = new Object[64];
+        private int count = 0;
+
+        Section(World world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        void add(int blockX, int blockY, int blockZ, T state) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                states = Arrays.copyOf(states, count * 2);
+            }
+            positions[count] = (short)(((blockX & 15) << 8) | ((blockZ & 15) << 4) | (blockY & 15));
+            states[count] = state;
+            count++;
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * The position of a change relative to this section, packed as X, Z, Y using 4 bits each.
+         * This is the same format the client uses for section block change packets.
+         */
+        public short getPosition(int index) {
+            return positions[index];
+        }
+
+        public int getBlockX(int index) {
+            return (x << 4) | ((positions[index] >> 8) & 15);
+        }
+
+        public int getBlockY(int index) {
+            return (y << 4) | (positions[index] & 15);
+        }
+
+        public int getBlockZ(int index) {
+            return (z << 4) | ((positions[index] >> 4) & 15);
+        }
+
+        @SuppressWarnings("unchecked")
+        public T getState(int index) {
+            return (T)states[index];
+        }
+    }
+
+    protected BulkBlockWriterBase(Platform platform) {
+        this.platform = platform;
+    }
+
+    /**
+     * Look up the state to write for a material.
+     *
+     * @return null if this state can not be written in bulk
+     */
+    @Nullable
+    protected abstract T createState(Material material, byte data, @Nullable String blockState);
+
+    /**
+     * Write all of the changes in a section.
+     */
+    protected abstract void writeSection(Section<T> section);
+
+    @Override
+    public boolean setBlock(Block block, Material material, byte data, @Nullable String blockState) {
+        T state = getState(material, data, blockState);
+        if (state == null) {
+            return false;
+        }
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        Section<T> section = getSection(block.getWorld(), x >> 4, y >> 4, z >> 4);
+        section.add(x, y, z, state);
+        size++;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void flush() {
+        for (Section<T> section : sections) {
+            writeSection(section);
+        }
+        sections.clear();
+        worlds.clear();
+        lastSection = null;
+        size = 0;
+    }
+
+    @Nullable
+    private T getState(Material material, byte data, @Nullable String blockState) {
+        Map<String, T> materialStates = states.get(material);
+        if (materialStates == null) {
+            materialStates = new HashMap<>();
+            states.put(material, materialStates);
+        }
+        // Legacy data values and block states aren't both used on the same version
+        String key = blockState == null ? Byte.toString(data) : blockState;
+        if (materialStates.containsKey(key)) {
+            return materialStates.get(key);
+        }
+        T state = null;
+        try {
+            state = createState(material, data, blockState);
+        } catch (Exception ex) {
+            platform.getLogger().warning("Invalid block state for " + material.name() + ": " + blockState);
+        }
+        materialStates.put(key, state);
+        return state;
+    }
+
+    private Section<T> getSection(World world, int x, int y, int z) {
+        // Changes are usually made in order, so most of the time this is the same as the last one
+        if (lastSection != null && lastSection.x == x && lastSection.y == y && lastSection.z == z && lastSection.world == world) {
+            return lastSection;
+        }
+        Map<Long, Section<T>> worldSections = worlds.get(world);
+        if (worldSections == null) {
+            worldSections = new HashMap<>();
+            worlds.put(world, worldSections);
+        }
+        long key = ((long)(x & 0x3FFFFF) << 42) | ((long)(z & 0x3FFFFF) << 20) | (y & 0xFFFFF);
+        Section<T> section = worldSections.get(key);
+        if (section == null) {
+            section = new Section<>(world, x, y, z);
+            worldSections.put(key, section);
+            sections.add(section);
+        }
+        lastSection = section;
+        return section;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import org.apache.commons.lang.WordUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.DyeColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -45,12 +46,24 @@ public abstract class DeprecatedUtilsBase implements DeprecatedUtils {
         player.updateInventory();
     }
 
+    @Override
+    public Material getType(ChunkSnapshot snapshot, int x, int y, int z) {
+        // @deprecated Magic value
+        return platform.getCompatibilityUtils().getMaterial(snapshot.getBlockTypeId(x, y, z));
+    }
+
     @Override
     public byte getData(Block block) {
         // @deprecated Magic value
         return block.getData();
     }
 
+    @Override
+    public byte getData(ChunkSnapshot snapshot, int x, int y, int z) {
+        // @deprecated Magic value
+        return (byte)snapshot.getBlockData(x, y, z);
+    }
+
     @Override
     public byte getWoolData(DyeColor color) {
         // @deprecated Magic value
@@ -262,6 +275,11 @@ public abstract class DeprecatedUtilsBase implements DeprecatedUtils {
         return location.getWorld().getBiome(location.getBlockX(), location.getBlockZ());
     }
 
+    @Override
+    public Biome getBiome(ChunkSnapshot snapshot, int x, int y, int z) {
+        return snapshot.getBiome(x, z);
+    }
+
     @Override
     public ItemStack createItemStack(Material material, int amount, short legacyData) {
         return new ItemStack(material, amount, legacyData);
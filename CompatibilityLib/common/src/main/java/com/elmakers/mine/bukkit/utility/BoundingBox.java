@@ -27,6 +27,12 @@ public class BoundingBox
         this.max = new Vector(center.getX() + dMaxX, center.getY() + dMaxY, center.getZ() + dMaxZ);
     }
 
+    public BoundingBox(BoundingBox other)
+    {
+        this.min = other.min.clone();
+        this.max = other.max.clone();
+    }
+
     public BoundingBox center(Vector center)
     {
         BoundingBox results = new BoundingBox(min, max);
@@ -45,6 +51,42 @@ public class BoundingBox
                 && this.min.getZ() <= point.getZ() && point.getZ() <= this.max.getZ();
     }
 
+    public boolean contains(BoundingBox other) {
+        return this.min.getX() <= other.min.getX() && other.max.getX() <= this.max.getX()
+                && this.min.getY() <= other.min.getY() && other.max.getY() <= this.max.getY()
+                && this.min.getZ() <= other.min.getZ() && other.max.getZ() <= this.max.getZ();
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return this.min.getX() <= other.max.getX() && other.min.getX() <= this.max.getX()
+                && this.min.getY() <= other.max.getY() && other.min.getY() <= this.max.getY()
+                && this.min.getZ() <= other.max.getZ() && other.min.getZ() <= this.max.getZ();
+    }
+
+    public double getMinX() {
+        return min.getX();
+    }
+
+    public double getMinY() {
+        return min.getY();
+    }
+
+    public double getMinZ() {
+        return min.getZ();
+    }
+
+    public double getMaxX() {
+        return max.getX();
+    }
+
+    public double getMaxY() {
+        return max.getY();
+    }
+
+    public double getMaxZ() {
+        return max.getZ();
+    }
+
     public BoundingBox scale(double scale)
     {
         if (scale <= 0 || scale == 1) return this;
@@ -0,0 +1,34 @@
+package com.elmakers.mine.bukkit.utility.platform;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+
+/**
+ * Collects block changes and writes them a chunk section at a time, for batches that change
+ * too many blocks to go through the usual Block API one at a time.
+ *
+ * <p>Changes are not made until flush() is called. Blocks are always written without physics.
+ */
+public interface BulkBlockWriter {
+    /**
+     * Queue a block change.
+     *
+     * @param data The legacy data value, used on versions that do not have block states
+     * @param blockState Block state properties to apply to the material's default state, such as "[facing=north]"
+     * @return false if this change can not be made in bulk, such as for blocks with tile entities,
+     *         and so should be made the usual way
+     */
+    boolean setBlock(Block block, Material material, byte data, @Nullable String blockState);
+
+    /**
+     * The number of changes waiting to be written.
+     */
+    int size();
+
+    /**
+     * Write all queued changes, update lighting and send the changes to players.
+     */
+    void flush();
+}
@@ -289,6 +289,8 @@ public interface CompatibilityUtils {
 
     boolean setBlockFast(Chunk chunk, int x, int y, int z, Material material, int data);
 
+    BulkBlockWriter createBulkBlockWriter();
+
     boolean setPickupStatus(Projectile projectile, String pickupStatus);
 
     Block getHitBlock(ProjectileHitEvent event);
@@ -2,6 +2,7 @@ package com.elmakers.mine.bukkit.utility.platform;
 
 import java.util.UUID;
 
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.DyeColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -28,8 +29,12 @@ public interface DeprecatedUtils {
 
     void setTypeAndData(Block block, Material material, byte data, boolean applyPhysics);
 
+    Material getType(ChunkSnapshot snapshot, int x, int y, int z);
+
     byte getData(Block block);
 
+    byte getData(ChunkSnapshot snapshot, int x, int y, int z);
+
     byte getWoolData(DyeColor color);
 
     int getId(Material material);
@@ -87,6 +92,8 @@ public interface DeprecatedUtils {
 
     Biome getBiome(Location location);
 
+    Biome getBiome(ChunkSnapshot snapshot, int x, int y, int z);
+
     ItemStack createItemStack(Material material, int amount, short legacyData);
 
     void setSkullType(Skull skullBlock, short skullType);
@@ -0,0 +1,38 @@
+package com.elmakers.mine.bukkit.utility.platform.legacy;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.material.MaterialData;
+
+import com.elmakers.mine.bukkit.utility.platform.Platform;
+import com.elmakers.mine.bukkit.utility.platform.base.BulkBlockWriterBase;
+
+/**
+ * There is no direct access to chunk sections here, so this only saves on looking up
+ * block types, and otherwise writes one block at a time without physics.
+ */
+@SuppressWarnings("deprecation")
+public class BulkBlockWriter extends BulkBlockWriterBase<MaterialData> {
+    public BulkBlockWriter(Platform platform) {
+        super(platform);
+    }
+
+    @Nullable
+    @Override
+    protected MaterialData createState(Material material, byte data, @Nullable String blockState) {
+        return blockState == null ? new MaterialData(material, data) : null;
+    }
+
+    @Override
+    protected void writeSection(Section<MaterialData> section) {
+        World world = section.getWorld();
+        for (int i = 0; i < section.size(); i++) {
+            Block block = world.getBlockAt(section.getBlockX(i), section.getBlockY(i), section.getBlockZ(i));
+            MaterialData state = section.getState(i);
+            platform.getDeprecatedUtils().setTypeAndData(block, state.getItemType(), state.getData(), false);
+        }
+    }
+}
@@ -1548,6 +1548,11 @@ public class CompatibilityUtils extends CompatibilityUtilsBase {
         return true;
     }
 
+    @Override
+    public com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter createBulkBlockWriter() {
+        return new BulkBlockWriter(platform);
+    }
+
     @Override
     @SuppressWarnings({"unchecked", "rawtypes"})
     public boolean setPickupStatus(Projectile projectile, String pickupStatus) {
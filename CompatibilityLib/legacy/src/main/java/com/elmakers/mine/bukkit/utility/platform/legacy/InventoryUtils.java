@@ -1,5 +1,6 @@
 package com.elmakers.mine.bukkit.utility.platform.legacy;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -44,8 +45,8 @@ public class InventoryUtils extends InventoryUtilsBase {
             try {
                 Object wrappedTag = wrapInTag(value);
                 if (wrappedTag == null) continue;
-                NMSUtils.class_NBTTagCompound_setMethod.invoke(node, tag.getKey(), wrappedTag);
-            } catch (Exception ex) {
+                NBTHandles.NBTTagCompound_set.invokeExact(node, tag.getKey(), wrappedTag);
+            } catch (Throwable ex) {
                 platform.getLogger().log(Level.WARNING, "Error saving item data tag " + tag.getKey(), ex);
             }
         }
@@ -85,8 +86,8 @@ public class InventoryUtils extends InventoryUtilsBase {
             try {
                 Object wrappedTag = wrapInTag(value);
                 if (wrappedTag == null) continue;
-                NMSUtils.class_NBTTagCompound_setMethod.invoke(node, tagName, wrappedTag);
-            } catch (Exception ex) {
+                NBTHandles.NBTTagCompound_set.invokeExact(node, tagName, wrappedTag);
+            } catch (Throwable ex) {
                 platform.getLogger().log(Level.WARNING, "Error saving item data tag " + tagName, ex);
             }
         }
@@ -117,10 +118,10 @@ public class InventoryUtils extends InventoryUtilsBase {
         } else if (value instanceof Long) {
             wrappedValue = NMSUtils.class_NBTTagLong_constructor.newInstance(value);
         } else if (value instanceof ConfigurationSection) {
-            wrappedValue = NMSUtils.class_NBTTagCompound_constructor.newInstance();
+            wrappedValue = newCompound();
             saveTagsToNBT((ConfigurationSection)value, wrappedValue, null);
         } else if (value instanceof Map) {
-            wrappedValue = NMSUtils.class_NBTTagCompound_constructor.newInstance();
+            wrappedValue = newCompound();
             @SuppressWarnings("unchecked")
             Map<String, Object> valueMap = (Map<String, Object>)value;
             addTagsToNBT(valueMap, wrappedValue);
@@ -178,8 +179,8 @@ public class InventoryUtils extends InventoryUtilsBase {
         }
 
         try {
-            return (Set<String>) NMSUtils.class_NBTTagCompound_getKeysMethod.invoke(tag);
-        } catch (Exception ex) {
+            return (Set<String>)NBTHandles.NBTTagCompound_getKeys.invokeExact(tag);
+        } catch (Throwable ex) {
             ex.printStackTrace();
         }
         return null;
@@ -188,9 +189,9 @@ public class InventoryUtils extends InventoryUtilsBase {
     @Override
     public Object getMetaObject(Object tag, String key) {
         try {
-            Object metaBase = NMSUtils.class_NBTTagCompound_getMethod.invoke(tag, key);
+            Object metaBase = (Object)NBTHandles.NBTTagCompound_get.invokeExact(tag, key);
             return getTagValue(metaBase);
-        } catch (Exception ex) {
+        } catch (Throwable ex) {
             ex.printStackTrace();
         }
         return null;
@@ -201,25 +202,25 @@ public class InventoryUtils extends InventoryUtilsBase {
         if (tag == null) return null;
         Object value = null;
         if (NMSUtils.class_NBTTagDouble.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagDouble_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagDouble_data, tag);
         } else if (NMSUtils.class_NBTTagInt.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagInt_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagInt_data, tag);
         } else if (NMSUtils.class_NBTTagLong.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagLong_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagLong_data, tag);
         } else if (NMSUtils.class_NBTTagFloat.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagFloat_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagFloat_data, tag);
         } else if (NMSUtils.class_NBTTagShort.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagShort_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagShort_data, tag);
         } else if (NMSUtils.class_NBTTagByte.isAssignableFrom(tag.getClass())) {
             // This is kind of nasty. Really need a type-juggling container class for config properties.
-            value = NMSUtils.class_NBTTagByte_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagByte_data, tag);
             if (value != null && value.equals((byte)0)) {
                 value = false;
             } else if (value != null && value.equals((byte)1)) {
                 value = true;
             }
         } else if (NMSUtils.class_NBTTagList.isAssignableFrom(tag.getClass())) {
-            List<?> items = (List<?>) NMSUtils.class_NBTTagList_list.get(tag);
+            List<?> items = (List<?>)getValue(NBTHandles.NBTTagList_list, tag);
             List<Object> converted = new ArrayList<>();
             for (Object baseTag : items) {
                 Object convertedBase = getTagValue(baseTag);
@@ -229,12 +230,12 @@ public class InventoryUtils extends InventoryUtilsBase {
             }
             value = converted;
         } else if (NMSUtils.class_NBTTagString.isAssignableFrom(tag.getClass())) {
-            value = NMSUtils.class_NBTTagString_dataField.get(tag);
+            value = getValue(NBTHandles.NBTTagString_data, tag);
         } else if (NMSUtils.class_NBTTagCompound.isAssignableFrom(tag.getClass())) {
             Map<String, Object> compoundMap = new HashMap<>();
             Set<String> keys = getTagKeys(tag);
             for (String key : keys) {
-                Object baseTag = NMSUtils.class_NBTTagCompound_getMethod.invoke(tag, key);
+                Object baseTag = getTag(tag, key);
                 Object convertedBase = getTagValue(baseTag);
                 if (convertedBase != null) {
                     compoundMap.put(key, convertedBase);
@@ -246,6 +247,30 @@ public class InventoryUtils extends InventoryUtilsBase {
         return value;
     }
 
+    private static Object getValue(MethodHandle getter, Object tag) throws InvocationTargetException {
+        try {
+            return (Object)getter.invokeExact(tag);
+        } catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    private static Object getTag(Object tag, String key) throws InvocationTargetException {
+        try {
+            return (Object)NBTHandles.NBTTagCompound_get.invokeExact(tag, key);
+        } catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+    private static Object newCompound() throws InvocationTargetException {
+        try {
+            return (Object)NBTHandles.NBTTagCompound_constructor.invokeExact();
+        } catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
     @Override
     public ItemStack setSkullURL(ItemStack itemStack, URL url, UUID id, String name) {
         try {
@@ -21,7 +21,7 @@ public class ItemUtils extends ItemUtilsBase {
     public Object getHandle(org.bukkit.inventory.ItemStack stack) {
         Object handle = null;
         try {
-            handle = NMSUtils.class_CraftItemStack_getHandleField.get(stack);
+            handle = (Object)NBTHandles.CraftItemStack_handle.invokeExact((Object)stack);
         } catch (Throwable ex) {
             handle = null;
         }
@@ -32,7 +32,7 @@ public class ItemUtils extends ItemUtilsBase {
     public Object getTag(Object mcItemStack) {
         Object tag = null;
         try {
-            tag = NMSUtils.class_ItemStack_tagField.get(mcItemStack);
+            tag = (Object)NBTHandles.ItemStack_tag.invokeExact(mcItemStack);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -51,7 +51,7 @@ public class ItemUtils extends ItemUtilsBase {
                 }
             }
             if (mcItemStack == null) return null;
-            tag = NMSUtils.class_ItemStack_tagField.get(mcItemStack);
+            tag = (Object)NBTHandles.ItemStack_tag.invokeExact(mcItemStack);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -95,9 +95,9 @@ public class ItemUtils extends ItemUtilsBase {
             return null;
         }
         try {
-            Object tag = NMSUtils.class_ItemStack_tagField.get(nmsStack);
+            Object tag = (Object)NBTHandles.ItemStack_tag.invokeExact(nmsStack);
             if (tag == null) {
-                NMSUtils.class_ItemStack_tagField.set(nmsStack, NMSUtils.class_NBTTagCompound_constructor.newInstance());
+                NBTHandles.ItemStack_setTag.invokeExact(nmsStack, (Object)NBTHandles.NBTTagCompound_constructor.invokeExact());
             }
         } catch (Throwable ex) {
             ex.printStackTrace();
@@ -134,7 +134,7 @@ public class ItemUtils extends ItemUtilsBase {
 
             Object unbreakableFlag = null;
             unbreakableFlag = NMSUtils.class_NBTTagByte_constructor.newInstance((byte) 1);
-            NMSUtils.class_NBTTagCompound_setMethod.invoke(tagObject, "Unbreakable", unbreakableFlag);
+            NBTHandles.NBTTagCompound_set.invokeExact(tagObject, "Unbreakable", unbreakableFlag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -1,5 +1,8 @@
 package com.elmakers.mine.bukkit.utility.platform.legacy;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -9,13 +12,15 @@ import java.lang.reflect.Method;
  *
  * <p>This is here to bridge the static construction method of 1.15, while falling back to direct constructor access,
  * including private constructors.
+ *
+ * <p>Whichever is found is bound to a MethodHandle, so creating tags doesn't go through reflection.
  */
 public class NBTConstructor {
-    private Constructor<?> constructor;
-    private Method staticConstructor;
+    private final MethodHandle handle;
 
-    public NBTConstructor(Class<?> tagClass, Class<?> typeClass) throws NoSuchMethodException {
+    public NBTConstructor(Class<?> tagClass, Class<?> typeClass) throws NoSuchMethodException, IllegalAccessException {
         // First try to find a matching static method
+        Method staticConstructor = null;
         try {
             staticConstructor = tagClass.getMethod("a", typeClass);
             if (!tagClass.isAssignableFrom(staticConstructor.getReturnType())) {
@@ -24,17 +29,23 @@ public class NBTConstructor {
         } catch (Exception ignore) {
         }
 
-        if (staticConstructor == null) {
-            constructor = tagClass.getDeclaredConstructor(typeClass);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle;
+        if (staticConstructor != null) {
+            handle = lookup.unreflect(staticConstructor);
+        } else {
+            Constructor<?> constructor = tagClass.getDeclaredConstructor(typeClass);
             constructor.setAccessible(true);
+            handle = lookup.unreflectConstructor(constructor);
         }
+        this.handle = handle.asType(MethodType.methodType(Object.class, Object.class));
     }
 
     public Object newInstance(Object o) throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        if (staticConstructor != null) {
-            return staticConstructor.invoke(null, o);
+        try {
+            return (Object)handle.invokeExact(o);
+        } catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
         }
-
-        return constructor.newInstance(o);
     }
 }
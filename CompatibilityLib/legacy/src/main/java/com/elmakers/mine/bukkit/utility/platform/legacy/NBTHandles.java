@@ -0,0 +1,134 @@
+package com.elmakers.mine.bukkit.utility.platform.legacy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Method handles for the NBT and item internals that are used the most, such as when saving wand data.
+ *
+ * <p>These are bound from the reflected members in NMSUtils when this class is first loaded, which
+ * NMSUtils.initialize does once it has found them. Since these are static final, the JIT can inline
+ * calls made through them, and invokeExact avoids the argument arrays and boxing of Method.invoke.
+ *
+ * <p>All handles take and return Object in place of NMS types, so they should be called with
+ * invokeExact and casts that match the types given here exactly.
+ */
+public final class NBTHandles {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final List<String> unbound = new ArrayList<>();
+
+    // NBTTagCompound
+    public static final MethodHandle NBTTagCompound_constructor = bind(NMSUtils.class_NBTTagCompound_constructor);
+    public static final MethodHandle NBTTagCompound_get = bind(NMSUtils.class_NBTTagCompound_getMethod, Object.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getCompound = bind(NMSUtils.class_NBTTagCompound_getCompoundMethod, Object.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_set = bind(NMSUtils.class_NBTTagCompound_setMethod, void.class, Object.class, String.class, Object.class);
+    public static final MethodHandle NBTTagCompound_hasKey = bind(NMSUtils.class_NBTTagCompound_hasKeyMethod, boolean.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_remove = bind(NMSUtils.class_NBTTagCompound_removeMethod, void.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getKeys = bind(NMSUtils.class_NBTTagCompound_getKeysMethod, Set.class, Object.class);
+    public static final MethodHandle NBTTagCompound_getString = bind(NMSUtils.class_NBTTagCompound_getStringMethod, String.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getByte = bind(NMSUtils.class_NBTTagCompound_getByteMethod, byte.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getShort = bind(NMSUtils.class_NBTTagCompound_getShortMethod, short.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getInt = bind(NMSUtils.class_NBTTagCompound_getIntMethod, int.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getDouble = bind(NMSUtils.class_NBTTagCompound_getDoubleMethod, double.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_getBoolean = bind(NMSUtils.class_NBTTagCompound_getBooleanMethod, boolean.class, Object.class, String.class);
+    public static final MethodHandle NBTTagCompound_setString = bind(NMSUtils.class_NBTTagCompound_setStringMethod, void.class, Object.class, String.class, String.class);
+    public static final MethodHandle NBTTagCompound_setShort = bind(NMSUtils.class_NBTTagCompound_setShortMethod, void.class, Object.class, String.class, short.class);
+    public static final MethodHandle NBTTagCompound_setInt = bind(NMSUtils.class_NBTTagCompound_setIntMethod, void.class, Object.class, String.class, int.class);
+    public static final MethodHandle NBTTagCompound_setLong = bind(NMSUtils.class_NBTTagCompound_setLongMethod, void.class, Object.class, String.class, long.class);
+    public static final MethodHandle NBTTagCompound_setDouble = bind(NMSUtils.class_NBTTagCompound_setDoubleMethod, void.class, Object.class, String.class, double.class);
+    public static final MethodHandle NBTTagCompound_setBoolean = bind(NMSUtils.class_NBTTagCompound_setBooleanMethod, void.class, Object.class, String.class, boolean.class);
+
+    // NBTTagList
+    public static final MethodHandle NBTTagList_list = bindGetter(NMSUtils.class_NBTTagList_list);
+    public static final MethodHandle NBTTagList_size = bind(NMSUtils.class_NBTTagList_sizeMethod, int.class, Object.class);
+    public static final MethodHandle NBTTagList_get = bind(NMSUtils.class_NBTTagList_getMethod, Object.class, Object.class, int.class);
+    // In current versions this takes an index to add at
+    public static final MethodHandle NBTTagList_add = NMSUtils.isCurrentVersion
+            ? bind(NMSUtils.class_NBTTagList_addMethod, void.class, Object.class, int.class, Object.class)
+            : bind(NMSUtils.class_NBTTagList_addMethod, void.class, Object.class, Object.class);
+
+    // Tag values, returned boxed
+    public static final MethodHandle NBTTagByte_data = bindGetter(NMSUtils.class_NBTTagByte_dataField);
+    public static final MethodHandle NBTTagShort_data = bindGetter(NMSUtils.class_NBTTagShort_dataField);
+    public static final MethodHandle NBTTagInt_data = bindGetter(NMSUtils.class_NBTTagInt_dataField);
+    public static final MethodHandle NBTTagLong_data = bindGetter(NMSUtils.class_NBTTagLong_dataField);
+    public static final MethodHandle NBTTagFloat_data = bindGetter(NMSUtils.class_NBTTagFloat_dataField);
+    public static final MethodHandle NBTTagDouble_data = bindGetter(NMSUtils.class_NBTTagDouble_dataField);
+    public static final MethodHandle NBTTagString_data = bindGetter(NMSUtils.class_NBTTagString_dataField);
+
+    // Items
+    public static final MethodHandle CraftItemStack_handle = bindGetter(NMSUtils.class_CraftItemStack_getHandleField);
+    public static final MethodHandle ItemStack_tag = bindGetter(NMSUtils.class_ItemStack_tagField);
+    public static final MethodHandle ItemStack_setTag = bindSetter(NMSUtils.class_ItemStack_tagField);
+
+    // Handles of Bukkit objects
+    public static final MethodHandle CraftWorld_getHandle = bind(NMSUtils.class_CraftWorld_getHandleMethod, Object.class, Object.class);
+    public static final MethodHandle CraftChunk_getHandle = bind(NMSUtils.class_CraftChunk_getHandleMethod, Object.class, Object.class);
+    public static final MethodHandle CraftEntity_getHandle = bind(NMSUtils.class_CraftEntity_getHandleMethod, Object.class, Object.class);
+    public static final MethodHandle CraftLivingEntity_getHandle = bind(NMSUtils.class_CraftLivingEntity_getHandleMethod, Object.class, Object.class);
+    public static final MethodHandle CraftPlayer_getHandle = bind(NMSUtils.class_CraftPlayer_getHandleMethod, Object.class, Object.class);
+
+    private NBTHandles() {
+    }
+
+    /**
+     * Called by NMSUtils once initialized, to bind all of the handles.
+     *
+     * @return false if anything could not be bound
+     */
+    public static boolean initialize(Logger logger) {
+        if (!unbound.isEmpty()) {
+            logger.warning("Could not bind method handles for: " + unbound);
+            return false;
+        }
+        return true;
+    }
+
+    private static MethodHandle bind(Method method, Class<?> returnType, Class<?>... parameterTypes) {
+        if (method == null) return null;
+        try {
+            return lookup.unreflect(method).asType(MethodType.methodType(returnType, parameterTypes));
+        } catch (Exception ex) {
+            unbound.add(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+            return null;
+        }
+    }
+
+    private static MethodHandle bind(Constructor<?> constructor) {
+        if (constructor == null) return null;
+        try {
+            return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (Exception ex) {
+            unbound.add(constructor.getDeclaringClass().getSimpleName() + " constructor");
+            return null;
+        }
+    }
+
+    private static MethodHandle bindGetter(Field field) {
+        if (field == null) return null;
+        try {
+            return lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (Exception ex) {
+            unbound.add(field.getDeclaringClass().getSimpleName() + "." + field.getName());
+            return null;
+        }
+    }
+
+    private static MethodHandle bindSetter(Field field) {
+        if (field == null) return null;
+        try {
+            return lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (Exception ex) {
+            unbound.add(field.getDeclaringClass().getSimpleName() + "." + field.getName() + " setter");
+            return null;
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class NBTUtils extends NBTUtilsBase {
         try {
             Object tagObject = platform.getItemUtils().getTag(stack);
             if (tagObject == null) return null;
-            meta = NMSUtils.class_NBTTagCompound_getMethod.invoke(tagObject, tag);
+            meta = (Object)NBTHandles.NBTTagCompound_get.invokeExact(tagObject, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -37,7 +37,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (nbtBase == null) return null;
         Object meta = null;
         try {
-            meta = NMSUtils.class_NBTTagCompound_getMethod.invoke(nbtBase, tag);
+            meta = (Object)NBTHandles.NBTTagCompound_get.invokeExact(nbtBase, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -47,9 +47,9 @@ public class NBTUtils extends NBTUtilsBase {
     @Override
     public boolean contains(Object nbtBase, String tag) {
         if (nbtBase == null) return false;
-        Boolean result = false;
+        boolean result = false;
         try {
-            result = (Boolean) NMSUtils.class_NBTTagCompound_hasKeyMethod.invoke(nbtBase, tag);
+            result = (boolean)NBTHandles.NBTTagCompound_hasKey.invokeExact(nbtBase, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -61,8 +61,8 @@ public class NBTUtils extends NBTUtilsBase {
         if (nbtBase == null) return null;
         Object meta = null;
         try {
-            meta = NMSUtils.class_NBTTagCompound_getCompoundMethod.invoke(nbtBase, tag);
-            NMSUtils.class_NBTTagCompound_setMethod.invoke(nbtBase, tag, meta);
+            meta = (Object)NBTHandles.NBTTagCompound_getCompound.invokeExact(nbtBase, tag);
+            NBTHandles.NBTTagCompound_set.invokeExact(nbtBase, tag, meta);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -79,11 +79,11 @@ public class NBTUtils extends NBTUtilsBase {
                 if (craft == null) return null;
                 Object tagObject = platform.getItemUtils().getTag(craft);
                 if (tagObject == null) {
-                    tagObject = NMSUtils.class_NBTTagCompound_constructor.newInstance();
-                    NMSUtils.class_ItemStack_tagField.set(craft, tagObject);
+                    tagObject = (Object)NBTHandles.NBTTagCompound_constructor.invokeExact();
+                    NBTHandles.ItemStack_setTag.invokeExact(craft, tagObject);
                 }
-                outputObject = NMSUtils.class_NBTTagCompound_constructor.newInstance();
-                NMSUtils.class_NBTTagCompound_setMethod.invoke(tagObject, tag, outputObject);
+                outputObject = (Object)NBTHandles.NBTTagCompound_constructor.invokeExact();
+                NBTHandles.NBTTagCompound_set.invokeExact(tagObject, tag, outputObject);
             } catch (Throwable ex) {
                 ex.printStackTrace();
             }
@@ -96,7 +96,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         String meta = null;
         try {
-            meta = (String) NMSUtils.class_NBTTagCompound_getStringMethod.invoke(node, tag);
+            meta = (String)NBTHandles.NBTTagCompound_getString.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -110,7 +110,7 @@ public class NBTUtils extends NBTUtilsBase {
         try {
             Object tagObject = platform.getItemUtils().getTag(stack);
             if (tagObject == null) return null;
-            meta = (String) NMSUtils.class_NBTTagCompound_getStringMethod.invoke(tagObject, tag);
+            meta = (String)NBTHandles.NBTTagCompound_getString.invokeExact(tagObject, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -122,7 +122,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         Byte meta = null;
         try {
-            meta = (Byte) NMSUtils.class_NBTTagCompound_getByteMethod.invoke(node, tag);
+            meta = (byte)NBTHandles.NBTTagCompound_getByte.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -134,7 +134,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         Integer meta = null;
         try {
-            meta = (Integer) NMSUtils.class_NBTTagCompound_getIntMethod.invoke(node, tag);
+            meta = (int)NBTHandles.NBTTagCompound_getInt.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -146,7 +146,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         Short meta = null;
         try {
-            meta = (Short) NMSUtils.class_NBTTagCompound_getShortMethod.invoke(node, tag);
+            meta = (short)NBTHandles.NBTTagCompound_getShort.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -158,7 +158,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         Double meta = null;
         try {
-            meta = (Double) NMSUtils.class_NBTTagCompound_getDoubleMethod.invoke(node, tag);
+            meta = (double)NBTHandles.NBTTagCompound_getDouble.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -170,7 +170,7 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return null;
         Boolean meta = null;
         try {
-            meta = (Boolean) NMSUtils.class_NBTTagCompound_getBooleanMethod.invoke(node, tag);
+            meta = (boolean)NBTHandles.NBTTagCompound_getBoolean.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -182,9 +182,9 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
             if (value == null || value.length() == 0) {
-                NMSUtils.class_NBTTagCompound_removeMethod.invoke(node, tag);
+                NBTHandles.NBTTagCompound_remove.invokeExact(node, tag);
             } else {
-                NMSUtils.class_NBTTagCompound_setStringMethod.invoke(node, tag, value);
+                NBTHandles.NBTTagCompound_setString.invokeExact(node, tag, value);
             }
         } catch (Throwable ex) {
             ex.printStackTrace();
@@ -199,7 +199,7 @@ public class NBTUtils extends NBTUtilsBase {
             if (craft == null) return;
             Object tagObject = platform.getItemUtils().getTag(craft);
             if (tagObject == null) return;
-            NMSUtils.class_NBTTagCompound_setStringMethod.invoke(tagObject, tag, value);
+            NBTHandles.NBTTagCompound_setString.invokeExact(tagObject, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -209,7 +209,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void setLong(Object node, String tag, long value) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_setLongMethod.invoke(node, tag, value);
+            NBTHandles.NBTTagCompound_setLong.invokeExact(node, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -219,7 +219,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void setBoolean(Object node, String tag, boolean value) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_setBooleanMethod.invoke(node, tag, value);
+            NBTHandles.NBTTagCompound_setBoolean.invokeExact(node, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -229,7 +229,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void setDouble(Object node, String tag, double value) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_setDoubleMethod.invoke(node, tag, value);
+            NBTHandles.NBTTagCompound_setDouble.invokeExact(node, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -239,7 +239,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void setInt(Object node, String tag, int value) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_setIntMethod.invoke(node, tag, value);
+            NBTHandles.NBTTagCompound_setInt.invokeExact(node, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -249,7 +249,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void setMetaShort(Object node, String tag, short value) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_setShortMethod.invoke(node, tag, value);
+            NBTHandles.NBTTagCompound_setShort.invokeExact(node, tag, value);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -274,7 +274,7 @@ public class NBTUtils extends NBTUtilsBase {
     public void removeMeta(Object node, String tag) {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
-            NMSUtils.class_NBTTagCompound_removeMethod.invoke(node, tag);
+            NBTHandles.NBTTagCompound_remove.invokeExact(node, tag);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -285,9 +285,9 @@ public class NBTUtils extends NBTUtilsBase {
         if (node == null || !NMSUtils.class_NBTTagCompound.isInstance(node)) return;
         try {
             if (child == null) {
-                NMSUtils.class_NBTTagCompound_removeMethod.invoke(node, tag);
+                NBTHandles.NBTTagCompound_remove.invokeExact(node, tag);
             } else {
-                NMSUtils.class_NBTTagCompound_setMethod.invoke(node, tag, child);
+                NBTHandles.NBTTagCompound_set.invokeExact(node, tag, child);
             }
         } catch (Throwable ex) {
             ex.printStackTrace();
@@ -303,9 +303,9 @@ public class NBTUtils extends NBTUtilsBase {
             Object node = platform.getItemUtils().getTag(craft);
             if (node == null) return false;
             if (child == null) {
-                NMSUtils.class_NBTTagCompound_removeMethod.invoke(node, tag);
+                NBTHandles.NBTTagCompound_remove.invokeExact(node, tag);
             } else {
-                NMSUtils.class_NBTTagCompound_setMethod.invoke(node, tag, child);
+                NBTHandles.NBTTagCompound_set.invokeExact(node, tag, child);
             }
         } catch (Throwable ex) {
             ex.printStackTrace();
@@ -319,12 +319,12 @@ public class NBTUtils extends NBTUtilsBase {
     public void addToList(Object listObject, Object node) {
         try {
             if (NMSUtils.isCurrentVersion) {
-                int size = (Integer) NMSUtils.class_NBTTagList_sizeMethod.invoke(listObject);
-                NMSUtils.class_NBTTagList_addMethod.invoke(listObject, size, node);
+                int size = (int)NBTHandles.NBTTagList_size.invokeExact(listObject);
+                NBTHandles.NBTTagList_add.invokeExact(listObject, size, node);
             } else {
-                NMSUtils.class_NBTTagList_addMethod.invoke(listObject, node);
+                NBTHandles.NBTTagList_add.invokeExact(listObject, node);
             }
-        } catch (Exception ex) {
+        } catch (Throwable ex) {
             ex.printStackTrace();
         }
     }
@@ -373,8 +373,8 @@ public class NBTUtils extends NBTUtilsBase {
     public Set<String> getAllKeys(Object nbtBase) {
         Set<String> keys = null;
         try {
-            keys = (Set<String>) NMSUtils.class_NBTTagCompound_getKeysMethod.invoke(nbtBase);
-        } catch (Exception ex) {
+            keys = (Set<String>)NBTHandles.NBTTagCompound_getKeys.invokeExact(nbtBase);
+        } catch (Throwable ex) {
             platform.getLogger().log(Level.WARNING, "Error reading keys from tag", ex);
         }
         return keys;
@@ -387,13 +387,13 @@ public class NBTUtils extends NBTUtilsBase {
         try {
             Object listTag = NMSUtils.class_NBTTagCompound_getListMethod.invoke(tag, key, CompatibilityConstants.NBT_TYPE_COMPOUND);
             if (listTag != null) {
-                int size = (Integer) NMSUtils.class_NBTTagList_sizeMethod.invoke(listTag);
+                int size = (int)NBTHandles.NBTTagList_size.invokeExact(listTag);
                 for (int i = 0; i < size; i++) {
-                    Object entity = NMSUtils.class_NBTTagList_getMethod.invoke(listTag, i);
+                    Object entity = (Object)NBTHandles.NBTTagList_get.invokeExact(listTag, i);
                     list.add(entity);
                 }
             }
-        } catch (Exception ex) {
+        } catch (Throwable ex) {
             platform.getLogger().log(Level.WARNING, "Error reading list from tag", ex);
         }
         return list;
@@ -403,8 +403,8 @@ public class NBTUtils extends NBTUtilsBase {
     public Object newCompoundTag() {
         Object tag = null;
         try {
-            tag = NMSUtils.class_NBTTagCompound_constructor.newInstance();
-        } catch (Exception ex) {
+            tag = (Object)NBTHandles.NBTTagCompound_constructor.invokeExact();
+        } catch (Throwable ex) {
             platform.getLogger().log(Level.WARNING, "Error creating new Compoundtag", ex);
         }
         return tag;
@@ -1726,6 +1726,9 @@ public class NMSUtils {
                 class_CraftBlock = null;
                 logger.log(Level.WARNING, "Could not bind to auto block state methods");
             }
+
+            // Bind method handles for the members used most, now that they've all been found
+            NBTHandles.initialize(logger);
         } catch (Throwable ex) {
             failed = true;
             logger.log(Level.SEVERE, "An unexpected error occurred initializing Magic", ex);
@@ -1788,7 +1791,7 @@ public class NMSUtils {
         if (world == null) return null;
         Object handle = null;
         try {
-            handle = class_CraftWorld_getHandleMethod.invoke(world);
+            handle = (Object)NBTHandles.CraftWorld_getHandle.invokeExact((Object)world);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -1799,7 +1802,7 @@ public class NMSUtils {
         if (entity == null) return null;
         Object handle = null;
         try {
-            handle = class_CraftEntity_getHandleMethod.invoke(entity);
+            handle = (Object)NBTHandles.CraftEntity_getHandle.invokeExact((Object)entity);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -1810,7 +1813,7 @@ public class NMSUtils {
         if (entity == null) return null;
         Object handle = null;
         try {
-            handle = class_CraftLivingEntity_getHandleMethod.invoke(entity);
+            handle = (Object)NBTHandles.CraftLivingEntity_getHandle.invokeExact((Object)entity);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -1820,7 +1823,7 @@ public class NMSUtils {
     public static Object getHandle(org.bukkit.Chunk chunk) {
         Object handle = null;
         try {
-            handle = class_CraftChunk_getHandleMethod.invoke(chunk);
+            handle = (Object)NBTHandles.CraftChunk_getHandle.invokeExact((Object)chunk);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
@@ -1830,7 +1833,7 @@ public class NMSUtils {
     public static Object getHandle(org.bukkit.entity.Player player) {
         Object handle = null;
         try {
-            handle = class_CraftPlayer_getHandleMethod.invoke(player);
+            handle = (Object)NBTHandles.CraftPlayer_getHandle.invokeExact((Object)player);
         } catch (Throwable ex) {
             ex.printStackTrace();
         }
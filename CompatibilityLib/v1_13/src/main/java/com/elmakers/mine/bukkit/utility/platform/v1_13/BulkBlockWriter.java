@@ -0,0 +1,38 @@
+package com.elmakers.mine.bukkit.utility.platform.v1_13;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+
+import com.elmakers.mine.bukkit.utility.platform.Platform;
+import com.elmakers.mine.bukkit.utility.platform.base.BulkBlockWriterBase;
+
+/**
+ * Block states are parsed once each rather than once per block, and written through the
+ * block data API without physics. The server collects these changes per section and
+ * sends them out together at the end of the tick.
+ */
+public class BulkBlockWriter extends BulkBlockWriterBase<BlockData> {
+    public BulkBlockWriter(Platform platform) {
+        super(platform);
+    }
+
+    @Nullable
+    @Override
+    protected BlockData createState(Material material, byte data, @Nullable String blockState) {
+        if (blockState == null) {
+            return material.createBlockData();
+        }
+        return platform.getPlugin().getServer().createBlockData(material, blockState);
+    }
+
+    @Override
+    protected void writeSection(Section<BlockData> section) {
+        World world = section.getWorld();
+        for (int i = 0; i < section.size(); i++) {
+            world.getBlockAt(section.getBlockX(i), section.getBlockY(i), section.getBlockZ(i)).setBlockData(section.getState(i), false);
+        }
+    }
+}
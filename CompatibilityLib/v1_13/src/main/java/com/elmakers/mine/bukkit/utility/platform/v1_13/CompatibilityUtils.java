@@ -242,4 +242,9 @@ public class CompatibilityUtils extends com.elmakers.mine.bukkit.utility.platfor
 
         return super.spawnFallingBlock(location, material, blockDataString);
     }
+
+    @Override
+    public com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter createBulkBlockWriter() {
+        return new BulkBlockWriter(platform);
+    }
 }
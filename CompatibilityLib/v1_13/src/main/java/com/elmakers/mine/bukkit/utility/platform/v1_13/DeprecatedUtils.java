@@ -1,5 +1,7 @@
 package com.elmakers.mine.bukkit.utility.platform.v1_13;
 
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
 import org.bukkit.block.Skull;
 
 import com.elmakers.mine.bukkit.utility.platform.Platform;
@@ -17,5 +19,15 @@ public class DeprecatedUtils extends com.elmakers.mine.bukkit.utility.platform.l
     public short getSkullType(Skull skullBlock) {
         return 0;
     }
+
+    @Override
+    public Material getType(ChunkSnapshot snapshot, int x, int y, int z) {
+        return snapshot.getBlockType(x, y, z);
+    }
+
+    @Override
+    public byte getData(ChunkSnapshot snapshot, int x, int y, int z) {
+        return 0;
+    }
 }
 
@@ -1,5 +1,6 @@
 package com.elmakers.mine.bukkit.utility.platform.v1_15;
 
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
 import org.bukkit.block.Biome;
 
@@ -15,4 +16,9 @@ public class DeprecatedUtils extends com.elmakers.mine.bukkit.utility.platform.v
     public Biome getBiome(Location location) {
         return location.getWorld().getBiome(location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
+
+    @Override
+    public Biome getBiome(ChunkSnapshot snapshot, int x, int y, int z) {
+        return snapshot.getBiome(x, y, z);
+    }
 }
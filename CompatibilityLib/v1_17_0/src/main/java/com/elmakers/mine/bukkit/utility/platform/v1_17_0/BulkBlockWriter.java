@@ -0,0 +1,129 @@
+package com.elmakers.mine.bukkit.utility.platform.v1_17_0;
+
+import java.util.BitSet;
+import javax.annotation.Nullable;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_17_R1.CraftWorld;
+import org.bukkit.craftbukkit.v1_17_R1.block.data.CraftBlockData;
+import org.bukkit.craftbukkit.v1_17_R1.util.CraftMagicNumbers;
+
+import com.elmakers.mine.bukkit.utility.platform.Platform;
+import com.elmakers.mine.bukkit.utility.platform.base.BulkBlockWriterBase;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ThreadedLevelLightEngine;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+/**
+ * Writes block states straight into chunk sections, skipping the per-block work
+ * done by Level.setBlock such as physics, neighbor updates and block events.
+ *
+ * <p>The changes are passed on to the chunk's tracker, which sends them to players as one
+ * packet per section at the end of the tick. The light engine is told about each section
+ * once it has been written, and then about the blocks in it whose light properties changed.
+ * It has no way to relight a section as a whole: relighting a chunk only adds light
+ * from light sources, and would leave behind light from blocks that were removed.
+ *
+ * <p>Blocks with tile entities are not handled here, since those need to be created
+ * and set up, and are left to be written the usual way.
+ *
+ * <p>This is the same as the writer for the other 1.17 version. Each version module is
+ * compiled against Mojang's names and remapped to that server version's obfuscated names,
+ * so code using the server internals can't be shared between them.
+ */
+public class BulkBlockWriter extends BulkBlockWriterBase<BlockState> {
+    private final BlockPos.MutableBlockPos position = new BlockPos.MutableBlockPos();
+    // Blocks in the section being written that need their light checked, by position in the section
+    private final BitSet relight = new BitSet(4096);
+
+    public BulkBlockWriter(Platform platform) {
+        super(platform);
+    }
+
+    @Nullable
+    @Override
+    protected BlockState createState(Material material, byte data, @Nullable String blockState) {
+        if (!material.isBlock()) {
+            return null;
+        }
+        BlockState state;
+        if (blockState == null) {
+            state = CraftMagicNumbers.getBlock(material).defaultBlockState();
+        } else {
+            state = ((CraftBlockData)platform.getPlugin().getServer().createBlockData(material, blockState)).getState();
+        }
+        return state.hasBlockEntity() ? null : state;
+    }
+
+    @Override
+    protected void writeSection(Section<BlockState> section) {
+        ServerLevel level = ((CraftWorld)section.getWorld()).getHandle();
+        LevelChunk chunk = level.getChunk(section.getX(), section.getZ());
+        LevelChunkSection[] chunkSections = chunk.getSections();
+        int sectionIndex = chunk.getSectionIndexFromSectionY(section.getY());
+        if (sectionIndex < 0 || sectionIndex >= chunkSections.length) {
+            return;
+        }
+        LevelChunkSection chunkSection = chunkSections[sectionIndex];
+        if (chunkSection == null) {
+            chunkSection = new LevelChunkSection(section.getY());
+            chunkSections[sectionIndex] = chunkSection;
+        }
+
+        ServerChunkCache chunkSource = level.getChunkSource();
+        ThreadedLevelLightEngine lightEngine = chunkSource.getLightEngine();
+        boolean wasEmpty = chunkSection.isEmpty();
+        boolean changed = false;
+        for (int i = 0; i < section.size(); i++) {
+            int x = section.getBlockX(i);
+            int y = section.getBlockY(i);
+            int z = section.getBlockZ(i);
+            BlockState state = section.getState(i);
+            BlockState previous = chunkSection.setBlockState(x & 15, y & 15, z & 15, state, false);
+            if (previous == state) continue;
+            changed = true;
+
+            position.set(x, y, z);
+            if (previous.hasBlockEntity()) {
+                chunk.removeBlockEntity(position);
+            }
+            chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.MOTION_BLOCKING).update(x & 15, y, z & 15, state);
+            chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES).update(x & 15, y, z & 15, state);
+            chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.OCEAN_FLOOR).update(x & 15, y, z & 15, state);
+            chunk.getOrCreateHeightmapUnprimed(Heightmap.Types.WORLD_SURFACE).update(x & 15, y, z & 15, state);
+
+            // Same check Level.setBlock makes before relighting a block
+            if (previous.getLightBlock(level, position) != state.getLightBlock(level, position)
+                    || previous.getLightEmission() != state.getLightEmission()
+                    || previous.useShapeForLightOcclusion() || state.useShapeForLightOcclusion()) {
+                relight.set(((x & 15) << 8) | ((z & 15) << 4) | (y & 15));
+            }
+            level.onBlockStateChange(position, previous, state);
+            chunkSource.blockChanged(position);
+        }
+        if (!changed) return;
+
+        boolean isEmpty = chunkSection.isEmpty();
+        if (wasEmpty != isEmpty) {
+            lightEngine.updateSectionStatus(SectionPos.of(section.getX(), section.getY(), section.getZ()), isEmpty);
+        }
+
+        // Queued after the whole section is written, so each block is only checked once
+        // however many times it was changed
+        int originX = section.getX() << 4;
+        int originY = section.getY() << 4;
+        int originZ = section.getZ() << 4;
+        for (int i = relight.nextSetBit(0); i >= 0; i = relight.nextSetBit(i + 1)) {
+            lightEngine.checkBlock(new BlockPos(originX + (i >> 8), originY + (i & 15), originZ + ((i >> 4) & 15)));
+        }
+        relight.clear();
+        chunk.setUnsaved(true);
+    }
+}
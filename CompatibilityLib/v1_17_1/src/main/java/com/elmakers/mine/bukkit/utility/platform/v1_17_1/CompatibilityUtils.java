@@ -1018,6 +1018,11 @@ public class CompatibilityUtils extends com.elmakers.mine.bukkit.utility.platfor
         return true;
     }
 
+    @Override
+    public com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter createBulkBlockWriter() {
+        return new BulkBlockWriter(platform);
+    }
+
     @Override
     public boolean setPickupStatus(Projectile projectile, String pickupStatus) {
         if (!(projectile instanceof AbstractArrow)) return false;
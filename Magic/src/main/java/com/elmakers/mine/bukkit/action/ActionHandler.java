@@ -20,6 +20,7 @@ import com.elmakers.mine.bukkit.api.spell.Spell;
 import com.elmakers.mine.bukkit.api.spell.SpellResult;
 import com.elmakers.mine.bukkit.batch.ActionBatch;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.Profiler;
 
 public class ActionHandler implements com.elmakers.mine.bukkit.api.action.ActionHandler, Cloneable
 {
@@ -218,7 +219,13 @@ public class ActionHandler implements com.elmakers.mine.bukkit.api.action.Action
                 advance(context);
                 continue;
             }
-            SpellResult actionResult = action.perform(context);
+            SpellResult actionResult;
+            long profile = Profiler.start(action.getAction().getClass());
+            try {
+                actionResult = action.perform(context);
+            } finally {
+                Profiler.stop(profile);
+            }
             context.addWork(1);
             if (actionResult == SpellResult.PENDING) {
                 isPending = true;
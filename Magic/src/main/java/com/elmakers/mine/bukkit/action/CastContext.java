@@ -119,7 +119,6 @@ public class CastContext extends WandContext implements com.elmakers.mine.bukkit
         this.result = SpellResult.NO_ACTION;
         this.startTime = System.currentTimeMillis();
         targetMessagesSent = new HashSet<>();
-        messageParameters = new HashMap<>();
     }
 
     public CastContext(@Nonnull MageSpell spell) {
@@ -147,7 +146,18 @@ public class CastContext extends WandContext implements com.elmakers.mine.bukkit
     }
 
     protected void copyFrom(com.elmakers.mine.bukkit.api.action.CastContext copy) {
-        this.spell = setSpell((MageSpell)copy.getSpell());
+        if (copy instanceof CastContext) {
+            // Skip working out the spell types and mage class again, these are copied below
+            CastContext parent = (CastContext)copy;
+            this.spell = parent.spell;
+            this.baseSpell = parent.baseSpell;
+            this.undoSpell = parent.undoSpell;
+            this.targetingSpell = parent.targetingSpell;
+            this.blockSpell = parent.blockSpell;
+            this.brushSpell = parent.brushSpell;
+        } else {
+            this.spell = setSpell((MageSpell)copy.getSpell());
+        }
         this.setTargetEntity(copy.getTargetEntity());
         this.targetLocation = copy.getTargetLocation();
         if (this.targetLocation != null) {
@@ -176,7 +186,6 @@ public class CastContext extends WandContext implements com.elmakers.mine.bukkit
             this.initialResult = ((CastContext)copy).initialResult;
             this.alternateResult = ((CastContext)copy).alternateResult;
             this.direction = ((CastContext)copy).direction;
-            this.messageParameters = ((CastContext)copy).messageParameters;
             this.targetCaster = ((CastContext)copy).targetCaster;
             this.brush = ((CastContext)copy).brush;
             this.previousBlock = ((CastContext)copy).previousBlock;
@@ -1431,7 +1440,8 @@ public class CastContext extends WandContext implements com.elmakers.mine.bukkit
                         return Double.toString(attribute);
                     }
                 }
-                String messageParameter = messageParameters.get(symbol);
+                // Message parameters are shared by the whole cast, and only created when first used
+                String messageParameter = base.messageParameters == null ? null : base.messageParameters.get(symbol);
                 if (messageParameter != null) return messageParameter;
         }
         return ((Replacer)getMage()).getReplacement(symbol, integerValues);
@@ -1617,7 +1627,10 @@ public class CastContext extends WandContext implements com.elmakers.mine.bukkit
 
     @Override
     public void addMessageParameter(String key, String value) {
-        messageParameters.put(key, value);
+        if (base.messageParameters == null) {
+            base.messageParameters = new HashMap<>();
+        }
+        base.messageParameters.put(key, value);
     }
 
     @Override
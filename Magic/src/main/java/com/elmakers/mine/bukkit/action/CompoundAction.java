@@ -17,6 +17,7 @@ import com.elmakers.mine.bukkit.api.action.SpellAction;
 import com.elmakers.mine.bukkit.api.magic.Mage;
 import com.elmakers.mine.bukkit.api.spell.Spell;
 import com.elmakers.mine.bukkit.api.spell.SpellResult;
+import com.elmakers.mine.bukkit.utility.Profiler;
 import com.google.common.base.Preconditions;
 
 public abstract class CompoundAction extends BaseSpellAction
@@ -106,7 +107,12 @@ public abstract class CompoundAction extends BaseSpellAction
 
             ActionHandler handler = currentHandler == null ? null : handlers.get(currentHandler);
             if (handler != null) {
-                result = result.min(handler.perform(actionContext));
+                long profile = Profiler.start(currentHandler);
+                try {
+                    result = result.min(handler.perform(actionContext));
+                } finally {
+                    Profiler.stop(profile);
+                }
                 if (result.isStop()) break;
                 if (stopOnSuccess && result.isSuccess()) {
                     result = SpellResult.STOP;
@@ -155,7 +161,11 @@ public abstract class CompoundAction extends BaseSpellAction
     public void start(CastContext context, ConfigurationSection parameters)
     {
         super.start(context, parameters);
-        ran = new HashSet<>();
+        if (ran == null) {
+            ran = new HashSet<>();
+        } else {
+            ran.clear();
+        }
         for (ActionHandler handler : handlers.values()) {
             handler.start(context, context.getWorkingParameters());
         }
@@ -373,7 +383,8 @@ public abstract class CompoundAction extends BaseSpellAction
         CompoundAction action = (CompoundAction)super.clone();
         if (action != null)
         {
-            action.handlers = new HashMap<>();
+            action.ran = null;
+            action.handlers = new HashMap<>(handlers.size());
             for (Map.Entry<String, ActionHandler> entry : handlers.entrySet())
             {
                 action.handlers.put(entry.getKey(), (ActionHandler)entry.getValue().clone());
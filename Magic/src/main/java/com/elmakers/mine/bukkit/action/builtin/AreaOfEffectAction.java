@@ -21,7 +21,7 @@ import com.elmakers.mine.bukkit.api.block.UndoList;
 import com.elmakers.mine.bukkit.api.magic.Mage;
 import com.elmakers.mine.bukkit.api.spell.Spell;
 import com.elmakers.mine.bukkit.spell.BaseSpell;
-import com.elmakers.mine.bukkit.utility.CompatibilityLib;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 import com.elmakers.mine.bukkit.utility.Target;
 
 public class AreaOfEffectAction extends CompoundEntityAction
@@ -76,7 +76,7 @@ public class AreaOfEffectAction extends CompoundEntityAction
                     + ChatColor.GRAY + " self? " + ChatColor.DARK_GRAY + context.getTargetsCaster(), 14
             );
         }
-        Collection<Entity> candidates = CompatibilityLib.getCompatibilityUtils().getNearbyEntities(sourceLocation, radius, yRadius, radius);
+        Collection<Entity> candidates = EntityIndex.getNearbyEntities(sourceLocation, radius, yRadius, radius);
         Entity targetEntity = context.getTargetEntity();
         if (targetCount > 0)
         {
@@ -32,6 +32,7 @@ import com.elmakers.mine.bukkit.tasks.CancelEffectsTask;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
 import com.elmakers.mine.bukkit.utility.HitboxUtils;
+import com.elmakers.mine.bukkit.utility.ProjectileEngine;
 import com.elmakers.mine.bukkit.utility.Target;
 import com.elmakers.mine.bukkit.utility.Targeting;
 import com.elmakers.mine.bukkit.utility.TextUtils;
@@ -117,6 +118,7 @@ public class CustomProjectileAction extends CompoundAction
     private long targetSelfDeadline;
     private DynamicLocation effectLocation = null;
     private Collection<EffectPlay> activeProjectileEffects;
+    private ProjectileEngine.Projectile projectile;
     private Queue<PlanStep> plan;
     private Collection<ConfigurationSection> planConfiguration;
 
@@ -155,6 +157,7 @@ public class CustomProjectileAction extends CompoundAction
     public void finish(CastContext context) {
         super.finish(context);
         finishEffects();
+        removeProjectile();
     }
 
     @Override
@@ -306,6 +309,7 @@ public class CustomProjectileAction extends CompoundAction
         super.reset(context);
 
         targeting.reset();
+        removeProjectile();
         long now = System.currentTimeMillis();
         nextUpdate = 0;
         distanceTravelled = 0;
@@ -447,6 +451,9 @@ public class CustomProjectileAction extends CompoundAction
 
             // Start up projectile FX
             startProjectileEffects(context, projectileEffectKey);
+            if (!ignoreTargeting) {
+                projectile = new ProjectileEngine.Projectile();
+            }
 
             if (context.getMage().getDebugLevel() >= 7) {
                 context.getMage().sendDebugMessage(ChatColor.BLUE + "Projectile launched from "
@@ -618,13 +625,14 @@ public class CustomProjectileAction extends CompoundAction
         Target target = null;
 
         if (!ignoreTargeting) {
+            targeting.setProjectile(projectile);
             targeting.start(projectileLocation);
             target = targeting.target(actionContext, distanceTravelledThisTick);
             targetingResult = targeting.getResult();
             targetLocation = target.getLocation();
 
             boolean keepGoing = distanceTravelled < minRange;
-            Location tempLocation = projectileLocation.clone();
+            Location tempLocation = null;
             int checkIterations = 0;
 
             while (keepGoing)
@@ -649,12 +657,14 @@ public class CustomProjectileAction extends CompoundAction
                     keepGoing = false;
                 }
                 else {
-                    if (tempLocation.distance(projectileLocation) < targetLocation.distance(projectileLocation)) {
-                        tempLocation.add(velocity.clone().multiply(targetLocation.distance(projectileLocation) + 0.1));
+                    if (tempLocation == null) {
+                        tempLocation = projectileLocation.clone();
                     }
-                    else {
-                        tempLocation.add(velocity.clone().multiply(0.2));
+                    double step = 0.2;
+                    if (tempLocation.distance(projectileLocation) < targetLocation.distance(projectileLocation)) {
+                        step = targetLocation.distance(projectileLocation) + 0.1;
                     }
+                    tempLocation.add(velocity.getX() * step, velocity.getY() * step, velocity.getZ() * step);
 
                     actionContext.setTargetLocation(tempLocation);
                     actionContext.setTargetEntity(null);
@@ -676,7 +686,8 @@ public class CustomProjectileAction extends CompoundAction
                 actionContext.playEffects("blockmiss");
             }
 
-            targetLocation = projectileLocation.clone().add(velocity.clone().multiply(distanceTravelledThisTick));
+            targetLocation = projectileLocation.clone().add(velocity.getX() * distanceTravelledThisTick,
+                    velocity.getY() * distanceTravelledThisTick, velocity.getZ() * distanceTravelledThisTick);
             if (context.getMage().getDebugLevel() >= 14) {
                 context.getMage().sendDebugMessage(ChatColor.DARK_BLUE + "Projectile miss: " + ChatColor.DARK_PURPLE
                         + " at " + TextUtils.printBlock(targetLocation.getBlock()) + " from range of " + distanceTravelledThisTick + " over time " + delta, 14);
@@ -718,13 +729,15 @@ public class CustomProjectileAction extends CompoundAction
         }
 
         if (hasTickEffects && effectDistanceTravelled > tickSize) {
+            double stepX = velocity.getX() * tickSize;
+            double stepY = velocity.getY() * tickSize;
+            double stepZ = velocity.getZ() * tickSize;
             // Sane limit here
-            Vector speedVector = velocity.clone().multiply(tickSize);
             for (int i = 0; i < 256; i++) {
                 actionContext.setTargetLocation(projectileLocation);
                 actionContext.playEffects(tickEffectKey);
 
-                projectileLocation.add(speedVector);
+                projectileLocation.add(stepX, stepY, stepZ);
 
                 effectDistanceTravelled -= tickSize;
                 if (effectDistanceTravelled < tickSize) break;
@@ -736,6 +749,11 @@ public class CustomProjectileAction extends CompoundAction
             actionContext.setTargetEntity(target.getEntity());
         }
 
+        // Let the projectile engine know where we expect to look for entities next time
+        if (projectile != null) {
+            projectile.update(targetLocation, velocity, speed * Math.max(interval, 50) / 1000, targeting.getQueryPadding());
+        }
+
         if (hasStepEffects) {
             actionContext.playEffects("step");
         }
@@ -886,7 +904,15 @@ public class CustomProjectileAction extends CompoundAction
         }
     }
 
+    protected void removeProjectile() {
+        if (projectile != null) {
+            projectile.remove();
+            projectile = null;
+        }
+    }
+
     protected SpellResult attach() {
+        removeProjectile();
         attachedDeadline = System.currentTimeMillis() + attachDuration;
         Entity targetEntity = actionContext == null ? null : actionContext.getTargetEntity();
         Location targetLocation = actionContext == null ? null : actionContext.getTargetLocation();
@@ -926,6 +952,7 @@ public class CustomProjectileAction extends CompoundAction
 
     protected SpellResult miss() {
         missed = true;
+        removeProjectile();
         if (hitOnMiss) {
             return hit();
         }
@@ -86,6 +86,9 @@ public class UndoAction extends BaseSpellAction
                 break;
             }
         }
+        if (undoList instanceof com.elmakers.mine.bukkit.block.UndoList) {
+            ((com.elmakers.mine.bukkit.block.UndoList)undoList).flushBulkWrites();
+        }
         if (!undid) return SpellResult.NO_ACTION;
 
         return undoOldest == 0 || undone >= undoOldest ? SpellResult.CAST : SpellResult.PENDING;
@@ -1286,6 +1286,7 @@ public class Arena {
 
     public void removeFromLeaderboard(ArenaPlayer removePlayer) {
         leaderboard.remove(removePlayer);
+        controller.setModified(true);
     }
 
     public void updateLeaderboard(ArenaPlayer changedPlayer) {
@@ -1293,6 +1294,7 @@ public class Arena {
         int losses = changedPlayer.getLosses();
 
         leaderboard.remove(changedPlayer);
+        controller.setModified(true);
         if (wins + losses < leaderboardGamesRequired) {
             return;
         }
@@ -1526,6 +1528,7 @@ public class Arena {
     private void saveLeaderboardLocation() {
         parameters.set("leaderboard_sign_location", ConfigurationUtils.fromLocation(leaderboardLocation, center));
         parameters.set("leaderboard_sign_facing", ConfigurationUtils.fromBlockFace(leaderboardFacing));
+        controller.setModified(true);
     }
 
     public int getLeaderboardSize() {
@@ -1543,6 +1546,7 @@ public class Arena {
 
     public void reset() {
         leaderboard.clear();
+        controller.setModified(true);
     }
 
     public void showLeaderboard(Player player) {
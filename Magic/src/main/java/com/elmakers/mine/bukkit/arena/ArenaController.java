@@ -32,6 +32,7 @@ public class ArenaController implements Runnable {
     private final Map<Entity, Arena> arenaMobs = new WeakHashMap<>();
     private final Plugin plugin;
     private final MageController magic;
+    private volatile boolean modified = true;
 
     public ArenaController(MageController magic) {
         this.magic = magic;
@@ -46,9 +47,18 @@ public class ArenaController implements Runnable {
     public Arena addArena(String arenaName, ArenaTemplate template, Location location) {
         Arena arena = new Arena(arenaName, template, this, location);
         arenas.put(arenaName, arena);
+        modified = true;
         return arena;
     }
 
+    public boolean isModified() {
+        return modified;
+    }
+
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
     @Nullable
     public ArenaTemplate getTemplate(String templateKey) {
         return templates.get(templateKey);
@@ -140,6 +150,7 @@ public class ArenaController implements Runnable {
     public void remove(String arenaName) {
         Arena arena = arenas.remove(arenaName);
         if (arena != null) {
+            modified = true;
             arena.remove();
         }
     }
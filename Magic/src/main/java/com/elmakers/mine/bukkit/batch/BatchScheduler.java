@@ -0,0 +1,249 @@
+package com.elmakers.mine.bukkit.batch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import javax.annotation.Nonnull;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.elmakers.mine.bukkit.api.batch.Batch;
+import com.elmakers.mine.bukkit.magic.Mage;
+
+/**
+ * Splits a per-update time budget across all Mages with pending batches.
+ *
+ * <p>Each type of batch has its cost per unit of work measured as it runs, so that the
+ * units handed to Batch.process() can be sized to the time actually available.
+ *
+ * <p>Mages are served in weighted fair order: each Mage accumulates virtual time as its
+ * batches consume real time, and the Mage with the least virtual time always goes next.
+ *
+ * <p>The budget shrinks when the server falls behind, based on the measured interval
+ * between updates.
+ */
+public class BatchScheduler {
+    private static final long NANOS_PER_TICK = 50_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final double MAX_TPS = 20;
+
+    // Smoothing factors for the moving averages
+    private static final double COST_SMOOTHING = 0.25;
+    private static final double INTERVAL_SMOOTHING = 0.1;
+
+    // Don't bother handing out slices smaller than this, it's not worth the overhead
+    private static final long MINIMUM_SLICE = 50_000L;
+
+    private final LongSupplier clock;
+    private final Map<Class<? extends Batch>, CostEstimate> costs = new HashMap<>();
+    private final Map<Mage, Double> virtualTimes = new HashMap<>();
+    private double virtualClock = 0;
+
+    private long timeBudget = 10 * NANOS_PER_MILLI;
+    private long minimumTimeBudget = 2 * NANOS_PER_MILLI;
+    private int maxWork = 5000;
+    private int updateFrequency = 1;
+    private double throttleTPS = 18;
+    private double nonPlayerWeight = 1;
+
+    private long lastUpdate = 0;
+    private double averageInterval = NANOS_PER_TICK;
+    private long currentBudget = timeBudget;
+
+    // Tracks whether the mage currently being processed still had more work to do
+    private boolean saturated;
+
+    private static class CostEstimate {
+        private double nanosPerUnit;
+        private long totalWork;
+
+        CostEstimate(double initialCost) {
+            this.nanosPerUnit = initialCost;
+        }
+
+        void record(int work, long elapsed) {
+            totalWork += work;
+            double cost = (double)elapsed / work;
+            nanosPerUnit = nanosPerUnit + (cost - nanosPerUnit) * COST_SMOOTHING;
+        }
+    }
+
+    public BatchScheduler() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param clock Supplies the current time in nanoseconds, used in place of System.nanoTime for testing
+     */
+    BatchScheduler(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void load(ConfigurationSection properties, int workPerUpdate, int workFrequency) {
+        maxWork = workPerUpdate;
+        updateFrequency = Math.max(1, workFrequency);
+        timeBudget = (long)(properties.getDouble("work_time_budget", 10) * NANOS_PER_MILLI);
+        minimumTimeBudget = (long)(properties.getDouble("work_time_budget_min", 2) * NANOS_PER_MILLI);
+        minimumTimeBudget = Math.min(minimumTimeBudget, timeBudget);
+        throttleTPS = properties.getDouble("work_throttle_tps", 18);
+        nonPlayerWeight = Math.max(0.01, properties.getDouble("work_non_player_weight", 1));
+        currentBudget = timeBudget;
+
+        // Start measuring again, since the initial estimate for each batch type depends on the budget
+        costs.clear();
+    }
+
+    public void clear() {
+        virtualTimes.clear();
+        virtualClock = 0;
+        lastUpdate = 0;
+    }
+
+    /**
+     * Process pending batches for all of the given mages, within this update's time budget.
+     * Mages that have finished all of their work will be removed from the collection.
+     */
+    public void process(Collection<com.elmakers.mine.bukkit.api.magic.Mage> pendingConstruction) {
+        long start = clock.getAsLong();
+        updateBudget(start);
+        if (pendingConstruction.isEmpty()) return;
+
+        List<Mage> pending = new ArrayList<>(pendingConstruction.size());
+        for (com.elmakers.mine.bukkit.api.magic.Mage apiMage : pendingConstruction) {
+            if (apiMage instanceof Mage) {
+                Mage mage = (Mage)apiMage;
+                pending.add(mage);
+                // New arrivals start at the current clock, so they can't claim credit for time spent idle
+                if (!virtualTimes.containsKey(mage)) {
+                    virtualTimes.put(mage, virtualClock);
+                }
+            }
+        }
+
+        long deadline = start + currentBudget;
+        int remainingWork = maxWork;
+        while (remainingWork > 0 && !pending.isEmpty()) {
+            long now = clock.getAsLong();
+            long remainingTime = deadline - now;
+            if (remainingTime <= 0) break;
+
+            Mage mage = null;
+            double mageTime = 0;
+            for (Mage candidate : pending) {
+                double candidateTime = virtualTimes.get(candidate);
+                if (mage == null || candidateTime < mageTime) {
+                    mage = candidate;
+                    mageTime = candidateTime;
+                }
+            }
+            virtualClock = Math.max(virtualClock, mageTime);
+
+            long slice = Math.max(MINIMUM_SLICE, remainingTime / pending.size());
+            saturated = false;
+            int workPerformed = mage.processPendingBatches(this, slice, remainingWork);
+            long elapsed = clock.getAsLong() - now;
+            remainingWork -= workPerformed;
+
+            double weight = mage.isPlayer() ? 1 : nonPlayerWeight;
+            virtualTimes.put(mage, mageTime + elapsed / weight);
+
+            if (!mage.hasPendingBatches()) {
+                pending.remove(mage);
+                pendingConstruction.remove(mage);
+                virtualTimes.remove(mage);
+            } else if (!saturated) {
+                // Wait for next tick to process this action further since it's sleeping
+                pending.remove(mage);
+            }
+        }
+
+        // Forget about anyone that is no longer pending
+        for (Iterator<Mage> it = virtualTimes.keySet().iterator(); it.hasNext();) {
+            if (!pendingConstruction.contains(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private void updateBudget(long now) {
+        if (lastUpdate > 0) {
+            long interval = (now - lastUpdate) / updateFrequency;
+            averageInterval = averageInterval + (interval - averageInterval) * INTERVAL_SMOOTHING;
+        }
+        lastUpdate = now;
+
+        double tps = getTPS();
+        if (tps >= throttleTPS || throttleTPS <= 0) {
+            currentBudget = timeBudget;
+        } else {
+            // Back off quadratically as the server falls further behind
+            double scale = tps / throttleTPS;
+            currentBudget = Math.max(minimumTimeBudget, (long)(timeBudget * scale * scale));
+        }
+    }
+
+    /**
+     * Work out how many units of work a batch can be given to fill the specified amount of time.
+     */
+    public int getWorkForTime(@Nonnull Batch batch, long nanos) {
+        CostEstimate estimate = getEstimate(batch);
+        return (int)Math.max(1, Math.min(maxWork, nanos / Math.max(1, estimate.nanosPerUnit)));
+    }
+
+    /**
+     * Record how long a batch took to perform some work.
+     *
+     * @param requested The units of work the batch was asked to perform
+     * @param performed The units of work the batch reported doing
+     * @param elapsed The time taken, in nanoseconds
+     */
+    public void recordWork(@Nonnull Batch batch, int requested, int performed, long elapsed) {
+        if (performed >= requested) {
+            saturated = true;
+        }
+        if (performed > 0) {
+            getEstimate(batch).record(performed, elapsed);
+        }
+    }
+
+    private CostEstimate getEstimate(Batch batch) {
+        Class<? extends Batch> batchClass = batch.getClass();
+        CostEstimate estimate = costs.get(batchClass);
+        if (estimate == null) {
+            // Until we've measured something, assume the old-style work_per_update fills the budget
+            estimate = new CostEstimate((double)timeBudget / Math.max(1, maxWork));
+            costs.put(batchClass, estimate);
+        }
+        return estimate;
+    }
+
+    public double getTPS() {
+        return Math.min(MAX_TPS, MAX_TPS * NANOS_PER_TICK / Math.max(1, averageInterval));
+    }
+
+    public long getCurrentBudget() {
+        return currentBudget;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * Get the measured cost of each batch type, in nanoseconds per unit of work.
+     */
+    public Map<String, Double> getCosts() {
+        Map<String, Double> costMap = new HashMap<>();
+        for (Map.Entry<Class<? extends Batch>, CostEstimate> entry : costs.entrySet()) {
+            CostEstimate estimate = entry.getValue();
+            if (estimate.totalWork > 0) {
+                costMap.put(entry.getKey().getSimpleName(), estimate.nanosPerUnit);
+            }
+        }
+        return costMap;
+    }
+}
@@ -3,19 +3,27 @@ package com.elmakers.mine.bukkit.batch;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
+import org.bukkit.util.BlockVector;
 
 import com.elmakers.mine.bukkit.api.block.MaterialBrush;
 import com.elmakers.mine.bukkit.api.entity.EntityData;
+import com.elmakers.mine.bukkit.block.BoundingBox;
 import com.elmakers.mine.bukkit.spell.BrushSpell;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
 
 public abstract class BrushBatch extends SpellBatch {
     private final Set<Chunk> affectedChunks = new HashSet<>();
     private boolean lockChunks = false;
+    // Whether the spell may build or break everywhere this batch touches in each chunk, checked once per chunk
+    private final LongObjectHashMap<Boolean> buildChunks = new LongObjectHashMap<>();
+    private final LongObjectHashMap<Boolean> breakChunks = new LongObjectHashMap<>();
 
     public BrushBatch(BrushSpell spell) {
         super(spell);
@@ -23,6 +31,52 @@ public abstract class BrushBatch extends SpellBatch {
 
     protected abstract boolean contains(Location location);
 
+    /**
+     * Get the blocks this batch may change, so protection can be checked a chunk at a time.
+     *
+     * @return The area, or null to check every block on its own
+     */
+    @Nullable
+    protected abstract BoundingBox getArea();
+
+    protected boolean hasBuildPermission(Block block) {
+        return checkChunk(block, false) || spell.hasBuildPermission(block);
+    }
+
+    protected boolean hasBreakPermission(Block block) {
+        return checkChunk(block, true) || spell.hasBreakPermission(block);
+    }
+
+    private boolean checkChunk(Block block, boolean breaking) {
+        BoundingBox area = getArea();
+        if (area == null) return false;
+        BlockVector min = area.getMin();
+        BlockVector max = area.getMax();
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        if (x < min.getBlockX() || y < min.getBlockY() || z < min.getBlockZ()
+                || x > max.getBlockX() || y > max.getBlockY() || z > max.getBlockZ()) {
+            return false;
+        }
+
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        long key = ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        LongObjectHashMap<Boolean> chunks = breaking ? breakChunks : buildChunks;
+        Boolean allowed = chunks.get(key);
+        if (allowed == null) {
+            // The part of this batch's area that is in this chunk
+            BoundingBox chunkArea = new BoundingBox(
+                    Math.max(min.getBlockX(), chunkX << 4), min.getBlockY(), Math.max(min.getBlockZ(), chunkZ << 4),
+                    Math.min(max.getBlockX(), (chunkX << 4) + 15), max.getBlockY(), Math.min(max.getBlockZ(), (chunkZ << 4) + 15));
+            World world = block.getWorld();
+            allowed = breaking ? spell.hasBreakPermission(world, chunkArea) : spell.hasBuildPermission(world, chunkArea);
+            chunks.put(key, allowed);
+        }
+        return allowed;
+    }
+
     protected void touch(Block block) {
         Chunk chunk = block.getChunk();
         // Still need to add to affectedChunks even if not locking, in case
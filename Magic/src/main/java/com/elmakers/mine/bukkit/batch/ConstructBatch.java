@@ -3,9 +3,7 @@ package com.elmakers.mine.bukkit.batch;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.annotation.Nonnull;
 
 import org.bukkit.Location;
@@ -18,16 +16,20 @@ import org.bukkit.util.Vector;
 
 import com.elmakers.mine.bukkit.api.block.MaterialAndData;
 import com.elmakers.mine.bukkit.api.block.MaterialBrush;
+import com.elmakers.mine.bukkit.api.block.ModifyType;
 import com.elmakers.mine.bukkit.api.magic.MaterialMap;
 import com.elmakers.mine.bukkit.api.magic.MaterialSet;
 import com.elmakers.mine.bukkit.api.magic.MaterialSetManager;
 import com.elmakers.mine.bukkit.api.spell.SpellResult;
 import com.elmakers.mine.bukkit.block.BlockData;
+import com.elmakers.mine.bukkit.block.BoundingBox;
 import com.elmakers.mine.bukkit.block.ConstructionType;
 import com.elmakers.mine.bukkit.block.UndoList;
 import com.elmakers.mine.bukkit.spell.BrushSpell;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.SafetyUtils;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
 
 public class ConstructBatch extends BrushBatch {
     private final Location center;
@@ -39,7 +41,7 @@ public class ConstructBatch extends BrushBatch {
     private final boolean spawnFallingBlocks;
     private float fallingBlockSpeed = 0;
     private Vector fallingDirection = null;
-    private final Map<Long, BlockData> attachedBlockMap = new HashMap<>();
+    private final LongObjectHashMap<BlockData> attachedBlockMap = new LongObjectHashMap<>();
     private final List<BlockData> attachedBlockList = new ArrayList<>();
     private final List<BlockData> delayedBlocks = new ArrayList<>();
     private final @Nonnull MaterialSet attachables;
@@ -69,12 +71,17 @@ public class ConstructBatch extends BrushBatch {
     private boolean checkChunks = true;
     private boolean deferPhysics = true;
     private boolean useBrushSize = false;
+    private BulkBlockWriter bulkWriter = null;
+    private final List<BlockState> pendingLog = new ArrayList<>();
 
     private int x = 0;
     private int y = 0;
     private int z = 0;
     private int r = 0;
 
+    private BoundingBox area = null;
+    private int areaRadius = 0;
+
     private boolean limitYAxis = false;
     // TODO.. min X, Z, etc
 
@@ -145,6 +152,18 @@ public class ConstructBatch extends BrushBatch {
 
     @Override
     public int process(int workAllowed) {
+        int workPerformed = processBlocks(workAllowed);
+        if (bulkWriter != null) {
+            bulkWriter.flush();
+            for (BlockState prior : pendingLog) {
+                controller.logBlockChange(spell.getMage(), prior, prior.getBlock().getState());
+            }
+            pendingLog.clear();
+        }
+        return workPerformed;
+    }
+
+    private int processBlocks(int workAllowed) {
         int workPerformed = 0;
 
         if (useBrushSize && bounds == null) {
@@ -429,11 +448,11 @@ public class ConstructBatch extends BrushBatch {
         brush.update(mage, block.getLocation());
 
         if (brush.isErase()) {
-            if (!spell.hasBreakPermission(block)) {
+            if (!hasBreakPermission(block)) {
                 return true;
             }
         } else {
-            if (!spell.hasBuildPermission(block)) {
+            if (!hasBuildPermission(block)) {
                 return true;
             }
         }
@@ -500,12 +519,19 @@ public class ConstructBatch extends BrushBatch {
             }
 
             BlockState prior = block.getState();
-            brush.modify(block, applyPhysics);
-            if (replacement != null) {
-                replacement.modify(block, applyPhysics);
-            }
-            if (!undoList.isScheduled()) {
-                controller.logBlockChange(spell.getMage(), prior, block.getState());
+            if (modifyBulk(block, brush, replacement)) {
+                // The block won't change until the writer is flushed
+                if (!undoList.isScheduled()) {
+                    pendingLog.add(prior);
+                }
+            } else {
+                brush.modify(block, applyPhysics);
+                if (replacement != null) {
+                    replacement.modify(block, applyPhysics);
+                }
+                if (!undoList.isScheduled()) {
+                    controller.logBlockChange(spell.getMage(), prior, block.getState());
+                }
             }
             if (breakable > 0) {
                 context.registerBreakable(block, breakable);
@@ -532,6 +558,12 @@ public class ConstructBatch extends BrushBatch {
         }
     }
 
+    private boolean modifyBulk(Block block, MaterialAndData brush, MaterialAndData replacement) {
+        if (bulkWriter == null || replacement != null || commit) return false;
+        if (!(brush instanceof com.elmakers.mine.bukkit.block.MaterialAndData)) return false;
+        return ((com.elmakers.mine.bukkit.block.MaterialAndData)brush).modify(block, bulkWriter);
+    }
+
     public void setReplace(MaterialAndData replace) {
         this.replace = replace;
     }
@@ -564,10 +596,36 @@ public class ConstructBatch extends BrushBatch {
         }
     }
 
+    @Override
+    protected BoundingBox getArea() {
+        // The radius is not known until the brush is ready when using the brush size
+        if (area == null || areaRadius != radius) {
+            int x = center.getBlockX();
+            int y = center.getBlockY();
+            int z = center.getBlockZ();
+            area = new BoundingBox(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+            areaRadius = radius;
+        }
+        return area;
+    }
+
     public void setApplyPhysics(boolean physics) {
         this.applyPhysics = physics;
     }
 
+    /**
+     * Write blocks a chunk section at a time, without physics, for very large constructions.
+     * This also applies when the construction is undone.
+     */
+    public void setBulkWrites(boolean bulk) {
+        if (bulk) {
+            bulkWriter = CompatibilityLib.getCompatibilityUtils().createBulkBlockWriter();
+            undoList.setModifyType(ModifyType.BULK);
+        } else {
+            bulkWriter = null;
+        }
+    }
+
     public void setCommit(boolean commit) {
         this.commit = commit;
     }
@@ -97,7 +97,7 @@ public class FillBatch extends BrushBatch {
             workPerformed += 10;
 
             touch(block);
-            boolean hasPermission = brush.isErase() ? spell.hasBreakPermission(block) : spell.hasBuildPermission(block);
+            boolean hasPermission = brush.isErase() ? hasBreakPermission(block) : hasBuildPermission(block);
             if (hasPermission && !spell.isIndestructible(block) && spell.isDestructible(block)) {
                 Material previousMaterial = block.getType();
                 byte previousData = block.getData();
@@ -170,4 +170,9 @@ public class FillBatch extends BrushBatch {
     protected boolean contains(Location location) {
         return bounds.contains(location.toVector());
     }
+
+    @Override
+    protected BoundingBox getArea() {
+        return bounds;
+    }
 }
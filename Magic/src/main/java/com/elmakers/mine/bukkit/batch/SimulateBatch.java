@@ -1,13 +1,16 @@
 package com.elmakers.mine.bukkit.batch;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Level;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -29,6 +32,7 @@ import com.elmakers.mine.bukkit.api.wand.Wand;
 import com.elmakers.mine.bukkit.arena.Arena;
 import com.elmakers.mine.bukkit.arena.ArenaController;
 import com.elmakers.mine.bukkit.automata.AutomatonLevel;
+import com.elmakers.mine.bukkit.block.ChunkSnapshotCache;
 import com.elmakers.mine.bukkit.block.MaterialAndData;
 import com.elmakers.mine.bukkit.block.UndoList;
 import com.elmakers.mine.bukkit.boss.BossBarConfiguration;
@@ -49,7 +53,7 @@ public class SimulateBatch extends SpellBatch {
     private static double MAX_BREAKING = 0.9;
 
     private enum SimulationState {
-        INITIALIZING, SCANNING, UPDATING, PRUNE, TARGETING, HEART_UPDATE, DELAY, CLEANUP, CHECK, FINISHED
+        INITIALIZING, SCANNING, PLANNING, APPLYING, UPDATING, PRUNE, TARGETING, HEART_UPDATE, DELAY, CLEANUP, CHECK, FINISHED
     }
 
     public enum TargetMode {
@@ -60,8 +64,38 @@ public class SimulateBatch extends SpellBatch {
         PLAYER, MAGE, MOB, AUTOMATON, ANY
     }
 
+    private static final byte OUTCOME_LIVE = 0;
+    private static final byte OUTCOME_KILL = 1;
+    private static final byte OUTCOME_BIRTH = 2;
+
     public static boolean DEBUG = false;
 
+    /**
+     * The outcome of each block that lives, dies or is born in the next generation,
+     * in the same order the blocks would have been scanned in.
+     */
+    private static class Plan {
+        private int[] positions = new int[192];
+        private byte[] outcomes = new byte[64];
+        private int[] distances = new int[64];
+        private int size = 0;
+        private boolean failed = false;
+
+        void add(int x, int y, int z, byte outcome, int distanceSquared) {
+            if (size == outcomes.length) {
+                positions = Arrays.copyOf(positions, size * 6);
+                outcomes = Arrays.copyOf(outcomes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            positions[size * 3] = x;
+            positions[size * 3 + 1] = y;
+            positions[size * 3 + 2] = z;
+            outcomes[size] = outcome;
+            distances[size] = distanceSquared;
+            size++;
+        }
+    }
+
     private Block heartBlock;
     private Block heartTargetBlock;
     private TargetMode targetMode = TargetMode.STABILIZE;
@@ -100,6 +134,8 @@ public class SimulateBatch extends SpellBatch {
     private int r;
     private int yRadius;
     private int updatingIndex;
+    private int applyingIndex;
+    private volatile Plan plan;
     private ArrayList<Boolean> liveCounts = new ArrayList<>();
     private ArrayList<Boolean> birthCounts = new ArrayList<>();
     private ArrayList<Boolean> diagonalLiveCounts = new ArrayList<>();
@@ -346,6 +382,237 @@ public class SimulateBatch extends SpellBatch {
         return success;
     }
 
+    /**
+     * Work out the next generation from chunk snapshots on another thread, rather than scanning
+     * live blocks over several ticks. Falls back to scanning if that isn't possible.
+     */
+    protected void startPlanning() {
+        state = SimulationState.SCANNING;
+        // Concurrent simulations change blocks as they scan, so can't be planned ahead
+        if (concurrent || !ChunkSnapshotCache.isEnabled()) return;
+
+        int centerX = center.getBlockX();
+        int centerZ = center.getBlockZ();
+        ChunkSnapshotCache snapshots = new ChunkSnapshotCache(world);
+        // Let the scan deal with unloaded chunks, as it always has
+        if (!snapshots.prepare(centerX - radius, centerZ - radius, centerX + radius, centerZ + radius)) return;
+        snapshots.prepare(centerX - radius - 1, centerZ - radius - 1, centerX + radius + 1, centerZ + radius + 1);
+
+        plan = null;
+        state = SimulationState.PLANNING;
+        Bukkit.getScheduler().runTaskAsynchronously(controller.getPlugin(), new Planner(snapshots));
+    }
+
+    /**
+     * Apply one planned outcome. Build permissions are checked here, and each outcome is
+     * checked against the live block, since the block may have been changed by a player or
+     * another plugin after the snapshot was taken. Outcomes that no longer apply are skipped.
+     *
+     * @return false if the block's chunk has been unloaded
+     */
+    protected boolean applyPlanned(int index) {
+        Block block = world.getBlockAt(plan.positions[index * 3], plan.positions[index * 3 + 1], plan.positions[index * 3 + 2]);
+        if (!CompatibilityLib.getCompatibilityUtils().isChunkLoaded(block)) {
+            return false;
+        }
+        if (!context.hasBuildPermission(block)) return true;
+
+        int distanceSquared = plan.distances[index];
+        switch (plan.outcomes[index]) {
+        case OUTCOME_KILL:
+            if (birthMaterial.is(block)) {
+                killBlock(block);
+            }
+            break;
+        case OUTCOME_BIRTH:
+            if (isDead(block.getType())) {
+                birthBlock(block);
+                checkForPotentialHeart(block, distanceSquared);
+            }
+            break;
+        default:
+            if (birthMaterial.is(block)) {
+                checkForPotentialHeart(block, distanceSquared);
+            }
+            break;
+        }
+        return true;
+    }
+
+    /**
+     * Runs the same scan as simulateBlocks, reading from chunk snapshots and recording
+     * what should happen to each block instead of doing it.
+     */
+    private class Planner implements Runnable {
+        private final ChunkSnapshotCache snapshots;
+        private final Plan result = new Plan();
+        private final int centerX;
+        private final int centerY;
+        private final int centerZ;
+        private final int heartX;
+        private final int heartY;
+        private final int heartZ;
+        private final Material liveMaterial;
+        private final boolean checkData;
+        private final short liveData;
+
+        Planner(ChunkSnapshotCache snapshots) {
+            this.snapshots = snapshots;
+            centerX = center.getBlockX();
+            centerY = center.getBlockY();
+            centerZ = center.getBlockZ();
+            Block heart = heartBlock == null ? center.getBlock() : heartBlock;
+            heartX = heart.getX();
+            heartY = heart.getY();
+            heartZ = heart.getZ();
+            liveMaterial = birthMaterial.getMaterial();
+            checkData = !CompatibilityLib.isCurrentVersion();
+            Short data = birthMaterial.getData();
+            liveData = data == null ? 0 : data;
+        }
+
+        @Override
+        public void run() {
+            try {
+                scan();
+            } catch (Exception ex) {
+                controller.getLogger().log(Level.WARNING, "Error planning simulation for " + spell.getKey(), ex);
+                result.failed = true;
+            }
+            plan = result;
+        }
+
+        private void scan() {
+            int x = 0;
+            int y = 0;
+            int z = 0;
+            int r = 0;
+            while (r <= radius) {
+                if (!scanBlocks(x, y, z)) {
+                    result.failed = true;
+                    return;
+                }
+
+                y++;
+                if (y > yRadius) {
+                    y = 0;
+                    if (x < radius) {
+                        x++;
+                    } else {
+                        z--;
+                        if (z < 0) {
+                            r++;
+                            z = r;
+                            x = 0;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean scanBlocks(int x, int y, int z) {
+            boolean success = true;
+            if (y != 0) {
+                success = success && scanBlock(x, -y, z);
+                if (x != 0) success = success && scanBlock(-x, -y, z);
+                if (z != 0) success = success && scanBlock(x, -y, -z);
+                if (x != 0 && z != 0) success = success && scanBlock(-x, -y, -z);
+            }
+            success = success && scanBlock(x, y, z);
+            if (x != 0) success = success && scanBlock(-x, y, z);
+            if (z != 0) success = success && scanBlock(x, y, -z);
+            if (z != 0 && x != 0) success = success && scanBlock(-x, y, -z);
+            return success;
+        }
+
+        private boolean scanBlock(int dx, int dy, int dz) {
+            int x = centerX + dx;
+            int y = centerY + dy;
+            int z = centerZ + dz;
+            Material blockMaterial = snapshots.getType(x, y, z);
+            if (blockMaterial == null) {
+                return false;
+            }
+
+            if (isLive(x, y, z)) {
+                int distanceSquared = liveRangeSquared > 0 || isAutomata ? getDistanceSquared(x, y, z) : 0;
+                boolean lives = false;
+                if (liveRangeSquared <= 0 || distanceSquared <= liveRangeSquared) {
+                    if (diagonalLiveCounts.size() > 0) {
+                        int faceNeighborCount = getFaceNeighborCount(x, y, z);
+                        int diagonalNeighborCount = getDiagonalNeighborCount(x, y, z);
+                        lives = faceNeighborCount < liveCounts.size() && liveCounts.get(faceNeighborCount)
+                            && diagonalNeighborCount < diagonalLiveCounts.size() && diagonalLiveCounts.get(diagonalNeighborCount);
+                    } else {
+                        int neighborCount = getNeighborCount(x, y, z);
+                        lives = neighborCount < liveCounts.size() && liveCounts.get(neighborCount);
+                    }
+                }
+                result.add(x, y, z, lives ? OUTCOME_LIVE : OUTCOME_KILL, distanceSquared);
+            } else if (isDead(blockMaterial)) {
+                int distanceSquared = birthRangeSquared > 0 || isAutomata ? getDistanceSquared(x, y, z) : 0;
+                if (birthRangeSquared <= 0 || distanceSquared <= birthRangeSquared) {
+                    boolean born;
+                    if (diagonalBirthCounts.size() > 0) {
+                        int faceNeighborCount = getFaceNeighborCount(x, y, z);
+                        int diagonalNeighborCount = getDiagonalNeighborCount(x, y, z);
+                        born = faceNeighborCount < birthCounts.size() && birthCounts.get(faceNeighborCount)
+                            && diagonalNeighborCount < diagonalBirthCounts.size() && diagonalBirthCounts.get(diagonalNeighborCount);
+                    } else {
+                        int neighborCount = getNeighborCount(x, y, z);
+                        born = neighborCount < birthCounts.size() && birthCounts.get(neighborCount);
+                    }
+                    if (born) {
+                        result.add(x, y, z, OUTCOME_BIRTH, distanceSquared);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private int getDistanceSquared(int x, int y, int z) {
+            int dx = x - heartX;
+            int dy = y - heartY;
+            int dz = z - heartZ;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        private boolean isLive(int x, int y, int z) {
+            Material blockMaterial = snapshots.getType(x, y, z);
+            if (blockMaterial == null || blockMaterial != liveMaterial) {
+                return false;
+            }
+            return !checkData || snapshots.getData(x, y, z) == liveData;
+        }
+
+        private int getNeighborCount(int x, int y, int z) {
+            return getDiagonalNeighborCount(x, y, z) + getFaceNeighborCount(x, y, z);
+        }
+
+        private int getFaceNeighborCount(int x, int y, int z) {
+            return countLive(x, y, z, yRadius > 0 ? POWER_FACES : MAIN_FACES);
+        }
+
+        private int getDiagonalNeighborCount(int x, int y, int z) {
+            int liveCount = countLive(x, y, z, DIAGONAL_FACES);
+            if (yRadius > 0) {
+                liveCount += countLive(x, y + 1, z, NEIGHBOR_FACES);
+                liveCount += countLive(x, y - 1, z, NEIGHBOR_FACES);
+            }
+            return liveCount;
+        }
+
+        private int countLive(int x, int y, int z, BlockFace[] faces) {
+            int liveCount = 0;
+            for (BlockFace face : faces) {
+                if (isLive(x + face.getModX(), y + face.getModY(), z + face.getModZ())) {
+                    liveCount++;
+                }
+            }
+            return liveCount;
+        }
+    }
+
     @Override
     public int process(int maxBlocks) {
         int processedBlocks = 0;
@@ -390,7 +657,35 @@ public class SimulateBatch extends SpellBatch {
             }
 
             processedBlocks++;
-            state = SimulationState.SCANNING;
+            startPlanning();
+        }
+
+        if (state == SimulationState.PLANNING) {
+            if (plan == null) {
+                // Still working, check again next tick
+                return processedBlocks;
+            }
+            if (plan.failed) {
+                finish();
+                return processedBlocks;
+            }
+            applyingIndex = 0;
+            state = SimulationState.APPLYING;
+        }
+
+        while (state == SimulationState.APPLYING && processedBlocks <= maxBlocks) {
+            if (applyingIndex >= plan.size) {
+                plan = null;
+                r = radius + 1;
+                state = SimulationState.UPDATING;
+                break;
+            }
+            if (!applyPlanned(applyingIndex)) {
+                finish();
+                return processedBlocks;
+            }
+            processedBlocks++;
+            applyingIndex++;
         }
 
         while (state == SimulationState.SCANNING && processedBlocks <= maxBlocks) {
@@ -1,6 +1,8 @@
 package com.elmakers.mine.bukkit.batch;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.bukkit.Chunk;
@@ -13,6 +15,7 @@ import com.elmakers.mine.bukkit.api.magic.MageController;
 import com.elmakers.mine.bukkit.api.magic.MaterialSet;
 import com.elmakers.mine.bukkit.api.magic.MaterialSetManager;
 import com.elmakers.mine.bukkit.block.UndoList;
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
 
 public class UndoBatch implements com.elmakers.mine.bukkit.api.batch.UndoBatch {
     protected final MageController controller;
@@ -24,6 +27,7 @@ public class UndoBatch implements com.elmakers.mine.bukkit.api.batch.UndoBatch {
     protected int listProcessed;
     protected double partialWork = 0;
     private Set<Chunk> affectedChunks = null;
+    private final List<BlockState> pendingLog = new ArrayList<>();
 
     private final MaterialSet attachables;
 
@@ -62,6 +66,7 @@ public class UndoBatch implements com.elmakers.mine.bukkit.api.batch.UndoBatch {
         if (finished) return 0;
 
         int workPerformed = 0;
+        BulkBlockWriter bulkWriter = applyPhysics ? null : undoList.getBulkBlockWriter();
         double undoSpeed = undoList.getUndoSpeed();
         if (undoSpeed > 0 && listProcessed < listSize && maxWork >= 0) {
             partialWork += undoSpeed;
@@ -92,14 +97,23 @@ public class UndoBatch implements com.elmakers.mine.bukkit.api.batch.UndoBatch {
                 }
             }
             if (prior != null) {
-                Mage mage = undoList.getOwner();
-                if (mage != null) {
-                    controller.logBlockChange(mage, prior, undone.getBlock().getState());
+                if (bulkWriter != null) {
+                    // The block won't change until the writer is flushed
+                    pendingLog.add(prior);
+                } else {
+                    logBlockChange(prior);
                 }
             }
             workPerformed += 10;
             listProcessed++;
         }
+        if (bulkWriter != null) {
+            undoList.flushBulkWrites();
+            for (BlockState prior : pendingLog) {
+                logBlockChange(prior);
+            }
+            pendingLog.clear();
+        }
         if (undoList.size() == 0) {
             finish();
         }
@@ -107,6 +121,13 @@ public class UndoBatch implements com.elmakers.mine.bukkit.api.batch.UndoBatch {
         return workPerformed;
     }
 
+    private void logBlockChange(BlockState prior) {
+        Mage mage = undoList.getOwner();
+        if (mage != null) {
+            controller.logBlockChange(mage, prior, prior.getBlock().getState());
+        }
+    }
+
     @Override
     public void cancel() {
         finish();
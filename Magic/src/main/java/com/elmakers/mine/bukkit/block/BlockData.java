@@ -23,6 +23,7 @@ import com.elmakers.mine.bukkit.api.block.UndoList;
 import com.elmakers.mine.bukkit.api.magic.MaterialSet;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
 
 /**
  * Stores a cached Block. Stores the coordinates and world, but will look up a block reference on demand.
@@ -321,6 +322,19 @@ public class BlockData extends MaterialAndData implements com.elmakers.mine.bukk
         modify(getBlock(), applyPhysics);
     }
 
+    @Override
+    public void modify(Block block, ModifyType modifyType) {
+        if (modifyType == ModifyType.BULK) {
+            UndoList list = getUndoList();
+            BulkBlockWriter writer = list instanceof com.elmakers.mine.bukkit.block.UndoList
+                    ? ((com.elmakers.mine.bukkit.block.UndoList)list).getBulkBlockWriter() : null;
+            if (writer != null && modify(block, writer)) {
+                return;
+            }
+        }
+        super.modify(block, modifyType);
+    }
+
     @Override
     public String getWorldName() {
         return worldName;
@@ -7,7 +7,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,10 +20,11 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.util.Vector;
 
 import com.elmakers.mine.bukkit.api.block.BlockData;
+import com.elmakers.mine.bukkit.utility.collection.LinkedLongObjectHashMap;
 
 public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
     protected final Map<String,BoundingBox> areas = new HashMap<>();
-    protected final Map<Long, BlockData> blockQueue = new LinkedHashMap<>();
+    protected final LinkedLongObjectHashMap<BlockData> blockQueue = new LinkedLongObjectHashMap<>();
 
     public BlockList()
     {
@@ -54,6 +54,7 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
     @Override
     public boolean add(BlockData blockData)
     {
+        pageIn();
         if (!contain(blockData))
         {
             return false;
@@ -157,21 +158,25 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
             return contains((BlockData)arg0);
         }
         // Fall back to map
-        boolean contains;
-        synchronized (blockQueue) {
-            contains = blockQueue.containsKey(arg0);
+        if (arg0 instanceof Long) {
+            boolean contains;
+            synchronized (blockQueue) {
+                contains = blockQueue.containsKey((Long)arg0);
+            }
+            return contains;
         }
-        return contains;
+        return false;
     }
 
     @Override
     public boolean containsAll(Collection<?> arg0)
     {
-        boolean contains;
-        synchronized (blockQueue) {
-            contains = blockQueue.keySet().containsAll(arg0);
+        for (Object o : arg0) {
+            if (!contains(o)) {
+                return false;
+            }
         }
-        return contains;
+        return true;
     }
 
     // Collection interface- would be great if I could just extend HashSet and
@@ -194,6 +199,7 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
 
     public Collection<BlockData> getBlockList()
     {
+        pageIn();
         return blockQueue.values();
     }
 
@@ -212,12 +218,14 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
     @Override
     public Iterator<BlockData> iterator()
     {
+        pageIn();
         return blockQueue.values().iterator();
     }
 
     @Override
     public boolean remove(Object removeObject)
     {
+        pageIn();
         // Note that we never shrink the BB!
         boolean removed = false;
         synchronized (blockQueue) {
@@ -245,18 +253,21 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
     @Override
     public boolean retainAll(Collection<?> arg0)
     {
+        pageIn();
         return blockQueue.values().retainAll(arg0);
     }
 
     @Override
     @Nullable
     public Object[] toArray() {
+        pageIn();
         return blockQueue.values().toArray();
     }
 
     @Override
     @Nullable
     public <T> T[] toArray(T[] arg0) {
+        pageIn();
         return blockQueue.values().toArray(arg0);
     }
 
@@ -274,6 +285,7 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
 
     @Override
     public void save(ConfigurationSection node) {
+        pageIn();
         synchronized (blockQueue) {
             if (!blockQueue.isEmpty()) {
                 List<String> blockData = new ArrayList<>();
@@ -297,6 +309,7 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
     @Override
     @Nonnull
     public Set<Chunk> getChunks() {
+        pageIn();
         Set<Chunk> chunks = new HashSet<>();
         for (BlockData block : blockQueue.values()) {
             chunks.add(block.getChunk());
@@ -304,4 +317,9 @@ public class BlockList implements com.elmakers.mine.bukkit.api.block.BlockList {
         return chunks;
     }
 
+    /**
+     * Make sure all blocks are in memory, for subclasses that may store them elsewhere.
+     */
+    protected void pageIn() {
+    }
 }
@@ -0,0 +1,194 @@
+package com.elmakers.mine.bukkit.block;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import com.elmakers.mine.bukkit.utility.CompatibilityLib;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+
+/**
+ * A read-only view of the blocks in an area, backed by chunk snapshots so that batches can
+ * read it from another thread while they work out what to change.
+ *
+ * <p>Snapshots are taken on the main thread by prepare(), and are shared with other views of
+ * the same world for a short time. A shared snapshot is dropped as soon as Magic changes
+ * a block in its chunk, or once it is older than the maximum age, which is what picks up
+ * changes made by players or other plugins. Expired snapshots are swept out every tick by tick().
+ * Anything planned from a view should still be
+ * checked against the live block before it is applied.
+ *
+ * <p>A view does not change once it has been prepared, so it is safe to read from any thread.
+ * Everything else here must only be used on the main thread.
+ */
+public class ChunkSnapshotCache {
+    private static boolean enabled = true;
+    private static long maxAge = 1000;
+    private static final Map<String, LongObjectHashMap<SharedSnapshot>> worlds = new HashMap<>();
+
+    // Stats, for /magic list
+    private static long taken = 0;
+    private static long reused = 0;
+
+    private final World world;
+    private final int minY;
+    private final int maxY;
+    private final LongObjectHashMap<ChunkSnapshot> chunks = new LongObjectHashMap<>();
+
+    private static class SharedSnapshot {
+        private final ChunkSnapshot snapshot;
+        private final long time;
+
+        SharedSnapshot(ChunkSnapshot snapshot, long time) {
+            this.snapshot = snapshot;
+            this.time = time;
+        }
+    }
+
+    public ChunkSnapshotCache(World world) {
+        this.world = world;
+        this.minY = CompatibilityLib.getCompatibilityUtils().getMinHeight(world);
+        this.maxY = world.getMaxHeight();
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Make sure this view has all of the loaded chunks covering an area.
+     * This will not load any chunks, blocks in chunks that are not loaded can not be read.
+     *
+     * @return false if any of the chunks in this area are not loaded
+     */
+    public boolean prepare(int minX, int minZ, int maxX, int maxZ) {
+        LongObjectHashMap<SharedSnapshot> shared = worlds.get(world.getName());
+        if (shared == null) {
+            shared = new LongObjectHashMap<>();
+            worlds.put(world.getName(), shared);
+        }
+        long now = System.currentTimeMillis();
+        boolean loaded = true;
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                long key = getChunkKey(chunkX, chunkZ);
+                if (chunks.containsKey(key)) continue;
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    shared.remove(key);
+                    loaded = false;
+                    continue;
+                }
+                SharedSnapshot snapshot = shared.get(key);
+                if (snapshot != null && now - snapshot.time <= maxAge) {
+                    reused++;
+                } else {
+                    snapshot = new SharedSnapshot(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false), now);
+                    shared.put(key, snapshot);
+                    taken++;
+                }
+                chunks.put(key, snapshot.snapshot);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Check to see if a block can be read from this view.
+     */
+    public boolean contains(int x, int z) {
+        return chunks.containsKey(getChunkKey(x >> 4, z >> 4));
+    }
+
+    /**
+     * Get the type of a block.
+     *
+     * @return null if the block's chunk was not loaded when this view was prepared
+     */
+    @Nullable
+    public Material getType(int x, int y, int z) {
+        ChunkSnapshot snapshot = chunks.get(getChunkKey(x >> 4, z >> 4));
+        if (snapshot == null) {
+            return null;
+        }
+        if (y < minY || y >= maxY) {
+            return Material.AIR;
+        }
+        return CompatibilityLib.getDeprecatedUtils().getType(snapshot, x & 15, y, z & 15);
+    }
+
+    /**
+     * Get the legacy data value of a block, this is always 0 on versions that use block states.
+     */
+    public byte getData(int x, int y, int z) {
+        ChunkSnapshot snapshot = chunks.get(getChunkKey(x >> 4, z >> 4));
+        if (snapshot == null || y < minY || y >= maxY) {
+            return 0;
+        }
+        return CompatibilityLib.getDeprecatedUtils().getData(snapshot, x & 15, y, z & 15);
+    }
+
+    /**
+     * Called once per tick to drop snapshots that are too old to be shared.
+     */
+    public static void tick() {
+        if (worlds.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        Iterator<LongObjectHashMap<SharedSnapshot>> worldIt = worlds.values().iterator();
+        while (worldIt.hasNext()) {
+            LongObjectHashMap<SharedSnapshot> shared = worldIt.next();
+            Iterator<SharedSnapshot> it = shared.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next().time > maxAge) {
+                    it.remove();
+                }
+            }
+            if (shared.isEmpty()) {
+                worldIt.remove();
+            }
+        }
+    }
+
+    /**
+     * Called when Magic changes a block, so that no new view will use a snapshot from before the change.
+     * Views that were already prepared keep the snapshots they have.
+     */
+    public static void markModified(String worldName, int x, int z) {
+        if (worlds.isEmpty()) return;
+        LongObjectHashMap<SharedSnapshot> shared = worlds.get(worldName);
+        if (shared != null) {
+            shared.remove(getChunkKey(x >> 4, z >> 4));
+        }
+    }
+
+    public static void clear() {
+        worlds.clear();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public static void setMaxAge(long age) {
+        maxAge = age;
+    }
+
+    public static long getTaken() {
+        return taken;
+    }
+
+    public static long getReused() {
+        return reused;
+    }
+}
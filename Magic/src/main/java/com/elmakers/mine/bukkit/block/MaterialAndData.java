@@ -43,6 +43,7 @@ import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
 import com.elmakers.mine.bukkit.utility.SkullLoadedCallback;
 import com.elmakers.mine.bukkit.utility.TextUtils;
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
 import com.google.common.base.Objects;
 import com.google.gson.Gson;
 import com.google.gson.stream.JsonReader;
@@ -584,11 +585,34 @@ public class MaterialAndData implements com.elmakers.mine.bukkit.api.block.Mater
                 modify(block, true);
                 break;
             case NO_PHYSICS:
+            case BULK:
                 modify(block, false);
                 break;
         }
     }
 
+    /**
+     * Queue this change on a bulk writer, to be made when the writer is flushed.
+     *
+     * @return false if this change can't be made in bulk, and the block should be modified the usual way
+     */
+    public boolean modify(Block block, BulkBlockWriter writer) {
+        if (!isValid || !isTargetValid) return true;
+        // Tile entity data, and keeping the current block's data, need the block to be modified right away
+        if (material == null || extraData != null) return false;
+        if (data == null && blockData == null && block.getType() == material) return false;
+
+        String blockState = null;
+        if (blockData != null) {
+            int stateIndex = blockData.indexOf('[');
+            if (stateIndex >= 0) {
+                blockState = blockData.substring(stateIndex);
+            }
+        }
+        clearItems(block.getState());
+        return writer.setBlock(block, material, data == null ? 0 : (byte)(short)data, blockState);
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     public void modify(Block block, boolean applyPhysics) {
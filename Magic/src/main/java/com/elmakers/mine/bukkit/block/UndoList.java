@@ -1,5 +1,7 @@
 package com.elmakers.mine.bukkit.block;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -34,6 +36,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.BlockVector;
 
 import com.elmakers.mine.bukkit.api.action.CastContext;
 import com.elmakers.mine.bukkit.api.batch.Batch;
@@ -50,6 +53,8 @@ import com.elmakers.mine.bukkit.magic.MagicMetaKeys;
 import com.elmakers.mine.bukkit.materials.MaterialSets;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.TextUtils;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+import com.elmakers.mine.bukkit.utility.platform.BulkBlockWriter;
 import com.google.common.base.Preconditions;
 
 /**
@@ -70,7 +75,14 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     protected static final Map<Entity, com.elmakers.mine.bukkit.api.block.UndoList>    watchedEntities = new WeakHashMap<>();
     protected static BlockComparator                blockComparator = new BlockComparator();
 
-    protected Map<Long, BlockData>          watching;
+    // Old or large lists may be moved out of memory, see spill()
+    private static File                             spillFolder = null;
+    private static File                             cleanedSpillFolder = null;
+    private static long                             spillAge = 0;
+    private static int                              spillSize = 0;
+
+    protected LongObjectHashMap<BlockData>  watching;
+    private UndoSpillFile                   spillFile;
     private Set<String>                     worlds = new HashSet<>();
     private boolean                         loading = false;
 
@@ -88,6 +100,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     protected boolean               finished              = false;
     protected int                      timeToLive          = 0;
     protected ModifyType            modifyType           = ModifyType.NO_PHYSICS;
+    protected BulkBlockWriter       bulkBlockWriter;
     protected boolean               lockChunks = false;
     protected boolean               forceSynchronous = false;
 
@@ -163,7 +176,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     public boolean isEmpty()
     {
         return (
-            (blockQueue == null || blockQueue.isEmpty())
+            (blockQueue == null || blockQueue.isEmpty()) && spillFile == null
         &&     (spawnedEntities == null || spawnedEntities.isEmpty())
         &&     (runnables == null || runnables.isEmpty()));
     }
@@ -254,6 +267,8 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
             return false;
         }
         worlds.add(blockData.getWorldName());
+        BlockVector position = blockData.getPosition();
+        ChunkSnapshotCache.markModified(blockData.getWorldName(), position.getBlockX(), position.getBlockZ());
         modifiedTime = System.currentTimeMillis();
         if (watching != null) {
             BlockData attachedBlock = watching.remove(blockData.getId());
@@ -316,7 +331,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         }
 
         Block testBlock = baseBlock.getRelative(direction);
-        Long blockId = com.elmakers.mine.bukkit.block.BlockData.getBlockId(testBlock);
+        long blockId = com.elmakers.mine.bukkit.block.BlockData.getBlockId(testBlock);
 
         // This gets called recursively, so don't re-process anything
         if (blockQueue != null && blockQueue.containsKey(blockId))
@@ -377,7 +392,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         registry.registerWatched(blockData);
         if (watching == null)
         {
-            watching = new HashMap<>();
+            watching = new LongObjectHashMap<>();
         }
         watching.put(blockData.getId(), blockData);
     }
@@ -391,6 +406,9 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     {
         unlink();
         unregisterWatched();
+        if (spillFile != null) {
+            clearSpilled(true);
+        }
         if (blockQueue == null) return;
 
         final List<BlockData> staticList = new ArrayList<>(blockQueue.values());
@@ -406,6 +424,11 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     }
 
     public boolean commitNext() {
+        if (spillFile != null) {
+            // No need to load the whole list back just to commit it a block at a time
+            commit();
+            return false;
+        }
         if (blockQueue == null || blockQueue.isEmpty()) {
             unlink();
             unregisterWatched();
@@ -421,23 +444,12 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
 
     @Nullable
     private BlockData removeFirst() {
-        Iterator<Map.Entry<Long, BlockData>> iterator = blockQueue.entrySet().iterator();
-        if (iterator.hasNext()) {
-            BlockData block = iterator.next().getValue();
-            iterator.remove();
-            return block;
-        }
-        return null;
+        return blockQueue.removeFirst();
     }
 
     @Nullable
     private BlockData getFirst() {
-        Iterator<Map.Entry<Long, BlockData>> iterator = blockQueue.entrySet().iterator();
-        if (iterator.hasNext()) {
-            BlockData block = iterator.next().getValue();
-            return block;
-        }
-        return null;
+        return blockQueue.getFirst();
     }
 
     @Override
@@ -521,6 +533,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     @Override
     public BlockData undoNext(boolean applyPhysics)
     {
+        pageIn();
         if (blockQueue.size() == 0) {
             return null;
         }
@@ -582,6 +595,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     {
         if (undone) return;
         undone = true;
+        pageIn();
 
         if (blocking) {
             forceSynchronous = true;
@@ -735,6 +749,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     }
 
     public void finish() {
+        flushBulkWrites();
         finished = true;
     }
 
@@ -760,7 +775,22 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     @Override
     public void save(ConfigurationSection node)
     {
-        super.save(node);
+        // This may be called off of the main thread, so be careful not to page in here
+        synchronized (blockQueue) {
+            if (spillFile == null) {
+                super.save(node);
+            } else {
+                try {
+                    List<String> blockData = new ArrayList<>();
+                    for (BlockData block : spillFile.read()) {
+                        blockData.add(block.toString());
+                    }
+                    node.set("blocks", blockData);
+                } catch (IOException ex) {
+                    controller.getLogger().log(Level.WARNING, "Error reading undo spill file " + spillFile.getFile().getName(), ex);
+                }
+            }
+        }
         node.set("time_to_live", timeToLive);
         node.set("name", name);
         if (modifyType != ModifyType.NORMAL) {
@@ -967,6 +997,30 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         return area != null && area.contains(location.toVector(), threshold);
     }
 
+    @Override
+    public boolean contains(Block block) {
+        if (spillFile != null) {
+            return registry.getSpilled(com.elmakers.mine.bukkit.block.BlockData.getBlockId(block)) == this;
+        }
+        return super.contains(block);
+    }
+
+    @Override
+    public boolean contains(BlockData blockData) {
+        if (spillFile != null) {
+            return registry.getSpilled(blockData.getId()) == this;
+        }
+        return super.contains(blockData);
+    }
+
+    @Override
+    public boolean contains(Object arg0) {
+        if (spillFile != null && arg0 instanceof Long) {
+            return registry.getSpilled((Long)arg0) == this;
+        }
+        return super.contains(arg0);
+    }
+
     @Override
     public void prune()
     {
@@ -983,6 +1037,119 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         modifiedTime = System.currentTimeMillis();
     }
 
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Spill this list to disk if it is old or large enough, and no longer being worked on.
+     */
+    public boolean checkSpill(long now) {
+        if (spillFolder == null || spillFile != null || undone || isScheduled() || blockQueue.isEmpty()) {
+            return false;
+        }
+        boolean isOld = spillAge > 0 && now - modifiedTime > spillAge;
+        boolean isLarge = spillSize > 0 && blockQueue.size() >= spillSize;
+        if (!isOld && !isLarge) {
+            return false;
+        }
+        Batch batch = getBatch();
+        if (batch != null && !batch.isFinished()) {
+            return false;
+        }
+        return spill();
+    }
+
+    /**
+     * Write this list's blocks out to a file, and drop them from memory.
+     *
+     * <p>The registry keeps track of which blocks belong to spilled lists, and anything that
+     * needs the actual block data will load the list back in first.
+     *
+     * <p>Lists that have blocks layered with other lists, or that hold any block state
+     * that doesn't survive being saved as a string, will not be spilled.
+     */
+    public boolean spill() {
+        synchronized (blockQueue) {
+            if (spillFile != null || blockQueue.isEmpty()) return false;
+            Map<String, MaterialAndData> parsedKeys = new HashMap<>();
+            for (BlockData block : blockQueue.values()) {
+                if (!UndoSpillFile.canSpill(block, parsedKeys) || registry.modified.get(block.getId()) != block) {
+                    return false;
+                }
+            }
+            File file = new File(spillFolder, UUID.randomUUID().toString() + ".undo");
+            try {
+                spillFile = UndoSpillFile.write(file, blockQueue.values());
+            } catch (IOException ex) {
+                controller.getLogger().log(Level.WARNING, "Error writing undo spill file " + file.getName(), ex);
+                file.delete();
+                return false;
+            }
+            for (BlockData block : blockQueue.values()) {
+                long blockId = block.getId();
+                registry.modified.remove(blockId);
+                registry.registerSpilled(blockId, this);
+            }
+            blockQueue.clear();
+        }
+        return true;
+    }
+
+    @Override
+    protected void pageIn() {
+        if (spillFile == null) return;
+        synchronized (blockQueue) {
+            UndoSpillFile file = spillFile;
+            if (file == null) return;
+            spillFile = null;
+            List<com.elmakers.mine.bukkit.block.BlockData> blocks;
+            try {
+                blocks = file.read();
+            } catch (IOException ex) {
+                controller.getLogger().log(Level.SEVERE, "Error reading undo spill file " + file.getFile().getName() + ", blocks from " + name + " can not be undone", ex);
+                registry.removeSpilled(this);
+                file.delete();
+                return;
+            }
+            for (com.elmakers.mine.bukkit.block.BlockData block : blocks) {
+                registry.removeSpilled(block.getId(), this, false);
+                block.setUndoList(this);
+                blockQueue.put(block.getId(), block);
+                registry.registerModified(block);
+            }
+            file.delete();
+        }
+    }
+
+    private void clearSpilled(boolean committed) {
+        synchronized (blockQueue) {
+            UndoSpillFile file = spillFile;
+            if (file == null) return;
+            spillFile = null;
+            try {
+                for (long blockId : file.readIds()) {
+                    registry.removeSpilled(blockId, this, committed);
+                }
+            } catch (IOException ex) {
+                registry.removeSpilled(this);
+            }
+            file.delete();
+        }
+    }
+
+    @Override
+    public void clear() {
+        clearSpilled(false);
+        super.clear();
+    }
+
+    @Override
+    public int size() {
+        UndoSpillFile file = spillFile;
+        return file != null ? file.size() : super.size();
+    }
+
     @Override
     public String getName()
     {
@@ -1111,7 +1278,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
     public void setApplyPhysics(boolean applyPhysics) {
         if (applyPhysics) {
             this.modifyType = ModifyType.NORMAL;
-        } else if (this.modifyType != ModifyType.FAST) {
+        } else if (this.modifyType != ModifyType.FAST && this.modifyType != ModifyType.BULK) {
             this.modifyType = ModifyType.NO_PHYSICS;
         }
     }
@@ -1140,6 +1307,27 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         return modifyType;
     }
 
+    /**
+     * Get the writer to queue block changes on, when this list is set to modify blocks in bulk.
+     * Changes are not made until flushBulkWrites is called.
+     */
+    @Nullable
+    public BulkBlockWriter getBulkBlockWriter() {
+        if (modifyType != ModifyType.BULK) {
+            return null;
+        }
+        if (bulkBlockWriter == null) {
+            bulkBlockWriter = CompatibilityLib.getCompatibilityUtils().createBulkBlockWriter();
+        }
+        return bulkBlockWriter;
+    }
+
+    public void flushBulkWrites() {
+        if (bulkBlockWriter != null && bulkBlockWriter.size() > 0) {
+            bulkBlockWriter.flush();
+        }
+    }
+
     @Nullable
     public static com.elmakers.mine.bukkit.api.block.UndoList getUndoList(Entity entity) {
         com.elmakers.mine.bukkit.api.block.UndoList blockList = entity != null ? watchedEntities.get(entity) : null;
@@ -1192,6 +1380,33 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
         return registry;
     }
 
+    /**
+     * Set where and when to spill old or large lists to disk.
+     *
+     * @param folder The folder to write to, or null to disable spilling
+     * @param age Spill lists that haven't been modified for this many milliseconds, or 0 to disable
+     * @param size Spill lists with at least this many blocks, or 0 to disable
+     */
+    public static void setSpillSettings(@Nullable File folder, long age, int size) {
+        if (folder != null && !folder.equals(cleanedSpillFolder)) {
+            cleanedSpillFolder = folder;
+            // Anything in here is left over from a previous run, lists are persisted with the Mage
+            File[] leftover = folder.listFiles((dir, fileName) -> fileName.endsWith(".undo"));
+            if (leftover != null) {
+                for (File file : leftover) {
+                    file.delete();
+                }
+            }
+        }
+        spillFolder = age > 0 || size > 0 ? folder : null;
+        spillAge = age;
+        spillSize = size;
+    }
+
+    public static boolean isSpillEnabled() {
+        return spillFolder != null;
+    }
+
     @Override
     public void setUndoBreakable(boolean breakable) {
         this.undoBreakable = breakable;
@@ -1250,6 +1465,7 @@ public class UndoList extends BlockList implements com.elmakers.mine.bukkit.api.
 
     public void sort(MaterialSet attachables) {
         if (blockQueue == null) return;
+        pageIn();
 
         List<BlockData> sortedList = new ArrayList<>(blockQueue.values());
         blockQueue.clear();
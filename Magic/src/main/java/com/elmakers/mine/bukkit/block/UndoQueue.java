@@ -75,6 +75,19 @@ public class UndoQueue implements com.elmakers.mine.bukkit.api.block.UndoQueue
             head.setNext(addList);
             head = addList;
         }
+        spillOld();
+    }
+
+    private void spillOld()
+    {
+        if (!UndoList.isSpillEnabled()) return;
+        long now = System.currentTimeMillis();
+        UndoList list = tail;
+        while (list != null && list != head)
+        {
+            list.checkSpill(now);
+            list = list.getNext();
+        }
     }
 
     public void removed(UndoList list)
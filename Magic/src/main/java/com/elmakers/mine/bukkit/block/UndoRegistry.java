@@ -1,24 +1,30 @@
 package com.elmakers.mine.bukkit.block;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Iterator;
 import javax.annotation.Nullable;
 
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 
 import com.elmakers.mine.bukkit.api.block.BlockData;
+import com.elmakers.mine.bukkit.utility.collection.LongDoubleHashMap;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
 
 public class UndoRegistry {
-    protected Map<Long, BlockData> modified = new HashMap<>();
-    protected Map<Long, BlockData> watching = new HashMap<>();
-    protected Map<Long, Double> reflective = new HashMap<>();
-    protected Map<Long, Double> breakable = new HashMap<>();
-    protected Map<Long, Double> breaking = new HashMap<>();
+    protected LongObjectHashMap<BlockData> modified = new LongObjectHashMap<>();
+    protected LongObjectHashMap<BlockData> watching = new LongObjectHashMap<>();
+    protected LongDoubleHashMap reflective = new LongDoubleHashMap();
+    protected LongDoubleHashMap breakable = new LongDoubleHashMap();
+    protected LongDoubleHashMap breaking = new LongDoubleHashMap();
+    // Blocks that belong to UndoLists which have been written out to disk
+    protected LongObjectHashMap<UndoList> spilled = new LongObjectHashMap<>();
 
     public void registerModified(BlockData blockData)
     {
+        // A spilled list must be loaded back first, so its blocks stay at the bottom of the stack
+        pageIn(blockData.getId());
         BlockData priorState = modified.get(blockData.getId());
         if (priorState != null)
         {
@@ -43,6 +49,9 @@ public class UndoRegistry {
 
     public void commitAll()
     {
+        for (UndoList list : new HashSet<>(spilled.values())) {
+            list.commit();
+        }
         Collection<BlockData> blocks = modified.values();
         modified.clear();
         watching.clear();
@@ -63,6 +72,55 @@ public class UndoRegistry {
     }
 
 
+    protected void registerSpilled(long blockId, UndoList list)
+    {
+        spilled.put(blockId, list);
+    }
+
+    protected void removeSpilled(long blockId, UndoList list, boolean committed)
+    {
+        if (spilled.get(blockId) == list)
+        {
+            spilled.remove(blockId);
+            if (committed)
+            {
+                reflective.remove(blockId);
+                breakable.remove(blockId);
+            }
+        }
+    }
+
+    protected void removeSpilled(UndoList list)
+    {
+        Iterator<UndoList> iterator = spilled.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next() == list)
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    public LongObjectHashMap<UndoList> getSpilled() {
+        return spilled;
+    }
+
+    @Nullable
+    public UndoList getSpilled(long blockId)
+    {
+        return spilled.get(blockId);
+    }
+
+    private void pageIn(long blockId)
+    {
+        UndoList list = spilled.get(blockId);
+        if (list != null)
+        {
+            list.pageIn();
+        }
+    }
+
     protected void removeFromModified(BlockData block)
     {
         removeFromModified(block, block.getPriorState());
@@ -124,28 +182,32 @@ public class UndoRegistry {
     public Double removeDamage(BlockData block) {
         double amount = block.getDamage();
         if (amount <= 0) return null;
-        Double currentAmount = breaking.get(block.getId());
-        if (currentAmount == null) return null;
-        currentAmount -= amount;
+        long blockId = block.getId();
+        if (!breaking.containsKey(blockId)) return null;
+        double currentAmount = breaking.get(blockId, 0) - amount;
         if (currentAmount <= 0) {
             removeBreaking(block);
             return 0.0;
         } else {
-            breaking.put(block.getId(), currentAmount);
+            breaking.put(blockId, currentAmount);
         }
         return currentAmount;
 
     }
 
+    @Nullable
     public Double removeBreaking(BlockData block) {
-        return breaking.remove(block.getId());
+        long blockId = block.getId();
+        if (!breaking.containsKey(blockId)) return null;
+        double currentAmount = breaking.get(blockId, 0);
+        breaking.remove(blockId);
+        return currentAmount;
     }
 
     public double registerBreaking(Block block, double addAmount) {
         if (block == null) return 0;
         long blockId = com.elmakers.mine.bukkit.block.BlockData.getBlockId(block);
-        Double currentAmount = breaking.get(blockId);
-        currentAmount = currentAmount == null ? addAmount : currentAmount + addAmount;
+        double currentAmount = breaking.get(blockId, 0) + addAmount;
         currentAmount = Math.min(currentAmount, 1);
         breaking.put(blockId, currentAmount);
         return currentAmount;
@@ -154,6 +216,7 @@ public class UndoRegistry {
     @Nullable
     public BlockData getBlockData(Location location) {
         long blockId = com.elmakers.mine.bukkit.block.BlockData.getBlockId(location.getBlock());
+        pageIn(blockId);
 
         // Prefer to return blocks that are watched by lists which are going to auto-undo.
         BlockData watchedBlock = watching.get(blockId);
@@ -174,6 +237,7 @@ public class UndoRegistry {
     @Nullable
     public BlockData getModifiedBlock(Location location) {
         long blockId = com.elmakers.mine.bukkit.block.BlockData.getBlockId(location.getBlock());
+        pageIn(blockId);
         return modified.get(blockId);
     }
 
@@ -187,19 +251,19 @@ public class UndoRegistry {
 
     @Nullable
     public Double getReflective(Block block) {
-        return block == null ? null : reflective.get(com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
+        return block == null ? null : get(reflective, com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
     }
 
-    public Map<Long, Double> getReflective() {
+    public LongDoubleHashMap getReflective() {
         return reflective;
     }
 
     @Nullable
     public Double getBreakable(Block block) {
-        return block == null ? null : breakable.get(com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
+        return block == null ? null : get(breakable, com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
     }
 
-    public Map<Long, Double> getBreakable() {
+    public LongDoubleHashMap getBreakable() {
         return breakable;
     }
 
@@ -228,19 +292,25 @@ public class UndoRegistry {
         reflective.remove(com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
     }
 
-    public Map<Long, BlockData> getModified() {
+    public LongObjectHashMap<BlockData> getModified() {
         return modified;
     }
 
-    public Map<Long, BlockData> getWatching() {
+    public LongObjectHashMap<BlockData> getWatching() {
         return watching;
     }
 
-    public Map<Long, Double> getBreaking() {
+    public LongDoubleHashMap getBreaking() {
         return breaking;
     }
 
+    @Nullable
     public Double getBreaking(Block block) {
-        return breaking.get(com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
+        return get(breaking, com.elmakers.mine.bukkit.block.BlockData.getBlockId(block));
+    }
+
+    @Nullable
+    private static Double get(LongDoubleHashMap map, long blockId) {
+        return map.containsKey(blockId) ? map.get(blockId, 0) : null;
     }
 }
@@ -0,0 +1,202 @@
+package com.elmakers.mine.bukkit.block;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.bukkit.util.BlockVector;
+
+/**
+ * A packed binary copy of the blocks in an UndoList, so that old or large lists
+ * don't need to keep all of their BlockData on the heap.
+ *
+ * <p>World names and material keys are written once each, in a string table at the start of
+ * the file, and each block is then five ints: x, y, z, world index and material index.
+ */
+public class UndoSpillFile {
+    private static final int MAGIC = 0x4D554E44;
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final int size;
+
+    private UndoSpillFile(File file, int size) {
+        this.file = file;
+        this.size = size;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a block can be written to a spill file and read back later without losing anything.
+     */
+    public static boolean canSpill(com.elmakers.mine.bukkit.api.block.BlockData block) {
+        return canSpill(block, new HashMap<>());
+    }
+
+    /**
+     * Check if a block can be written to a spill file and read back later without losing anything.
+     *
+     * @param parsedKeys Material keys that have already been parsed, to share between blocks
+     */
+    public static boolean canSpill(com.elmakers.mine.bukkit.api.block.BlockData block, Map<String, MaterialAndData> parsedKeys) {
+        if (!(block instanceof BlockData)) return false;
+        BlockData blockData = (BlockData)block;
+        if (blockData.location == null || blockData.worldName == null
+            || blockData.priorState != null || blockData.nextState != null
+            || blockData.fakeSentToPlayers != null || blockData.damage != 0
+            || blockData.extraData != null || blockData.tags != null) {
+            return false;
+        }
+
+        // Blocks are stored by material key, make sure the key parses back to the same block
+        MaterialAndData parsed = parsedKeys.computeIfAbsent(blockData.getKey(), MaterialAndData::new);
+        return parsed.isValid() && parsed.material == blockData.material
+            && Objects.equals(parsed.data, blockData.data)
+            && Objects.equals(parsed.blockData, blockData.blockData)
+            && parsed.extraData == null && parsed.tags == null;
+    }
+
+    public static UndoSpillFile write(File file, Collection<com.elmakers.mine.bukkit.api.block.BlockData> blocks) throws IOException {
+        List<String> worlds = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Map<String, Integer> worldIndices = new HashMap<>();
+        Map<String, Integer> keyIndices = new HashMap<>();
+        int[] blockWorlds = new int[blocks.size()];
+        int[] blockKeys = new int[blocks.size()];
+        int index = 0;
+        for (com.elmakers.mine.bukkit.api.block.BlockData block : blocks) {
+            blockWorlds[index] = getIndex(block.getWorldName(), worlds, worldIndices);
+            blockKeys[index] = getIndex(((BlockData)block).getKey(), keys, keyIndices);
+            index++;
+        }
+
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeStrings(output, worlds);
+            writeStrings(output, keys);
+            output.writeInt(blocks.size());
+            index = 0;
+            for (com.elmakers.mine.bukkit.api.block.BlockData block : blocks) {
+                BlockVector position = block.getPosition();
+                output.writeInt(position.getBlockX());
+                output.writeInt(position.getBlockY());
+                output.writeInt(position.getBlockZ());
+                output.writeInt(blockWorlds[index]);
+                output.writeInt(blockKeys[index]);
+                index++;
+            }
+        }
+        return new UndoSpillFile(file, blocks.size());
+    }
+
+    /**
+     * Read all of the blocks back, in the order they were written.
+     */
+    public List<BlockData> read() throws IOException {
+        ByteBuffer buffer = readFile();
+        String[] worlds = readStrings(buffer);
+        String[] keys = readStrings(buffer);
+        int count = buffer.getInt();
+        List<BlockData> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int z = buffer.getInt();
+            String world = worlds[buffer.getInt()];
+            String key = keys[buffer.getInt()];
+            blocks.add(new BlockData(x, y, z, world, key));
+        }
+        return blocks;
+    }
+
+    /**
+     * Read just the block ids, which is all that is needed to commit a spilled list.
+     */
+    public long[] readIds() throws IOException {
+        ByteBuffer buffer = readFile();
+        String[] worlds = readStrings(buffer);
+        readStrings(buffer);
+        int count = buffer.getInt();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int z = buffer.getInt();
+            String world = worlds[buffer.getInt()];
+            buffer.getInt();
+            ids[i] = BlockData.getBlockId(world, x, y, z);
+        }
+        return ids;
+    }
+
+    public void delete() {
+        file.delete();
+    }
+
+    private ByteBuffer readFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            buffer.flip();
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Invalid undo spill file: " + file.getName());
+            }
+            return buffer;
+        }
+    }
+
+    private static int getIndex(String value, List<String> values, Map<String, Integer> indices) {
+        Integer index = indices.get(value);
+        if (index == null) {
+            index = values.size();
+            values.add(value);
+            indices.put(value, index);
+        }
+        return index;
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+}
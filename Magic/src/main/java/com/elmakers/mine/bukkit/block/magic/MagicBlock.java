@@ -28,6 +28,7 @@ import com.elmakers.mine.bukkit.magic.MagicController;
 import com.elmakers.mine.bukkit.magic.MagicMetaKeys;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.collection.TimingWheel;
 
 public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automaton,
         com.elmakers.mine.bukkit.api.block.magic.MagicBlock {
@@ -47,6 +48,8 @@ public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automat
     private String name;
 
     private long nextTick;
+    @Nullable
+    private TimingWheel.Timer<MagicBlock> timer;
     private List<WeakReference<Entity>> spawned;
     private long lastSpawn;
     private EffectContext effectContext;
@@ -224,14 +227,17 @@ public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automat
     public void enable() {
         if (enabled) return;
         this.enabled = true;
+        controller.setAutomataModified();
         if (shouldBeActive()) {
             resume();
+            controller.scheduleMagicBlock(this);
         }
     }
 
     @Override
     public void disable() {
         this.enabled = false;
+        controller.setAutomataModified();
         pause();
     }
 
@@ -313,6 +319,22 @@ public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automat
         nextTick = now + template.getInterval();
     }
 
+    /**
+     * The time at which this block next needs to tick, in milliseconds.
+     */
+    public long getNextTick() {
+        return nextTick;
+    }
+
+    @Nullable
+    TimingWheel.Timer<MagicBlock> getTimer() {
+        return timer;
+    }
+
+    void setTimer(@Nullable TimingWheel.Timer<MagicBlock> timer) {
+        this.timer = timer;
+    }
+
     public boolean hasSpawner() {
         return template != null && template.getSpawner() != null;
     }
@@ -380,6 +402,7 @@ public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automat
 
     public void setParameters(@Nullable ConfigurationSection parameters) {
         this.parameters = parameters;
+        controller.setAutomataModified();
     }
 
     @Nullable
@@ -435,6 +458,7 @@ public class MagicBlock implements com.elmakers.mine.bukkit.api.automata.Automat
 
     public void setName(String name) {
         this.name = name;
+        controller.setAutomataModified();
     }
 
     public void removed() {
@@ -0,0 +1,95 @@
+package com.elmakers.mine.bukkit.block.magic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.elmakers.mine.bukkit.magic.MagicController;
+import com.elmakers.mine.bukkit.utility.collection.TimingWheel;
+
+/**
+ * Decides when active magic blocks next need to tick, so that each update only
+ * visits the blocks that are due rather than every active block.
+ *
+ * <p>A block is scheduled for when its template interval is next up. When first scheduled,
+ * such as when its chunk loads, it is pushed back by a random part of its interval, so
+ * blocks that share an interval and were activated together don't all tick at once.
+ */
+public class MagicBlockScheduler {
+    private final MagicController controller;
+    private final TimingWheel<MagicBlock> wheel = new TimingWheel<>();
+    private final List<MagicBlock> due = new ArrayList<>();
+    private final Random random = new Random();
+    private long millisecondsPerTick = 50;
+
+    // Stats, for /magic list
+    private long ticked = 0;
+
+    public MagicBlockScheduler(MagicController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Set how often tick() is called.
+     *
+     * @param frequency The number of server ticks between each call to tick()
+     */
+    public void setUpdateFrequency(int frequency) {
+        millisecondsPerTick = Math.max(1, frequency) * 50L;
+    }
+
+    /**
+     * Start ticking a block, if it is not already scheduled.
+     */
+    public void schedule(MagicBlock magicBlock) {
+        TimingWheel.Timer<MagicBlock> timer = magicBlock.getTimer();
+        if (timer != null && !timer.isCancelled()) return;
+        long delay = getDelay(magicBlock);
+        MagicBlockTemplate template = magicBlock.getTemplate();
+        int interval = template == null ? 0 : template.getInterval();
+        long intervalTicks = interval / millisecondsPerTick;
+        if (intervalTicks > 1) {
+            delay += random.nextInt((int)Math.min(intervalTicks, Integer.MAX_VALUE));
+        }
+        magicBlock.setTimer(wheel.schedule(magicBlock, delay));
+    }
+
+    public void unschedule(MagicBlock magicBlock) {
+        TimingWheel.Timer<MagicBlock> timer = magicBlock.getTimer();
+        if (timer != null) {
+            wheel.cancel(timer);
+            magicBlock.setTimer(null);
+        }
+    }
+
+    public void tick() {
+        wheel.advance(due);
+        for (MagicBlock magicBlock : due) {
+            magicBlock.setTimer(null);
+            magicBlock.tick();
+            ticked++;
+            // Blocks that are disabled get scheduled again when enabled, and removed blocks are dropped
+            if (magicBlock.isEnabled() && magicBlock.getTemplate() != null && magicBlock.getTimer() == null
+                    && controller.isActive(magicBlock)) {
+                magicBlock.setTimer(wheel.schedule(magicBlock, getDelay(magicBlock)));
+            }
+        }
+        due.clear();
+    }
+
+    /**
+     * How many ticks until the block's next update is due.
+     */
+    private long getDelay(MagicBlock magicBlock) {
+        long remaining = magicBlock.getNextTick() - System.currentTimeMillis();
+        return Math.max(1, (remaining + millisecondsPerTick - 1) / millisecondsPerTick);
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    public long getTickedCount() {
+        return ticked;
+    }
+}
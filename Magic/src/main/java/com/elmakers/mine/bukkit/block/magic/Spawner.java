@@ -24,6 +24,7 @@ import com.elmakers.mine.bukkit.api.entity.EntityData;
 import com.elmakers.mine.bukkit.api.magic.MageController;
 import com.elmakers.mine.bukkit.api.magic.MaterialSet;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 import com.elmakers.mine.bukkit.utility.random.RandomUtils;
 import com.elmakers.mine.bukkit.utility.random.WeightedPair;
 
@@ -184,7 +185,7 @@ public class Spawner {
             range = Math.max(playerRange, range);
         }
         int vertical = verticalRange > 0 ? verticalRange : range;
-        Collection<Entity> entities = location.getWorld().getNearbyEntities(location, range, vertical, range);
+        Collection<Entity> entities = EntityIndex.getNearbyEntities(location, range, vertical, range);
         for (Entity entity : entities) {
             if (entity instanceof Player) {
                 if (playerRange == range || entity.getLocation().distanceSquared(location) <= playerRangeSquared) {
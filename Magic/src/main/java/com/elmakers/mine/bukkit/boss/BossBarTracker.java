@@ -13,7 +13,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
 import com.elmakers.mine.bukkit.api.magic.Mage;
-import com.elmakers.mine.bukkit.utility.CompatibilityLib;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 
 public class BossBarTracker {
     private static final Random random = new Random();
@@ -53,7 +53,7 @@ public class BossBarTracker {
     }
 
     private void updateVisibility() {
-        Collection<Entity> entities = CompatibilityLib.getCompatibilityUtils().getNearbyEntities(mage.getLocation(), radius, radius, radius);
+        Collection<Entity> entities = EntityIndex.getNearbyEntities(mage.getLocation(), radius, radius, radius);
         processing.addAll(visibleTo);
         visibleTo.clear();
 
@@ -0,0 +1,483 @@
+package com.elmakers.mine.bukkit.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * A parameter equation compiled to a flat program, with each variable given a slot.
+ *
+ * <p>Evaluating an EquationTransform needs the full set of known parameter names, which
+ * for spells has to be rebuilt from several configuration sections on every read. A compiled
+ * equation only needs the values of the variables it actually uses, which the caller puts in
+ * a frame array in the order given by getVariables().
+ *
+ * <p>Only a subset of the EffectLib equation syntax is supported: numbers, variables,
+ * + - * / % ^, parentheses and the common math functions. Anything else fails to compile,
+ * and callers should fall back to an EquationTransform, which will also report any errors.
+ *
+ * <p>Compiled equations are immutable and can be shared between threads, the frame
+ * holds all of the working state.
+ */
+public final class CompiledEquation {
+    // Stop caching if we see this many distinct equations, most likely due to placeholders
+    private static final int MAX_CACHE_SIZE = 10000;
+    private static final CompiledEquation UNSUPPORTED = new CompiledEquation(new int[0], new double[0], new String[0], 0);
+    private static final Map<String, CompiledEquation> cache = new ConcurrentHashMap<>();
+
+    private static final int CONSTANT = 0;
+    private static final int VARIABLE = 1;
+    private static final int ADD = 2;
+    private static final int SUBTRACT = 3;
+    private static final int MULTIPLY = 4;
+    private static final int DIVIDE = 5;
+    private static final int MODULO = 6;
+    private static final int POWER = 7;
+    private static final int NEGATE = 8;
+    private static final int FUNCTION = 9;
+    private static final int FUNCTION2 = 10;
+
+    private static final String[] FUNCTIONS = {
+        "sin", "cos", "tan", "asin", "acos", "atan", "sinh", "cosh", "tanh",
+        "sqrt", "cbrt", "abs", "ceil", "floor", "exp", "expm1", "log", "log10", "log2", "log1p", "signum"
+    };
+    private static final String[] FUNCTIONS2 = {"pow", "min", "max", "atan2"};
+
+    private final int[] program;
+    private final double[] constants;
+    private final String[] variables;
+    private final int frameSize;
+
+    private CompiledEquation(int[] program, double[] constants, String[] variables, int stackSize) {
+        this.program = program;
+        this.constants = constants;
+        this.variables = variables;
+        this.frameSize = variables.length + stackSize;
+    }
+
+    /**
+     * Get a compiled equation from the cache, compiling it if needed.
+     *
+     * @return The compiled equation, or null if it uses something that can't be compiled
+     */
+    @Nullable
+    public static CompiledEquation get(String expression) {
+        CompiledEquation equation = cache.get(expression);
+        if (equation == null) {
+            equation = compile(expression);
+            if (equation == null) {
+                equation = UNSUPPORTED;
+            }
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(expression, equation);
+        }
+        return equation == UNSUPPORTED ? null : equation;
+    }
+
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Compile an equation without caching it.
+     *
+     * @return The compiled equation, or null if it uses something that can't be compiled
+     */
+    @Nullable
+    public static CompiledEquation compile(String expression) {
+        // $ is not an operator, it is allowed for compatibility with the old $parameter syntax
+        Parser parser = new Parser(expression.replace("$", ""));
+        try {
+            parser.parseExpression();
+            parser.skipWhitespace();
+            if (parser.position < parser.expression.length()) {
+                return null;
+            }
+        } catch (ParseException ex) {
+            return null;
+        }
+        return parser.build();
+    }
+
+    /**
+     * Get the value of a builtin constant, which may be used as a variable name in an equation
+     * if there is no parameter with that name.
+     */
+    @Nullable
+    public static Double getConstant(String name) {
+        switch (name) {
+            case "pi":
+            case "π":
+                return Math.PI;
+            case "e":
+                return Math.E;
+            case "φ":
+                return 1.61803398874;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * The variables used by this equation, in slot order.
+     * Do not modify the returned array.
+     */
+    public String[] getVariables() {
+        return variables;
+    }
+
+    /**
+     * How big the frame passed to evaluate() needs to be.
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Evaluate this equation.
+     *
+     * @param frame The value of each variable, in the order of getVariables(), followed by
+     *              enough space to evaluate with. This must be at least getFrameSize() long,
+     *              the extra space will be overwritten.
+     */
+    public double evaluate(double[] frame) {
+        int top = variables.length - 1;
+        int pc = 0;
+        while (pc < program.length) {
+            int op = program[pc++];
+            switch (op) {
+                case CONSTANT:
+                    frame[++top] = constants[program[pc++]];
+                    break;
+                case VARIABLE:
+                    frame[++top] = frame[program[pc++]];
+                    break;
+                case ADD:
+                    top--;
+                    frame[top] = frame[top] + frame[top + 1];
+                    break;
+                case SUBTRACT:
+                    top--;
+                    frame[top] = frame[top] - frame[top + 1];
+                    break;
+                case MULTIPLY:
+                    top--;
+                    frame[top] = frame[top] * frame[top + 1];
+                    break;
+                case DIVIDE:
+                    top--;
+                    frame[top] = frame[top] / frame[top + 1];
+                    break;
+                case MODULO:
+                    top--;
+                    frame[top] = frame[top] % frame[top + 1];
+                    break;
+                case POWER:
+                    top--;
+                    frame[top] = Math.pow(frame[top], frame[top + 1]);
+                    break;
+                case NEGATE:
+                    frame[top] = -frame[top];
+                    break;
+                case FUNCTION:
+                    frame[top] = function(program[pc++], frame[top]);
+                    break;
+                case FUNCTION2:
+                    top--;
+                    frame[top] = function2(program[pc++], frame[top], frame[top + 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid equation op: " + op);
+            }
+        }
+        return frame[top];
+    }
+
+    private static double function(int function, double value) {
+        switch (function) {
+            case 0: return Math.sin(value);
+            case 1: return Math.cos(value);
+            case 2: return Math.tan(value);
+            case 3: return Math.asin(value);
+            case 4: return Math.acos(value);
+            case 5: return Math.atan(value);
+            case 6: return Math.sinh(value);
+            case 7: return Math.cosh(value);
+            case 8: return Math.tanh(value);
+            case 9: return Math.sqrt(value);
+            case 10: return Math.cbrt(value);
+            case 11: return Math.abs(value);
+            case 12: return Math.ceil(value);
+            case 13: return Math.floor(value);
+            case 14: return Math.exp(value);
+            case 15: return Math.expm1(value);
+            case 16: return Math.log(value);
+            case 17: return Math.log10(value);
+            case 18: return Math.log(value) / Math.log(2);
+            case 19: return Math.log1p(value);
+            case 20: return Math.signum(value);
+            default: throw new IllegalStateException("Invalid equation function: " + function);
+        }
+    }
+
+    private static double function2(int function, double a, double b) {
+        switch (function) {
+            case 0: return Math.pow(a, b);
+            case 1: return Math.min(a, b);
+            case 2: return Math.max(a, b);
+            case 3: return Math.atan2(a, b);
+            default: throw new IllegalStateException("Invalid equation function: " + function);
+        }
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Thrown by the parser when an expression uses something it can't compile.
+     *
+     * <p>This only unwinds the parser back to compile(), so a single instance is shared, without a stack trace.
+     */
+    private static final class ParseException extends RuntimeException {
+        private static final ParseException INSTANCE = new ParseException();
+
+        private ParseException() {
+            super("Expression can not be compiled", null, false, false);
+        }
+    }
+
+    /**
+     * A recursive descent parser that emits the program as it goes.
+     *
+     * <p>Precedence follows exp4j, which EffectLib uses: unary minus binds less tightly
+     * than ^, so -2^2 is -4, and ^ is right-associative.
+     */
+    private static class Parser {
+        private final String expression;
+        private int position = 0;
+        private final List<Integer> program = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<String> variables = new ArrayList<>();
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        CompiledEquation build() {
+            int[] code = new int[program.size()];
+            for (int i = 0; i < code.length; i++) {
+                code[i] = program.get(i);
+            }
+            double[] constantValues = new double[constants.size()];
+            for (int i = 0; i < constantValues.length; i++) {
+                constantValues[i] = constants.get(i);
+            }
+            return new CompiledEquation(code, constantValues, variables.toArray(new String[0]), maxDepth);
+        }
+
+        void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (position < expression.length() && expression.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void emit(int op) {
+            program.add(op);
+        }
+
+        void push(int op, int argument) {
+            program.add(op);
+            program.add(argument);
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        void parseExpression() {
+            parseTerm();
+            while (true) {
+                if (consume('+')) {
+                    parseTerm();
+                    emit(ADD);
+                    pop();
+                } else if (consume('-')) {
+                    parseTerm();
+                    emit(SUBTRACT);
+                    pop();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        void parseTerm() {
+            parseUnary();
+            while (true) {
+                if (consume('*')) {
+                    parseUnary();
+                    emit(MULTIPLY);
+                    pop();
+                } else if (consume('/')) {
+                    parseUnary();
+                    emit(DIVIDE);
+                    pop();
+                } else if (consume('%')) {
+                    parseUnary();
+                    emit(MODULO);
+                    pop();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        void parseUnary() {
+            if (consume('-')) {
+                parseUnary();
+                emit(NEGATE);
+            } else if (consume('+')) {
+                parseUnary();
+            } else {
+                parsePower();
+            }
+        }
+
+        void parsePower() {
+            parsePrimary();
+            if (consume('^')) {
+                parseUnary();
+                emit(POWER);
+                pop();
+            }
+        }
+
+        void parsePrimary() {
+            skipWhitespace();
+            if (position >= expression.length()) {
+                throw ParseException.INSTANCE;
+            }
+            char c = expression.charAt(position);
+            if (consume('(')) {
+                parseExpression();
+                if (!consume(')')) {
+                    throw ParseException.INSTANCE;
+                }
+            } else if (Character.isDigit(c) || c == '.') {
+                parseNumber();
+            } else if (Character.isLetter(c) || c == '_') {
+                parseIdentifier();
+            } else {
+                throw ParseException.INSTANCE;
+            }
+            checkImplicitMultiplication();
+        }
+
+        void checkImplicitMultiplication() {
+            // exp4j may treat "2x" or "2(x)" as multiplication, leave those to it
+            skipWhitespace();
+            if (position < expression.length()) {
+                char next = expression.charAt(position);
+                if (Character.isLetterOrDigit(next) || next == '_' || next == '(' || next == '.') {
+                    throw ParseException.INSTANCE;
+                }
+            }
+        }
+
+        void parseNumber() {
+            int start = position;
+            while (position < expression.length() && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+                position++;
+            }
+            if (position < expression.length() && (expression.charAt(position) == 'e' || expression.charAt(position) == 'E')) {
+                int exponent = position + 1;
+                if (exponent < expression.length() && (expression.charAt(exponent) == '+' || expression.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < expression.length() && Character.isDigit(expression.charAt(exponent))) {
+                    position = exponent;
+                    while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                        position++;
+                    }
+                }
+            }
+            double value;
+            try {
+                value = Double.parseDouble(expression.substring(start, position));
+            } catch (NumberFormatException ex) {
+                throw ParseException.INSTANCE;
+            }
+            constants.add(value);
+            push(CONSTANT, constants.size() - 1);
+        }
+
+        void parseIdentifier() {
+            int start = position;
+            while (position < expression.length()
+                    && (Character.isLetterOrDigit(expression.charAt(position)) || expression.charAt(position) == '_')) {
+                position++;
+            }
+            String name = expression.substring(start, position);
+            if (consume('(')) {
+                parseFunction(name);
+                return;
+            }
+            int slot = variables.indexOf(name);
+            if (slot < 0) {
+                slot = variables.size();
+                variables.add(name);
+            }
+            push(VARIABLE, slot);
+        }
+
+        void parseFunction(String name) {
+            int function = indexOf(FUNCTIONS, name);
+            if (function >= 0) {
+                parseExpression();
+                if (!consume(')')) {
+                    throw ParseException.INSTANCE;
+                }
+                program.add(FUNCTION);
+                program.add(function);
+                return;
+            }
+            function = indexOf(FUNCTIONS2, name);
+            if (function >= 0) {
+                parseExpression();
+                if (!consume(',')) {
+                    throw ParseException.INSTANCE;
+                }
+                parseExpression();
+                if (!consume(')')) {
+                    throw ParseException.INSTANCE;
+                }
+                program.add(FUNCTION2);
+                program.add(function);
+                pop();
+                return;
+            }
+            throw ParseException.INSTANCE;
+        }
+    }
+}
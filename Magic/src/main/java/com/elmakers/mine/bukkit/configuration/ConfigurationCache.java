@@ -0,0 +1,398 @@
+package com.elmakers.mine.bukkit.configuration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps parsed copies of configuration files on disk, so files that haven't changed since the last
+ * load don't need to be parsed again.
+ *
+ * <p>Each source file or builtin resource gets one cache file, which stores the source's modified
+ * time, size and content hash along with the parsed values. A file whose modified time and size
+ * match (and was not modified just before it was cached) is read straight from the cache, otherwise
+ * its contents are hashed and the cache is only used if the hash matches.
+ *
+ * <p>Only plain values (strings, numbers, booleans, lists and maps) are cached, a file that contains
+ * anything else is always parsed.
+ *
+ * <p>This is safe to use from multiple threads, as long as no two threads load the same file at once.
+ */
+public class ConfigurationCache {
+    private static final int MAGIC = 0x4d434643;
+    private static final int VERSION = 1;
+    // File systems with coarse timestamps could miss a change made right after a file was cached
+    private static final long MODIFIED_TIME_MARGIN = 2000;
+
+    private static final byte TYPE_SECTION = 0;
+    private static final byte TYPE_MAP = 1;
+    private static final byte TYPE_LIST = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_INTEGER = 4;
+    private static final byte TYPE_LONG = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_FLOAT = 7;
+    private static final byte TYPE_BOOLEAN = 8;
+    private static final byte TYPE_NULL = 9;
+
+    private static class UncacheableException extends IOException {
+        UncacheableException(Object value) {
+            super("Can't cache value of type " + value.getClass().getName());
+        }
+    }
+
+    private final File folder;
+    private final Logger logger;
+    private volatile boolean enabled = true;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public ConfigurationCache(File folder, Logger logger) {
+        this.folder = folder;
+        this.logger = logger;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load a configuration file, from the cache if it hasn't changed.
+     */
+    @Nonnull
+    public YamlConfiguration load(File file) throws IOException, InvalidConfigurationException {
+        if (!enabled) {
+            YamlConfiguration configuration = new YamlConfiguration();
+            configuration.load(file);
+            return configuration;
+        }
+
+        long modified = file.lastModified();
+        long length = file.length();
+        File cacheFile = getCacheFile("file", file.getAbsolutePath());
+        YamlConfiguration cached = read(cacheFile, modified, length, null);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        byte[] contents = Files.readAllBytes(file.toPath());
+        return loadContents(cacheFile, modified, contents);
+    }
+
+    /**
+     * Load a builtin configuration resource, from the cache if it hasn't changed.
+     *
+     * <p>The stream is read fully and closed.
+     */
+    @Nonnull
+    public YamlConfiguration load(String resourceName, InputStream stream) throws IOException, InvalidConfigurationException {
+        byte[] contents;
+        try (InputStream input = stream) {
+            contents = readFully(input);
+        }
+        if (!enabled) {
+            return parse(contents);
+        }
+        return loadContents(getCacheFile("resource", resourceName), 0, contents);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Remove all cached files.
+     */
+    public void clear() {
+        File[] files = folder.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().endsWith(".cache") && !file.delete()) {
+                logger.warning("Could not delete configuration cache file: " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    private YamlConfiguration loadContents(File cacheFile, long modified, byte[] contents) throws IOException, InvalidConfigurationException {
+        byte[] hash = Hashing.sha256().hashBytes(contents).asBytes();
+        YamlConfiguration cached = read(cacheFile, modified, contents.length, hash);
+        if (cached != null) {
+            hits.incrementAndGet();
+            // Update the modified time so the next load can skip hashing
+            if (modified != 0) {
+                write(cacheFile, modified, contents.length, hash, cached);
+            }
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        YamlConfiguration configuration = parse(contents);
+        write(cacheFile, modified, contents.length, hash, configuration);
+        return configuration;
+    }
+
+    private static YamlConfiguration parse(byte[] contents) throws InvalidConfigurationException {
+        YamlConfiguration configuration = new YamlConfiguration();
+        configuration.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        return configuration;
+    }
+
+    private File getCacheFile(String type, String name) {
+        HashCode key = Hashing.sha256().hashString(type + ":" + name, StandardCharsets.UTF_8);
+        return new File(folder, key.toString() + ".cache");
+    }
+
+    /**
+     * Read a cache file, checking it against the source.
+     *
+     * @param hash The source's content hash, or null to only check the modified time and size
+     * @return The cached configuration, or null if there is no valid cache for this source
+     */
+    @Nullable
+    private YamlConfiguration read(File cacheFile, long modified, long length, @Nullable byte[] hash) {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            long cachedAt = input.readLong();
+            long cachedModified = input.readLong();
+            long cachedLength = input.readLong();
+            byte[] cachedHash = new byte[input.readUnsignedByte()];
+            input.readFully(cachedHash);
+            if (cachedLength != length) {
+                return null;
+            }
+            if (hash == null) {
+                if (modified == 0 || cachedModified != modified || modified + MODIFIED_TIME_MARGIN > cachedAt) {
+                    return null;
+                }
+            } else if (!Arrays.equals(hash, cachedHash)) {
+                return null;
+            }
+            YamlConfiguration configuration = new YamlConfiguration();
+            if (input.readBoolean()) {
+                configuration.options().header(readString(input));
+            }
+            readSection(input, configuration);
+            return configuration;
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Ignoring invalid configuration cache file: " + cacheFile.getAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    private void write(File cacheFile, long modified, long length, byte[] hash, YamlConfiguration configuration) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(buffer)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(System.currentTimeMillis());
+            output.writeLong(modified);
+            output.writeLong(length);
+            output.writeByte(hash.length);
+            output.write(hash);
+            String header = configuration.options().header();
+            output.writeBoolean(header != null);
+            if (header != null) {
+                writeString(output, header);
+            }
+            writeSection(output, configuration);
+        } catch (UncacheableException ex) {
+            // This file will just get parsed every time
+            return;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error caching configuration", ex);
+            return;
+        }
+
+        // Write to a temporary file first so a crash can never leave a partial cache file behind
+        File tempFile = null;
+        try {
+            folder.mkdirs();
+            tempFile = File.createTempFile(cacheFile.getName(), ".tmp", folder);
+            try (BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                buffer.writeTo(output);
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error writing configuration cache file: " + cacheFile.getAbsolutePath(), ex);
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private static void writeSection(DataOutputStream output, ConfigurationSection section) throws IOException {
+        Map<String, Object> values = section.getValues(false);
+        output.writeInt(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writeString(output, entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof ConfigurationSection) {
+                output.writeByte(TYPE_SECTION);
+                writeSection(output, (ConfigurationSection)value);
+            } else {
+                writeValue(output, value);
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(TYPE_NULL);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            output.writeByte(TYPE_MAP);
+            output.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(output, entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            output.writeByte(TYPE_LIST);
+            output.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(output, item);
+            }
+        } else if (value instanceof String) {
+            output.writeByte(TYPE_STRING);
+            writeString(output, (String)value);
+        } else if (value instanceof Integer) {
+            output.writeByte(TYPE_INTEGER);
+            output.writeInt((Integer)value);
+        } else if (value instanceof Long) {
+            output.writeByte(TYPE_LONG);
+            output.writeLong((Long)value);
+        } else if (value instanceof Double) {
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble((Double)value);
+        } else if (value instanceof Float) {
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat((Float)value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean((Boolean)value);
+        } else {
+            throw new UncacheableException(value);
+        }
+    }
+
+    private static void readSection(DataInputStream input, ConfigurationSection section) throws IOException {
+        int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = readString(input);
+            byte type = input.readByte();
+            if (type == TYPE_SECTION) {
+                readSection(input, section.createSection(key));
+            } else {
+                section.set(key, readValue(input, type));
+            }
+        }
+    }
+
+    @Nullable
+    private static Object readValue(DataInputStream input, byte type) throws IOException {
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_MAP:
+                int mapSize = input.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < mapSize; i++) {
+                    Object key = readValue(input, input.readByte());
+                    map.put(key, readValue(input, input.readByte()));
+                }
+                return map;
+            case TYPE_LIST:
+                int listSize = input.readInt();
+                List<Object> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(input, input.readByte()));
+                }
+                return list;
+            case TYPE_STRING:
+                return readString(input);
+            case TYPE_INTEGER:
+                return input.readInt();
+            case TYPE_LONG:
+                return input.readLong();
+            case TYPE_DOUBLE:
+                return input.readDouble();
+            case TYPE_FLOAT:
+                return input.readFloat();
+            case TYPE_BOOLEAN:
+                return input.readBoolean();
+            default:
+                // Sections are only ever values of other sections, not of lists or maps
+                throw new IOException("Unexpected value type: " + type);
+        }
+    }
+
+    // writeUTF is limited to 64k, which a long message could go over
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
@@ -54,4 +54,14 @@ public class MageParameters extends ParameterizedConfiguration {
     protected Set<String> getParameters() {
         return attributes;
     }
+
+    @Override
+    protected boolean hasParameters() {
+        return attributes != null && !attributes.isEmpty();
+    }
+
+    @Override
+    protected boolean hasParameter(String parameter) {
+        return attributes != null && attributes.contains(parameter);
+    }
 }
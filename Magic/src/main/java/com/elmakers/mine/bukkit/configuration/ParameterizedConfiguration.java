@@ -23,6 +23,8 @@ public abstract class ParameterizedConfiguration extends ParameterizedConfigurat
     private String context;
     private String contextField;
     private Set<String> workingParameters;
+    private double[] frame;
+    private boolean evaluating;
 
     protected ParameterizedConfiguration(String context) {
         this.context = context;
@@ -78,6 +80,24 @@ public abstract class ParameterizedConfiguration extends ParameterizedConfigurat
 
     @Nullable
     protected Double evaluate(String expression) {
+        CompiledEquation compiled = CompiledEquation.get(expression);
+        if (compiled != null) {
+            if (!hasParameters()) return null;
+            // Parameter lookups could evaluate another equation on this same configuration,
+            // in which case that one needs its own frame
+            boolean nested = evaluating;
+            double[] frame = nested ? new double[compiled.getFrameSize()] : getFrame(compiled.getFrameSize());
+            evaluating = true;
+            try {
+                if (fillFrame(compiled, frame)) {
+                    double value = compiled.evaluate(frame);
+                    return Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
+                }
+            } finally {
+                evaluating = nested;
+            }
+        }
+
         workingParameters = getParameters();
         if (workingParameters == null || workingParameters.isEmpty()) return null;
 
@@ -99,6 +119,31 @@ public abstract class ParameterizedConfiguration extends ParameterizedConfigurat
         return Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
     }
 
+    private double[] getFrame(int size) {
+        if (frame == null || frame.length < size) {
+            frame = new double[Math.max(size, 16)];
+        }
+        return frame;
+    }
+
+    private boolean fillFrame(CompiledEquation compiled, double[] frame) {
+        String[] variables = compiled.getVariables();
+        for (int i = 0; i < variables.length; i++) {
+            String variable = variables[i];
+            if (hasParameter(variable)) {
+                frame[i] = getParameter(variable);
+            } else {
+                // Unknown variables are an error, leave that to the EquationTransform to report
+                Double constant = CompiledEquation.getConstant(variable);
+                if (constant == null) {
+                    return false;
+                }
+                frame[i] = constant;
+            }
+        }
+        return true;
+    }
+
     @Override
     @Nullable
     public Double getVariable(String variable) {
@@ -106,5 +151,23 @@ public abstract class ParameterizedConfiguration extends ParameterizedConfigurat
     }
 
     protected abstract Set<String> getParameters();
+
+    /**
+     * Check if there are any parameters at all, equations are not evaluated if not.
+     * Subclasses should override this if getParameters() is expensive.
+     */
+    protected boolean hasParameters() {
+        Set<String> parameters = getParameters();
+        return parameters != null && !parameters.isEmpty();
+    }
+
+    /**
+     * Check if a single parameter is known, this should match getParameters().contains.
+     * Subclasses should override this if getParameters() is expensive.
+     */
+    protected boolean hasParameter(String parameter) {
+        Set<String> parameters = getParameters();
+        return parameters != null && parameters.contains(parameter);
+    }
     protected abstract double getParameter(String parameter);
 }
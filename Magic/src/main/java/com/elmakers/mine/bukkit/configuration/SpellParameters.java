@@ -94,6 +94,22 @@ public class SpellParameters extends MageParameters {
         return allParameters;
     }
 
+    @Override
+    protected boolean hasParameters() {
+        // allParameters only ever grows, so once it has something this is cheap
+        return !allParameters.isEmpty() || !getParameters().isEmpty();
+    }
+
+    @Override
+    protected boolean hasParameter(String parameter) {
+        if (allParameters.contains(parameter)) return true;
+        if (castVariables != null && castVariables.contains(parameter)) return true;
+        if (spellVariables.contains(parameter)) return true;
+        if (mageVariables != null && mageVariables.contains(parameter)) return true;
+        ConfigurationSection spellParameters = spell.getWorkingParameters();
+        return spellParameters != null && spellParameters.contains(parameter);
+    }
+
     public void setMageVariables(@Nonnull ConfigurationSection variables) {
         this.mageVariables = checkNotNull(variables, "variables");
     }
@@ -0,0 +1,337 @@
+package com.elmakers.mine.bukkit.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+/**
+ * A compact binary encoding of saved player data, used in place of YAML text.
+ *
+ * <p>This stores the same ConfigurationSection tree that ConfigurationMageDataStore builds, so it
+ * holds anything YAML can, including items and other ConfigurationSerializable objects.
+ * Numbers are written as variable-length ints, and each short string (keys, spell names and so on)
+ * is written once and then referred to by index, building the string table as the data is
+ * streamed rather than up front.
+ *
+ * <p>Every stream starts with a version number, so the format can change later and still read
+ * data written by older versions.
+ */
+public class BinaryMageDataFormat {
+    private static final int MAGIC = 0x4D414744;
+    private static final int VERSION = 1;
+    // Longer strings, such as item lore or undo data, are unlikely to repeat
+    private static final int MAX_SHARED_LENGTH = 64;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_SECTION = 1;
+    private static final byte TYPE_MAP = 2;
+    private static final byte TYPE_LIST = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_INTEGER = 5;
+    private static final byte TYPE_LONG = 6;
+    private static final byte TYPE_DOUBLE = 7;
+    private static final byte TYPE_FLOAT = 8;
+    private static final byte TYPE_TRUE = 9;
+    private static final byte TYPE_FALSE = 10;
+
+    // String references: a new string to add to the table, a string that is not shared,
+    // or (anything higher) the index of a string already in the table
+    private static final int STRING_NEW = 0;
+    private static final int STRING_UNSHARED = 1;
+    private static final int STRING_INDEX = 2;
+
+    private BinaryMageDataFormat() {
+    }
+
+    /**
+     * Write a configuration to a stream.
+     *
+     * <p>The stream is not closed, and should be buffered.
+     */
+    public static void write(ConfigurationSection section, OutputStream stream) throws IOException {
+        DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        new Writer(output).writeSection(section.getValues(false));
+        output.flush();
+    }
+
+    /**
+     * Read a configuration written by write() into a section.
+     *
+     * <p>The stream is not closed, and should be buffered.
+     */
+    public static void read(InputStream stream, ConfigurationSection section) throws IOException {
+        DataInputStream input = new DataInputStream(stream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a binary player data file");
+        }
+        int version = input.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary player data version: " + version);
+        }
+        new Reader(input).readSection(section);
+    }
+
+    public static byte[] toBytes(ConfigurationSection section) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        write(section, buffer);
+        return buffer.toByteArray();
+    }
+
+    public static void fromBytes(byte[] bytes, ConfigurationSection section) throws IOException {
+        read(new ByteArrayInputStream(bytes), section);
+    }
+
+    private static class Writer {
+        private final DataOutputStream output;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream output) {
+            this.output = output;
+        }
+
+        void writeSection(Map<?, ?> values) throws IOException {
+            writeVarInt(values.size());
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                writeString(entry.getKey().toString());
+                writeSectionValue(entry.getValue());
+            }
+        }
+
+        // Maps in a section are loaded back as sections, the same as they would be from YAML
+        void writeSectionValue(Object value) throws IOException {
+            if (value instanceof ConfigurationSection) {
+                output.writeByte(TYPE_SECTION);
+                writeSection(((ConfigurationSection)value).getValues(false));
+            } else if (value instanceof Map && !((Map<?, ?>)value).containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                output.writeByte(TYPE_SECTION);
+                writeSection((Map<?, ?>)value);
+            } else {
+                writeValue(value);
+            }
+        }
+
+        void writeValue(@Nullable Object value) throws IOException {
+            if (value == null) {
+                output.writeByte(TYPE_NULL);
+            } else if (value instanceof String) {
+                output.writeByte(TYPE_STRING);
+                writeString((String)value);
+            } else if (value instanceof Boolean) {
+                output.writeByte((Boolean)value ? TYPE_TRUE : TYPE_FALSE);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                output.writeByte(TYPE_INTEGER);
+                writeVarLong(((Number)value).intValue());
+            } else if (value instanceof Long) {
+                output.writeByte(TYPE_LONG);
+                writeVarLong((Long)value);
+            } else if (value instanceof Double) {
+                output.writeByte(TYPE_DOUBLE);
+                output.writeDouble((Double)value);
+            } else if (value instanceof Float) {
+                output.writeByte(TYPE_FLOAT);
+                output.writeFloat((Float)value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>)value;
+                output.writeByte(TYPE_LIST);
+                writeVarInt(list.size());
+                for (Object item : list) {
+                    writeValue(item);
+                }
+            } else if (value instanceof ConfigurationSection) {
+                writeMap(((ConfigurationSection)value).getValues(false));
+            } else if (value instanceof Map) {
+                writeMap((Map<?, ?>)value);
+            } else if (value instanceof ConfigurationSerializable) {
+                // Stored the same way YAML stores these, so they are read back the same way too
+                ConfigurationSerializable serializable = (ConfigurationSerializable)value;
+                Map<String, Object> serialized = new LinkedHashMap<>();
+                serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+                serialized.putAll(serializable.serialize());
+                writeMap(serialized);
+            } else if (value instanceof Number) {
+                output.writeByte(TYPE_DOUBLE);
+                output.writeDouble(((Number)value).doubleValue());
+            } else {
+                output.writeByte(TYPE_STRING);
+                writeString(value.toString());
+            }
+        }
+
+        void writeMap(Map<?, ?> map) throws IOException {
+            output.writeByte(TYPE_MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            if (value.length() > MAX_SHARED_LENGTH) {
+                writeVarInt(STRING_UNSHARED);
+                writeBytes(value);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(index + STRING_INDEX);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(STRING_NEW);
+            writeBytes(value);
+        }
+
+        void writeBytes(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            output.write(bytes);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                output.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.writeByte(value);
+        }
+
+        // Zig-zag encoded so small negative numbers are small too
+        void writeVarLong(long value) throws IOException {
+            long encoded = (value << 1) ^ (value >> 63);
+            while ((encoded & ~0x7FL) != 0) {
+                output.writeByte((int)((encoded & 0x7F) | 0x80));
+                encoded >>>= 7;
+            }
+            output.writeByte((int)encoded);
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream input;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(DataInputStream input) {
+            this.input = input;
+        }
+
+        void readSection(ConfigurationSection section) throws IOException {
+            int size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                byte type = input.readByte();
+                if (type == TYPE_SECTION) {
+                    readSection(section.createSection(key));
+                } else {
+                    section.set(key, readValue(type));
+                }
+            }
+        }
+
+        @Nullable
+        Object readValue(byte type) throws IOException {
+            switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString();
+            case TYPE_TRUE:
+                return true;
+            case TYPE_FALSE:
+                return false;
+            case TYPE_INTEGER:
+                return (int)readVarLong();
+            case TYPE_LONG:
+                return readVarLong();
+            case TYPE_DOUBLE:
+                return input.readDouble();
+            case TYPE_FLOAT:
+                return input.readFloat();
+            case TYPE_LIST:
+                int listSize = readVarInt();
+                List<Object> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(input.readByte()));
+                }
+                return list;
+            case TYPE_MAP:
+                int mapSize = readVarInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < mapSize; i++) {
+                    Object key = readValue(input.readByte());
+                    map.put(key == null ? null : key.toString(), readValue(input.readByte()));
+                }
+                if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                    try {
+                        return ConfigurationSerialization.deserializeObject(map);
+                    } catch (IllegalArgumentException ex) {
+                        throw new IOException("Could not deserialize " + map.get(ConfigurationSerialization.SERIALIZED_TYPE_KEY), ex);
+                    }
+                }
+                return map;
+            default:
+                // Sections are only ever values of other sections, not of lists or maps
+                throw new IOException("Unexpected value type: " + type);
+            }
+        }
+
+        String readString() throws IOException {
+            int reference = readVarInt();
+            if (reference >= STRING_INDEX) {
+                int index = reference - STRING_INDEX;
+                if (index >= strings.size()) {
+                    throw new IOException("Invalid string index: " + index);
+                }
+                return strings.get(index);
+            }
+            byte[] bytes = new byte[readVarInt()];
+            input.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (reference == STRING_NEW) {
+                strings.add(value);
+            }
+            return value;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = input.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid variable-length int");
+        }
+
+        long readVarLong() throws IOException {
+            long encoded = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = input.readUnsignedByte();
+                encoded |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (encoded >>> 1) ^ -(encoded & 1);
+                }
+            }
+            throw new IOException("Invalid variable-length long");
+        }
+    }
+}
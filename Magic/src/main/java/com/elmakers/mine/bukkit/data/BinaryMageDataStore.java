@@ -0,0 +1,58 @@
+package com.elmakers.mine.bukkit.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+import com.elmakers.mine.bukkit.api.data.MageData;
+
+/**
+ * Stores each player in a file the same way YamlMageDataStore does, but in the smaller and
+ * faster binary format of BinaryMageDataFormat.
+ *
+ * <p>Existing YAML player data can be converted by setting migrate_data_store to the Yaml store
+ * and using /magic migrate.
+ */
+public class BinaryMageDataStore extends YamlMageDataStore {
+    @Override
+    protected String getExtension() {
+        return "mdb";
+    }
+
+    @Override
+    protected void write(MageData mage, File file) throws IOException {
+        ConfigurationSection saveFile = new MemoryConfiguration();
+        save(mage, saveFile);
+
+        // Write to a temporary file first so a crash can never leave a partial player file behind
+        File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            BinaryMageDataFormat.write(saveFile, output);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    protected ConfigurationSection read(File file) throws IOException {
+        ConfigurationSection saveFile = new MemoryConfiguration();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            BinaryMageDataFormat.read(input, saveFile);
+        }
+        return saveFile;
+    }
+}
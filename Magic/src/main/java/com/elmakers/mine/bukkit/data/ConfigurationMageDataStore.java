@@ -24,6 +24,7 @@ import com.elmakers.mine.bukkit.api.data.UndoData;
 import com.elmakers.mine.bukkit.api.magic.MageController;
 import com.elmakers.mine.bukkit.api.rp.ResourcePackPreference;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.wand.Wand;
 
 public abstract class ConfigurationMageDataStore implements MageDataStore {
     protected MageController controller;
@@ -250,6 +251,7 @@ public abstract class ConfigurationMageDataStore implements MageDataStore {
         // Load bound wand data
         if (saveFile.contains("wands")) {
             HashMap<String, ItemStack> boundWands = new HashMap<>();
+            HashMap<String, ConfigurationSection> boundWandConfigurations = new HashMap<>();
             ConfigurationSection wands = saveFile.getConfigurationSection("wands");
             Set<String> keys = wands.getKeys(false);
             for (String key : keys) {
@@ -258,9 +260,15 @@ public abstract class ConfigurationMageDataStore implements MageDataStore {
                     controller.getLogger().warning("Error loading bound wand: " + key);
                 } else {
                     boundWands.put(key, boundWand);
+                    // Read the wand data back out now, so the main thread only has to build the Wand
+                    ConfigurationSection wandConfig = Wand.itemToConfig(boundWand, ConfigurationUtils.newConfigurationSection());
+                    if (wandConfig != null) {
+                        boundWandConfigurations.put(key, wandConfig);
+                    }
                 }
             }
             data.setBoundWands(boundWands);
+            data.setBoundWandConfigurations(boundWandConfigurations);
         }
 
         // Load properties
@@ -21,7 +21,7 @@ public class MySQLMageDataStore extends SQLMageDataStore {
         String database = configuration.getString("database", "magic");
         user = configuration.getString("user");
         password = configuration.getString("password");
-        connectionString = "jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&useUnicode=true&characterEncoding=utf-8&autoReconnect=true";
+        connectionString = "jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&useUnicode=true&characterEncoding=utf-8&autoReconnect=true&rewriteBatchedStatements=true";
 
         try {
             Class.forName("com.mysql.jdbc.Driver");
@@ -35,6 +35,11 @@ public class MySQLMageDataStore extends SQLMageDataStore {
         return "LONGTEXT";
     }
 
+    @Override
+    public String getBinaryFieldType() {
+        return "LONGBLOB";
+    }
+
     @Override
     public String getTableEncoding() {
         return "charset = utf8mb4;";
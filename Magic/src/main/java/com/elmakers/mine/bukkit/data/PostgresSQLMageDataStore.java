@@ -21,7 +21,12 @@ public class PostgresSQLMageDataStore extends SQLMageDataStore {
         String database = configuration.getString("database", "magic");
         user = configuration.getString("user");
         password = configuration.getString("password");
-        connectionString = "jdbc:postgresql://" + host + ":" + port + "/" + database + "?useUnicode=true&characterEncoding=utf-8&autoReconnect=true";
+        connectionString = "jdbc:postgresql://" + host + ":" + port + "/" + database + "?useUnicode=true&characterEncoding=utf-8&autoReconnect=true&reWriteBatchedInserts=true";
+    }
+
+    @Override
+    public String getBinaryFieldType() {
+        return "BYTEA";
     }
 
     @Override
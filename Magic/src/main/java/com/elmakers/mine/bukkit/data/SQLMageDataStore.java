@@ -1,30 +1,94 @@
 package com.elmakers.mine.bukkit.data;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
 
 import com.elmakers.mine.bukkit.api.data.MageData;
 import com.elmakers.mine.bukkit.api.data.MageDataCallback;
 import com.elmakers.mine.bukkit.api.magic.MageController;
+import com.elmakers.mine.bukkit.tasks.FlushMageDataTask;
 
+/**
+ * Base class for SQL-backed player data.
+ *
+ * <p>Saves are not written immediately, they are queued and written in JDBC batches
+ * by a background task every flush_interval milliseconds, or sooner once flush_size saves
+ * are waiting. Multiple saves of the same player are coalesced into one write, as are
+ * lock releases, which are folded into a pending save where possible.
+ *
+ * <p>Connections come from a small pool of up to pool_size connections, so a large
+ * save does not hold up player loads.
+ *
+ * <p>With format: binary, player data is saved in the binary_data column using
+ * BinaryMageDataFormat rather than as YAML text. Players saved as YAML can still be loaded,
+ * and are converted the next time they are saved.
+ */
 public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
-    private Connection connection;
-    private final Object lockingLock = new Object();
+    private static final String SAVE_SQL = "REPLACE INTO mage (id, data, locked) VALUES (?, ?, ?)";
+    private static final String SAVE_BINARY_SQL = "REPLACE INTO mage (id, binary_data, locked) VALUES (?, ?, ?)";
+    private static final String RELEASE_SQL = "UPDATE mage SET locked = 0 WHERE id = ?";
+    private static final String LOCK_SQL = "UPDATE mage SET locked = 1 WHERE id = ? AND locked = 0";
+
     private int lockTimeout = 0;
     private int lockRetry = 0;
     private boolean hasIsValid = true;
+    private boolean binaryFormat = false;
+
+    // Connection pool
+    private final Deque<Connection> idleConnections = new ArrayDeque<>();
+    private int openConnections = 0;
+    private int poolSize = 2;
+    private boolean schemaChecked = false;
+
+    // Write-behind queue
+    private final Map<String, PendingSave> pendingSaves = new LinkedHashMap<>();
+    private final Set<String> pendingReleases = new LinkedHashSet<>();
+    private final Object flushLock = new Object();
+    private int flushSize = 50;
+    private int flushInterval = 1000;
+    private BukkitTask flushTask;
+
+    private static class PendingSave {
+        private final String id;
+        private String data;
+        private byte[] binaryData;
+        private boolean locked;
+        private final List<MageData> callbackData = new ArrayList<>();
+        private final List<MageDataCallback> callbacks = new ArrayList<>();
+
+        PendingSave(String id) {
+            this.id = id;
+        }
+
+        void runCallbacks() {
+            for (int i = 0; i < callbacks.size(); i++) {
+                callbacks.get(i).run(callbackData.get(i));
+            }
+        }
+    }
 
     protected abstract @Nonnull Connection createConnection() throws SQLException;
 
@@ -36,6 +100,18 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
         if (lockRetry < 2) {
             lockRetry = 2;
         }
+        binaryFormat = configuration.getString("format", "yaml").equalsIgnoreCase("binary");
+        poolSize = Math.max(1, configuration.getInt("pool_size", getDefaultPoolSize()));
+        flushSize = Math.max(1, configuration.getInt("flush_size", 50));
+        flushInterval = configuration.getInt("flush_interval", 1000);
+        if (flushInterval > 0) {
+            long period = Math.max(1, flushInterval / 50);
+            flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(controller.getPlugin(), new FlushMageDataTask(this), period, period);
+        }
+    }
+
+    protected int getDefaultPoolSize() {
+        return 2;
     }
 
     protected boolean isValid(Connection connection) {
@@ -53,40 +129,91 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
         return false;
     }
 
-    protected @Nonnull Connection getConnection() throws SQLException {
-        if (connection == null) {
+    /**
+     * Get a connection from the pool, waiting for one to be released if they are all in use.
+     * This must be given back with releaseConnection.
+     */
+    protected @Nonnull Connection borrowConnection() throws SQLException {
+        synchronized (idleConnections) {
+            while (true) {
+                Connection connection = idleConnections.pollFirst();
+                if (connection != null) {
+                    if (isValid(connection)) {
+                        return connection;
+                    }
+                    openConnections--;
+                    closeConnection(connection);
+                    continue;
+                }
+                if (openConnections < poolSize) {
+                    openConnections++;
+                    break;
+                }
+                try {
+                    idleConnections.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection");
+                }
+            }
+        }
+
+        Connection connection = null;
+        try {
             connection = createConnection();
-            checkSchema();
+            synchronized (this) {
+                if (!schemaChecked) {
+                    checkSchema(connection);
+                    schemaChecked = true;
+                }
+            }
+            return connection;
+        } catch (SQLException ex) {
+            releaseConnection(connection, true);
+            throw ex;
         }
-        int retries = 3;
-        boolean isValid = isValid(connection);
-        while (!isValid && retries >= 0) {
-            try {
-                retries--;
-                Thread.sleep(1000);
-                isValid = isValid(connection);
-            } catch (InterruptedException ex) {
-                break;
+    }
+
+    /**
+     * Return a connection to the pool.
+     *
+     * @param broken If true, the connection had an error and will be closed rather than re-used
+     */
+    protected void releaseConnection(@Nullable Connection connection, boolean broken) {
+        synchronized (idleConnections) {
+            if (connection != null && !broken) {
+                idleConnections.addFirst(connection);
+            } else {
+                openConnections--;
+                closeConnection(connection);
             }
+            idleConnections.notify();
         }
-        return connection;
     }
 
     public String getTextFieldType() {
         return "TEXT";
     }
 
-    protected void checkSchema() throws SQLException {
-        if (!tableExists("mage")) {
+    public String getBinaryFieldType() {
+        return "BLOB";
+    }
+
+    protected void checkSchema(Connection connection) throws SQLException {
+        if (!tableExists(connection, "mage")) {
             controller.getLogger().info("Creating table: mage");
             String sql = "CREATE TABLE IF NOT EXISTS `mage` "
                     + "(`id` varchar(64) NOT NULL,"
                     + "`data` " + getTextFieldType() + ","
+                    + "`binary_data` " + getBinaryFieldType() + ","
                     + "`locked` tinyint default 0,"
                     + "`migrated` tinyint default 0,"
                     + "PRIMARY KEY  (`id`))";
             sql += getTableEncoding() + ';';
-            execute(sql);
+            execute(connection, sql);
+        } else if (!columnExists(connection, "mage", "binary_data")) {
+            controller.getLogger().info("Adding column: mage.binary_data");
+            execute(connection, "ALTER TABLE mage ADD COLUMN binary_data " + getBinaryFieldType());
         }
     }
 
@@ -95,7 +222,18 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
     }
 
     public void execute(String query) throws SQLException {
-        Statement statement = getConnection().createStatement();
+        Connection connection = borrowConnection();
+        boolean broken = true;
+        try {
+            execute(connection, query);
+            broken = false;
+        } finally {
+            releaseConnection(connection, broken);
+        }
+    }
+
+    protected void execute(Connection connection, String query) throws SQLException {
+        Statement statement = connection.createStatement();
         try {
             statement.execute(query);
         } finally {
@@ -104,10 +242,22 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
     }
 
     public boolean tableExists(String table) throws SQLException {
+        Connection connection = borrowConnection();
+        boolean broken = true;
+        try {
+            boolean exists = tableExists(connection, table);
+            broken = false;
+            return exists;
+        } finally {
+            releaseConnection(connection, broken);
+        }
+    }
+
+    protected boolean tableExists(Connection connection, String table) throws SQLException {
         ResultSet tableData = null;
         boolean exists = false;
         try {
-            tableData = getConnection().getMetaData().getTables(null, null, table, null);
+            tableData = connection.getMetaData().getTables(null, null, table, null);
             exists = tableData.next();
         } finally {
             close(tableData);
@@ -116,10 +266,22 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
     }
 
     public boolean columnExists(String table, String column) throws SQLException {
+        Connection connection = borrowConnection();
+        boolean broken = true;
+        try {
+            boolean exists = columnExists(connection, table, column);
+            broken = false;
+            return exists;
+        } finally {
+            releaseConnection(connection, broken);
+        }
+    }
+
+    protected boolean columnExists(Connection connection, String table, String column) throws SQLException {
         ResultSet columnData = null;
         boolean exists = false;
         try {
-            columnData = getConnection().getMetaData().getColumns(null, null, table, column);
+            columnData = connection.getMetaData().getColumns(null, null, table, column);
             exists = columnData.next();
         } finally {
             close(columnData);
@@ -135,112 +297,326 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
 
     @Override
     public void save(MageData mage, MageDataCallback callback, boolean releaseLock) {
-        YamlConfiguration serialized = new YamlConfiguration();
-        save(mage, serialized);
+        PendingSave serialized = serialize(mage);
+        if (serialized == null) {
+            if (callback != null) {
+                callback.run(mage);
+            }
+            return;
+        }
 
-        PreparedStatement insert = null;
+        boolean flushNow;
+        synchronized (pendingSaves) {
+            queue(mage, serialized, releaseLock, callback);
+            flushNow = flushInterval <= 0 || pendingSaves.size() >= flushSize;
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    @Override
+    public void save(Collection<MageData> mages) {
+        for (MageData mage : mages) {
+            PendingSave serialized = serialize(mage);
+            if (serialized == null) continue;
+            synchronized (pendingSaves) {
+                queue(mage, serialized, false, null);
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Convert a player to the configured format, this is done before queueing so that
+     * later changes to the player don't affect what gets written.
+     */
+    @Nullable
+    private PendingSave serialize(MageData mage) {
+        PendingSave serialized = new PendingSave(mage.getId());
         try {
-            insert = getConnection().prepareStatement("REPLACE INTO mage (id, data, locked) VALUES (?, ?, ?)");
-            insert.setString(1, mage.getId());
-            insert.setString(2, serialized.saveToString());
-            insert.setInt(3, releaseLock ? 0 : 1);
-            insert.execute();
+            if (binaryFormat) {
+                ConfigurationSection saveFile = new MemoryConfiguration();
+                save(mage, saveFile);
+                serialized.binaryData = BinaryMageDataFormat.toBytes(saveFile);
+            } else {
+                YamlConfiguration saveFile = new YamlConfiguration();
+                save(mage, saveFile);
+                serialized.data = saveFile.saveToString();
+            }
         } catch (Exception ex) {
             controller.getLogger().log(Level.SEVERE, "Error saving player " + mage.getId(), ex);
-            close();
-        } finally {
-            close(insert);
+            return null;
         }
+        return serialized;
+    }
+
+    @Nullable
+    private ConfigurationSection deserialize(@Nullable String data, @Nullable byte[] binaryData) throws IOException, InvalidConfigurationException {
+        if (binaryData != null) {
+            ConfigurationSection saveFile = new MemoryConfiguration();
+            BinaryMageDataFormat.fromBytes(binaryData, saveFile);
+            return saveFile;
+        }
+        if (data == null) {
+            return null;
+        }
+        YamlConfiguration saveFile = new YamlConfiguration();
+        saveFile.loadFromString(data);
+        return saveFile;
+    }
 
+    private void queue(MageData mage, PendingSave serialized, boolean releaseLock, MageDataCallback callback) {
+        String id = mage.getId();
+        PendingSave pending = pendingSaves.get(id);
+        if (pending == null) {
+            pending = new PendingSave(id);
+            pendingSaves.put(id, pending);
+        }
+        pending.data = serialized.data;
+        pending.binaryData = serialized.binaryData;
+        pending.locked = !releaseLock;
         if (callback != null) {
-            callback.run(mage);
+            pending.callbackData.add(mage);
+            pending.callbacks.add(callback);
         }
+        // The save will set the lock state, so no need for a separate update
+        pendingReleases.remove(id);
     }
 
-    @Override
-    public void releaseLock(MageData mage) {
-        synchronized (lockingLock) {
+    /**
+     * Write out any queued saves and lock releases.
+     *
+     * <p>This blocks until the writes are done, and is safe to call from any thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingSave> saves;
+            List<String> releases;
+            synchronized (pendingSaves) {
+                if (pendingSaves.isEmpty() && pendingReleases.isEmpty()) return;
+                saves = new ArrayList<>(pendingSaves.values());
+                releases = new ArrayList<>(pendingReleases);
+                pendingSaves.clear();
+                pendingReleases.clear();
+            }
+
+            Connection connection = null;
+            PreparedStatement insert = null;
             PreparedStatement release = null;
+            boolean broken = true;
             try {
-                release = getConnection().prepareStatement("UPDATE mage SET locked = 0 WHERE id = ?");
-                release.setString(1, mage.getId());
-                release.execute();
-                controller.info("Released lock for " + mage.getId() + " at " + System.currentTimeMillis());
+                connection = borrowConnection();
+                connection.setAutoCommit(false);
+                if (!saves.isEmpty()) {
+                    insert = connection.prepareStatement(binaryFormat ? SAVE_BINARY_SQL : SAVE_SQL);
+                    int batched = 0;
+                    for (PendingSave save : saves) {
+                        insert.setString(1, save.id);
+                        if (binaryFormat) {
+                            insert.setBytes(2, save.binaryData);
+                        } else {
+                            insert.setString(2, save.data);
+                        }
+                        insert.setInt(3, save.locked ? 1 : 0);
+                        insert.addBatch();
+                        if (++batched >= flushSize) {
+                            insert.executeBatch();
+                            batched = 0;
+                        }
+                    }
+                    if (batched > 0) {
+                        insert.executeBatch();
+                    }
+                }
+                if (!releases.isEmpty()) {
+                    release = connection.prepareStatement(RELEASE_SQL);
+                    for (String id : releases) {
+                        release.setString(1, id);
+                        release.addBatch();
+                    }
+                    release.executeBatch();
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+                broken = false;
+                if (!releases.isEmpty()) {
+                    controller.info("Released locks for " + releases.size() + " players at " + System.currentTimeMillis());
+                }
             } catch (Exception ex) {
-                controller.getLogger().log(Level.WARNING, "Unable to release lock for " + mage.getId(), ex);
-                close();
+                controller.getLogger().log(Level.SEVERE, "Error saving " + saves.size() + " players", ex);
+                rollback(connection);
+                requeue(saves, releases);
             } finally {
+                close(insert);
                 close(release);
+                releaseConnection(connection, broken);
+            }
+
+            for (PendingSave save : saves) {
+                save.runCallbacks();
             }
         }
     }
 
-    protected void obtainLock(String id) {
-        synchronized (lockingLock) {
-            boolean hasLock = false;
-            long start = System.currentTimeMillis();
-
-            PreparedStatement lockLookup = null;
-            PreparedStatement lock = null;
-            ResultSet results = null;
-            try {
-                lockLookup = getConnection().prepareStatement("SELECT locked FROM mage WHERE id = ?");
-                while (!hasLock) {
-                    lockLookup.setString(1, id);
-                    results = lockLookup.executeQuery();
-                    if (results.next()) {
-                        hasLock = !results.getBoolean(1);
-                    } else {
-                        hasLock = true;
-                    }
-                    if (!hasLock) {
-                        // I am hoping this is only called on separate load threads!
-                        if (System.currentTimeMillis() > start + lockTimeout) {
-                            controller.info("Lock timeout while waiting for mage " + id + ", claiming lock");
-                            break;
-                        }
-                        Thread.sleep(lockRetry);
-                    }
-                    close(results);
-                    results = null;
+    private void requeue(List<PendingSave> saves, List<String> releases) {
+        // Put back anything that hasn't been saved again since, it will be retried on the next flush
+        synchronized (pendingSaves) {
+            for (PendingSave save : saves) {
+                if (!pendingSaves.containsKey(save.id)) {
+                    PendingSave retry = new PendingSave(save.id);
+                    retry.data = save.data;
+                    retry.binaryData = save.binaryData;
+                    retry.locked = save.locked;
+                    pendingSaves.put(save.id, retry);
+                }
+            }
+            for (String id : releases) {
+                if (!pendingSaves.containsKey(id)) {
+                    pendingReleases.add(id);
                 }
-
-                lock = getConnection().prepareStatement("UPDATE mage SET locked = 1 WHERE id = ?");
-                lock.setString(1, id);
-                lock.execute();
-            } catch (Exception ex) {
-                controller.info("Could not obtain lock for mage " + id);
-                close();
-            } finally {
-                close(lockLookup);
-                close(results);
-                close(lock);
             }
         }
     }
 
+    private void rollback(@Nullable Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.rollback();
+        } catch (Exception ex) {
+            controller.getLogger().log(Level.WARNING, "Error rolling back player data save", ex);
+        }
+    }
+
     @Override
-    public void load(String id, MageDataCallback callback) {
-        obtainLock(id);
-        MageData data = null;
+    public void releaseLock(MageData mage) {
+        String id = mage.getId();
+        synchronized (pendingSaves) {
+            PendingSave pending = pendingSaves.get(id);
+            if (pending != null) {
+                pending.locked = false;
+            } else {
+                pendingReleases.add(id);
+            }
+        }
+        if (flushInterval <= 0) {
+            flush();
+        }
+    }
 
-        PreparedStatement loadQuery = null;
-        ResultSet results = null;
+    protected void obtainLock(String id) {
+        long start = System.currentTimeMillis();
         try {
-            loadQuery = getConnection().prepareStatement("SELECT data FROM mage WHERE id = ?");
-            loadQuery.setString(1, id);
-            results = loadQuery.executeQuery();
-            if (results.next()) {
-                YamlConfiguration saveFile = new YamlConfiguration();
-                saveFile.loadFromString(results.getString(1));
-                data = load(id, saveFile);
+            // The connection goes back to the pool between attempts, so waiting on a locked
+            // player doesn't hold up saves or other loads.
+            while (!tryLock(id)) {
+                // I am hoping this is only called on separate load threads!
+                if (System.currentTimeMillis() > start + lockTimeout) {
+                    // The row is already marked as locked, so there's nothing more to do to claim it
+                    controller.info("Lock timeout while waiting for mage " + id + ", claiming lock");
+                    break;
+                }
+                Thread.sleep(lockRetry);
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            controller.info("Interrupted while waiting for lock on mage " + id);
         } catch (Exception ex) {
-            controller.getLogger().log(Level.SEVERE, "Error loading player " + id, ex);
-            close();
+            controller.info("Could not obtain lock for mage " + id);
+        }
+    }
+
+    /**
+     * Try once to claim the lock for a player.
+     *
+     * @return false if someone else has the lock
+     */
+    private boolean tryLock(String id) throws SQLException {
+        Connection connection = null;
+        PreparedStatement lock = null;
+        PreparedStatement lockLookup = null;
+        ResultSet results = null;
+        boolean broken = true;
+        try {
+            connection = borrowConnection();
+            // Checking and claiming the lock in one statement means loads for different players
+            // can run at the same time, only a load for a player that is still locked has to wait.
+            lock = connection.prepareStatement(LOCK_SQL);
+            lock.setString(1, id);
+            boolean locked = lock.executeUpdate() > 0;
+            if (!locked) {
+                // Either this is a new player, or someone else has the lock
+                lockLookup = connection.prepareStatement("SELECT locked FROM mage WHERE id = ?");
+                lockLookup.setString(1, id);
+                results = lockLookup.executeQuery();
+                locked = !results.next();
+            }
+            broken = false;
+            return locked;
         } finally {
             close(results);
-            close(loadQuery);
+            close(lockLookup);
+            close(lock);
+            releaseConnection(connection, broken);
+        }
+    }
+
+    @Override
+    public void load(String id, MageDataCallback callback) {
+        // If this player's data is still waiting to be written, we still hold the lock
+        // and the queued data is newer than what is in the database.
+        PendingSave pendingData = null;
+        boolean hasLock = false;
+        synchronized (pendingSaves) {
+            PendingSave pending = pendingSaves.get(id);
+            if (pending != null) {
+                pendingData = new PendingSave(id);
+                pendingData.data = pending.data;
+                pendingData.binaryData = pending.binaryData;
+                pending.locked = true;
+                hasLock = true;
+            } else if (pendingReleases.remove(id)) {
+                hasLock = true;
+            }
+        }
+        if (!hasLock) {
+            obtainLock(id);
+        }
+        MageData data = null;
+
+        if (pendingData != null) {
+            try {
+                ConfigurationSection saveFile = deserialize(pendingData.data, pendingData.binaryData);
+                if (saveFile != null) {
+                    data = load(id, saveFile);
+                }
+            } catch (Exception ex) {
+                controller.getLogger().log(Level.SEVERE, "Error loading player " + id, ex);
+            }
+        } else {
+            Connection connection = null;
+            PreparedStatement loadQuery = null;
+            ResultSet results = null;
+            boolean broken = true;
+            try {
+                connection = borrowConnection();
+                loadQuery = connection.prepareStatement("SELECT data, binary_data FROM mage WHERE id = ?");
+                loadQuery.setString(1, id);
+                results = loadQuery.executeQuery();
+                if (results.next()) {
+                    ConfigurationSection saveFile = deserialize(results.getString(1), results.getBytes(2));
+                    if (saveFile != null) {
+                        data = load(id, saveFile);
+                    }
+                }
+                broken = false;
+            } catch (Exception ex) {
+                controller.getLogger().log(Level.SEVERE, "Error loading player " + id, ex);
+            } finally {
+                close(results);
+                close(loadQuery);
+                releaseConnection(connection, broken);
+            }
         }
 
         if (callback != null) {
@@ -250,64 +626,86 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
 
     @Override
     public void delete(String id) {
+        synchronized (pendingSaves) {
+            pendingSaves.remove(id);
+            pendingReleases.remove(id);
+        }
+        Connection connection = null;
         PreparedStatement delete = null;
+        boolean broken = true;
         try {
-            delete = getConnection().prepareStatement("DELETE FROM mage WHERE id = ?");
+            connection = borrowConnection();
+            delete = connection.prepareStatement("DELETE FROM mage WHERE id = ?");
             delete.setString(1, id);
             delete.execute();
+            broken = false;
         } catch (Exception ex) {
             controller.getLogger().log(Level.WARNING, "Unable to delete mage " + id, ex);
-            close();
         } finally {
             close(delete);
+            releaseConnection(connection, broken);
         }
     }
 
     @Override
     public Collection<String> getAllIds() {
+        flush();
+        Connection connection = null;
         PreparedStatement idsQuery = null;
         ResultSet idResults = null;
         List<String> ids = new ArrayList<>();
+        boolean broken = true;
         try {
-            idsQuery = getConnection().prepareStatement("SELECT id FROM mage WHERE migrated = 0");
+            connection = borrowConnection();
+            idsQuery = connection.prepareStatement("SELECT id FROM mage WHERE migrated = 0");
             idResults = idsQuery.executeQuery();
             while (idResults.next()) {
                 ids.add(idResults.getString(1));
             }
+            broken = false;
         } catch (Exception ex) {
             controller.getLogger().log(Level.WARNING, "Unable to lookup all mage ids", ex);
-            close();
         } finally {
             close(idsQuery);
             close(idResults);
+            releaseConnection(connection, broken);
         }
         return ids;
     }
 
     @Override
     public void migrate(String id) {
+        flush();
+        Connection connection = null;
         PreparedStatement migrate = null;
+        boolean broken = true;
         try {
-            migrate = getConnection().prepareStatement("UPDATE mage SET migrated = 1 WHERE id = ?");
+            connection = borrowConnection();
+            migrate = connection.prepareStatement("UPDATE mage SET migrated = 1 WHERE id = ?");
             migrate.setString(1, id);
             migrate.execute();
+            broken = false;
         } catch (Exception ex) {
             controller.getLogger().log(Level.WARNING, "Could not set mage " + id + " as migrated", ex);
-            close();
         } finally {
             close(migrate);
+            releaseConnection(connection, broken);
         }
     }
 
     @Override
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (Exception ex) {
-                controller.getLogger().log(Level.WARNING, "Error closing player data connection", ex);
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+        synchronized (idleConnections) {
+            for (Connection connection : idleConnections) {
+                closeConnection(connection);
             }
-            connection = null;
+            openConnections -= idleConnections.size();
+            idleConnections.clear();
         }
     }
 
@@ -330,4 +728,14 @@ public abstract class SQLMageDataStore extends ConfigurationMageDataStore {
             }
         }
     }
+
+    private void closeConnection(@Nullable Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (Exception ex) {
+                controller.getLogger().log(Level.WARNING, "Error closing player data connection", ex);
+            }
+        }
+    }
 }
@@ -37,4 +37,9 @@ public class SQLiteMageDataStore extends SQLMageDataStore {
         return DriverManager.getConnection(connectionString);
     }
 
+    @Override
+    protected int getDefaultPoolSize() {
+        // SQLite only allows one writer at a time anyway
+        return 1;
+    }
 }
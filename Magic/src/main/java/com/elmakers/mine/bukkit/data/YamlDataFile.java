@@ -1,15 +1,30 @@
 package com.elmakers.mine.bukkit.data;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.bukkit.configuration.file.YamlConfiguration;
 
 public class YamlDataFile extends YamlConfiguration {
+    // Digest of what was last written to each file, for files that skip unchanged saves
+    private static final Map<String, byte[]> savedDigests = new ConcurrentHashMap<>();
+
     protected final File file;
     protected final Logger logger;
     protected final boolean checkBackupSize;
+    protected boolean skipUnchanged = false;
 
     public YamlDataFile(Logger logger, File file) {
         this(logger, file, true);
@@ -36,18 +51,56 @@ public class YamlDataFile extends YamlConfiguration {
         }
     }
 
-    public void save() {
+    /**
+     * If set, save() will not write the file if its contents have not changed since it
+     * was last saved (or since startup, if it has not been saved yet).
+     *
+     * <p>This only skips the file write: the contents still have to be built and serialized
+     * to be compared, so it saves disk I/O but not serialization time.
+     */
+    public void setSkipUnchanged(boolean skip) {
+        skipUnchanged = skip;
+    }
+
+    /**
+     * Save this file, keeping the previous version as a .bak file.
+     *
+     * <p>The new contents are written to a temp file and then moved into place, so there is
+     * always a complete copy of the file on disk.
+     *
+     * @return false if the file was unchanged and skipped, or if there was an error
+     */
+    public boolean save() {
         try {
-            File tempFile = new File(file.getAbsolutePath() + ".tmp");
-            if (tempFile.exists()) {
-                logger.warning("Temp file for " + file.getName() + "exists, deleting");
-                tempFile.delete();
+            byte[] contents = saveToString().getBytes(StandardCharsets.UTF_8);
+            String path = file.getAbsolutePath();
+            byte[] digest = null;
+            if (skipUnchanged) {
+                digest = getDigest(contents);
+                byte[] lastDigest = savedDigests.get(path);
+                if (lastDigest == null && file.exists()) {
+                    lastDigest = getDigest(Files.readAllBytes(file.toPath()));
+                }
+                if (Arrays.equals(digest, lastDigest)) {
+                    savedDigests.put(path, digest);
+                    return false;
+                }
+            }
+
+            Path targetFile = file.toPath();
+            Path tempFile = new File(path + ".tmp").toPath();
+            File backupFile = new File(path + ".bak");
+            if (Files.deleteIfExists(tempFile)) {
+                logger.warning("Temp file for " + file.getName() + " exists, deleting");
+            }
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
             }
-            File backupFile = new File(file.getAbsolutePath() + ".bak");
-            save(tempFile);
+            Files.write(tempFile, contents);
 
-            if (checkBackupSize && backupFile.exists() && backupFile.length() > tempFile.length()) {
-                logger.info("Backup file " + backupFile.getName() + " is larger than " + tempFile.getName());
+            if (checkBackupSize && backupFile.exists() && backupFile.length() > contents.length) {
+                logger.info("Backup file " + backupFile.getName() + " is larger than " + tempFile.getFileName());
                 int index = 1;
                 File saveBackup = new File(backupFile.getAbsolutePath() + "." + index);
                 while (saveBackup.exists()) {
@@ -59,17 +112,33 @@ public class YamlDataFile extends YamlConfiguration {
                 backupFile.renameTo(saveBackup);
             }
 
-            if (backupFile.exists()) {
-                backupFile.delete();
+            Files.deleteIfExists(backupFile.toPath());
+            if (Files.exists(targetFile)) {
+                // Link rather than move the current file to the backup, so it stays in place until
+                // the new one replaces it
+                try {
+                    Files.createLink(backupFile.toPath(), targetFile);
+                } catch (IOException | UnsupportedOperationException ex) {
+                    Files.copy(targetFile, backupFile.toPath());
+                }
             }
-            File targetFile = new File(file.getAbsolutePath());
-            if (targetFile.exists()) {
-                targetFile.renameTo(backupFile);
+            try {
+                Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
             }
-            tempFile.renameTo(file);
+            if (digest != null) {
+                savedDigests.put(path, digest);
+            }
+            return true;
         } catch (Exception ex) {
             logger.log(Level.SEVERE, "Error saving data file " + file.getName(), ex);
         }
+        return false;
+    }
+
+    private static byte[] getDigest(byte[] contents) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(contents);
     }
 
     public File getFile() {
@@ -1,6 +1,7 @@
 package com.elmakers.mine.bukkit.data;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -35,6 +36,30 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
         migratedDataFolder = new File(plugin.getDataFolder(), migrateFolder);
     }
 
+    protected String getExtension() {
+        return "dat";
+    }
+
+    protected File getPlayerFile(String id) {
+        return new File(playerDataFolder, id + "." + getExtension());
+    }
+
+    /**
+     * Write one player's data file.
+     */
+    protected void write(MageData mage, File file) throws IOException {
+        YamlDataFile saveFile = new YamlDataFile(controller.getLogger(), file, false);
+        save(mage, saveFile);
+        saveFile.save();
+    }
+
+    /**
+     * Read one player's data file.
+     */
+    protected ConfigurationSection read(File file) throws IOException {
+        return YamlConfiguration.loadConfiguration(file);
+    }
+
     @Override
     @Deprecated
     public void save(MageData mage, MageDataCallback callback) {
@@ -43,10 +68,12 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
 
     @Override
     public void save(MageData mage, MageDataCallback callback, boolean releaseLock) {
-        File playerData = new File(playerDataFolder, mage.getId() + ".dat");
-        YamlDataFile saveFile = new YamlDataFile(controller.getLogger(), playerData, false);
-        save(mage, saveFile);
-        saveFile.save();
+        File playerData = getPlayerFile(mage.getId());
+        try {
+            write(mage, playerData);
+        } catch (Exception ex) {
+            controller.getLogger().log(Level.SEVERE, "Error saving player " + mage.getId(), ex);
+        }
         if (releaseLock) {
             releaseLock(mage);
         }
@@ -95,13 +122,17 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
     public void load(String id, MageDataCallback callback) {
         obtainLock(id);
 
-        final File playerFile = new File(playerDataFolder, id + ".dat");
+        final File playerFile = getPlayerFile(id);
         if (!playerFile.exists()) {
             callback.run(null);
             return;
         }
-        YamlConfiguration saveFile = YamlConfiguration.loadConfiguration(playerFile);
-        MageData data = load(id, saveFile);
+        MageData data = null;
+        try {
+            data = load(id, read(playerFile));
+        } catch (Exception ex) {
+            controller.getLogger().log(Level.SEVERE, "Error loading player " + id, ex);
+        }
         if (callback != null) {
             callback.run(data);
         }
@@ -109,7 +140,7 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
 
     @Override
     public void delete(String id) {
-        File playerData = new File(playerDataFolder, id + ".dat");
+        File playerData = getPlayerFile(id);
         if (playerData.exists()) {
             playerData.delete();
         }
@@ -124,7 +155,7 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
             int extensionIndex = filename.lastIndexOf('.');
             if (extensionIndex <= 0 || extensionIndex == filename.length() - 1) continue;
             String extension = filename.substring(extensionIndex + 1);
-            if (!extension.equals("dat")) continue;
+            if (!extension.equals(getExtension())) continue;
 
             filename = filename.substring(0, extensionIndex);
             ids.add(filename);
@@ -134,10 +165,10 @@ public class YamlMageDataStore extends ConfigurationMageDataStore {
 
     @Override
     public void migrate(String id) {
-        File playerData = new File(playerDataFolder, id + ".dat");
+        File playerData = getPlayerFile(id);
         if (playerData.exists()) {
             migratedDataFolder.mkdirs();
-            File migratedData = new File(migratedDataFolder, id + ".dat");
+            File migratedData = new File(migratedDataFolder, playerData.getName());
             playerData.renameTo(migratedData);
         }
     }
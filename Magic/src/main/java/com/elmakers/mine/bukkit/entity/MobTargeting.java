@@ -1,16 +1,19 @@
 package com.elmakers.mine.bukkit.entity;
 
+import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
 
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.ComplexEntityPart;
 import org.bukkit.entity.Creature;
 import org.bukkit.entity.Entity;
 
 import com.elmakers.mine.bukkit.api.magic.Mage;
 import com.elmakers.mine.bukkit.api.magic.MageController;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 
 public class MobTargeting {
     private final MageController controller;
@@ -80,12 +83,12 @@ public class MobTargeting {
 
         // TODO: Line of sight checks
         Location location = mageEntity.getLocation();
-        List<Entity> nearby = mageEntity.getNearbyEntities(radius, radius, radius);
+        Collection<Entity> nearby = EntityIndex.getNearbyEntities(location, radius, radius, radius);
         double closestDistance = Double.MAX_VALUE;
         Entity closestEntity = null;
         for (Entity checkTarget : nearby) {
             if (!checkTarget.isValid() || !canTarget(checkTarget)) continue;
-            if (checkTarget == mageEntity) continue;
+            if (checkTarget == mageEntity || checkTarget instanceof ComplexEntityPart) continue;
             double distanceTo = location.distanceSquared(checkTarget.getLocation());
             if (distanceTo > closestDistance) continue;
             closestDistance = distanceTo;
@@ -1,6 +1,7 @@
 package com.elmakers.mine.bukkit.magic;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.ListIterator;
@@ -36,7 +37,9 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
     private boolean checkedAttributes = false;
     protected @Nullable
     Multimap<String, CustomTrigger> triggers;
-    protected final Multimap<String, TriggeredSpell> spellTriggers = ArrayListMultimap.create();
+    protected final TriggerTable spellTriggers = new TriggerTable();
+    // Ids of the custom triggers above, so triggers with nothing to do can be skipped
+    protected final BitSet customTriggerIds = new BitSet();
 
     protected final Mage mage;
 
@@ -202,7 +205,7 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
     }
 
     protected void cancelTrigger(String triggerType) {
-        Collection<TriggeredSpell> triggers = getTriggers(triggerType);
+        Collection<TriggeredSpell> triggers = getTriggers(TriggerIds.getId(triggerType));
         if (triggers != null) {
             for (TriggeredSpell triggered : triggers) {
                 mage.cancelPending(triggered.getSpellKey());
@@ -217,10 +220,19 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
         }
     }
 
+    public boolean hasTrigger(int triggerId) {
+        return spellTriggers.has(triggerId) || customTriggerIds.get(triggerId);
+    }
+
     public void trigger(String triggerType) {
-        Collection<TriggeredSpell> triggers = getTriggers(triggerType);
+        trigger(TriggerIds.getId(triggerType));
+    }
+
+    public void trigger(int triggerId) {
+        List<TriggeredSpell> triggers = getTriggers(triggerId);
         if (triggers != null) {
-            for (TriggeredSpell triggered : triggers) {
+            for (int i = 0; i < triggers.size(); i++) {
+                TriggeredSpell triggered = triggers.get(i);
                 if (triggered.getTrigger().isValid(mage)) {
                     Spell spell = mage.getSpell(triggered.getSpellKey());
                     if (spell != null && spell.isEnabled()) {
@@ -231,17 +243,16 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
             }
         }
 
-        Collection<CustomTrigger> customTriggers = this.triggers == null ? null : this.triggers.get(triggerType);
-        if (customTriggers != null) {
-            for (CustomTrigger trigger : customTriggers) {
+        if (this.triggers != null && customTriggerIds.get(triggerId)) {
+            for (CustomTrigger trigger : this.triggers.get(TriggerIds.getName(triggerId))) {
                 trigger.execute(mage);
             }
         }
     }
 
     @Nullable
-    protected Collection<TriggeredSpell> getTriggers(String triggerType) {
-        return spellTriggers.get(triggerType);
+    protected List<TriggeredSpell> getTriggers(int triggerId) {
+        return spellTriggers.get(triggerId);
     }
 
     @Nullable
@@ -357,6 +368,7 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
 
         ConfigurationSection triggerConfig = getConfigurationSection("triggers");
         Set<String> triggerKeys = triggerConfig == null ? null : triggerConfig.getKeys(false);
+        customTriggerIds.clear();
         if (triggerKeys != null) {
             triggers = ArrayListMultimap.create();
             for (String triggerKey : triggerKeys) {
@@ -367,6 +379,7 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
                 }
                 CustomTrigger trigger = new CustomTrigger(controller, triggerKey, config);
                 triggers.put(trigger.getTrigger(), trigger);
+                customTriggerIds.set(TriggerIds.getId(trigger.getTrigger()));
             }
         } else {
             triggers = null;
@@ -393,14 +406,15 @@ public class BaseMageModifier extends ParentedProperties implements CostReducer,
     }
 
     public void updateSpellTriggers() {
-        spellTriggers.clear();
+        // This can happen while one of our triggers is casting spells, so don't reuse the lists
+        spellTriggers.clear(false);
         for (String spellKey : getSpells()) {
             Spell spell = getSpell(spellKey);
             if (spell == null) continue;
             Collection<Trigger> triggers = spell.getTriggers();
             if (triggers == null) continue;
             for (Trigger trigger : triggers) {
-                spellTriggers.put(trigger.getTrigger(), new TriggeredSpell(spellKey, trigger));
+                spellTriggers.add(spellKey, trigger);
             }
         }
     }
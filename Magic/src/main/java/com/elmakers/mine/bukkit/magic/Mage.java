@@ -100,6 +100,7 @@ import com.elmakers.mine.bukkit.api.wand.LostWand;
 import com.elmakers.mine.bukkit.api.wand.WandAction;
 import com.elmakers.mine.bukkit.api.wand.WandTemplate;
 import com.elmakers.mine.bukkit.api.wand.WandUpgradePath;
+import com.elmakers.mine.bukkit.batch.BatchScheduler;
 import com.elmakers.mine.bukkit.batch.UndoBatch;
 import com.elmakers.mine.bukkit.block.DefaultMaterials;
 import com.elmakers.mine.bukkit.block.MaterialBrush;
@@ -118,7 +119,6 @@ import com.elmakers.mine.bukkit.spell.BaseSpell;
 import com.elmakers.mine.bukkit.spell.TriggeredSpell;
 import com.elmakers.mine.bukkit.tasks.ArmorUpdatedTask;
 import com.elmakers.mine.bukkit.tasks.CheckWandTask;
-import com.elmakers.mine.bukkit.tasks.MageFinishLoadTask;
 import com.elmakers.mine.bukkit.tasks.SendCurrencyMessageTask;
 import com.elmakers.mine.bukkit.tasks.TeleportTask;
 import com.elmakers.mine.bukkit.utility.ActionBarSender;
@@ -127,6 +127,7 @@ import com.elmakers.mine.bukkit.utility.CompatibilityConstants;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
 import com.elmakers.mine.bukkit.utility.CurrencyAmount;
+import com.elmakers.mine.bukkit.utility.Profiler;
 import com.elmakers.mine.bukkit.utility.Replacer;
 import com.elmakers.mine.bukkit.utility.TextUtils;
 import com.elmakers.mine.bukkit.wand.ActiveWandSet;
@@ -167,10 +168,12 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
     private final Map<String, Double> attributes = new HashMap<>();
     private final Map<String, ActiveWandSet> wandSets = new HashMap<>();
     private ConfigurationSection variables;
-    private final Map<String, List<TriggeredSpell>> triggers = new HashMap<>();
+    private final TriggerTable triggers = new TriggerTable();
     private final Set<String> triggeredSpells = new HashSet<>();
     private final Set<String> triggeringSpells = new HashSet<>();
-    private final Map<String, Long> lastTriggers = new HashMap<>();
+    private long[] lastTriggers = new long[0];
+    // How many trigger() calls are currently casting spells
+    private int triggerDepth = 0;
     private final Map<String, MageKit> kits = new HashMap<>();
     private final Map<String, CurrencyMessage> currencyMessages = new HashMap<>();
     private final Queue<String> actionBarQueue = new ArrayDeque<>();
@@ -1224,8 +1227,7 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
     }
 
     protected void finishLoad(MageData data) {
-        MageFinishLoadTask loadTask = new MageFinishLoadTask(this, data);
-        Bukkit.getScheduler().scheduleSyncDelayedTask(controller.getPlugin(), loadTask, 1);
+        controller.getMageLoadQueue().finish(this, data);
     }
 
     @Override
@@ -1246,9 +1248,12 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
             boundWands.clear();
             Map<String, ItemStack> boundWandItems = data.getBoundWands();
             if (boundWandItems != null) {
-                for (ItemStack boundWandItem : boundWandItems.values()) {
+                Map<String, ConfigurationSection> boundWandConfigs = data.getBoundWandConfigurations();
+                for (Map.Entry<String, ItemStack> boundWandEntry : boundWandItems.entrySet()) {
+                    ItemStack boundWandItem = boundWandEntry.getValue();
                     try {
-                        Wand boundWand = controller.getWand(boundWandItem);
+                        ConfigurationSection boundWandConfig = boundWandConfigs == null ? null : boundWandConfigs.get(boundWandEntry.getKey());
+                        Wand boundWand = controller.getWand(boundWandItem, boundWandConfig);
                         String templateKey = boundWand.getTemplateKey();
                         if (templateKey != null && !templateKey.isEmpty()) {
                             boundWands.put(templateKey, boundWand);
@@ -1992,7 +1997,7 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
             int batchUpdated = 0;
             boolean errored = false;
             try {
-                batchUpdated = batch.process(Math.max(1, maxWorldAllowed - updated));
+                batchUpdated = processBatch(batch, Math.max(1, maxWorldAllowed - updated));
             } catch (Exception ex) {
                 errored = true;
                 controller.getLogger().log(Level.SEVERE, "Error processing batch: " + batch, ex);
@@ -2010,6 +2015,58 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         return updated;
     }
 
+    /**
+     * Process pending batches in order until the given time slice has been used up.
+     *
+     * <p>The scheduler decides how many units of work to hand each batch based on
+     * how expensive that type of batch has been so far.
+     */
+    public int processPendingBatches(BatchScheduler scheduler, long timeSlice, int maxWork) {
+        int updated = 0;
+        long deadline = System.nanoTime() + timeSlice;
+        for (Iterator<Batch> iterator = pendingBatches.iterator(); iterator.hasNext() && updated < maxWork;) {
+            long start = System.nanoTime();
+            if (start >= deadline && updated > 0) break;
+            Batch batch = iterator.next();
+            int requested = Math.min(maxWork - updated, scheduler.getWorkForTime(batch, deadline - start));
+            int batchUpdated = 0;
+            boolean errored = false;
+            try {
+                batchUpdated = processBatch(batch, requested);
+            } catch (Exception ex) {
+                errored = true;
+                controller.getLogger().log(Level.SEVERE, "Error processing batch: " + batch, ex);
+                try {
+                    batch.finish();
+                } catch (Exception finishEx) {
+                    controller.getLogger().log(Level.SEVERE, " Additional error force-finishing batch", finishEx);
+                }
+            }
+            scheduler.recordWork(batch, requested, batchUpdated, System.nanoTime() - start);
+            updated += batchUpdated;
+            if (batch.isFinished() || errored) {
+                iterator.remove();
+            }
+        }
+        return updated;
+    }
+
+    private static int processBatch(Batch batch, int maxWork) {
+        if (!Profiler.isEnabled()) {
+            return batch.process(maxWork);
+        }
+        // Group batches under the spell that started them
+        Spell spell = batch instanceof SpellBatch ? ((SpellBatch)batch).getSpell() : null;
+        long spellProfile = spell == null ? 0 : Profiler.start(spell.getSpellKey().getKey());
+        long profile = Profiler.start(batch.getClass());
+        try {
+            return batch.process(maxWork);
+        } finally {
+            Profiler.stop(profile);
+            Profiler.stop(spellProfile);
+        }
+    }
+
     public boolean hasPendingBatches() {
         return !pendingBatches.isEmpty();
     }
@@ -2026,10 +2083,16 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         return brush.getMapId();
     }
 
-    protected void reloadClasses() {
+    /**
+     * Re-bind classes to their templates after a reload.
+     *
+     * @param changed The class keys that were reloaded, or null if all of them were
+     */
+    protected void reloadClasses(@Nullable Set<String> changed) {
         for (Iterator<Map.Entry<String, MageClass>> it = classes.entrySet().iterator(); it.hasNext();) {
             Map.Entry<String, MageClass> entry = it.next();
             String templateKey = entry.getKey();
+            if (changed != null && !changed.contains(templateKey)) continue;
             MageClass mageClass = entry.getValue();
             MageClassTemplate template = controller.getMageClassTemplate(templateKey);
             if (template == null) {
@@ -2052,10 +2115,41 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         }
     }
 
-    protected void reloadModifiers() {
+    /**
+     * Re-bind active wands and armor to their templates after a reload.
+     *
+     * @param changed The wand template keys that were reloaded, or null if all of them were
+     */
+    protected void reloadWands(@Nullable Set<String> changed) {
+        reloadWand(activeWand, changed);
+        if (offhandWand != activeWand) {
+            reloadWand(offhandWand, changed);
+        }
+        for (Wand armorWand : activeArmor.values()) {
+            reloadWand(armorWand, changed);
+        }
+    }
+
+    private void reloadWand(@Nullable Wand wand, @Nullable Set<String> changed) {
+        if (wand == null) return;
+        String templateKey = wand.getTemplateKey();
+        if (templateKey == null || templateKey.isEmpty()) return;
+        if (changed != null && !changed.contains(templateKey)) return;
+        wand.setTemplate(templateKey);
+        wand.loadProperties();
+        wand.updateItem();
+    }
+
+    /**
+     * Re-bind modifiers to their templates after a reload.
+     *
+     * @param changed The modifier keys that were reloaded, or null if all of them were
+     */
+    protected void reloadModifiers(@Nullable Set<String> changed) {
         for (Iterator<Map.Entry<String, MageModifier>> it = modifiers.entrySet().iterator(); it.hasNext();) {
             Map.Entry<String, MageModifier> entry = it.next();
             String templateKey = entry.getKey();
+            if (changed != null && !changed.contains(templateKey)) continue;
             MageModifier modifier = entry.getValue();
             ModifierTemplate template = controller.getModifierTemplate(templateKey);
             if (template == null) {
@@ -2088,12 +2182,18 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         }
     }
 
-    protected void loadSpells(ConfigurationSection spellConfiguration) {
+    /**
+     * Reload spells from their configurations after a reload.
+     *
+     * @param changed The spell keys that were reloaded, or null if all of them were
+     */
+    protected void loadSpells(ConfigurationSection spellConfiguration, @Nullable Set<String> changed) {
         if (spellConfiguration == null) return;
 
         Collection<MageSpell> currentSpells = new ArrayList<>(spells.values());
         for (MageSpell spell : currentSpells) {
             String key = spell.getKey();
+            if (changed != null && !changed.contains(key)) continue;
             if (spellConfiguration.contains(key)) {
                 ConfigurationSection template = spellConfiguration.getConfigurationSection(key);
                 String className = template.getString("class");
@@ -3332,6 +3432,9 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
 
     public void experienceChanged() {
         virtualExperience = false;
+        if (activeWand != null) {
+            activeWand.invalidateHUD();
+        }
     }
 
     @Override
@@ -4282,13 +4385,7 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
             if (spellTriggers == null) continue;
             triggeredSpells.add(spellKey);
             for (Trigger trigger : spellTriggers) {
-                String triggerType = trigger.getTrigger();
-                List<TriggeredSpell> typeTriggers = triggers.get(triggerType);
-                if (typeTriggers == null) {
-                    typeTriggers = new ArrayList<>();
-                    triggers.put(triggerType, typeTriggers);
-                }
-                typeTriggers.add(new TriggeredSpell(spellKey, trigger));
+                triggers.add(spellKey, trigger);
             }
         }
     }
@@ -4467,10 +4564,9 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         ignoredByMobs = false;
         allowContainerCopy = false;
 
-        // Try to avoid constantly re-creating these, don't clear the whole map
-        for (List<TriggeredSpell> triggerList : triggers.values()) {
-            triggerList.clear();
-        }
+        // Try to avoid constantly re-creating these, unless a spell cast by a trigger
+        // is what changed things and its trigger list is still being iterated over
+        triggers.clear(triggerDepth == 0);
         triggeredSpells.clear();
 
         spEarnMultiplier = 1;
@@ -4881,7 +4977,14 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         return ImmutableList.copyOf(boundWands.values());
     }
 
-    public void updateHotbarStatus() {
+    /**
+     * Update spell items in the hotbar to show cooldowns and whether or not they can be cast.
+     *
+     * @return How long until the cooldown shown on any of them will next change,
+     *         or Long.MAX_VALUE if none are counting down
+     */
+    public long updateHotbarStatus() {
+        long nextChange = Long.MAX_VALUE;
         Player player = getPlayer();
         if (player != null) {
             boolean isWandInventory = hasStoredInventory();
@@ -4914,6 +5017,9 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
                             targetAmount = 1;
                         } else {
                             targetAmount = (int)Math.ceil((double)timeToCast / 1000);
+                            if (timeToCast > 0) {
+                                nextChange = Math.min(nextChange, (timeToCast - 1) % 1000 + 1);
+                            }
                         }
                         targetAmount = Math.max(Math.min(targetAmount, 99), 1);
                         ItemStack newItem = baseSpell.updateItem(spellItem, canCast);
@@ -4929,6 +5035,7 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
                 }
             }
         }
+        return nextChange;
     }
 
     public boolean isBlocking() {
@@ -5348,41 +5455,56 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
         if (!trigger.equals("interval")) {
             sendDebugMessage("Processing trigger: " + trigger, 50);
         }
-        lastTriggers.put(trigger, System.currentTimeMillis());
+        int triggerId = TriggerIds.getId(trigger);
+        if (triggerId >= lastTriggers.length) {
+            lastTriggers = Arrays.copyOf(lastTriggers, triggerId + 1);
+        }
+        lastTriggers[triggerId] = System.currentTimeMillis();
         if (entityData != null) {
             cancelLaunch = true;
             return entityData.trigger(this, trigger);
         }
 
         // Class and modifier common triggers
-        for (MageClass mageClass : classes.values()) {
-            if ((mageClass.isPassive() || mageClass == activeClass) && !mageClass.isLocked()) {
-                mageClass.trigger(trigger);
+        if (!classes.isEmpty()) {
+            for (MageClass mageClass : classes.values()) {
+                if (mageClass.hasTrigger(triggerId) && (mageClass.isPassive() || mageClass == activeClass) && !mageClass.isLocked()) {
+                    mageClass.trigger(triggerId);
+                }
             }
         }
-        for (MageModifier mageModifier : modifiers.values()) {
-            mageModifier.trigger(trigger);
+        if (!modifiers.isEmpty()) {
+            for (MageModifier mageModifier : modifiers.values()) {
+                if (mageModifier.hasTrigger(triggerId)) {
+                    mageModifier.trigger(triggerId);
+                }
+            }
         }
 
-        List<TriggeredSpell> spells = triggers.get(trigger.toLowerCase());
+        // Spells can change the trigger table, but they will not change this list
+        List<TriggeredSpell> spells = triggers.get(triggerId);
         if (spells == null || spells.isEmpty()) {
             return false;
         }
 
-        // Copy the trigger list since spells can modify it
-        List<TriggeredSpell> processingTriggers = new ArrayList<>(spells);
         boolean activated = false;
         cancelLaunch = false;
-        for (TriggeredSpell triggered : processingTriggers) {
-            if (triggered.getTrigger().isValid(this)) {
-                Spell spell = getSpell(triggered.getSpellKey());
-                if (spell != null && spell.isEnabled() && !triggeringSpells.contains(spell.getKey())) {
-                    triggeringSpells.add(spell.getKey());
-                    cancelLaunch = cancelLaunch || triggered.getTrigger().isCancelLaunch();
-                    activated = spell.cast() || activated;
-                    triggered.getTrigger().triggered();
+        triggerDepth++;
+        try {
+            for (int i = 0; i < spells.size(); i++) {
+                TriggeredSpell triggered = spells.get(i);
+                if (triggered.getTrigger().isValid(this)) {
+                    Spell spell = getSpell(triggered.getSpellKey());
+                    if (spell != null && spell.isEnabled() && !triggeringSpells.contains(spell.getKey())) {
+                        triggeringSpells.add(spell.getKey());
+                        cancelLaunch = cancelLaunch || triggered.getTrigger().isCancelLaunch();
+                        activated = spell.cast() || activated;
+                        triggered.getTrigger().triggered();
+                    }
                 }
             }
+        } finally {
+            triggerDepth--;
         }
 
         return activated;
@@ -5515,7 +5637,11 @@ public class Mage implements CostReducer, com.elmakers.mine.bukkit.api.magic.Mag
     @Override
     @Nullable
     public Long getLastTrigger(String trigger) {
-        return lastTriggers.get(trigger);
+        int triggerId = TriggerIds.findId(trigger);
+        if (triggerId < 0 || triggerId >= lastTriggers.length || lastTriggers[triggerId] == 0) {
+            return null;
+        }
+        return lastTriggers[triggerId];
     }
 
     @Override
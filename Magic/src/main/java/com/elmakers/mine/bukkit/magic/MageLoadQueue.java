@@ -0,0 +1,243 @@
+package com.elmakers.mine.bukkit.magic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+
+import com.elmakers.mine.bukkit.api.data.MageData;
+import com.elmakers.mine.bukkit.tasks.MageFinishLoadTask;
+
+/**
+ * Loads player data in stages, so that a burst of logins doesn't stall the main thread.
+ *
+ * <ol>
+ * <li>Fetch: data is read from the data store and parsed, including any items and the data of bound wands,
+ *     on a pool of load threads.
+ * <li>Apply: the data is loaded into the Mage on the main thread (properties, classes, modifiers), and the
+ *     parsed wand data is turned into Wands.
+ * <li>Finish: inventories are restored and wands and spells re-activated, on the main thread.
+ * </ol>
+ *
+ * <p>The main thread stages are processed once per tick, and stop for the tick once the time budget is used up,
+ * though at least one step is always processed per tick.
+ */
+public class MageLoadQueue {
+    public enum Stage {
+        // Waiting for a load thread
+        WAIT,
+        // Reading and parsing data
+        FETCH,
+        // Waiting for the main thread
+        READY,
+        // Mage.load
+        APPLY,
+        // Mage.onLoad
+        FINISH
+    }
+
+    private static class PendingLoad {
+        private final Mage mage;
+        private final long queued;
+        private MageData data;
+        private boolean fetched;
+        private long ready;
+
+        private PendingLoad(Mage mage) {
+            this.mage = mage;
+            this.queued = System.nanoTime();
+        }
+    }
+
+    private static class StageTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+    }
+
+    private final MagicController controller;
+    private final Queue<PendingLoad> ready = new ConcurrentLinkedQueue<>();
+    private final Queue<PendingLoad> finishing = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger fetching = new AtomicInteger();
+    private final StageTimer[] timers = new StageTimer[Stage.values().length];
+    private final Object executorLock = new Object();
+    private ScheduledExecutorService executor;
+    private int threads = 4;
+    private long budgetNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+    public MageLoadQueue(MagicController controller) {
+        this.controller = controller;
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new StageTimer();
+        }
+    }
+
+    public void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads != this.threads) {
+            this.threads = threads;
+            shutdown();
+        }
+    }
+
+    public void setBudget(int budgetMillis) {
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, budgetMillis));
+    }
+
+    /**
+     * Load a Mage's data from the data store in the background.
+     *
+     * @param delayMillis How long to wait before reading the data, see file_load_delay
+     */
+    public void load(Mage mage, long delayMillis) {
+        PendingLoad pending = new PendingLoad(mage);
+        fetching.incrementAndGet();
+        try {
+            getExecutor().schedule(() -> fetch(pending), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            fetching.decrementAndGet();
+            controller.getLogger().log(Level.SEVERE, "Could not queue data load for " + mage.getName(), ex);
+        }
+    }
+
+    /**
+     * Queue up data that has already been fetched to be applied to a Mage on the main thread.
+     */
+    public void loaded(Mage mage, @Nullable MageData data) {
+        PendingLoad pending = new PendingLoad(mage);
+        pending.data = data;
+        pending.ready = pending.queued;
+        ready.add(pending);
+    }
+
+    /**
+     * Queue up the final step of loading a Mage, this is called by Mage.load.
+     */
+    public void finish(Mage mage, @Nullable MageData data) {
+        PendingLoad pending = new PendingLoad(mage);
+        pending.data = data;
+        finishing.add(pending);
+    }
+
+    private void fetch(PendingLoad pending) {
+        long start = System.nanoTime();
+        timers[Stage.WAIT.ordinal()].record(start - pending.queued);
+        Mage mage = pending.mage;
+        try {
+            controller.loadMageData(mage, data -> {
+                pending.data = data;
+                pending.fetched = true;
+            });
+        } catch (Exception ex) {
+            controller.getLogger().log(Level.SEVERE, "Error loading data for " + mage.getName(), ex);
+        } finally {
+            pending.ready = System.nanoTime();
+            timers[Stage.FETCH.ordinal()].record(pending.ready - start);
+            // If the data store never gave us any data, loading this Mage as if it were new
+            // would overwrite their real data on the next save, so leave them loading instead.
+            if (pending.fetched) {
+                ready.add(pending);
+            } else {
+                controller.getLogger().warning("Could not load data for " + mage.getName() + " (" + mage.getId() + "), their data will not be loaded or saved");
+            }
+            fetching.decrementAndGet();
+        }
+    }
+
+    /**
+     * Apply loaded data to Mages, this should be called on the main thread once per tick.
+     */
+    public void process() {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        boolean first = true;
+
+        // Finish loads that were applied in a previous tick first, so a Mage is never left half-loaded for long
+        PendingLoad pending;
+        while ((first || System.nanoTime() < deadline) && (pending = finishing.poll()) != null) {
+            first = false;
+            long finishStart = System.nanoTime();
+            new MageFinishLoadTask(pending.mage, pending.data).run();
+            timers[Stage.FINISH.ordinal()].record(System.nanoTime() - finishStart);
+        }
+
+        while ((first || System.nanoTime() < deadline) && (pending = ready.poll()) != null) {
+            first = false;
+            long applyStart = System.nanoTime();
+            timers[Stage.READY.ordinal()].record(applyStart - pending.ready);
+            pending.mage.load(pending.data);
+            timers[Stage.APPLY.ordinal()].record(System.nanoTime() - applyStart);
+        }
+    }
+
+    public void shutdown() {
+        synchronized (executorLock) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        synchronized (executorLock) {
+            if (executor == null) {
+                executor = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+                    private int count = 0;
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "Magic Mage Load " + (++count));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * How many Mages are waiting for, or in the middle of, reading their data.
+     */
+    public int getFetchingCount() {
+        return fetching.get();
+    }
+
+    /**
+     * How many Mages have their data and are waiting for the main thread.
+     */
+    public int getReadyCount() {
+        return ready.size() + finishing.size();
+    }
+
+    public long getCount(Stage stage) {
+        return timers[stage.ordinal()].count.sum();
+    }
+
+    public double getAverageMillis(Stage stage) {
+        StageTimer timer = timers[stage.ordinal()];
+        long count = timer.count.sum();
+        return count == 0 ? 0 : (double)timer.totalNanos.sum() / count / 1000000;
+    }
+
+    public double getMaxMillis(Stage stage) {
+        return (double)timers[stage.ordinal()].maxNanos.get() / 1000000;
+    }
+}
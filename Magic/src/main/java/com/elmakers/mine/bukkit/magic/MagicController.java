@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,13 @@ import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -81,6 +89,7 @@ import org.bukkit.plugin.PluginManager;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.projectiles.ProjectileSource;
 import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.BlockVector;
 import org.bukkit.util.Vector;
 
 import com.elmakers.mine.bukkit.ChatUtils;
@@ -114,9 +123,11 @@ import com.elmakers.mine.bukkit.api.magic.MagicAttribute;
 import com.elmakers.mine.bukkit.api.magic.MagicProvider;
 import com.elmakers.mine.bukkit.api.magic.MaterialSet;
 import com.elmakers.mine.bukkit.api.magic.MaterialSetManager;
+import com.elmakers.mine.bukkit.api.protection.AreaProtection;
 import com.elmakers.mine.bukkit.api.protection.BlockBreakManager;
 import com.elmakers.mine.bukkit.api.protection.BlockBuildManager;
 import com.elmakers.mine.bukkit.api.protection.CastPermissionManager;
+import com.elmakers.mine.bukkit.api.protection.ChunkProtection;
 import com.elmakers.mine.bukkit.api.protection.EntityTargetingManager;
 import com.elmakers.mine.bukkit.api.protection.PVPManager;
 import com.elmakers.mine.bukkit.api.protection.PlayerWarp;
@@ -133,14 +144,19 @@ import com.elmakers.mine.bukkit.api.spell.SpellKey;
 import com.elmakers.mine.bukkit.api.spell.SpellResult;
 import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
 import com.elmakers.mine.bukkit.arena.ArenaController;
+import com.elmakers.mine.bukkit.batch.BatchScheduler;
 import com.elmakers.mine.bukkit.block.BlockData;
+import com.elmakers.mine.bukkit.block.ChunkSnapshotCache;
 import com.elmakers.mine.bukkit.block.DefaultMaterials;
 import com.elmakers.mine.bukkit.block.LegacySchematic;
 import com.elmakers.mine.bukkit.block.MaterialAndData;
 import com.elmakers.mine.bukkit.block.MaterialBrush;
 import com.elmakers.mine.bukkit.block.magic.MagicBlock;
+import com.elmakers.mine.bukkit.block.magic.MagicBlockScheduler;
 import com.elmakers.mine.bukkit.block.magic.MagicBlockTemplate;
 import com.elmakers.mine.bukkit.citizens.CitizensController;
+import com.elmakers.mine.bukkit.configuration.CompiledEquation;
+import com.elmakers.mine.bukkit.configuration.ConfigurationCache;
 import com.elmakers.mine.bukkit.configuration.MageParameters;
 import com.elmakers.mine.bukkit.configuration.MagicConfiguration;
 import com.elmakers.mine.bukkit.crafting.MagicRecipe;
@@ -218,6 +234,7 @@ import com.elmakers.mine.bukkit.protection.LocketteManager;
 import com.elmakers.mine.bukkit.protection.MultiverseManager;
 import com.elmakers.mine.bukkit.protection.NCPManager;
 import com.elmakers.mine.bukkit.protection.PreciousStonesManager;
+import com.elmakers.mine.bukkit.protection.ProtectionCache;
 import com.elmakers.mine.bukkit.protection.ProtectionManager;
 import com.elmakers.mine.bukkit.protection.PvPManagerManager;
 import com.elmakers.mine.bukkit.protection.RedProtectManager;
@@ -236,12 +253,12 @@ import com.elmakers.mine.bukkit.tasks.BatchUpdateTask;
 import com.elmakers.mine.bukkit.tasks.ChangeServerTask;
 import com.elmakers.mine.bukkit.tasks.ConfigCheckTask;
 import com.elmakers.mine.bukkit.tasks.ConfigurationLoadTask;
-import com.elmakers.mine.bukkit.tasks.DoMageLoadTask;
+import com.elmakers.mine.bukkit.tasks.EntityIndexTask;
 import com.elmakers.mine.bukkit.tasks.FinishGenericIntegrationTask;
 import com.elmakers.mine.bukkit.tasks.LoadDataTask;
 import com.elmakers.mine.bukkit.tasks.LogNotifyTask;
 import com.elmakers.mine.bukkit.tasks.LogWatchdogTask;
-import com.elmakers.mine.bukkit.tasks.MageLoadTask;
+import com.elmakers.mine.bukkit.tasks.MageLoadQueueTask;
 import com.elmakers.mine.bukkit.tasks.MageQuitTask;
 import com.elmakers.mine.bukkit.tasks.MageUpdateTask;
 import com.elmakers.mine.bukkit.tasks.MagicBlockUpdateTask;
@@ -257,10 +274,12 @@ import com.elmakers.mine.bukkit.utility.CompatibilityConstants;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
 import com.elmakers.mine.bukkit.utility.CurrencyAmount;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 import com.elmakers.mine.bukkit.utility.HitboxUtils;
 import com.elmakers.mine.bukkit.utility.LogMessage;
 import com.elmakers.mine.bukkit.utility.MagicLogger;
 import com.elmakers.mine.bukkit.utility.Messages;
+import com.elmakers.mine.bukkit.utility.ProjectileEngine;
 import com.elmakers.mine.bukkit.utility.SafetyUtils;
 import com.elmakers.mine.bukkit.utility.SkullLoadedCallback;
 import com.elmakers.mine.bukkit.utility.platform.DeprecatedUtils;
@@ -331,6 +350,7 @@ public class MagicController implements MageController {
     private final Map<String, MageClassTemplate> mageClasses = new HashMap<>();
     private final Map<String, ModifierTemplate> modifiers = new HashMap<>();
     private final Map<String, SpellTemplate> spells = new HashMap<>();
+    private final TemplateFingerprints templateFingerprints = new TemplateFingerprints();
     private final Map<String, SpellTemplate> spellAliases = new HashMap<>();
     private final Map<String, SpellData> templateDataMap = new HashMap<>();
     private final Map<String, SpellCategory> categories = new HashMap<>();
@@ -339,6 +359,7 @@ public class MagicController implements MageController {
     private final Set<String> registeredAttributes = new HashSet<>();
     private final Map<String, com.elmakers.mine.bukkit.magic.Mage> mages = Maps.newConcurrentMap();
     private final Set<Mage> pendingConstruction = new HashSet<>();
+    private final BatchScheduler batchScheduler = new BatchScheduler();
     private final PriorityQueue<UndoList> scheduledUndo = new PriorityQueue<>();
     private final Map<String, WeakReference<Schematic>> schematics = new HashMap<>();
     private final Map<String, Collection<EffectPlayer>> effects = new HashMap<>();
@@ -349,7 +370,19 @@ public class MagicController implements MageController {
     private final File defaultsFolder;
     private final Map<String, String> exampleKeyNames = new HashMap<>();
     // Synchronization
-    private final Object saveLock = new Object();
+    // Loads only need to wait for saves, not for each other
+    private final ReadWriteLock saveLock = new ReentrantReadWriteLock(true);
+    private final MageLoadQueue mageLoadQueue = new MageLoadQueue(this);
+    private final Object dataSaveLock = new Object();
+    private ExecutorService dataSaveExecutor;
+    private int dataSaveThreads = 4;
+    // Set whenever the data behind each data file changes, so auto-saves can skip the rest
+    private volatile boolean spellDataModified = true;
+    private volatile boolean lostWandsModified = true;
+    private volatile boolean automataModified = true;
+    private volatile boolean npcsModified = true;
+    private ConfigurationCache configurationCache;
+    private int configLoadThreads = 4;
     private final SimpleMaterialSetManager materialSetManager = new SimpleMaterialSetManager();
     private final Map<String, Integer> maxSpellLevels = new HashMap<>();
     private final int undoTimeWindow = 6000;
@@ -369,6 +402,7 @@ public class MagicController implements MageController {
     private final Map<UUID, MagicNPC> npcs = new HashMap<>();
     private final Map<String, Map<Long, MagicBlock>> magicBlocks = new HashMap<>();
     private final Map<Long, MagicBlock> activeBlocks = new HashMap<>();
+    private final MagicBlockScheduler magicBlockScheduler = new MagicBlockScheduler(this);
     private final Map<String, LostWand> lostWands = new HashMap<>();
     private final Map<String, Set<String>> lostWandChunks = new HashMap<>();
     private final Map<Long, Integer> lightBlocks = new HashMap<>();
@@ -390,6 +424,7 @@ public class MagicController implements MageController {
     private final Set<MagicProvider> externalProviders = new HashSet<>();
     private final List<BlockBreakManager> blockBreakManagers = new ArrayList<>();
     private final List<BlockBuildManager> blockBuildManagers = new ArrayList<>();
+    private final ProtectionCache protectionCache = new ProtectionCache();
     private final List<PVPManager> pvpManagers = new ArrayList<>();
     private final List<CastPermissionManager> castManagers = new ArrayList<>();
     private final List<AttributeProvider> attributeProviders = new ArrayList<>();
@@ -624,6 +659,7 @@ public class MagicController implements MageController {
 
         dataFolder = new File(configFolder, "data");
         dataFolder.mkdirs();
+        configurationCache = new ConfigurationCache(new File(dataFolder, "configcache"), logger);
 
         defaultsFolder = new File(configFolder, "defaults");
         defaultsFolder.mkdirs();
@@ -851,7 +887,7 @@ public class MagicController implements MageController {
             if (savePlayerData && mageDataStore != null) {
                 if (isPlayer) {
                     mage.setLoading(true);
-                    plugin.getServer().getScheduler().runTaskLaterAsynchronously(plugin, new DoMageLoadTask(this, mage), fileLoadDelay * 20 / 1000);
+                    mageLoadQueue.load(mage, fileLoadDelay);
                 } else if (saveNonPlayerMages) {
                     info("Loading mage data for " + mage.getName() + " (" + mage.getId() + ") synchronously");
                     doLoadData(mage);
@@ -884,23 +920,37 @@ public class MagicController implements MageController {
         return apiMage;
     }
 
-    public void doSynchronizedLoadData(Mage mage) {
-        synchronized (saveLock) {
-            info("Loading mage data for " + mage.getName() + " (" + mage.getId() + ") at " + System.currentTimeMillis());
-            doLoadData(mage);
-        }
+    public void loadMageData(Mage mage, MageDataCallback callback) {
+        info("Loading mage data for " + mage.getName() + " (" + mage.getId() + ") at " + System.currentTimeMillis());
+        getMageData(mage.getId(), callback);
     }
 
     private void doLoadData(Mage mage) {
-        getMageData(mage.getId(), new MageDataCallback() {
+        loadMageData(mage, new MageDataCallback() {
             @Override
             public void run(MageData data) {
                 // need to move back to the main thread for this part
-                plugin.getServer().getScheduler().runTask(plugin, new MageLoadTask(mage, data));
+                mageLoadQueue.loaded(mage, data);
             }
         });
     }
 
+    public MageLoadQueue getMageLoadQueue() {
+        return mageLoadQueue;
+    }
+
+    public void processMageLoads() {
+        mageLoadQueue.process();
+    }
+
+    public ConfigurationCache getConfigurationCache() {
+        return configurationCache;
+    }
+
+    public int getConfigLoadThreads() {
+        return configLoadThreads;
+    }
+
     public void onPreLogin(AsyncPlayerPreLoginEvent event) {
         String id = mageIdentifier.fromPreLogin(event);
         Iterator<Map.Entry<String, MageData>> it = mageDataPreCache.entrySet().iterator();
@@ -930,11 +980,11 @@ public class MagicController implements MageController {
     }
 
     private void getMageData(String id, MageDataCallback callback) {
-        synchronized (saveLock) {
-            MageData cached = mageDataPreCache.get(id);
+        saveLock.readLock().lock();
+        try {
+            MageData cached = mageDataPreCache.remove(id);
             if (cached != null) {
                 info("Loaded preloaded mage data from cache for id " + id);
-                mageDataPreCache.remove(id);
                 callback.run(cached);
                 return;
             }
@@ -969,6 +1019,8 @@ public class MagicController implements MageController {
                 getLogger().warning("Failed to load mage data for " + id);
                 ex.printStackTrace();
             }
+        } finally {
+            saveLock.readLock().unlock();
         }
     }
 
@@ -1240,8 +1292,13 @@ public class MagicController implements MageController {
         if (player != null && player.hasPermission("magic.bypass_build")) return true;
         if (hasBypassPermission(player)) return true;
 
+        // Managers that protect whole chunks are asked once per chunk, the rest about every block
+        boolean useCache = protectionCache.isEnabled();
+        if (useCache && !protectionCache.hasBuildPermission(player, block, blockBuildManagers)) return false;
+
         boolean allowed = true;
         for (BlockBuildManager manager : blockBuildManagers) {
+            if (useCache && manager instanceof ChunkProtection) continue;
             if (!manager.hasBuildPermission(player, block)) {
                 allowed = false;
                 break;
@@ -1250,14 +1307,41 @@ public class MagicController implements MageController {
         return allowed;
     }
 
+    /**
+     * Check whether a player may build everywhere in an area, asking the protection managers about
+     * the area as a whole rather than about each block.
+     *
+     * @param spell The spell being cast, to also check region overrides for, or null to ignore them
+     * @return false if that can't be known, in which case each block should still be checked
+     */
+    public boolean hasBuildPermission(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area) {
+        if (bypassBuildPermissions) return true;
+        if (player != null && player.hasPermission("magic.bypass_build")) return true;
+        if (hasBypassPermission(player)) return true;
+
+        Block corner = getAreaCorner(world, area);
+        for (BlockBuildManager manager : blockBuildManagers) {
+            if (manager instanceof AreaProtection) {
+                if (!((AreaProtection)manager).checkArea(player, spell, world, area)) return false;
+            } else if (corner == null || !(manager instanceof ChunkProtection) || !manager.hasBuildPermission(player, corner)) {
+                return false;
+            }
+        }
+        return checkCastPermission(player, spell, world, area, blockBuildManagers);
+    }
+
     public boolean hasBreakPermission(Player player, Block block) {
         // This is the same has hasBuildPermission for everything but Towny!
         if (bypassBreakPermissions) return true;
         if (player != null && player.hasPermission("magic.bypass_break")) return true;
         if (hasBypassPermission(player)) return true;
 
+        boolean useCache = protectionCache.isEnabled();
+        if (useCache && !protectionCache.hasBreakPermission(player, block, blockBreakManagers)) return false;
+
         boolean allowed = true;
         for (BlockBreakManager manager : blockBreakManagers) {
+            if (useCache && manager instanceof ChunkProtection) continue;
             if (!manager.hasBreakPermission(player, block)) {
                 allowed = false;
                 break;
@@ -1267,6 +1351,52 @@ public class MagicController implements MageController {
         return allowed;
     }
 
+    /**
+     * Check whether a player may break every block in an area, asking the protection managers about
+     * the area as a whole rather than about each block.
+     *
+     * @param spell The spell being cast, to also check region overrides for, or null to ignore them
+     * @return false if that can't be known, in which case each block should still be checked
+     */
+    public boolean hasBreakPermission(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area) {
+        if (bypassBreakPermissions) return true;
+        if (player != null && player.hasPermission("magic.bypass_break")) return true;
+        if (hasBypassPermission(player)) return true;
+
+        Block corner = getAreaCorner(world, area);
+        for (BlockBreakManager manager : blockBreakManagers) {
+            if (manager instanceof AreaProtection) {
+                if (!((AreaProtection)manager).checkArea(player, spell, world, area)) return false;
+            } else if (corner == null || !(manager instanceof ChunkProtection) || !manager.hasBreakPermission(player, corner)) {
+                return false;
+            }
+        }
+        return checkCastPermission(player, spell, world, area, blockBreakManagers);
+    }
+
+    // ChunkProtection managers can answer for an area using any one block in it, if it is all in one chunk
+    @Nullable
+    private Block getAreaCorner(World world, BoundingBox area) {
+        BlockVector min = area.getMin();
+        BlockVector max = area.getMax();
+        if (min.getBlockX() >> 4 != max.getBlockX() >> 4 || min.getBlockZ() >> 4 != max.getBlockZ() >> 4) {
+            return null;
+        }
+        return world.getBlockAt(min.getBlockX(), min.getBlockY(), min.getBlockZ());
+    }
+
+    // Region overrides may deny a spell anywhere in the area, unless every cast manager can check the area too
+    private boolean checkCastPermission(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area, List<? extends MagicProvider> checked) {
+        if (spell == null) return true;
+        for (CastPermissionManager manager : castManagers) {
+            if (!(manager instanceof AreaProtection)) return false;
+            // Already checked along with build or break permission
+            if (checked.contains(manager)) continue;
+            if (!((AreaProtection)manager).checkArea(player, spell, world, area)) return false;
+        }
+        return true;
+    }
+
     @Override
     public boolean isExitAllowed(Player player, Location location) {
         if (location == null) return true;
@@ -1303,6 +1433,7 @@ public class MagicController implements MageController {
 
         maps.clearCache();
         maps.resetAll();
+        configurationCache.clear();
     }
 
     /*
@@ -1576,28 +1707,11 @@ public class MagicController implements MageController {
     }
 
     public void processPendingBatches() {
-        int remainingWork = workPerUpdate;
-        if (pendingConstruction.isEmpty()) return;
-
-        List<Mage> pending = new ArrayList<>(pendingConstruction);
-        while (remainingWork > 0 && !pending.isEmpty()) {
-            int workPerMage = Math.max(10, remainingWork / pending.size());
-            for (Iterator<Mage> iterator = pending.iterator(); iterator.hasNext(); ) {
-                Mage apiMage = iterator.next();
-                if (apiMage instanceof com.elmakers.mine.bukkit.magic.Mage) {
-                    com.elmakers.mine.bukkit.magic.Mage mage = ((com.elmakers.mine.bukkit.magic.Mage) apiMage);
-                    int workPerformed = mage.processPendingBatches(workPerMage);
-                    if (!mage.hasPendingBatches()) {
-                        iterator.remove();
-                        pendingConstruction.remove(mage);
-                    } else if (workPerformed < workPerMage) {
-                        // Wait for next tick to process this action further since it's sleeping
-                        iterator.remove();
-                    }
-                    remainingWork -= workPerformed;
-                }
-            }
-        }
+        batchScheduler.process(pendingConstruction);
+    }
+
+    public BatchScheduler getBatchScheduler() {
+        return batchScheduler;
     }
 
     protected void activateMetrics() {
@@ -1787,6 +1901,7 @@ public class MagicController implements MageController {
     protected YamlDataFile createDataFile(String fileName, boolean checkBackupSize) {
         File dataFile = new File(dataFolder, fileName + ".yml");
         YamlDataFile configuration = new YamlDataFile(getLogger(), dataFile, checkBackupSize);
+        configuration.setSkipUnchanged(true);
         return configuration;
     }
 
@@ -1829,6 +1944,7 @@ public class MagicController implements MageController {
 
         // Clear the equation store to flush out any equations that failed to parse
         EquationStore.clear();
+        CompiledEquation.clear();
 
         // Map aliases of loaded external examples
         exampleKeyNames.clear();
@@ -1924,7 +2040,7 @@ public class MagicController implements MageController {
             // Update anything in the world that may have had its config changed
             logger.setContext("reload active magic blocks");
             try {
-                updateActiveBlocks();
+                updateActiveBlocks(templateFingerprints.getChanged("blocks"));
             } catch (Exception ex) {
                 getLogger().log(Level.SEVERE, "Error updating automata", ex);
             }
@@ -1932,7 +2048,7 @@ public class MagicController implements MageController {
             // Update any currently loaded mobs
             logger.setContext("reload active mobs");
             try {
-                mobs.updateAllMobs();
+                mobs.updateAllMobs(templateFingerprints.getChanged("mobs"));
             } catch (Exception ex) {
                 getLogger().log(Level.SEVERE, "Error updating mobs", ex);
             }
@@ -1952,8 +2068,9 @@ public class MagicController implements MageController {
             for (Mage mage : mages.values()) {
                 if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
                     com.elmakers.mine.bukkit.magic.Mage impl = ((com.elmakers.mine.bukkit.magic.Mage)mage);
-                    impl.reloadClasses();
-                    impl.reloadModifiers();
+                    impl.reloadClasses(templateFingerprints.getChanged("classes"));
+                    impl.reloadModifiers(templateFingerprints.getChanged("modifiers"));
+                    impl.reloadWands(templateFingerprints.getChanged("wands"));
                 }
                 mage.updatePassiveEffects();
             }
@@ -1981,6 +2098,16 @@ public class MagicController implements MageController {
         exampleDefaults = loader.getExampleDefaults();
         addExamples = loader.getAddExamples();
 
+        // Templates that haven't changed since the last load can be re-used, as long as nothing they
+        // may refer to has changed either
+        ConfigurationSection mainConfiguration = loader.getMainConfiguration();
+        boolean incremental = loaded && mainConfiguration.getBoolean("incremental_reload", true);
+        List<ConfigurationSection> shared = loader.getSharedConfigurations();
+        incremental = templateFingerprints.begin(incremental, shared.toArray(new ConfigurationSection[0]));
+        if (incremental) {
+            info("Only reloading changed spells, wands, classes, modifiers, mobs and blocks");
+        }
+
         // Load custom attributes, do this prior to loadAttributes
         logger.setContext("attributes");
         loadAttributes(loader.getAttributes());
@@ -2299,29 +2426,51 @@ public class MagicController implements MageController {
     private void loadBlockTemplates(ConfigurationSection blockConfiguration) {
         Set<String> keys = blockConfiguration.getKeys(false);
         Map<String, ConfigurationSection> templateConfigurations = new HashMap<>();
+        Map<String, MagicBlockTemplate> previous = new HashMap<>(magicBlockTemplates);
         magicBlockTemplates.clear();
+        // Spawners look up their mobs when loaded
+        boolean mobsChanged = templateFingerprints.hasChanges("mobs");
         for (String key : keys) {
             logger.setContext("blocks." + key);
             ConfigurationSection config = resolveConfiguration(key, blockConfiguration, templateConfigurations);
+            MagicBlockTemplate existing = previous.get(key);
+            if (!templateFingerprints.hasChanged("blocks", key, config, mobsChanged) && existing != null) {
+                magicBlockTemplates.put(key, existing);
+                continue;
+            }
             if (!ConfigurationUtils.isEnabled(config)) continue;
             config = MagicConfiguration.getKeyed(this, config, "block", key);
             MagicBlockTemplate template = new MagicBlockTemplate(this, key, config);
             magicBlockTemplates.put(key, template);
         }
+        templateFingerprints.finish("blocks");
     }
 
-    public void updateActiveBlocks() {
-        // Update existing automata
+    /**
+     * Update existing automata after their templates have been reloaded.
+     *
+     * @param changed The template keys to update, or null to update all automata
+     */
+    public void updateActiveBlocks(@Nullable Set<String> changed) {
         for (MagicBlock active : activeBlocks.values()) {
-            active.pause();
+            if (changed == null || changed.contains(active.getTemplateKey())) {
+                active.pause();
+            }
         }
         for (Map<Long, MagicBlock> chunk : magicBlocks.values()) {
             for (MagicBlock magicBlock : chunk.values()) {
-                magicBlock.reload();
+                if (changed == null || changed.contains(magicBlock.getTemplateKey())) {
+                    magicBlock.reload();
+                }
             }
         }
         for (MagicBlock active : activeBlocks.values()) {
-            active.resume();
+            if (changed == null || changed.contains(active.getTemplateKey())) {
+                active.resume();
+                // The interval may have changed
+                magicBlockScheduler.unschedule(active);
+                magicBlockScheduler.schedule(active);
+            }
         }
     }
 
@@ -2790,6 +2939,7 @@ public class MagicController implements MageController {
                 MagicBlock existing = restoreChunk.get(id);
                 if (existing != null) {
                     getLogger().warning("Duplicate magic blocks exist at " + magicBlock.getLocation() + ", one will be removed!");
+                    automataModified = true;
                     continue;
                 }
 
@@ -2799,6 +2949,7 @@ public class MagicController implements MageController {
                 if (magicBlock.shouldBeActive()) {
                     activeBlocks.put(magicBlock.getId(), magicBlock);
                     magicBlock.resume();
+                    magicBlockScheduler.schedule(magicBlock);
                 }
             }
         } catch (Exception ex) {
@@ -2809,26 +2960,31 @@ public class MagicController implements MageController {
 
     protected void saveWarps(Collection<YamlDataFile> stores) {
         try {
+            warpController.setModified(false);
             YamlDataFile warpData = createDataFile(WARPS_FILE);
             warpController.save(warpData);
             stores.add(warpData);
         } catch (Exception ex) {
+            warpController.setModified(true);
             ex.printStackTrace();
         }
     }
 
     protected void saveArenas(Collection<YamlDataFile> stores) {
         try {
+            arenaController.setModified(false);
             YamlDataFile arenaData = createDataFile(ARENAS_FILE);
             arenaController.saveData(arenaData);
             stores.add(arenaData);
         } catch (Exception ex) {
+            arenaController.setModified(true);
             ex.printStackTrace();
         }
     }
 
     protected void saveAutomata(Collection<YamlDataFile> stores) {
         try {
+            automataModified = false;
             YamlDataFile automataData = createDataFile(BLOCKS_DATA_FILE);
             List<ConfigurationSection> nodes = new ArrayList<>();
             for (Entry<String, Map<Long, MagicBlock>> toggleEntry : magicBlocks.entrySet()) {
@@ -2845,12 +3001,14 @@ public class MagicController implements MageController {
             automataData.set("automata", nodes);
             stores.add(automataData);
         } catch (Exception ex) {
+            automataModified = true;
             ex.printStackTrace();
         }
     }
 
     protected void saveNPCs(Collection<YamlDataFile> stores) {
         try {
+            npcsModified = false;
             YamlDataFile npcData = createDataFile(NPC_DATA_FILE);
             List<ConfigurationSection> nodes = new ArrayList<>();
             for (MagicNPC npc : npcs.values()) {
@@ -2862,10 +3020,23 @@ public class MagicController implements MageController {
             npcData.set("npcs", nodes);
             stores.add(npcData);
         } catch (Exception ex) {
+            npcsModified = true;
             ex.printStackTrace();
         }
     }
 
+    public void setSpellDataModified() {
+        spellDataModified = true;
+    }
+
+    public void setAutomataModified() {
+        automataModified = true;
+    }
+
+    public void setNPCsModified() {
+        npcsModified = true;
+    }
+
     public void moveMagicBlock(MagicBlock magicBlock, Location location) {
         unregisterMagicBlock(magicBlock);
         magicBlock.setLocation(location);
@@ -2883,10 +3054,12 @@ public class MagicController implements MageController {
         }
         long id = magicBlock.getId();
         chunkAutomata.put(id, magicBlock);
+        automataModified = true;
 
         if (magicBlock.shouldBeActive()) {
             activeBlocks.put(id, magicBlock);
             magicBlock.resume();
+            magicBlockScheduler.schedule(magicBlock);
         }
     }
 
@@ -2897,11 +3070,13 @@ public class MagicController implements MageController {
         Map<Long, MagicBlock> chunkAutomata = magicBlocks.get(chunkId);
         if (chunkAutomata != null) {
             removed = chunkAutomata.remove(id) != null;
+            automataModified |= removed;
             if (chunkAutomata.size() == 0) {
                 magicBlocks.remove(chunkId);
             }
         }
         if (activeBlocks.remove(id) != null) {
+            magicBlockScheduler.unschedule(magicBlock);
             magicBlock.pause();
         }
         magicBlock.removed();
@@ -2918,6 +3093,7 @@ public class MagicController implements MageController {
                 if (!magicBlock.isAlwaysActive()) {
                     magicBlock.resume();
                 }
+                magicBlockScheduler.schedule(magicBlock);
             }
         }
     }
@@ -2930,17 +3106,29 @@ public class MagicController implements MageController {
                 if (!magicBlock.isAlwaysActive()) {
                     magicBlock.pause();
                     activeBlocks.remove(magicBlock.getId());
+                    magicBlockScheduler.unschedule(magicBlock);
                 }
             }
         }
     }
 
     public void tickMagicBlocks() {
-        for (MagicBlock magicBlock : activeBlocks.values()) {
-            magicBlock.tick();
+        magicBlockScheduler.tick();
+    }
+
+    /**
+     * Start ticking a magic block again, such as after it was re-enabled.
+     */
+    public void scheduleMagicBlock(MagicBlock magicBlock) {
+        if (activeBlocks.get(magicBlock.getId()) == magicBlock) {
+            magicBlockScheduler.schedule(magicBlock);
         }
     }
 
+    public MagicBlockScheduler getMagicBlockScheduler() {
+        return magicBlockScheduler;
+    }
+
     @Override
     @Nullable
     @Deprecated
@@ -2968,6 +3156,7 @@ public class MagicController implements MageController {
     protected void saveSpellData(Collection<YamlDataFile> stores) {
         String lastKey = "";
         try {
+            spellDataModified = false;
             YamlDataFile spellsDataFile = createDataFile(SPELLS_DATA_FILE, false);
             for (SpellData data : templateDataMap.values()) {
                 lastKey = data.getKey().getBaseKey();
@@ -2981,6 +3170,7 @@ public class MagicController implements MageController {
             }
             stores.add(spellsDataFile);
         } catch (Throwable ex) {
+            spellDataModified = true;
             getLogger().warning("Error saving spell data for " + lastKey);
             ex.printStackTrace();
         }
@@ -2989,6 +3179,7 @@ public class MagicController implements MageController {
     protected void saveLostWands(Collection<YamlDataFile> stores) {
         String lastKey = "";
         try {
+            lostWandsModified = false;
             YamlDataFile lostWandsConfiguration = createDataFile(LOST_WANDS_FILE, false);
             for (Entry<String, LostWand> wandEntry : lostWands.entrySet()) {
                 lastKey = wandEntry.getKey();
@@ -3006,6 +3197,7 @@ public class MagicController implements MageController {
             }
             stores.add(lostWandsConfiguration);
         } catch (Throwable ex) {
+            lostWandsModified = true;
             getLogger().warning("Error saving lost wand data for " + lastKey);
             ex.printStackTrace();
         }
@@ -3029,6 +3221,7 @@ public class MagicController implements MageController {
 
     public boolean addLostWand(LostWand lostWand) {
         lostWands.put(lostWand.getId(), lostWand);
+        lostWandsModified = true;
         try {
             String chunkKey = getChunkKey(lostWand.getLocation());
             if (chunkKey == null) return false;
@@ -3060,6 +3253,7 @@ public class MagicController implements MageController {
 
         LostWand lostWand = lostWands.get(wandId);
         lostWands.remove(wandId);
+        lostWandsModified = true;
         String chunkKey = getChunkKey(lostWand.getLocation());
         if (chunkKey == null) return false;
 
@@ -3130,12 +3324,27 @@ public class MagicController implements MageController {
             saveMageData(saveMages);
             info("Saving " + saveMages.size() + " players");
         }
-        saveSpellData(saveData);
-        saveLostWands(saveData);
-        saveAutomata(saveData);
-        saveWarps(saveData);
-        saveNPCs(saveData);
-        saveArenas(saveData);
+        // Auto-saves only build the data files that have been modified since the last save.
+        // Other saves build them all, relying on the file digests to skip unchanged ones.
+        boolean all = !asynchronous;
+        if (all || spellDataModified) {
+            saveSpellData(saveData);
+        }
+        if (all || lostWandsModified) {
+            saveLostWands(saveData);
+        }
+        if (all || automataModified) {
+            saveAutomata(saveData);
+        }
+        if (all || warpController.isModified()) {
+            saveWarps(saveData);
+        }
+        if (all || npcsModified) {
+            saveNPCs(saveData);
+        }
+        if (all || arenaController.isModified()) {
+            saveArenas(saveData);
+        }
 
         if (mageDataStore != null && !shuttingDown) {
             if (asynchronous) {
@@ -3156,22 +3365,65 @@ public class MagicController implements MageController {
     }
 
     public void saveData(Collection<YamlDataFile> saveData) {
-        synchronized (saveLock) {
+        // These files are independent of each other and of player data, so they are written in parallel
+        // and don't need to hold up player data loading and saving.
+        synchronized (dataSaveLock) {
+            ExecutorService executor = getDataSaveExecutor();
+            List<Future<Boolean>> results = new ArrayList<>();
             for (YamlDataFile config : saveData) {
-                config.save();
+                results.add(executor.submit(config::save));
+            }
+            int saved = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get()) {
+                        saved++;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ex) {
+                    getLogger().log(Level.SEVERE, "Error saving data file", ex);
+                }
             }
-            info("Finished saving");
+            info("Finished saving, " + saved + " of " + saveData.size() + " data files had changes");
         }
     }
 
-    public void persistMageData(Collection<MageData> saveMages) {
-        synchronized (saveLock) {
-            for (MageData mageData : saveMages) {
-                mageDataStore.save(mageData, null, false);
+    private ExecutorService getDataSaveExecutor() {
+        if (dataSaveExecutor == null) {
+            dataSaveExecutor = Executors.newFixedThreadPool(Math.max(1, dataSaveThreads), new ThreadFactory() {
+                private int count = 0;
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Magic Data Save " + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return dataSaveExecutor;
+    }
+
+    private void shutdownDataSaveExecutor() {
+        synchronized (dataSaveLock) {
+            if (dataSaveExecutor != null) {
+                dataSaveExecutor.shutdown();
+                dataSaveExecutor = null;
             }
         }
     }
 
+    public void persistMageData(Collection<MageData> saveMages) {
+        saveLock.writeLock().lock();
+        try {
+            mageDataStore.save(saveMages);
+        } finally {
+            saveLock.writeLock().unlock();
+        }
+    }
+
     public void addSpell(Spell variant) {
         SpellTemplate conflict = spells.get(variant.getKey());
         if (conflict != null) {
@@ -3407,6 +3659,7 @@ public class MagicController implements MageController {
         // Set up Break/Build/PVP Managers
         blockBreakManagers.clear();
         blockBuildManagers.clear();
+        protectionCache.clear();
         pvpManagers.clear();
         castManagers.clear();
         playerWarpManagers.clear();
@@ -3648,6 +3901,13 @@ public class MagicController implements MageController {
 
         mages.clear();
         pendingConstruction.clear();
+        batchScheduler.clear();
+        EntityIndex.clear();
+        ProjectileEngine.clear();
+        ChunkSnapshotCache.clear();
+        protectionCache.clear();
+        shutdownDataSaveExecutor();
+        mageLoadQueue.shutdown();
         spells.clear();
         loaded = false;
     }
@@ -4000,12 +4260,13 @@ public class MagicController implements MageController {
     }
 
     public void doSaveMage(MageData mageData, MageDataCallback callback, boolean releaseLock) {
-        synchronized (saveLock) {
-            try {
-                mageDataStore.save(mageData, callback, releaseLock);
-            } catch (Exception ex) {
-                getLogger().log(Level.SEVERE, "Error saving mage data for mage " + mageData.getId(), ex);
-            }
+        saveLock.writeLock().lock();
+        try {
+            mageDataStore.save(mageData, callback, releaseLock);
+        } catch (Exception ex) {
+            getLogger().log(Level.SEVERE, "Error saving mage data for mage " + mageData.getId(), ex);
+        } finally {
+            saveLock.writeLock().unlock();
         }
     }
 
@@ -4614,6 +4875,15 @@ public class MagicController implements MageController {
         return wand;
     }
 
+    /**
+     * Get a Wand for an item whose wand data has already been read, see Wand.itemToConfig.
+     */
+    public Wand getWand(ItemStack itemStack, @Nullable ConfigurationSection wandConfig) {
+        @SuppressWarnings("deprecation")
+        Wand wand = new Wand(this, itemStack, wandConfig);
+        return wand;
+    }
+
     @Override
     public Wand getWand(ConfigurationSection config) {
         return new Wand(this, config);
@@ -4710,16 +4980,30 @@ public class MagicController implements MageController {
     }
 
     public void loadMageClasses(ConfigurationSection properties) {
+        Map<String, MageClassTemplate> previous = new HashMap<>(mageClasses);
         mageClasses.clear();
 
         Set<String> classKeys = properties.getKeys(false);
         Map<String, ConfigurationSection> templateConfigurations = new HashMap<>();
+        Map<String, String> parents = new HashMap<>();
         for (String key : classKeys) {
             logger.setContext("classes." + key);
             ConfigurationSection classConfig = resolveConfiguration(key, properties, templateConfigurations);
+            String parentKey = properties.getConfigurationSection(key).getString("parent");
+            if (parentKey != null) {
+                parents.put(key, parentKey);
+            }
+            MageClassTemplate existing = previous.get(key);
+            if (!templateFingerprints.hasChanged("classes", key, classConfig) && existing != null) {
+                mageClasses.put(key, existing);
+                continue;
+            }
             classConfig = MagicConfiguration.getKeyed(this, classConfig, "class", key);
             loadMageClassTemplate(key, classConfig);
         }
+        templateFingerprints.finish("classes");
+        // Mage classes read properties from their parent, so they need to be reloaded along with it
+        templateFingerprints.addDependents("classes", parents);
 
         // Resolve parents, we don't check for an inherited "parent" property, so it's important
         // to use the original un-inherited configs for parenting.
@@ -4727,7 +5011,7 @@ public class MagicController implements MageController {
             logger.setContext("classes." + key);
             MageClassTemplate template = mageClasses.get(key);
             if (template != null) {
-                String parentKey = properties.getConfigurationSection(key).getString("parent");
+                String parentKey = parents.get(key);
                 if (parentKey != null) {
                     MageClassTemplate parent = mageClasses.get(parentKey);
                     if (parent == null) {
@@ -4741,16 +5025,29 @@ public class MagicController implements MageController {
     }
 
     public void loadModifiers(ConfigurationSection properties) {
+        Map<String, ModifierTemplate> previous = new HashMap<>(modifiers);
         modifiers.clear();
 
         Set<String> modifierKeys = properties.getKeys(false);
         Map<String, ConfigurationSection> templateConfigurations = new HashMap<>();
+        Map<String, String> parents = new HashMap<>();
         for (String key : modifierKeys) {
             logger.setContext("modifiers." + key);
             ConfigurationSection modifierConfig = resolveConfiguration(key, properties, templateConfigurations);
+            String parentKey = properties.getConfigurationSection(key).getString("parent");
+            if (parentKey != null) {
+                parents.put(key, parentKey);
+            }
+            ModifierTemplate existing = previous.get(key);
+            if (!templateFingerprints.hasChanged("modifiers", key, modifierConfig) && existing != null) {
+                modifiers.put(key, existing);
+                continue;
+            }
             modifierConfig = MagicConfiguration.getKeyed(this, modifierConfig, "modifier", key);
             loadModifierTemplate(key, modifierConfig);
         }
+        templateFingerprints.finish("modifiers");
+        templateFingerprints.addDependents("modifiers", parents);
 
         // Resolve parents, we don't check for an inherited "parent" property, so it's important
         // to use the original un-inherited configs for parenting.
@@ -4758,7 +5055,7 @@ public class MagicController implements MageController {
             logger.setContext("modifiers." + key);
             ModifierTemplate template = modifiers.get(key);
             if (template != null) {
-                String parentKey = properties.getConfigurationSection(key).getString("parent");
+                String parentKey = parents.get(key);
                 if (parentKey != null) {
                     ModifierTemplate parent = modifiers.get(parentKey);
                     if (parent == null) {
@@ -4800,25 +5097,55 @@ public class MagicController implements MageController {
     }
 
     public void loadWandTemplates(ConfigurationSection properties) {
+        Map<String, WandTemplate> previous = new HashMap<>(wandTemplates);
         wandTemplates.clear();
 
         Set<String> wandKeys = properties.getKeys(false);
         Map<String, ConfigurationSection> templateConfigurations = new HashMap<>();
         for (String key : wandKeys) {
             logger.setContext("wands." + key);
-            loadWandTemplate(key, resolveConfiguration(key, properties, templateConfigurations));
+            ConfigurationSection wandConfig = resolveConfiguration(key, properties, templateConfigurations);
+            WandTemplate existing = previous.get(key);
+            if (!templateFingerprints.hasChanged("wands", key, wandConfig) && existing != null) {
+                wandTemplates.put(key, existing);
+                continue;
+            }
+            loadWandTemplate(key, wandConfig);
         }
+        templateFingerprints.finish("wands");
     }
 
     public void loadMobs(ConfigurationSection properties) {
-        mobs.clear();
+        Map<String, com.elmakers.mine.bukkit.entity.EntityData> previous = mobs.clear();
 
         Set<String> mobKeys = properties.getKeys(false);
         Map<String, ConfigurationSection> templateConfigurations = new HashMap<>();
+        Map<String, ConfigurationSection> mobConfigs = new LinkedHashMap<>();
+        Map<String, String> mounts = new HashMap<>();
         for (String key : mobKeys) {
             logger.setContext("mobs." + key);
             ConfigurationSection mobConfig = resolveConfiguration(key, properties, templateConfigurations);
-            mobConfig = MagicConfiguration.getKeyed(this, mobConfig, "mob", key);
+            String mountKey = mobConfig == null ? null : mobConfig.getString("mount");
+            if (mountKey != null) {
+                mounts.put(key, mountKey);
+            }
+            templateFingerprints.hasChanged("mobs", key, mobConfig);
+            mobConfigs.put(key, mobConfig);
+        }
+        templateFingerprints.finish("mobs");
+        // Mobs hold on to their mount once it has been looked up, so need to be rebuilt along with it
+        templateFingerprints.addDependents("mobs", mounts);
+
+        Set<String> changed = templateFingerprints.getChanged("mobs");
+        for (Map.Entry<String, ConfigurationSection> entry : mobConfigs.entrySet()) {
+            String key = entry.getKey();
+            logger.setContext("mobs." + key);
+            com.elmakers.mine.bukkit.entity.EntityData existing = previous.get(key);
+            if (changed != null && !changed.contains(key) && existing != null) {
+                mobs.load(key, existing);
+                continue;
+            }
+            ConfigurationSection mobConfig = MagicConfiguration.getKeyed(this, entry.getValue(), "mob", key);
             mobs.load(key, mobConfig);
         }
     }
@@ -5015,10 +5342,19 @@ public class MagicController implements MageController {
         if (spellConfigs == null) return;
 
         // Reset existing spells.
+        Map<String, SpellTemplate> previous = new HashMap<>(spells);
         spells.clear();
         spellAliases.clear();
-        categories.clear();
         maxSpellLevels.clear();
+        // Categories only depend on messages, so they can be kept for an incremental reload,
+        // but which spells are in them is rebuilt every time
+        if (templateFingerprints.isIncremental()) {
+            for (SpellCategory category : categories.values()) {
+                category.clearSpellTemplates();
+            }
+        } else {
+            categories.clear();
+        }
 
         Set<String> keys = spellConfigs.getKeys(false);
         for (String key : keys) {
@@ -5026,6 +5362,15 @@ public class MagicController implements MageController {
             logger.setContext("spells." + key);
 
             ConfigurationSection spellNode = spellConfigs.getConfigurationSection(key);
+            SpellTemplate existing = previous.get(key);
+            if (!templateFingerprints.hasChanged("spells", key, spellNode) && existing instanceof Spell) {
+                com.elmakers.mine.bukkit.api.spell.SpellCategory category = existing.getCategory();
+                if (category instanceof SpellCategory) {
+                    ((SpellCategory) category).addSpellTemplate(existing);
+                }
+                addSpell((Spell)existing);
+                continue;
+            }
             if (!ConfigurationUtils.isEnabled(spellNode)) {
                 continue;
             }
@@ -5056,8 +5401,12 @@ public class MagicController implements MageController {
             addSpell(newSpell);
         }
 
+        templateFingerprints.finish("spells");
+        Set<String> changed = templateFingerprints.getChanged("spells");
+
         // Second pass to fulfill requirements, which needs all spells loaded
         for (String key : keys) {
+            if (changed != null && !changed.contains(key)) continue;
             logger.setContext("spells." + key);
             SpellTemplate template = getSpellTemplate(key);
             if (template != null) {
@@ -5069,7 +5418,7 @@ public class MagicController implements MageController {
         logger.setContext("Reload Mage spells");
         for (Mage mage : mages.values()) {
             if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
-                ((com.elmakers.mine.bukkit.magic.Mage) mage).loadSpells(spellConfigs);
+                ((com.elmakers.mine.bukkit.magic.Mage) mage).loadSpells(spellConfigs, changed);
             }
         }
     }
@@ -7287,6 +7636,7 @@ public class MagicController implements MageController {
         }
         chunkNPCs.add(npc);
         npcs.put(npc.getId(), npc);
+        npcsModified = true;
         return true;
     }
 
@@ -7311,6 +7661,7 @@ public class MagicController implements MageController {
         unregisterNPC(npc);
         npc.remove();
         npcs.remove(npc.getId());
+        npcsModified = true;
     }
 
     @Override
@@ -7485,6 +7836,10 @@ public class MagicController implements MageController {
         logger.notify(messages, sender);
     }
 
+    public ProtectionCache getProtectionCache() {
+        return protectionCache;
+    }
+
     public MagicWorld getMagicWorld(String name) {
         return worldController.getWorld(name);
     }
@@ -8046,17 +8401,26 @@ public class MagicController implements MageController {
         final MageUpdateTask mageTask = new MageUpdateTask(this);
         Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, mageTask, 0, mageUpdateFrequency);
 
+        // Set up the player data load timer, this applies loaded data a few players at a time
+        final MageLoadQueueTask mageLoadTask = new MageLoadQueueTask(this);
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, mageLoadTask, 0, 1);
+
         // Set up the Block update timer
         final BatchUpdateTask batchTask = new BatchUpdateTask(this);
         Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, batchTask, 0, workFrequency);
 
         // Set up the Automata timer
         final MagicBlockUpdateTask blockTask = new MagicBlockUpdateTask(this);
+        magicBlockScheduler.setUpdateFrequency(magicBlockUpdateFrequency);
         Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, blockTask, 0, magicBlockUpdateFrequency);
 
         // Set up the Update check timer
         final UndoUpdateTask undoTask = new UndoUpdateTask(this);
         Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, undoTask, 0, undoFrequency);
+
+        // Set up the entity index and snapshot cache, which need to know when a new tick starts
+        final EntityIndexTask entityIndexTask = new EntityIndexTask();
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, entityIndexTask, 0, 1);
     }
 
     protected void loadProperties(CommandSender sender, ConfigurationSection properties) {
@@ -8102,11 +8466,14 @@ public class MagicController implements MageController {
         undoQueueDepth = properties.getInt("undo_depth", undoQueueDepth);
         workPerUpdate = properties.getInt("work_per_update", workPerUpdate);
         workFrequency = properties.getInt("work_frequency", workFrequency);
+        batchScheduler.load(properties, workPerUpdate, workFrequency);
         magicBlockUpdateFrequency = properties.getInt("magic_block_update_frequency", magicBlockUpdateFrequency);
         mageUpdateFrequency = properties.getInt("mage_update_frequency", mageUpdateFrequency);
         undoFrequency = properties.getInt("undo_frequency", undoFrequency);
         pendingQueueDepth = properties.getInt("pending_depth", pendingQueueDepth);
         undoMaxPersistSize = properties.getInt("undo_max_persist_size", undoMaxPersistSize);
+        File undoSpillFolder = dataFolder == null ? null : new File(dataFolder, "undo");
+        com.elmakers.mine.bukkit.block.UndoList.setSpillSettings(undoSpillFolder, properties.getLong("undo_spill_age", 0), properties.getInt("undo_spill_size", 0));
         commitOnQuit = properties.getBoolean("commit_on_quit", commitOnQuit);
         saveNonPlayerMages = properties.getBoolean("save_non_player_mages", saveNonPlayerMages);
         defaultWandPath = properties.getString("default_wand_path", "");
@@ -8158,6 +8525,12 @@ public class MagicController implements MageController {
         com.elmakers.mine.bukkit.item.ItemData.EARN_SCALE = properties.getDouble("default_earn_scale", 0.5);
 
         SafetyUtils.MAX_VELOCITY = properties.getDouble("max_velocity", 10);
+        EntityIndex.setEnabled(properties.getBoolean("entity_index", true));
+        ProjectileEngine.setEnabled(properties.getBoolean("projectile_engine", true));
+        ChunkSnapshotCache.setEnabled(properties.getBoolean("chunk_snapshots", true));
+        ChunkSnapshotCache.setMaxAge(properties.getInt("chunk_snapshot_max_age", 1000));
+        protectionCache.setEnabled(properties.getBoolean("protection_cache", true));
+        protectionCache.setTTL(properties.getInt("protection_cache_ttl", 5000));
         HitboxUtils.setHitboxScale(properties.getDouble("hitbox_scale", 1.0));
         HitboxUtils.setHitboxScaleY(properties.getDouble("hitbox_scale_y", 1.0));
         HitboxUtils.setHitboxSneakScaleY(properties.getDouble("hitbox_sneaking_scale_y", 0.75));
@@ -8203,6 +8576,8 @@ public class MagicController implements MageController {
         castConsolePowerMultiplier = (float) properties.getDouble("cast_console_power_multiplier", castConsolePowerMultiplier);
 
         maps.setAnimationAllowed(properties.getBoolean("enable_map_animations", true));
+        maps.setDitheringEnabled(properties.getBoolean("map_dithering", false));
+        maps.setFrameCacheSize(properties.getInt("map_frame_cache_size", 64));
         costReduction = (float) properties.getDouble("cost_reduction", costReduction);
         cooldownReduction = (float) properties.getDouble("cooldown_reduction", cooldownReduction);
         autoUndo = properties.getInt("auto_undo", autoUndo);
@@ -8383,6 +8758,7 @@ public class MagicController implements MageController {
         Wand.LiveHotbar = properties.getBoolean("live_hotbar", Wand.LiveHotbar);
         Wand.LiveHotbarCooldown = properties.getBoolean("live_hotbar_cooldown", Wand.LiveHotbarCooldown);
         Wand.LiveHotbarMana = properties.getBoolean("live_hotbar_mana", Wand.LiveHotbarMana);
+        Wand.HUDRefreshInterval = properties.getInt("wand_hud_refresh_interval", Wand.HUDRefreshInterval);
         Wand.LiveHotbarCharges = properties.getBoolean("live_hotbar_charges", Wand.LiveHotbarCharges);
         Wand.BrushGlow = properties.getBoolean("brush_glow", Wand.BrushGlow);
         Wand.BrushItemGlow = properties.getBoolean("brush_item_glow", Wand.BrushItemGlow);
@@ -8467,6 +8843,11 @@ public class MagicController implements MageController {
         }
 
         savePlayerData = properties.getBoolean("save_player_data", true);
+        int saveThreads = properties.getInt("save_threads", 4);
+        if (saveThreads != dataSaveThreads) {
+            dataSaveThreads = saveThreads;
+            shutdownDataSaveExecutor();
+        }
         externalPlayerData = properties.getBoolean("external_player_data", false);
         if (externalPlayerData) {
             getLogger().info("Magic is expecting player data to be loaded from an external source");
@@ -8476,6 +8857,10 @@ public class MagicController implements MageController {
         asynchronousSaving = properties.getBoolean("save_player_data_asynchronously", true);
         isFileLockingEnabled = properties.getBoolean("use_file_locking", false);
         fileLoadDelay = properties.getInt("file_load_delay", 0);
+        mageLoadQueue.setThreads(properties.getInt("load_threads", 4));
+        mageLoadQueue.setBudget(properties.getInt("load_budget", 5));
+        configurationCache.setEnabled(properties.getBoolean("config_cache", true));
+        configLoadThreads = properties.getInt("config_load_threads", 4);
         despawnMagicMobs = properties.getBoolean("despawn_magic_mobs", false);
         MobController.REMOVE_INVULNERABLE = properties.getBoolean("remove_invulnerable_mobs", false);
         com.elmakers.mine.bukkit.effect.EffectPlayer.ENABLE_VANILLA_SOUNDS = properties.getBoolean("enable_vanilla_sounds", true);
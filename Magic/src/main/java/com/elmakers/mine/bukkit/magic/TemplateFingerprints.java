@@ -0,0 +1,183 @@
+package com.elmakers.mine.bukkit.magic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Remembers a fingerprint of the configuration each template was last built from, so a reload
+ * only has to rebuild the templates that changed.
+ *
+ * <p>Fingerprints are taken of fully resolved configurations, after inheritance has been applied,
+ * so a template that inherits from one that changed is considered changed as well.
+ *
+ * <p>Templates also depend on shared configurations (messages, materials, effects and so on), if
+ * any of those change every template is rebuilt.
+ */
+public class TemplateFingerprints {
+    private final Map<String, Map<String, HashCode>> fingerprints = new HashMap<>();
+    private final Map<String, Map<String, HashCode>> loading = new HashMap<>();
+    private final Map<String, Set<String>> changed = new HashMap<>();
+    private HashCode sharedFingerprint;
+    private boolean incremental;
+
+    /**
+     * Start a reload.
+     *
+     * @param enabled False to rebuild everything regardless of what changed
+     * @param shared The configurations every template may depend on
+     * @return true if this reload will be incremental
+     */
+    public boolean begin(boolean enabled, ConfigurationSection... shared) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (ConfigurationSection section : shared) {
+            putValue(hasher, section);
+        }
+        HashCode fingerprint = hasher.hash();
+        incremental = enabled && fingerprint.equals(sharedFingerprint);
+        sharedFingerprint = fingerprint;
+        loading.clear();
+        changed.clear();
+        return incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Record the configuration a template is being loaded from.
+     *
+     * @return true if the template needs to be rebuilt, false if the existing one can be re-used
+     */
+    public boolean hasChanged(String type, String key, ConfigurationSection configuration) {
+        return hasChanged(type, key, configuration, false);
+    }
+
+    /**
+     * Record the configuration a template is being loaded from.
+     *
+     * @param dependenciesChanged Whether something this template looks up when it is built has changed
+     * @return true if the template needs to be rebuilt, false if the existing one can be re-used
+     */
+    public boolean hasChanged(String type, String key, ConfigurationSection configuration, boolean dependenciesChanged) {
+        HashCode fingerprint = getFingerprint(configuration);
+        loading.computeIfAbsent(type, k -> new HashMap<>()).put(key, fingerprint);
+        Map<String, HashCode> previous = fingerprints.get(type);
+        boolean isChanged = dependenciesChanged || !incremental || previous == null || !fingerprint.equals(previous.get(key));
+        if (isChanged) {
+            changed.computeIfAbsent(type, k -> new HashSet<>()).add(key);
+        }
+        return isChanged;
+    }
+
+    /**
+     * Mark templates as changed when a template they depend on at runtime has changed.
+     *
+     * @param parents Template keys mapped to the key of the template they depend on
+     */
+    public void addDependents(String type, Map<String, String> parents) {
+        Set<String> typeChanged = changed.computeIfAbsent(type, k -> new HashSet<>());
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Map.Entry<String, String> entry : parents.entrySet()) {
+                if (!typeChanged.contains(entry.getKey()) && typeChanged.contains(entry.getValue())) {
+                    typeChanged.add(entry.getKey());
+                    added = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finish loading templates of a type, anything that was previously loaded but not this time
+     * is considered changed, since it was removed.
+     */
+    public void finish(String type) {
+        Map<String, HashCode> loaded = loading.remove(type);
+        if (loaded == null) {
+            loaded = new HashMap<>();
+        }
+        Map<String, HashCode> previous = fingerprints.put(type, loaded);
+        if (previous != null) {
+            Set<String> typeChanged = changed.computeIfAbsent(type, k -> new HashSet<>());
+            for (String key : previous.keySet()) {
+                if (!loaded.containsKey(key)) {
+                    typeChanged.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the keys of templates that were rebuilt or removed in this reload.
+     *
+     * @return The changed keys, or null if this was a full reload and everything should be considered changed
+     */
+    @Nullable
+    public Set<String> getChanged(String type) {
+        if (!incremental) {
+            return null;
+        }
+        Set<String> typeChanged = changed.get(type);
+        return typeChanged == null ? new HashSet<>() : typeChanged;
+    }
+
+    public boolean hasChanges(String type) {
+        Set<String> typeChanged = getChanged(type);
+        return typeChanged == null || !typeChanged.isEmpty();
+    }
+
+    public static HashCode getFingerprint(ConfigurationSection configuration) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putValue(hasher, configuration);
+        return hasher.hash();
+    }
+
+    private static void putValue(Hasher hasher, Object value) {
+        if (value == null) {
+            hasher.putByte((byte)0);
+        } else if (value instanceof ConfigurationSection) {
+            ConfigurationSection section = (ConfigurationSection)value;
+            Set<String> keys = section.getKeys(false);
+            hasher.putByte((byte)1);
+            hasher.putInt(keys.size());
+            for (String key : keys) {
+                hasher.putString(key, StandardCharsets.UTF_8);
+                putValue(hasher, section.get(key));
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            hasher.putByte((byte)2);
+            hasher.putInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                putValue(hasher, entry.getKey());
+                putValue(hasher, entry.getValue());
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            hasher.putByte((byte)3);
+            hasher.putInt(list.size());
+            for (Object item : list) {
+                putValue(hasher, item);
+            }
+        } else {
+            // Anything with an identity toString will always look changed, which is safe
+            hasher.putByte((byte)4);
+            hasher.putString(value.getClass().getName(), StandardCharsets.UTF_8);
+            hasher.putString(Objects.toString(value), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.elmakers.mine.bukkit.magic;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each trigger name a small number, so that triggers can be looked up in arrays and
+ * bit sets instead of maps keyed by name.
+ *
+ * <p>Names are not case sensitive, any spelling of a name gets the same id as its lower case form.
+ * Ids are never reused or forgotten, there is only ever a handful of trigger names.
+ */
+public final class TriggerIds {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[0];
+
+    private TriggerIds() {
+    }
+
+    /**
+     * Get the id of a trigger, giving it a new one if it does not have one yet.
+     */
+    public static int getId(String trigger) {
+        Integer id = ids.get(trigger);
+        return id == null ? register(trigger) : id;
+    }
+
+    /**
+     * Get the id of a trigger without registering it.
+     *
+     * @return -1 if this trigger has never been used
+     */
+    public static int findId(String trigger) {
+        Integer id = ids.get(trigger);
+        if (id == null) {
+            id = ids.get(trigger.toLowerCase());
+        }
+        return id == null ? -1 : id;
+    }
+
+    public static String getName(int id) {
+        return names[id];
+    }
+
+    private static synchronized int register(String trigger) {
+        String name = trigger.toLowerCase();
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.length;
+            String[] newNames = Arrays.copyOf(names, id + 1);
+            newNames[id] = name;
+            names = newNames;
+            ids.put(name, id);
+        }
+        ids.put(trigger, id);
+        return id;
+    }
+}
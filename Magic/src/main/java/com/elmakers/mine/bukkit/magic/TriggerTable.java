@@ -0,0 +1,64 @@
+package com.elmakers.mine.bukkit.magic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import com.elmakers.mine.bukkit.api.magic.Trigger;
+import com.elmakers.mine.bukkit.spell.TriggeredSpell;
+
+/**
+ * The spells that listen to each trigger, indexed by trigger id.
+ *
+ * <p>Checking for a trigger that nothing listens to is a single bit test. A list returned by get()
+ * is never changed once it has been handed out, unless clear() is told it can reuse lists,
+ * so it can be iterated over while the spells being cast change this table.
+ */
+public class TriggerTable {
+    private final BitSet ids = new BitSet();
+    private final List<List<TriggeredSpell>> spells = new ArrayList<>();
+
+    public void add(String spellKey, Trigger trigger) {
+        int id = TriggerIds.getId(trigger.getTrigger());
+        while (spells.size() <= id) {
+            spells.add(null);
+        }
+        List<TriggeredSpell> triggerSpells = spells.get(id);
+        if (triggerSpells == null) {
+            triggerSpells = new ArrayList<>();
+            spells.set(id, triggerSpells);
+        }
+        triggerSpells.add(new TriggeredSpell(spellKey, trigger));
+        ids.set(id);
+    }
+
+    public boolean has(int id) {
+        return ids.get(id);
+    }
+
+    @Nullable
+    public List<TriggeredSpell> get(int id) {
+        return ids.get(id) ? spells.get(id) : null;
+    }
+
+    /**
+     * Remove all spells.
+     *
+     * @param reuseLists Clear the existing lists rather than dropping them, only safe when
+     *                   nothing is iterating over them.
+     */
+    public void clear(boolean reuseLists) {
+        for (int i = 0; i < spells.size(); i++) {
+            if (reuseLists) {
+                List<TriggeredSpell> triggerSpells = spells.get(i);
+                if (triggerSpells != null) {
+                    triggerSpells.clear();
+                }
+            } else {
+                spells.set(i, null);
+            }
+        }
+        ids.clear();
+    }
+}
@@ -429,6 +429,7 @@ public class ArenaCommandExecutor extends MagicTabExecutor {
                 configureArgs = new String[0];
             }
             onConfigureArena(sender, arena, propertyName, configureArgs);
+            arenaController.setModified(true);
 
             return true;
         }
@@ -441,6 +442,7 @@ public class ArenaCommandExecutor extends MagicTabExecutor {
             String stageCommand = args[2];
             args = Arrays.copyOfRange(args, 3, args.length);
             onArenaStage(sender, arena, stageCommand, args);
+            arenaController.setModified(true);
             return true;
         }
 
@@ -14,6 +14,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -44,14 +45,26 @@ import com.elmakers.mine.bukkit.api.magic.MagicAPI;
 import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
 import com.elmakers.mine.bukkit.api.wand.LostWand;
 import com.elmakers.mine.bukkit.api.wand.Wand;
+import com.elmakers.mine.bukkit.batch.BatchScheduler;
+import com.elmakers.mine.bukkit.block.ChunkSnapshotCache;
 import com.elmakers.mine.bukkit.block.UndoList;
+import com.elmakers.mine.bukkit.block.magic.MagicBlockScheduler;
+import com.elmakers.mine.bukkit.magic.MageLoadQueue;
+import com.elmakers.mine.bukkit.magic.MagicController;
+import com.elmakers.mine.bukkit.protection.ProtectionCache;
 import com.elmakers.mine.bukkit.utility.BoundingBox;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
 import com.elmakers.mine.bukkit.utility.HitboxUtils;
 import com.elmakers.mine.bukkit.utility.LogMessage;
 import com.elmakers.mine.bukkit.utility.MagicLogger;
+import com.elmakers.mine.bukkit.utility.Profiler;
+import com.elmakers.mine.bukkit.utility.ProjectileEngine;
 import com.elmakers.mine.bukkit.utility.RunnableJob;
 import com.elmakers.mine.bukkit.wand.WandCleanupRunnable;
+import com.elmakers.mine.bukkit.wand.WandHUDState;
+import com.elmakers.mine.bukkit.world.MagicWorld;
+import com.elmakers.mine.bukkit.world.spawn.SpawnRule;
 
 public class MagicCommandExecutor extends MagicHelpCommandExecutor {
 
@@ -187,6 +200,10 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
         {
             return onMagicList(sender, subCommand, args);
         }
+        if (subCommand.equalsIgnoreCase("profile"))
+        {
+            return onMagicProfile(sender, args);
+        }
         if (subCommand.equalsIgnoreCase("register"))
         {
             if (!(sender instanceof Player)) {
@@ -307,6 +324,73 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
         return true;
     }
 
+    protected boolean onMagicProfile(CommandSender sender, String[] args)
+    {
+        String profileCommand = args.length > 1 ? args[1] : "";
+        if (profileCommand.equalsIgnoreCase("start")) {
+            boolean allocations = args.length > 2 && args[2].equalsIgnoreCase("allocations");
+            if (!Profiler.enable(allocations)) {
+                sender.sendMessage(ChatColor.RED + "Allocation tracking is not supported on this JVM, profiling timings only");
+            }
+            sender.sendMessage(ChatColor.AQUA + "Profiling started" + (Profiler.isTrackingAllocations() ? " with allocation tracking" : ""));
+            return true;
+        }
+        if (profileCommand.equalsIgnoreCase("stop")) {
+            if (!Profiler.isEnabled()) {
+                sender.sendMessage(ChatColor.RED + "The profiler is not running");
+                return true;
+            }
+            Profiler.disable();
+            sender.sendMessage(ChatColor.AQUA + "Profiling stopped, use " + ChatColor.WHITE + "/magic profile dump" + ChatColor.AQUA + " to see results");
+            return true;
+        }
+        if (profileCommand.equalsIgnoreCase("dump")) {
+            int count = 10;
+            if (args.length > 2) {
+                try {
+                    count = Integer.parseInt(args[2]);
+                } catch (NumberFormatException ex) {
+                    sender.sendMessage(ChatColor.RED + "Invalid count: " + args[2]);
+                    return true;
+                }
+            }
+            List<Profiler.Summary> summaries = Profiler.getSummaries();
+            if (summaries.isEmpty()) {
+                sender.sendMessage(ChatColor.RED + "No profiling data, use " + ChatColor.WHITE + "/magic profile start" + ChatColor.RED + " first");
+                return true;
+            }
+            long duration = Profiler.getDuration();
+            DecimalFormat millis = new DecimalFormat("0.00");
+            sender.sendMessage(ChatColor.AQUA + "Top " + Math.min(count, summaries.size()) + " of " + summaries.size()
+                    + " over " + ChatColor.LIGHT_PURPLE + millis.format(duration / 1000.0) + "s" + ChatColor.AQUA + ", by self time:");
+            for (int i = 0; i < count && i < summaries.size(); i++) {
+                Profiler.Summary summary = summaries.get(i);
+                long calls = summary.getCalls();
+                String message = ChatColor.GOLD + summary.getName() + ChatColor.GRAY + ": "
+                        + ChatColor.LIGHT_PURPLE + millis.format(summary.getSelfNanos() / 1000000.0) + "ms" + ChatColor.GRAY + " self, "
+                        + ChatColor.LIGHT_PURPLE + millis.format(summary.getTotalNanos() / 1000000.0) + "ms" + ChatColor.GRAY + " total, "
+                        + ChatColor.WHITE + calls + ChatColor.GRAY + " calls, "
+                        + ChatColor.WHITE + millis.format(calls == 0 ? 0 : summary.getTotalNanos() / 1000.0 / calls) + "µs" + ChatColor.GRAY + " avg";
+                if (Profiler.isTrackingAllocations()) {
+                    message += ", " + ChatColor.WHITE + (summary.getAllocatedBytes() / 1024) + "KB" + ChatColor.GRAY + " allocated";
+                }
+                sender.sendMessage(message);
+            }
+            File profileFile = new File(new File(api.getPlugin().getDataFolder(), "profiles"), "profile-" + System.currentTimeMillis() + ".txt");
+            try {
+                int lines = Profiler.writeCollapsed(profileFile);
+                sender.sendMessage(ChatColor.AQUA + "Wrote " + lines + " stacks to " + ChatColor.WHITE + profileFile.getPath()
+                        + ChatColor.AQUA + ", this can be opened with flame graph tools such as speedscope");
+            } catch (Exception ex) {
+                controller.getLogger().log(Level.WARNING, "Error writing profile", ex);
+                sender.sendMessage(ChatColor.RED + "Error writing profile file, see server logs");
+            }
+            return true;
+        }
+        sender.sendMessage(ChatColor.RED + "Usage: " + ChatColor.WHITE + "/magic profile <start [allocations]|stop|dump [count]>");
+        return true;
+    }
+
     protected boolean onMagicList(CommandSender sender, String subCommand, String[] args)
     {
         String usage = "Usage: magic list <wands|map|automata|tasks|schematics|entities|blocks>";
@@ -344,6 +428,22 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
             }
             sender.sendMessage(ChatColor.AQUA + "Modified blocks: " + ChatColor.LIGHT_PURPLE + UndoList.getRegistry().getModified().size());
             sender.sendMessage(ChatColor.AQUA + "Watching blocks: " + ChatColor.LIGHT_PURPLE + UndoList.getRegistry().getWatching().size());
+            int spilledCount = UndoList.getRegistry().getSpilled().size();
+            if (spilledCount > 0) {
+                sender.sendMessage(ChatColor.AQUA + "Spilled blocks: " + ChatColor.LIGHT_PURPLE + spilledCount);
+            }
+            MageLoadQueue loadQueue = ((MagicController)controller).getMageLoadQueue();
+            long loadCount = loadQueue.getCount(MageLoadQueue.Stage.FETCH);
+            if (loadCount > 0) {
+                sender.sendMessage(ChatColor.AQUA + "Player loads: " + ChatColor.LIGHT_PURPLE + loadCount
+                    + ChatColor.AQUA + " (" + ChatColor.LIGHT_PURPLE + loadQueue.getFetchingCount() + ChatColor.AQUA + " loading, "
+                    + ChatColor.LIGHT_PURPLE + loadQueue.getReadyCount() + ChatColor.AQUA + " waiting)");
+                for (MageLoadQueue.Stage stage : MageLoadQueue.Stage.values()) {
+                    sender.sendMessage(ChatColor.GRAY + "  " + stage.name().toLowerCase() + ": " + ChatColor.WHITE
+                        + String.format("%.1f", loadQueue.getAverageMillis(stage)) + "ms" + ChatColor.GRAY + " avg, "
+                        + ChatColor.WHITE + String.format("%.1f", loadQueue.getMaxMillis(stage)) + "ms" + ChatColor.GRAY + " max");
+                }
+            }
             int breakingCount = UndoList.getRegistry().getBreaking().size();
             if (breakingCount > 0) {
                 sender.sendMessage(ChatColor.AQUA + "Registered breaking: " + ChatColor.LIGHT_PURPLE + breakingCount);
@@ -374,6 +474,60 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
                         + " seconds");
             }
 
+            BatchScheduler batchScheduler = ((MagicController)controller).getBatchScheduler();
+            sender.sendMessage(ChatColor.AQUA + "Batch time budget: " + ChatColor.LIGHT_PURPLE
+                    + String.format("%.1f", (double)batchScheduler.getCurrentBudget() / 1000000) + ChatColor.GRAY + "ms ("
+                    + ChatColor.WHITE + String.format("%.1f", batchScheduler.getTPS()) + ChatColor.GRAY + " tps)");
+            for (Entry<String, Double> cost : batchScheduler.getCosts().entrySet()) {
+                sender.sendMessage(ChatColor.GRAY + " " + ChatColor.YELLOW + cost.getKey() + ChatColor.GRAY + ": "
+                        + ChatColor.WHITE + String.format("%.0f", cost.getValue()) + ChatColor.GRAY + "ns per unit of work");
+            }
+            MagicBlockScheduler magicBlockScheduler = ((MagicController)controller).getMagicBlockScheduler();
+            sender.sendMessage(ChatColor.AQUA + "Magic blocks: " + ChatColor.LIGHT_PURPLE + magicBlockScheduler.getScheduledCount()
+                    + ChatColor.GRAY + " scheduled, " + ChatColor.LIGHT_PURPLE + magicBlockScheduler.getTickedCount()
+                    + ChatColor.GRAY + " ticks run");
+            if (EntityIndex.isEnabled()) {
+                sender.sendMessage(ChatColor.AQUA + "Entity index: " + ChatColor.LIGHT_PURPLE + EntityIndex.getChunkLoads()
+                        + ChatColor.GRAY + " chunks read for " + ChatColor.LIGHT_PURPLE + EntityIndex.getChunkQueries()
+                        + ChatColor.GRAY + " chunk queries");
+            }
+            long hudUpdates = WandHUDState.getRebuilt() + WandHUDState.getSkipped();
+            if (hudUpdates > 0) {
+                sender.sendMessage(ChatColor.AQUA + "Wand HUD: " + ChatColor.LIGHT_PURPLE + WandHUDState.getSkipped()
+                        + ChatColor.GRAY + " of " + ChatColor.LIGHT_PURPLE + hudUpdates
+                        + ChatColor.GRAY + " updates skipped (" + ChatColor.WHITE
+                        + String.format("%.1f", 100.0 * WandHUDState.getSkipped() / hudUpdates) + ChatColor.GRAY + "%)");
+            }
+            if (ProjectileEngine.isEnabled()) {
+                sender.sendMessage(ChatColor.AQUA + "Projectile engine: " + ChatColor.LIGHT_PURPLE + ProjectileEngine.getProjectileCount()
+                        + ChatColor.GRAY + " projectiles, " + ChatColor.LIGHT_PURPLE + ProjectileEngine.getBroadPhases()
+                        + ChatColor.GRAY + " broad phases, " + ChatColor.LIGHT_PURPLE + ProjectileEngine.getSharedQueries()
+                        + ChatColor.GRAY + " shared and " + ChatColor.LIGHT_PURPLE + ProjectileEngine.getFallbackQueries()
+                        + ChatColor.GRAY + " fallback queries, " + ChatColor.LIGHT_PURPLE + ProjectileEngine.getClearBlocks()
+                        + ChatColor.GRAY + " block checks skipped");
+            }
+            if (ChunkSnapshotCache.isEnabled()) {
+                sender.sendMessage(ChatColor.AQUA + "Chunk snapshots: " + ChatColor.LIGHT_PURPLE + ChunkSnapshotCache.getTaken()
+                        + ChatColor.GRAY + " taken, " + ChatColor.LIGHT_PURPLE + ChunkSnapshotCache.getReused()
+                        + ChatColor.GRAY + " reused");
+            }
+            ProtectionCache protectionCache = ((MagicController)controller).getProtectionCache();
+            if (protectionCache.isEnabled()) {
+                sender.sendMessage(ChatColor.AQUA + "Protection cache: " + ChatColor.LIGHT_PURPLE + protectionCache.getHits()
+                        + ChatColor.GRAY + " hits, " + ChatColor.LIGHT_PURPLE + protectionCache.getMisses()
+                        + ChatColor.GRAY + " misses");
+            }
+            for (MagicWorld magicWorld : ((MagicController)controller).getWorlds().getWorlds()) {
+                for (SpawnRule rule : magicWorld.getSpawnRules()) {
+                    if (rule.getChecked() == 0) continue;
+                    sender.sendMessage(ChatColor.AQUA + "Spawn rule " + ChatColor.YELLOW + magicWorld.getName() + "." + rule.getKey()
+                            + ChatColor.GRAY + ": " + ChatColor.LIGHT_PURPLE + rule.getChecked()
+                            + ChatColor.GRAY + " checked, " + ChatColor.LIGHT_PURPLE + rule.getProcessed()
+                            + ChatColor.GRAY + " matched, " + ChatColor.LIGHT_PURPLE + rule.getApplied()
+                            + ChatColor.GRAY + " applied");
+                }
+            }
+
             Collection<Mage> pending = api.getMagesWithPendingBatches();
             sender.sendMessage(ChatColor.AQUA + "Pending casts (" + ChatColor.LIGHT_PURPLE + pending.size() + ChatColor.AQUA + "): ");
             for (Mage mage : pending) {
@@ -797,6 +951,7 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
             addIfPermissible(sender, options, "magic.commands.magic.", "rpsend");
             addIfPermissible(sender, options, "magic.commands.magic.", "register");
             addIfPermissible(sender, options, "magic.commands.magic.", "logs");
+            addIfPermissible(sender, options, "magic.commands.magic.", "profile");
             addIfPermissible(sender, options, "magic.commands.magic.", "help");
         } else if (args.length > 1 && args[0].equals("help")) {
             super.onTabComplete(sender, "mhelp", args);
@@ -813,6 +968,10 @@ public class MagicCommandExecutor extends MagicHelpCommandExecutor {
             } else if (args[0].equalsIgnoreCase("logs")) {
                 options.add("errors");
                 options.add("warnings");
+            } else if (args[0].equalsIgnoreCase("profile")) {
+                options.add("start");
+                options.add("stop");
+                options.add("dump");
             } else if (args[0].equalsIgnoreCase("give") || args[0].equalsIgnoreCase("worth") || args[0].equalsIgnoreCase("sell")) {
                 options.add("wand");
                 options.add("material");
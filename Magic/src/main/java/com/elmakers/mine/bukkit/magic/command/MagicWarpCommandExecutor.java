@@ -216,6 +216,7 @@ public class MagicWarpCommandExecutor extends MagicTabExecutor {
         String parameterKey = parameters[0];
         String value = "";
         MagicController magic = (MagicController)controller;
+        magic.getWarps().setModified(true);
         if (parameters.length > 0) {
             value = StringUtils.join(Arrays.copyOfRange(parameters, 1, parameters.length), ' ');
         }
@@ -59,16 +59,30 @@ public class MobController implements Listener, ChunkLoadListener {
         this.controller = controller;
     }
 
-    public void clear() {
+    /**
+     * Clear all loaded mobs.
+     *
+     * @return The mobs that were loaded, by key, so that unchanged mobs can be registered again
+     */
+    public Map<String, EntityData> clear() {
+        Map<String, EntityData> previous = new HashMap<>();
+        for (EntityData mob : defaultMobs.values()) {
+            previous.put(mob.getKey(), mob);
+        }
+        previous.putAll(mobs);
         mobs.clear();
         mobsByName.clear();
+        return previous;
     }
 
     public void load(String mobKey, ConfigurationSection mobConfiguration) {
         if (!ConfigurationUtils.isEnabled(mobConfiguration)) {
             return;
         }
-        EntityData mob = new EntityData(controller, mobKey, mobConfiguration);
+        load(mobKey, new EntityData(controller, mobKey, mobConfiguration));
+    }
+
+    public void load(String mobKey, EntityData mob) {
         try {
             EntityType defaultType = EntityType.valueOf(mobKey.toUpperCase());
             defaultMobs.put(defaultType, mob);
@@ -110,13 +124,19 @@ public class MobController implements Listener, ChunkLoadListener {
         }
     }
 
-    public void updateAllMobs() {
+    /**
+     * Update active mobs after their configurations have been reloaded.
+     *
+     * @param changed The mob keys to update, or null to update all mobs
+     */
+    public void updateAllMobs(@Nullable Set<String> changed) {
         // Not clearing the map, but hopefully everything in it will be replaced
         Map<Entity, EntityData> currentMobs = new HashMap<>(activeMobs);
         for (Map.Entry<Entity, EntityData> entry : currentMobs.entrySet()) {
             EntityData mob = entry.getValue();
             String key = mob.getKey();
             if (key == null || key.isEmpty()) continue;
+            if (changed != null && !changed.contains(key)) continue;
             mob = controller.getMob(key);
             if (mob != null) {
                 mob.modify(entry.getKey());
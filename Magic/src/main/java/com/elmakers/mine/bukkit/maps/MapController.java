@@ -26,8 +26,10 @@ public class MapController implements com.elmakers.mine.bukkit.api.maps.MapContr
     protected final File configurationFile;
     private final File cacheFolder;
     private final Plugin plugin;
+    private final MapFrameCache frameCache;
 
     private boolean animationAllowed = true;
+    private boolean dithering = false;
     private boolean loaded = false;
     private boolean disabled = false;
     protected BukkitTask saveTask = null;
@@ -40,6 +42,7 @@ public class MapController implements com.elmakers.mine.bukkit.api.maps.MapContr
         this.plugin = plugin;
         this.configurationFile = configFile;
         this.cacheFolder = cache;
+        this.frameCache = new MapFrameCache(cache == null ? null : new File(cache, "frames"));
     }
 
     // Public API
@@ -196,6 +199,7 @@ public class MapController implements com.elmakers.mine.bukkit.api.maps.MapContr
                 plugin.getLogger().info("Deleted file " + cacheFile.getAbsolutePath());
             }
         }
+        frameCache.clear();
         loadConfiguration();
     }
 
@@ -501,4 +505,28 @@ public class MapController implements com.elmakers.mine.bukkit.api.maps.MapContr
     public void setAnimationAllowed(boolean allowed) {
         animationAllowed = allowed;
     }
+
+    public boolean isDitheringEnabled() {
+        return dithering;
+    }
+
+    public void setDitheringEnabled(boolean enabled) {
+        if (enabled != dithering) {
+            dithering = enabled;
+            for (URLMap map : keyMap.values()) {
+                map.reset();
+            }
+        }
+    }
+
+    public MapFrameCache getFrameCache() {
+        return frameCache;
+    }
+
+    /**
+     * Set the maximum amount of memory used to hold quantized map frames, in megabytes.
+     */
+    public void setFrameCacheSize(int megabytes) {
+        frameCache.setMaxSize(megabytes);
+    }
 }
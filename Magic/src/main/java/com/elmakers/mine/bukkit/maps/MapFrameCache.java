@@ -0,0 +1,167 @@
+package com.elmakers.mine.bukkit.maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Holds the quantized frames of image maps.
+ *
+ * <p>Frames are kept in memory in a least-recently-used cache shared by all maps, which is
+ * limited to a maximum size. Frames are also saved to disk, so they don't have to be decoded
+ * and quantized again after a restart, or after being dropped from memory.
+ */
+public class MapFrameCache {
+    private static final int MAGIC = 0x4D464D43;
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".frames";
+
+    @Nullable
+    private final File folder;
+    private final LinkedHashMap<String, MapFrames> frames = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes = 64L * 1024 * 1024;
+    private long bytes;
+
+    public MapFrameCache(@Nullable File folder) {
+        this.folder = folder;
+    }
+
+    public synchronized void setMaxSize(int megabytes) {
+        maxBytes = Math.max(0, megabytes) * 1024L * 1024L;
+        evict();
+    }
+
+    @Nullable
+    public synchronized MapFrames get(String key) {
+        return frames.get(key);
+    }
+
+    public synchronized void put(String key, MapFrames mapFrames) {
+        MapFrames previous = frames.put(key, mapFrames);
+        if (previous != null) {
+            bytes -= previous.getByteSize();
+        }
+        bytes += mapFrames.getByteSize();
+        evict();
+    }
+
+    private void evict() {
+        Iterator<MapFrames> it = frames.values().iterator();
+        // Always keep the most recently used entry, even if it is bigger than the limit on its own
+        while (bytes > maxBytes && frames.size() > 1 && it.hasNext()) {
+            bytes -= it.next().getByteSize();
+            it.remove();
+        }
+    }
+
+    /**
+     * Forget the frames for a map, in memory and on disk.
+     */
+    public void remove(String key) {
+        synchronized (this) {
+            MapFrames removed = frames.remove(key);
+            if (removed != null) {
+                bytes -= removed.getByteSize();
+            }
+        }
+        File file = getFile(key);
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            frames.clear();
+            bytes = 0;
+        }
+        File[] files = folder == null ? null : folder.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().endsWith(EXTENSION)) {
+                file.delete();
+            }
+        }
+    }
+
+    public synchronized int getCount() {
+        return frames.size();
+    }
+
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    @Nullable
+    private File getFile(String key) {
+        if (folder == null) return null;
+        return new File(folder, Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + EXTENSION);
+    }
+
+    /**
+     * Load saved frames from disk.
+     *
+     * @param signature Identifies the version of the source image the frames were made from
+     * @return The frames, or null if none were saved from the same source image
+     */
+    @Nullable
+    public MapFrames load(String key, String signature) throws IOException {
+        File file = getFile(key);
+        if (file == null || !file.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (!in.readUTF().equals(key) || !in.readUTF().equals(signature)) return null;
+            int count = in.readInt();
+            byte[][] frameData = new byte[count][];
+            long[] frameTimes = new long[count];
+            for (int i = 0; i < count; i++) {
+                frameTimes[i] = in.readLong();
+                frameData[i] = new byte[in.readInt()];
+                in.readFully(frameData[i]);
+            }
+            return new MapFrames(frameData, frameTimes);
+        }
+    }
+
+    /**
+     * Save frames to disk.
+     *
+     * @param signature Identifies the version of the source image the frames were made from
+     */
+    public void save(String key, String signature, MapFrames mapFrames) throws IOException {
+        File file = getFile(key);
+        if (file == null) return;
+        folder.mkdirs();
+        File tempFile = new File(folder, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeUTF(signature);
+            out.writeInt(mapFrames.size());
+            long[] frameTimes = mapFrames.getFrameTimes();
+            for (int i = 0; i < mapFrames.size(); i++) {
+                byte[] frame = mapFrames.getFrame(i);
+                out.writeLong(frameTimes[i]);
+                out.writeInt(frame.length);
+                out.write(frame);
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
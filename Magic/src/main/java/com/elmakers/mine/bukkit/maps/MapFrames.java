@@ -0,0 +1,130 @@
+package com.elmakers.mine.bukkit.maps;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.map.MapPalette;
+
+/**
+ * The frames of an image map, already converted to map palette colors so they
+ * can be copied straight to a map canvas.
+ */
+public class MapFrames {
+    public static final int FRAME_SIZE = BufferedMapCanvas.CANVAS_WIDTH * BufferedMapCanvas.CANVAS_HEIGHT;
+
+    private final byte[][] frames;
+    private final long[] frameTimes;
+
+    public MapFrames(byte[][] frames, long[] frameTimes) {
+        if (frames.length != frameTimes.length) {
+            throw new IllegalArgumentException("Frame count does not match frame time count");
+        }
+        this.frames = frames;
+        this.frameTimes = frameTimes;
+    }
+
+    public MapFrames(List<byte[]> frames, List<Long> frameTimes) {
+        this(frames.toArray(new byte[frames.size()][]), toArray(frameTimes));
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    public int size() {
+        return frames.length;
+    }
+
+    public byte[] getFrame(int index) {
+        return frames[index];
+    }
+
+    /**
+     * How long each frame should be displayed for, in milliseconds.
+     */
+    public long[] getFrameTimes() {
+        return frameTimes;
+    }
+
+    public long getByteSize() {
+        long size = 0;
+        for (byte[] frame : frames) {
+            size += frame.length;
+        }
+        return size + frameTimes.length * 8L;
+    }
+
+    /**
+     * Convert an image to map palette colors.
+     *
+     * <p>This does the same color matching as MapCanvas.drawImage, so can be slow for large
+     * images and should be done off the main thread.
+     *
+     * @param dither Use Floyd-Steinberg dithering to spread out color matching errors
+     */
+    @SuppressWarnings("deprecation")
+    public static byte[] quantize(BufferedImage image, boolean dither) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        byte[] pixels = new byte[width * height];
+        float[] errors = dither ? new float[pixels.length * 3] : null;
+        Map<Integer, Byte> matches = new HashMap<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = x + y * width;
+                int color = argb[index];
+                if ((color >>> 24) < 128) {
+                    pixels[index] = MapPalette.TRANSPARENT;
+                    continue;
+                }
+                int red = (color >> 16) & 0xFF;
+                int green = (color >> 8) & 0xFF;
+                int blue = color & 0xFF;
+                if (errors != null) {
+                    red = clamp(red + Math.round(errors[index * 3]));
+                    green = clamp(green + Math.round(errors[index * 3 + 1]));
+                    blue = clamp(blue + Math.round(errors[index * 3 + 2]));
+                }
+                int rgb = (red << 16) | (green << 8) | blue;
+                Byte match = matches.get(rgb);
+                if (match == null) {
+                    match = MapPalette.matchColor(red, green, blue);
+                    matches.put(rgb, match);
+                }
+                pixels[index] = match;
+                if (errors != null) {
+                    Color matched = MapPalette.getColor(match);
+                    diffuse(errors, width, height, x, y, red - matched.getRed(), green - matched.getGreen(), blue - matched.getBlue());
+                }
+            }
+        }
+        return pixels;
+    }
+
+    private static void diffuse(float[] errors, int width, int height, int x, int y, int red, int green, int blue) {
+        addError(errors, width, height, x + 1, y, red, green, blue, 7.0f / 16);
+        addError(errors, width, height, x - 1, y + 1, red, green, blue, 3.0f / 16);
+        addError(errors, width, height, x, y + 1, red, green, blue, 5.0f / 16);
+        addError(errors, width, height, x + 1, y + 1, red, green, blue, 1.0f / 16);
+    }
+
+    private static void addError(float[] errors, int width, int height, int x, int y, int red, int green, int blue, float weight) {
+        if (x < 0 || x >= width || y >= height) return;
+        int index = (x + y * width) * 3;
+        errors[index] += red * weight;
+        errors[index + 1] += green * weight;
+        errors[index + 2] += blue * weight;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -9,16 +9,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.ref.SoftReference;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -42,12 +40,21 @@ import com.elmakers.mine.bukkit.utility.ProfileCallback;
 import com.elmakers.mine.bukkit.utility.ProfileResponse;
 
 public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.maps.URLMap {
-    private static final Map<String, Collection<BufferedImage>> imageCache = new WeakHashMap<>();
+    // The most recently decoded image is kept while there is memory for it, so that all the slices
+    // of an image can share it
+    private static final Object decodeLock = new Object();
+    private static String decodedUrl = null;
+    private static SoftReference<DecodedImages> decodedImages = new SoftReference<>(null);
+
+    private static class DecodedImages {
+        private final List<BufferedImage> images = new ArrayList<>();
+        private final List<Long> frameTimes = new ArrayList<>();
+    }
 
     // Private and Protected Members
     private final MapController controller;
-    private List<BufferedImage> frames = null;
-    private List<Long> frameTimes = null;
+    private long[] frameTimes = null;
+    private byte[] drawn = null;
     private int frame = 0;
     private boolean animated = false;
     private long lastFrameChange = 0;
@@ -71,26 +78,38 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
     protected Set<String> sentToPlayers = new HashSet<>();
     protected Integer priority;
 
-    private Collection<BufferedImage> getImages(String url, MapController controller) throws IOException {
-        final Plugin plugin = controller.getPlugin();
+    /**
+     * Get the file this map's image is loaded from, for web images this is the cached copy of the image.
+     *
+     * @return The file, or null if this is a web image that is not cached
+     */
+    @Nullable
+    private File getSourceFile() throws IOException {
+        if (!url.startsWith("http")) {
+            if (!url.startsWith("/")) {
+                File baseFolder = controller.getPlugin().getDataFolder().getParentFile().getParentFile();
+                return new File(baseFolder, url);
+            }
+            return new File(url);
+        }
         final File cacheFolder = controller.getCacheFolder();
-        Collection<BufferedImage> images = null;
+        return cacheFolder != null ? new File(cacheFolder, URLEncoder.encode(url, "UTF-8")) : null;
+    }
+
+    private static String getSignature(File source) {
+        return source.lastModified() + "," + source.length();
+    }
+
+    private DecodedImages getImages(@Nullable File source) throws IOException {
+        DecodedImages images = null;
         if (!url.startsWith("http"))
         {
-            File fileName;
-            if (!url.startsWith("/")) {
-                File baseFolder = plugin.getDataFolder().getParentFile().getParentFile();
-                fileName = new File(baseFolder, url);
-            } else {
-                fileName = new File(url);
-            }
-            controller.info("Loading map file: " + fileName.getName());
-            images = loadImages(ImageIO.createImageInputStream(fileName));
+            controller.info("Loading map file: " + source.getName());
+            images = loadImages(ImageIO.createImageInputStream(source));
         }
         else
         {
-            String cacheFileName = URLEncoder.encode(url, "UTF-8");
-            File cacheFile = cacheFolder != null ? new File(cacheFolder, cacheFileName) : null;
+            File cacheFile = source;
             if (cacheFile != null) {
                 if (cacheFile.exists()) {
                     controller.info("Loading from cache: " + cacheFile.getName());
@@ -128,62 +147,105 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
         public void run() {
             try {
                 animated = url.endsWith(".gif");
-                Collection<BufferedImage> images;
-                synchronized (imageCache) {
-                    images = imageCache.get(url);
-                    if (images == null) {
-                        images = getImages(url, controller);
-                        imageCache.put(url, images);
+                MapFrameCache frameCache = controller.getFrameCache();
+                String frameKey = getFrameKey();
+                File source = getSourceFile();
+                MapFrames mapFrames = null;
+                if (source != null && source.exists()) {
+                    try {
+                        mapFrames = frameCache.load(frameKey, getSignature(source));
+                    } catch (IOException ex) {
+                        controller.warning("Failed to load cached frames for map " + url + ": " + ex.getMessage());
+                    }
+                }
+                if (mapFrames == null) {
+                    mapFrames = createFrames(source);
+                    if (mapFrames.size() > 0 && source != null && source.exists()) {
+                        try {
+                            frameCache.save(frameKey, getSignature(source), mapFrames);
+                        } catch (IOException ex) {
+                            controller.warning("Failed to save cached frames for map " + url + ": " + ex.getMessage());
+                        }
                     }
                 }
 
-                if (images.size() == 0) {
+                if (mapFrames.size() == 0) {
                     enabled = false;
                     controller.warning("Failed to load map " + url);
+                } else {
+                    frameTimes = mapFrames.getFrameTimes();
+                    lastFrameChange = System.currentTimeMillis();
+                    frameCache.put(frameKey, mapFrames);
                 }
-                for (BufferedImage rawImage : images)
-                {
-                    int imageWidth;
-                    int imageHeight;
-                    int imageX;
-                    int imageY;
-                    if (isSlice && width > 0 && height > 0) {
-                        imageWidth = rawImage.getWidth() / width;
-                        imageHeight = rawImage.getHeight() / height;
-                        imageX = x * imageWidth;
-                        imageY = y * imageHeight;
-                    } else {
-                        imageWidth = width <= 0 ? rawImage.getWidth() + width : width;
-                        imageHeight = height <= 0 ? rawImage.getHeight() + height : height;
-                        imageX = x;
-                        imageY = y;
-                    }
-                    if (imageWidth > rawImage.getWidth()) {
-                        imageWidth = rawImage.getWidth();
-                    }
-                    if (imageHeight > rawImage.getHeight()) {
-                        imageHeight = rawImage.getHeight();
-                    }
-                    imageX += rawImage.getMinX();
-                    imageY += rawImage.getMinY();
+                loading = false;
+            } catch (Exception ex) {
+                controller.warning("Failed to load map " + url + ": " + ex.getMessage());
+            }
+        }
+    }
 
-                    BufferedImage croppedImage = rawImage.getSubimage(imageX, imageY, imageWidth, imageHeight);
-                    BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D graphics = image.createGraphics();
+    private MapFrames createFrames(@Nullable File source) throws IOException {
+        DecodedImages decoded;
+        synchronized (decodeLock) {
+            decoded = url.equals(decodedUrl) ? decodedImages.get() : null;
+            if (decoded == null) {
+                decoded = getImages(source);
+                decodedUrl = url;
+                decodedImages = new SoftReference<>(decoded);
+            }
+        }
 
-                    AffineTransform transform = AffineTransform.getScaleInstance((float)128 / imageWidth, (float)128 / imageHeight);
-                    graphics.drawRenderedImage(croppedImage, transform);
+        boolean dither = controller.isDitheringEnabled();
+        List<byte[]> frames = new ArrayList<>();
+        for (BufferedImage rawImage : decoded.images)
+        {
+            int imageWidth;
+            int imageHeight;
+            int imageX;
+            int imageY;
+            if (isSlice && width > 0 && height > 0) {
+                imageWidth = rawImage.getWidth() / width;
+                imageHeight = rawImage.getHeight() / height;
+                imageX = x * imageWidth;
+                imageY = y * imageHeight;
+            } else {
+                imageWidth = width <= 0 ? rawImage.getWidth() + width : width;
+                imageHeight = height <= 0 ? rawImage.getHeight() + height : height;
+                imageX = x;
+                imageY = y;
+            }
+            if (imageWidth > rawImage.getWidth()) {
+                imageWidth = rawImage.getWidth();
+            }
+            if (imageHeight > rawImage.getHeight()) {
+                imageHeight = rawImage.getHeight();
+            }
+            imageX += rawImage.getMinX();
+            imageY += rawImage.getMinY();
 
-                    if (xOverlay != null && yOverlay != null) {
-                        BufferedImage croppedOverlay = rawImage.getSubimage(xOverlay, yOverlay, imageWidth, imageHeight);
-                        graphics.drawRenderedImage(croppedOverlay, transform);
-                    }
+            BufferedImage croppedImage = rawImage.getSubimage(imageX, imageY, imageWidth, imageHeight);
+            BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
 
-                    frames.add(image);
-                }
-                loading = false;
-            } catch (Exception ex) {
-                controller.warning("Failed to load map " + url + ": " + ex.getMessage());
+            AffineTransform transform = AffineTransform.getScaleInstance((float)128 / imageWidth, (float)128 / imageHeight);
+            graphics.drawRenderedImage(croppedImage, transform);
+
+            if (xOverlay != null && yOverlay != null) {
+                BufferedImage croppedOverlay = rawImage.getSubimage(xOverlay, yOverlay, imageWidth, imageHeight);
+                graphics.drawRenderedImage(croppedOverlay, transform);
+            }
+            graphics.dispose();
+
+            frames.add(MapFrames.quantize(image, dither));
+        }
+        return new MapFrames(frames, decoded.frameTimes);
+    }
+
+    private static void forgetDecoded(String url) {
+        synchronized (decodeLock) {
+            if (url != null && url.equals(decodedUrl)) {
+                decodedUrl = null;
+                decodedImages = new SoftReference<>(null);
             }
         }
     }
@@ -208,13 +270,14 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
     // Render method override
     @Override
     public void render(MapView mapView, MapCanvas canvas, Player player) {
-        if (animated && frameTimes != null && frameTimes.size() > 0 && controller.isAnimationAllowed())
+        long[] frameTimes = this.frameTimes;
+        if (animated && frameTimes != null && frameTimes.length > 1 && controller.isAnimationAllowed())
         {
             long now = System.currentTimeMillis();
-            long delay = frameTimes.get(frame);
+            long delay = frameTimes[frame % frameTimes.length];
             if (now > lastFrameChange + delay)
             {
-                frame = (frame + 1) % frameTimes.size();
+                frame = (frame + 1) % frameTimes.length;
                 sentToPlayers.clear();
                 rendered = false;
                 lastFrameChange = now;
@@ -228,17 +291,31 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
             return;
         }
 
-        BufferedImage image = getImage();
-        if (image != null) {
-            canvas.drawImage(0, 0, image);
+        byte[] pixels = getFrame();
+        if (pixels != null) {
+            drawFrame(canvas, pixels);
             rendered = true;
         }
     }
 
+    @SuppressWarnings("deprecation")
+    private void drawFrame(MapCanvas canvas, byte[] pixels) {
+        // The canvas keeps what was last drawn, so only pixels that differ from the previous frame need setting
+        byte[] previous = drawn;
+        int canvasWidth = BufferedMapCanvas.CANVAS_WIDTH;
+        for (int i = 0; i < pixels.length; i++) {
+            if (previous == null || previous[i] != pixels[i]) {
+                canvas.setPixel(i % canvasWidth, i / canvasWidth, pixels[i]);
+            }
+        }
+        drawn = pixels;
+    }
+
     @Override
     public void initialize(MapView mapView) {
         // This is here mainly as a hack to be able to force render to canvas.
         rendered = false;
+        drawn = null;
     }
 
     @Override
@@ -357,29 +434,39 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
         sentToPlayers.remove(playerName);
     }
 
+    protected String getFrameKey() {
+        String key = getKey() + "|" + xOverlay + "," + yOverlay;
+        if (controller.isDitheringEnabled()) {
+            key = key + "|dither";
+        }
+        return key;
+    }
+
     protected void reload() {
         sentToPlayers.clear();
         rendered = false;
         loading = false;
-        frames = null;
+        drawn = null;
+        frameTimes = null;
+        forgetDecoded(url);
+        controller.getFrameCache().remove(getFrameKey());
     }
 
-    protected Collection<BufferedImage> loadImages(ImageInputStream in)
+    private DecodedImages loadImages(ImageInputStream in)
     {
-        List<BufferedImage> images = new ArrayList<>();
+        DecodedImages images = new DecodedImages();
         try {
             if (animated) {
                 ImageReader reader = ImageIO.getImageReadersBySuffix("GIF").next();
                 reader.setInput(in);
-                frameTimes = new ArrayList<>();
-                lastFrameChange = System.currentTimeMillis();
                 loadGIFImages(reader, images);
                 reader.dispose();
             } else {
                 BufferedImage frame = ImageIO.read(in);
                 if (frame != null)
                 {
-                    images.add(frame);
+                    images.images.add(frame);
+                    images.frameTimes.add(0L);
                 }
             }
         } catch (Exception ex) {
@@ -389,7 +476,7 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
         return images;
     }
 
-    private void loadGIFImages(ImageReader reader, Collection<BufferedImage> images) throws IOException {
+    private void loadGIFImages(ImageReader reader, DecodedImages images) throws IOException {
         int width = -1;
         int height = -1;
 
@@ -454,15 +541,15 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
             masterGraphics.drawImage(image, x, y, null);
 
             BufferedImage copy = new BufferedImage(master.getColorModel(), master.copyData(null), master.isAlphaPremultiplied(), null);
-            images.add(copy);
-            frameTimes.add((long)10 * delay);
+            images.images.add(copy);
+            images.frameTimes.add((long)10 * delay);
             frameDisposals.add(disposal);
 
             if (disposal.equals("restoreToPrevious")) {
                 BufferedImage from = null;
                 for (int i = frameIndex - 1; i >= 0; i--) {
                     if (!frameDisposals.get(i).equals("restoreToPrevious") || frameIndex == 0) {
-                        from = frames.get(i);
+                        from = images.images.get(i);
                         break;
                     }
                 }
@@ -478,7 +565,7 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
     }
 
     @Nullable
-    protected BufferedImage getImage() {
+    protected byte[] getFrame() {
         if (loading || !enabled) {
             return null;
         }
@@ -499,19 +586,22 @@ public class URLMap extends MapRenderer implements com.elmakers.mine.bukkit.api.
             }
             return null;
         }
-        if (frames == null) {
+        // Frames may have been dropped from the cache since they were loaded, in which case
+        // they will be loaded again, usually from disk
+        MapFrames mapFrames = controller.getFrameCache().get(getFrameKey());
+        if (mapFrames == null) {
             loading = true;
-            frames = new ArrayList<>();
             final Plugin plugin = controller.getPlugin();
             if (plugin == null) return null;
             Bukkit.getScheduler().runTaskAsynchronously(plugin, new GetImageTask());
             return null;
         }
-        return frames.get(frame);
+        return mapFrames.getFrame(frame % mapFrames.size());
     }
 
     protected void reset() {
-        frames = null;
+        frameTimes = null;
+        drawn = null;
         rendered = false;
         loading = false;
         sentToPlayers.clear();
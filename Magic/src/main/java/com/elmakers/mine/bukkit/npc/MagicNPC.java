@@ -207,6 +207,7 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
         }
         setEntityData(newEntityData);
         this.mobKey = mobKey;
+        controller.setNPCsModified();
         remove();
         restore();
         return true;
@@ -219,6 +220,7 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
             return false;
         }
         this.templateKey = templateKey;
+        controller.setNPCsModified();
         if (mobKey != null) {
             setType(mobKey);
         }
@@ -359,7 +361,10 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
         if (entityData.useNPCName() && name != null) {
             entity.setCustomName(getName());
         }
-        this.entityId = entity.getUniqueId();
+        if (!entity.getUniqueId().equals(entityId)) {
+            this.entityId = entity.getUniqueId();
+            controller.setNPCsModified();
+        }
         return entity;
     }
 
@@ -411,6 +416,7 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
     @Override
     public void setName(@Nonnull String name) {
         this.name = name;
+        controller.setNPCsModified();
         restore();
     }
 
@@ -430,6 +436,7 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
     public void configure(String key, Object value) {
         value = ConfigurationUtils.convertProperty(value);
         parameters.set(key, value);
+        controller.setNPCsModified();
         entityData.getConfiguration().set(key, value);
         update();
     }
@@ -501,6 +508,7 @@ public class MagicNPC implements com.elmakers.mine.bukkit.api.npc.MagicNPC {
 
     public void setImportedId(int importedId) {
         this.importedId = importedId;
+        controller.setNPCsModified();
     }
 
     public boolean isStatic() {
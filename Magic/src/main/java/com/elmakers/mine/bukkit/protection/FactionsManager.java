@@ -15,9 +15,10 @@ import org.bukkit.plugin.Plugin;
 import com.elmakers.mine.bukkit.api.entity.TeamProvider;
 import com.elmakers.mine.bukkit.api.protection.BlockBreakManager;
 import com.elmakers.mine.bukkit.api.protection.BlockBuildManager;
+import com.elmakers.mine.bukkit.api.protection.ChunkProtection;
 import com.elmakers.mine.bukkit.api.protection.PVPManager;
 
-public class FactionsManager implements BlockBuildManager, BlockBreakManager, PVPManager, TeamProvider {
+public class FactionsManager implements BlockBuildManager, BlockBreakManager, ChunkProtection, PVPManager, TeamProvider {
     private boolean enabled = false;
     private Class<?> factionsManager = null;
     private Method factionsCanBuildMethod = null;
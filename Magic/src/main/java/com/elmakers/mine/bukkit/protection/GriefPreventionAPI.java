@@ -1,9 +1,16 @@
 package com.elmakers.mine.bukkit.protection;
 
+import java.lang.reflect.Method;
+import java.util.Collection;
+
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BlockVector;
+
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
 
 import me.ryanhamshire.GriefPrevention.Claim;
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
@@ -11,6 +18,8 @@ import me.ryanhamshire.GriefPrevention.GriefPrevention;
 public class GriefPreventionAPI
 {
     private final GriefPrevention griefPrevention;
+    // Only in newer versions of GriefPrevention, without it areas can't be checked all at once
+    private Method getChunkClaimsMethod;
 
     public GriefPreventionAPI(Plugin plugin) throws IllegalArgumentException {
 
@@ -18,6 +27,13 @@ public class GriefPreventionAPI
             throw new IllegalArgumentException("GriefPrevention plugin not an instance of GriefPrevention class");
         }
         griefPrevention = GriefPrevention.instance;
+        if (griefPrevention != null) {
+            try {
+                getChunkClaimsMethod = griefPrevention.dataStore.getClass().getMethod("getClaims", Integer.TYPE, Integer.TYPE);
+            } catch (Exception ex) {
+                getChunkClaimsMethod = null;
+            }
+        }
     }
 
     public boolean hasBuildPermission(Player player, Block block) {
@@ -40,6 +56,55 @@ public class GriefPreventionAPI
         return true;
     }
 
+    /**
+     * Check whether a player may edit every claim and subdivision that overlaps an area.
+     *
+     * <p>Claims cover every block from their lowest corner up, so this only needs to look at
+     * the claims of the chunks the area is in.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean checkArea(Player player, World world, BoundingBox area) {
+        if (griefPrevention == null) return true;
+        if (getChunkClaimsMethod == null) return false;
+        BlockVector min = area.getMin();
+        BlockVector max = area.getMax();
+        try {
+            for (int chunkX = min.getBlockX() >> 4; chunkX <= max.getBlockX() >> 4; chunkX++) {
+                for (int chunkZ = min.getBlockZ() >> 4; chunkZ <= max.getBlockZ() >> 4; chunkZ++) {
+                    Collection<Claim> claims = (Collection<Claim>)getChunkClaimsMethod.invoke(griefPrevention.dataStore, chunkX, chunkZ);
+                    for (Claim claim : claims) {
+                        if (!canEdit(player, claim, world, min, max)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean canEdit(Player player, Claim claim, World world, BlockVector min, BlockVector max) {
+        Location lesser = claim.getLesserBoundaryCorner();
+        Location greater = claim.getGreaterBoundaryCorner();
+        // Claims are indexed by chunk coordinates alone, so may be in another world
+        if (!world.equals(lesser.getWorld())
+                || lesser.getBlockX() > max.getBlockX() || greater.getBlockX() < min.getBlockX()
+                || lesser.getBlockZ() > max.getBlockZ() || greater.getBlockZ() < min.getBlockZ()) {
+            return true;
+        }
+        if (claim.allowEdit(player) != null) {
+            return false;
+        }
+        for (Claim child : claim.children) {
+            if (!canEdit(player, child, world, min, max)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isPVPAllowed(Location location) {
         if (location != null && griefPrevention != null && griefPrevention.config_pvp_noCombatInPlayerLandClaims) {
             Claim claim = griefPrevention.dataStore.getClaimAt(location, false, null);
@@ -1,17 +1,22 @@
 package com.elmakers.mine.bukkit.protection;
 
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
+import com.elmakers.mine.bukkit.api.protection.AreaProtection;
 import com.elmakers.mine.bukkit.api.protection.BlockBreakManager;
 import com.elmakers.mine.bukkit.api.protection.BlockBuildManager;
 import com.elmakers.mine.bukkit.api.protection.PVPManager;
+import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
 
-public class GriefPreventionManager implements BlockBuildManager, BlockBreakManager, PVPManager {
+public class GriefPreventionManager implements BlockBuildManager, BlockBreakManager, PVPManager, AreaProtection {
     private boolean enabled = false;
     private GriefPreventionAPI api = null;
 
@@ -63,6 +68,14 @@ public class GriefPreventionManager implements BlockBuildManager, BlockBreakMana
         return true;
     }
 
+    @Override
+    public boolean checkArea(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area) {
+        if (enabled && api != null) {
+            return api.checkArea(player, world, area);
+        }
+        return true;
+    }
+
     @Override
     public boolean isPVPAllowed(Player player, Location location) {
         if (enabled && location != null && api != null) {
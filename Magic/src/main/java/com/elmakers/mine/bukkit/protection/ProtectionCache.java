@@ -0,0 +1,158 @@
+package com.elmakers.mine.bukkit.protection;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import com.elmakers.mine.bukkit.api.protection.BlockBreakManager;
+import com.elmakers.mine.bukkit.api.protection.BlockBuildManager;
+import com.elmakers.mine.bukkit.api.protection.ChunkProtection;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+
+/**
+ * Remembers what the ChunkProtection managers said about each chunk, per player.
+ *
+ * <p>Large constructions check permission for every block they change, this lets them ask
+ * those managers once per chunk instead. Managers that are not ChunkProtection are never
+ * cached and should still be asked about every block.
+ */
+public class ProtectionCache {
+    // Check for expired decisions once a player has this many in one world
+    private static final int PRUNE_SIZE = 1024;
+    // Used for checks made without a player, such as by mobs or command blocks
+    private static final UUID NO_PLAYER = new UUID(0, 0);
+
+    private final Map<UUID, Map<String, LongObjectHashMap<Decision>>> decisions = new HashMap<>();
+    private boolean enabled = false;
+    private long ttl = 5000;
+
+    // Stats, for /magic list
+    private long hits;
+    private long misses;
+
+    private static class Decision {
+        private long buildExpires;
+        private boolean build;
+        private long breakExpires;
+        private boolean breakAllowed;
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private Decision getDecision(@Nullable Player player, Block block) {
+        UUID playerId = player == null ? NO_PLAYER : player.getUniqueId();
+        Map<String, LongObjectHashMap<Decision>> playerDecisions = decisions.get(playerId);
+        if (playerDecisions == null) {
+            playerDecisions = new HashMap<>();
+            decisions.put(playerId, playerDecisions);
+        }
+        String worldName = block.getWorld().getName();
+        LongObjectHashMap<Decision> worldDecisions = playerDecisions.get(worldName);
+        if (worldDecisions == null) {
+            worldDecisions = new LongObjectHashMap<>();
+            playerDecisions.put(worldName, worldDecisions);
+        }
+        long key = getChunkKey(block.getX() >> 4, block.getZ() >> 4);
+        Decision decision = worldDecisions.get(key);
+        if (decision == null) {
+            if (worldDecisions.size() > PRUNE_SIZE) {
+                prune(worldDecisions, System.currentTimeMillis());
+            }
+            decision = new Decision();
+            worldDecisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    private static void prune(LongObjectHashMap<Decision> worldDecisions, long now) {
+        Iterator<Decision> it = worldDecisions.values().iterator();
+        while (it.hasNext()) {
+            Decision decision = it.next();
+            if (decision.buildExpires < now && decision.breakExpires < now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Check the ChunkProtection build managers in this list.
+     */
+    public boolean hasBuildPermission(@Nullable Player player, Block block, List<BlockBuildManager> managers) {
+        Decision decision = getDecision(player, block);
+        long now = System.currentTimeMillis();
+        if (decision.buildExpires >= now) {
+            hits++;
+            return decision.build;
+        }
+        misses++;
+        boolean allowed = true;
+        for (BlockBuildManager manager : managers) {
+            if (manager instanceof ChunkProtection && !manager.hasBuildPermission(player, block)) {
+                allowed = false;
+                break;
+            }
+        }
+        decision.build = allowed;
+        decision.buildExpires = now + ttl;
+        return allowed;
+    }
+
+    /**
+     * Check the ChunkProtection break managers in this list.
+     */
+    public boolean hasBreakPermission(@Nullable Player player, Block block, List<BlockBreakManager> managers) {
+        Decision decision = getDecision(player, block);
+        long now = System.currentTimeMillis();
+        if (decision.breakExpires >= now) {
+            hits++;
+            return decision.breakAllowed;
+        }
+        misses++;
+        boolean allowed = true;
+        for (BlockBreakManager manager : managers) {
+            if (manager instanceof ChunkProtection && !manager.hasBreakPermission(player, block)) {
+                allowed = false;
+                break;
+            }
+        }
+        decision.breakAllowed = allowed;
+        decision.breakExpires = now + ttl;
+        return allowed;
+    }
+
+    public void clear() {
+        decisions.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public void setTTL(long ttl) {
+        this.ttl = ttl;
+        clear();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
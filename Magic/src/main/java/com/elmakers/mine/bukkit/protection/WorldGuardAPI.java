@@ -13,7 +13,9 @@ import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.util.BlockVector;
 
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
 import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
 import com.elmakers.mine.bukkit.api.wand.Wand;
 import com.sk89q.worldguard.bukkit.WorldGuardPlugin;
@@ -23,6 +25,8 @@ import com.sk89q.worldguard.protection.association.Associables;
 import com.sk89q.worldguard.protection.association.RegionAssociable;
 import com.sk89q.worldguard.protection.flags.StateFlag;
 import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 
 public class WorldGuardAPI {
     private final Plugin owningPlugin;
@@ -38,6 +42,9 @@ public class WorldGuardAPI {
     private Method regionManagerGetMethod = null;
     private Constructor<?> vectorConstructor = null;
     private Method vectorConstructorAsAMethodBecauseWhyNot = null;
+    private Constructor<?> cuboidConstructor = null;
+    private Constructor<?> blockVectorConstructor = null;
+    private Method blockVectorAtMethod = null;
     private StateFlag buildFlag;
     private StateFlag pvpFlag;
     private StateFlag exitFlag;
@@ -174,6 +181,22 @@ public class WorldGuardAPI {
             if (regionContainer == null) {
                 owningPlugin.getLogger().warning("Failed to find RegionContainer, WorldGuard integration will not function!");
             }
+
+            // And the same again for cuboid regions, used to check whole areas at once
+            try {
+                Class<?> blockVectorClass = Class.forName("com.sk89q.worldedit.BlockVector");
+                blockVectorConstructor = blockVectorClass.getConstructor(Integer.TYPE, Integer.TYPE, Integer.TYPE);
+                cuboidConstructor = ProtectedCuboidRegion.class.getConstructor(String.class, blockVectorClass, blockVectorClass);
+            } catch (Exception ex) {
+                try {
+                    Class<?> blockVectorClass = Class.forName("com.sk89q.worldedit.math.BlockVector3");
+                    blockVectorAtMethod = blockVectorClass.getMethod("at", Integer.TYPE, Integer.TYPE, Integer.TYPE);
+                    cuboidConstructor = ProtectedCuboidRegion.class.getConstructor(String.class, blockVectorClass, blockVectorClass);
+                } catch (Exception notFound) {
+                    owningPlugin.getLogger().info("Could not bind to WorldGuard cuboid regions, construction spells will check every block");
+                    cuboidConstructor = null;
+                }
+            }
         }
     }
 
@@ -267,6 +290,49 @@ public class WorldGuardAPI {
         return true;
     }
 
+    /**
+     * Check whether a player may build everywhere in an area.
+     *
+     * <p>This only gives an answer when every region touching the area covers all of it. Then every
+     * block in the area is in the same regions, and checking one of them answers for all of them.
+     */
+    public boolean checkArea(Player player, @Nullable SpellTemplate spell, World world, BoundingBox area) {
+        initialize();
+        if (cuboidConstructor == null) return false;
+        RegionManager regionManager = getRegionManager(world);
+        if (regionManager == null) return false;
+
+        BlockVector min = area.getMin();
+        BlockVector max = area.getMax();
+        try {
+            ProtectedRegion bounds = (ProtectedRegion)cuboidConstructor.newInstance("__magic_area__", createBlockVector(min), createBlockVector(max));
+            for (ProtectedRegion region : regionManager.getApplicableRegions(bounds)) {
+                if (!(region instanceof ProtectedCuboidRegion)
+                        || !region.contains(min.getBlockX(), min.getBlockY(), min.getBlockZ())
+                        || !region.contains(max.getBlockX(), max.getBlockY(), max.getBlockZ())) {
+                    return false;
+                }
+            }
+        } catch (Exception ex) {
+            owningPlugin.getLogger().log(Level.WARNING, "An error occurred querying WorldGuard", ex);
+            return false;
+        }
+
+        Block block = world.getBlockAt(min.getBlockX(), min.getBlockY(), min.getBlockZ());
+        if (!hasBuildPermission(player, block)) return false;
+        if (spell != null) {
+            Boolean castPermission = getCastPermission(player, spell, block.getLocation());
+            if (castPermission != null && !castPermission) return false;
+        }
+        return true;
+    }
+
+    private Object createBlockVector(BlockVector vector) throws Exception {
+        return blockVectorAtMethod == null
+                ? blockVectorConstructor.newInstance(vector.getBlockX(), vector.getBlockY(), vector.getBlockZ())
+                : blockVectorAtMethod.invoke(null, vector.getBlockX(), vector.getBlockY(), vector.getBlockZ());
+    }
+
     @Nullable
     public Boolean getCastPermission(Player player, SpellTemplate spell, Location location) {
         if (location != null && worldGuardPlugin != null && customFlags != null)
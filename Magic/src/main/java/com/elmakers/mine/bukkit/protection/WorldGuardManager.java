@@ -6,11 +6,14 @@ import javax.annotation.Nullable;
 
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
+import com.elmakers.mine.bukkit.api.protection.AreaProtection;
 import com.elmakers.mine.bukkit.api.protection.BlockBreakManager;
 import com.elmakers.mine.bukkit.api.protection.BlockBuildManager;
 import com.elmakers.mine.bukkit.api.protection.CastPermissionManager;
@@ -18,7 +21,7 @@ import com.elmakers.mine.bukkit.api.protection.PVPManager;
 import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
 import com.elmakers.mine.bukkit.api.wand.Wand;
 
-public class WorldGuardManager implements PVPManager, BlockBreakManager, BlockBuildManager, CastPermissionManager {
+public class WorldGuardManager implements PVPManager, BlockBreakManager, BlockBuildManager, CastPermissionManager, AreaProtection {
     private boolean enabled = false;
     private int cacheDuration = 0;
     private WorldGuardAPI worldGuard = null;
@@ -85,6 +88,14 @@ public class WorldGuardManager implements PVPManager, BlockBreakManager, BlockBu
         return true;
     }
 
+    @Override
+    public boolean checkArea(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area) {
+        if (enabled && worldGuard != null) {
+            return worldGuard.checkArea(player, spell, world, area);
+        }
+        return true;
+    }
+
     @Nullable
     @Override
     public Boolean getRegionCastPermission(Player player, SpellTemplate spell, Location location) {
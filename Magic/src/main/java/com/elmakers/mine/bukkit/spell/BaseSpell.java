@@ -47,6 +47,7 @@ import org.bukkit.util.Vector;
 import com.elmakers.mine.bukkit.action.CastContext;
 import com.elmakers.mine.bukkit.api.batch.Batch;
 import com.elmakers.mine.bukkit.api.batch.SpellBatch;
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
 import com.elmakers.mine.bukkit.api.block.MaterialAndData;
 import com.elmakers.mine.bukkit.api.block.UndoList;
 import com.elmakers.mine.bukkit.api.data.SpellData;
@@ -85,8 +86,10 @@ import com.elmakers.mine.bukkit.configuration.SpellParameters;
 import com.elmakers.mine.bukkit.item.Cost;
 import com.elmakers.mine.bukkit.item.Icon;
 import com.elmakers.mine.bukkit.magic.MageClass;
+import com.elmakers.mine.bukkit.magic.MagicController;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.Profiler;
 
 import de.slikey.effectlib.math.EquationStore;
 import de.slikey.effectlib.math.EquationTransform;
@@ -1418,122 +1421,127 @@ public class BaseSpell implements MageSpell, Cloneable {
     }
 
     public boolean cast(@Nullable Wand wand, @Nullable ConfigurationSection extraParameters, @Nullable Location defaultLocation) {
-        Boolean prepared = prepareCast(wand, extraParameters, defaultLocation);
-        if (prepared != null) {
-            return prepared;
-        }
-
-        // PVP override settings
-        bypassPvpRestriction = workingParameters.getBoolean("bypass_pvp", false);
-        bypassPvpRestriction = workingParameters.getBoolean("bp", bypassPvpRestriction);
-        bypassPermissions = workingParameters.getBoolean("bypass_permissions", bypassPermissions);
-        bypassFriendlyFire = workingParameters.getBoolean("bypass_friendly_fire", false);
-        onlyFriendlyFire = workingParameters.getBoolean("only_friendly", false);
-
-        // Check cooldowns
-        cooldown = workingParameters.getInt("cooldown", cooldown);
-        cooldown = workingParameters.getInt("cool", cooldown);
-        mageCooldown = workingParameters.getInt("cooldown_mage", mageCooldown);
-        maxCharges = workingParameters.getInt("charges", maxCharges);
-        rechargeRate = parameters.getDouble("charge_regeneration", rechargeRate);
-
-        // Color override
-        color = ConfigurationUtils.getColor(workingParameters, "color", color);
-        particle = workingParameters.getString("particle", null);
-
-        long cooldownRemaining = getRemainingCooldown();
-        String timeDescription = "";
-        if (cooldownRemaining > 0) {
-            // TODO: API?
-            boolean handled = false;
-            if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
-                com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
-                handled = implMage.handleCooldown(this);
-            }
-            if (!handled) {
-                timeDescription = controller.getMessages().getTimeDescription(cooldownRemaining, "wait", "cooldown");
-                sendMessageKey("cooldown", getMessage("cooldown").replace("$time", timeDescription));
-            }
-            processResult(SpellResult.COOLDOWN, workingParameters);
-            sendCastDebugMessage(SpellResult.COOLDOWN, " (no cast)");
-            return false;
-        }
-
-        CastingCost required = getRequiredCost();
-        if (required != null) {
-            // TODO: API?
-            boolean handled = false;
-            if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
-                com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
-                handled = implMage.handleInsufficientResources(this, required);
-            }
-            if (!handled) {
-                String baseMessage = getMessage("insufficient_resources");
-                String costDescription = required.getDescription(controller.getMessages(), mage);
-                sendMessageKey("insufficient_resources", baseMessage.replace("$cost", costDescription));
+        long profile = Profiler.start(spellKey.getKey());
+        try {
+            Boolean prepared = prepareCast(wand, extraParameters, defaultLocation);
+            if (prepared != null) {
+                return prepared;
+            }
+
+            // PVP override settings
+            bypassPvpRestriction = workingParameters.getBoolean("bypass_pvp", false);
+            bypassPvpRestriction = workingParameters.getBoolean("bp", bypassPvpRestriction);
+            bypassPermissions = workingParameters.getBoolean("bypass_permissions", bypassPermissions);
+            bypassFriendlyFire = workingParameters.getBoolean("bypass_friendly_fire", false);
+            onlyFriendlyFire = workingParameters.getBoolean("only_friendly", false);
+
+            // Check cooldowns
+            cooldown = workingParameters.getInt("cooldown", cooldown);
+            cooldown = workingParameters.getInt("cool", cooldown);
+            mageCooldown = workingParameters.getInt("cooldown_mage", mageCooldown);
+            maxCharges = workingParameters.getInt("charges", maxCharges);
+            rechargeRate = parameters.getDouble("charge_regeneration", rechargeRate);
+
+            // Color override
+            color = ConfigurationUtils.getColor(workingParameters, "color", color);
+            particle = workingParameters.getString("particle", null);
+
+            long cooldownRemaining = getRemainingCooldown();
+            String timeDescription = "";
+            if (cooldownRemaining > 0) {
+                // TODO: API?
+                boolean handled = false;
+                if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
+                    com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
+                    handled = implMage.handleCooldown(this);
+                }
+                if (!handled) {
+                    timeDescription = controller.getMessages().getTimeDescription(cooldownRemaining, "wait", "cooldown");
+                    sendMessageKey("cooldown", getMessage("cooldown").replace("$time", timeDescription));
+                }
+                processResult(SpellResult.COOLDOWN, workingParameters);
+                sendCastDebugMessage(SpellResult.COOLDOWN, " (no cast)");
+                return false;
             }
-            processResult(SpellResult.INSUFFICIENT_RESOURCES, workingParameters);
-            sendCastDebugMessage(SpellResult.INSUFFICIENT_RESOURCES, " (no cast)");
-            return false;
-        }
 
-        if (!isCooldownFree() && !spellData.useCharge(rechargeRate, maxCharges)) {
-            // TODO: API?
-            boolean handled = false;
-            if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
-                com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
-                handled = implMage.handleInsufficientCharges(this);
-            }
-            if (!handled) {
-                long timeRemaining = spellData.getTimeToRecharge(rechargeRate, maxCharges);
-                timeDescription = controller.getMessages().getTimeDescription(timeRemaining, "wait", "charge");
-                sendMessageKey("charge", getMessage("charge").replace("$time", timeDescription));
+            CastingCost required = getRequiredCost();
+            if (required != null) {
+                // TODO: API?
+                boolean handled = false;
+                if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
+                    com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
+                    handled = implMage.handleInsufficientResources(this, required);
+                }
+                if (!handled) {
+                    String baseMessage = getMessage("insufficient_resources");
+                    String costDescription = required.getDescription(controller.getMessages(), mage);
+                    sendMessageKey("insufficient_resources", baseMessage.replace("$cost", costDescription));
+                }
+                processResult(SpellResult.INSUFFICIENT_RESOURCES, workingParameters);
+                sendCastDebugMessage(SpellResult.INSUFFICIENT_RESOURCES, " (no cast)");
+                return false;
             }
-            processResult(SpellResult.INSUFFICIENT_CHARGES, workingParameters);
-            sendCastDebugMessage(SpellResult.INSUFFICIENT_CHARGES, " (no cast)");
-            return false;
-        }
 
-        if (requiredHealth > 0) {
-            LivingEntity li = mage.getLivingEntity();
-            if (li != null) {
-                double healthPercentage = 100 * li.getHealth() / CompatibilityLib.getCompatibilityUtils().getMaxHealth(li);
-                if (healthPercentage < requiredHealth) {
-                    processResult(SpellResult.INSUFFICIENT_RESOURCES, workingParameters);
-                    sendCastDebugMessage(SpellResult.INSUFFICIENT_RESOURCES, " (no cast)");
-                    return false;
+            if (!isCooldownFree() && !spellData.useCharge(rechargeRate, maxCharges)) {
+                // TODO: API?
+                boolean handled = false;
+                if (mage instanceof com.elmakers.mine.bukkit.magic.Mage) {
+                    com.elmakers.mine.bukkit.magic.Mage implMage = (com.elmakers.mine.bukkit.magic.Mage)mage;
+                    handled = implMage.handleInsufficientCharges(this);
+                }
+                if (!handled) {
+                    long timeRemaining = spellData.getTimeToRecharge(rechargeRate, maxCharges);
+                    timeDescription = controller.getMessages().getTimeDescription(timeRemaining, "wait", "charge");
+                    sendMessageKey("charge", getMessage("charge").replace("$time", timeDescription));
                 }
+                processResult(SpellResult.INSUFFICIENT_CHARGES, workingParameters);
+                sendCastDebugMessage(SpellResult.INSUFFICIENT_CHARGES, " (no cast)");
+                return false;
             }
-        }
 
-        if (controller.isSpellProgressionEnabled()) {
-            long progressLevel = getProgressLevel();
-            for (Entry<String, EquationTransform> entry : progressLevelEquations.entrySet()) {
-                workingParameters.set(entry.getKey(), entry.getValue().get(progressLevel));
+            if (requiredHealth > 0) {
+                LivingEntity li = mage.getLivingEntity();
+                if (li != null) {
+                    double healthPercentage = 100 * li.getHealth() / CompatibilityLib.getCompatibilityUtils().getMaxHealth(li);
+                    if (healthPercentage < requiredHealth) {
+                        processResult(SpellResult.INSUFFICIENT_RESOURCES, workingParameters);
+                        sendCastDebugMessage(SpellResult.INSUFFICIENT_RESOURCES, " (no cast)");
+                        return false;
+                    }
+                }
             }
-        }
 
-        // Check for cancel-on-cast-other spells, after we have determined that this spell can really be cast.
-        if (!aura && !passive) {
-            for (Iterator<Batch> iterator = mage.getPendingBatches().iterator(); iterator.hasNext();) {
-                Batch batch = iterator.next();
-                if (!(batch instanceof SpellBatch)) continue;
-                SpellBatch spellBatch = (SpellBatch)batch;
-                Spell spell = spellBatch.getSpell();
-                if (spell.cancelOnCastOther()) {
-                    batch.cancel();
-                    iterator.remove();
+            if (controller.isSpellProgressionEnabled()) {
+                long progressLevel = getProgressLevel();
+                for (Entry<String, EquationTransform> entry : progressLevelEquations.entrySet()) {
+                    workingParameters.set(entry.getKey(), entry.getValue().get(progressLevel));
                 }
             }
 
-            for (Spell spell : mage.getActiveSpells()) {
-                if (spell.cancelOnCastOther()) {
-                    spell.cancel();
+            // Check for cancel-on-cast-other spells, after we have determined that this spell can really be cast.
+            if (!aura && !passive) {
+                for (Iterator<Batch> iterator = mage.getPendingBatches().iterator(); iterator.hasNext();) {
+                    Batch batch = iterator.next();
+                    if (!(batch instanceof SpellBatch)) continue;
+                    SpellBatch spellBatch = (SpellBatch)batch;
+                    Spell spell = spellBatch.getSpell();
+                    if (spell.cancelOnCastOther()) {
+                        batch.cancel();
+                        iterator.remove();
+                    }
+                }
+
+                for (Spell spell : mage.getActiveSpells()) {
+                    if (spell.cancelOnCastOther()) {
+                        spell.cancel();
+                    }
                 }
             }
-        }
 
-        return finalizeCast(workingParameters);
+            return finalizeCast(workingParameters);
+        } finally {
+            Profiler.stop(profile);
+        }
     }
 
     @Override
@@ -1693,6 +1701,18 @@ public class BaseSpell implements MageSpell, Cloneable {
         return mage.hasBreakPermission(block);
     }
 
+    /**
+     * Check whether this spell may break every block in an area, without checking each block.
+     *
+     * @return false if that can't be known, in which case each block should still be checked
+     */
+    public boolean hasBreakPermission(World world, BoundingBox area) {
+        if (denyBreakPermission) return false;
+        if (bypassBuildRestriction || bypassRegionPermission || bypassAll) return true;
+        if (!(controller instanceof MagicController)) return false;
+        return ((MagicController)controller).hasBreakPermission(mage.getPlayer(), ignoreRegionOverrides ? null : this, world, area);
+    }
+
     public boolean hasBuildPermission(Location location) {
         if (location == null) return true;
         return hasBuildPermission(location.getBlock());
@@ -1710,6 +1730,18 @@ public class BaseSpell implements MageSpell, Cloneable {
         return mage.hasBuildPermission(block);
     }
 
+    /**
+     * Check whether this spell may build everywhere in an area, without checking each block.
+     *
+     * @return false if that can't be known, in which case each block should still be checked
+     */
+    public boolean hasBuildPermission(World world, BoundingBox area) {
+        if (denyBuildPermission) return false;
+        if (bypassBuildRestriction || bypassRegionPermission || bypassAll) return true;
+        if (!(controller instanceof MagicController)) return false;
+        return ((MagicController)controller).hasBuildPermission(mage.getPlayer(), ignoreRegionOverrides ? null : this, world, area);
+    }
+
     protected void onBackfire() {
 
     }
@@ -3281,6 +3313,9 @@ public class BaseSpell implements MageSpell, Cloneable {
             spellData.addCast();
             if (template != null && template.spellData != null) {
                 template.spellData.addCast();
+                if (controller instanceof MagicController) {
+                    ((MagicController)controller).setSpellDataModified();
+                }
                 SpellCategory category = template.getCategory();
                 if (category != null) {
                     category.addCast();
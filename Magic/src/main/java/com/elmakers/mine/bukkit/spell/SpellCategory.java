@@ -38,9 +38,22 @@ public class SpellCategory implements com.elmakers.mine.bukkit.api.spell.SpellCa
 
     public void addSpellTemplate(SpellTemplate template)
     {
+        // A rebuilt template replaces the one it was rebuilt from
+        String templateKey = template.getKey();
+        for (int i = 0; i < spells.size(); i++) {
+            if (spells.get(i).getKey().equals(templateKey)) {
+                spells.set(i, template);
+                return;
+            }
+        }
         spells.add(template);
     }
 
+    public void clearSpellTemplates()
+    {
+        spells.clear();
+    }
+
     @Override
     public Collection<SpellTemplate> getSpells()
     {
@@ -1,9 +1,12 @@
 package com.elmakers.mine.bukkit.tasks;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,6 +15,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nonnull;
@@ -25,6 +32,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.Plugin;
 
 import com.elmakers.mine.bukkit.api.spell.SpellKey;
+import com.elmakers.mine.bukkit.configuration.ConfigurationCache;
 import com.elmakers.mine.bukkit.configuration.MagicConfiguration;
 import com.elmakers.mine.bukkit.magic.MagicController;
 import com.elmakers.mine.bukkit.utility.CompatibilityLib;
@@ -36,6 +44,8 @@ public class ConfigurationLoadTask implements Runnable {
     private final File configFolder;
     private final Plugin plugin;
     private final CommandSender sender;
+    private final ConfigurationCache cache;
+    private final int parseThreads;
     private boolean verboseLogging;
 
     private static final String[] CONFIG_FILES = {"messages", "materials", "attributes", "effects", "spells", "paths",
@@ -43,6 +53,10 @@ public class ConfigurationLoadTask implements Runnable {
 
     private static final ImmutableSet<String> DEFAULT_ON = ImmutableSet.of("messages", "materials");
 
+    // Files made up of templates that are each fingerprinted on their own when reloading,
+    // every other file is shared by all templates
+    private static final ImmutableSet<String> TEMPLATE_FILES = ImmutableSet.of("spells", "classes", "wands", "mobs", "blocks", "modifiers");
+
     private final Map<String, ConfigurationSection> loadedConfigurations = new HashMap<>();
     private final Map<String, ConfigurationSection> mainConfigurations = new HashMap<>();
 
@@ -56,6 +70,10 @@ public class ConfigurationLoadTask implements Runnable {
 
     private final Map<String, ConfigurationSection> addDisabled = new HashMap<>();
 
+    // Files and resources being parsed in the background, see parseAll
+    private final Map<String, ForkJoinTask<YamlConfiguration>> parsing = new HashMap<>();
+    private ForkJoinPool parsePool;
+
     private static final Object loadLock = new Object();
 
     private boolean allPvpRestricted = false;
@@ -80,6 +98,8 @@ public class ConfigurationLoadTask implements Runnable {
         this.sender = sender;
         plugin = controller.getPlugin();
         configFolder = controller.getConfigFolder();
+        cache = controller.getConfigurationCache();
+        parseThreads = controller.getConfigLoadThreads();
         helpTopics = ConfigurationUtils.newConfigurationSection();
     }
 
@@ -159,13 +179,10 @@ public class ConfigurationLoadTask implements Runnable {
                 }
             }
             if (exampleConfig == null) {
-                InputStream input = plugin.getResource(examplesFileName);
-                if (input != null)  {
-                    try {
-                        exampleConfig = CompatibilityLib.getCompatibilityUtils().loadConfiguration(input, examplesFileName);
-                    } catch (Exception ex) {
-                        getLogger().log(Level.SEVERE, "Error loading: " + examplesFileName + " from builtin resources", ex);
-                    }
+                try {
+                    exampleConfig = parseResource(examplesFileName);
+                } catch (Exception ex) {
+                    getLogger().log(Level.SEVERE, "Error loading: " + examplesFileName + " from builtin resources", ex);
                 }
             }
             if (exampleConfig == null) {
@@ -216,7 +233,7 @@ public class ConfigurationLoadTask implements Runnable {
         // Start with default configs
         YamlConfiguration config;
         try {
-            config = CompatibilityLib.getCompatibilityUtils().loadBuiltinConfiguration(defaultsFileName);
+            config = parseBuiltin(defaultsFileName);
         } catch (Exception ex) {
             getLogger().severe("Error loading file: " + defaultsFileName);
             throw ex;
@@ -227,7 +244,7 @@ public class ConfigurationLoadTask implements Runnable {
         String listsFilename = "defaults/lists.defaults.yml";
         YamlConfiguration listConfig = null;
         try {
-            listConfig = CompatibilityLib.getCompatibilityUtils().loadBuiltinConfiguration(listsFilename);
+            listConfig = parseBuiltin(listsFilename);
             ConfigurationUtils.addConfigurations(config, listConfig);
         } catch (Exception ex) {
             getLogger().severe("Error loading file: " + listsFilename);
@@ -456,13 +473,188 @@ public class ConfigurationLoadTask implements Runnable {
         String path = configFile.getAbsolutePath();
         ConfigurationSection config = loadedConfigurationFiles.get(path);
         if (config == null) {
-            config = CompatibilityLib.getCompatibilityUtils().loadConfiguration(configFile);
+            config = parseFile(configFile);
             checkBuiltin(fileType, configFile, config);
             loadedConfigurationFiles.put(path, config);
         }
         return config;
     }
 
+    private static String getFileKey(File file) {
+        return "file:" + file.getAbsolutePath();
+    }
+
+    private static String getResourceKey(String fileName) {
+        return "resource:" + fileName;
+    }
+
+    /**
+     * Parse a configuration file, or wait for it if it is already being parsed in the background.
+     */
+    private ConfigurationSection parseFile(File file) throws IOException, InvalidConfigurationException {
+        ForkJoinTask<YamlConfiguration> task = parsing.remove(getFileKey(file));
+        if (task != null) {
+            return join(task);
+        }
+        return readFile(file);
+    }
+
+    private YamlConfiguration readFile(File file) throws IOException, InvalidConfigurationException {
+        try {
+            return cache.load(file);
+        } catch (FileNotFoundException | NoSuchFileException ignore) {
+            return new YamlConfiguration();
+        }
+    }
+
+    /**
+     * Parse a builtin configuration resource, or wait for it if it is already being parsed in the background.
+     *
+     * @return The parsed configuration, or null if there is no such resource
+     */
+    @Nullable
+    private YamlConfiguration parseResource(String fileName) throws IOException, InvalidConfigurationException {
+        ForkJoinTask<YamlConfiguration> task = parsing.remove(getResourceKey(fileName));
+        if (task != null) {
+            return join(task);
+        }
+        return readResource(fileName);
+    }
+
+    @Nullable
+    private YamlConfiguration readResource(String fileName) throws IOException, InvalidConfigurationException {
+        InputStream input = plugin.getResource(fileName);
+        if (input == null) {
+            return null;
+        }
+        return cache.load(fileName, input);
+    }
+
+    @Nonnull
+    private YamlConfiguration parseBuiltin(String fileName) throws IOException, InvalidConfigurationException {
+        YamlConfiguration configuration = parseResource(fileName);
+        if (configuration == null) {
+            getLogger().severe("Could not find builtin configuration file '" + fileName + "'");
+            configuration = new YamlConfiguration();
+        }
+        return configuration;
+    }
+
+    private static YamlConfiguration join(ForkJoinTask<YamlConfiguration> task) throws IOException, InvalidConfigurationException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing configuration", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof InvalidConfigurationException) {
+                throw (InvalidConfigurationException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Start parsing every file the other configurations could need, spread out over a pool of threads.
+     *
+     * <p>This needs to happen after the main configuration is loaded, since that is what decides which
+     * examples are used. Merging and inheritance are still done one file at a time, in order, and
+     * wait on the files they need as they go.
+     */
+    private void parseAll() {
+        if (parseThreads <= 1) {
+            return;
+        }
+        parsePool = new ForkJoinPool(parseThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Magic Config Load " + (thread.getPoolIndex() + 1));
+            return thread;
+        }, null, false);
+
+        // This includes all inherited and required examples
+        Set<String> examples = new LinkedHashSet<>(mainConfigurations.keySet());
+        examples.remove("");
+        String versionExample = getVersionExample();
+        List<String> fileNames = new ArrayList<>(Arrays.asList(CONFIG_FILES));
+        fileNames.add("automata");
+        for (String fileName : fileNames) {
+            if (!fileName.equals("automata")) {
+                parseResourceLater("defaults/" + fileName + ".defaults.yml");
+                File overrides = new File(configFolder, fileName + ".yml");
+                if (overrides.exists()) {
+                    parseFileLater(overrides);
+                }
+                parseFolderLater(new File(configFolder, fileName));
+                parseResourceLater("examples/versions/" + versionExample + "/" + fileName + ".yml");
+            }
+            for (String example : examples) {
+                parseExampleLater("examples/" + example + "/" + fileName);
+            }
+        }
+        if (languageOverride != null && !languageOverride.isEmpty() && !languageOverride.equalsIgnoreCase("EN")) {
+            parseExampleLater("examples/localizations/messages." + languageOverride);
+        }
+    }
+
+    private void parseExampleLater(String examplesPrefix) {
+        // This follows the same rules as loadExampleConfiguration
+        File externalFile = new File(plugin.getDataFolder(), examplesPrefix + ".yml");
+        File externalFolder = new File(plugin.getDataFolder(), examplesPrefix);
+        boolean hasExternalFile = externalFile.exists();
+        boolean hasExternalFolder = externalFolder.exists();
+        if (hasExternalFile) {
+            parseFileLater(externalFile);
+        }
+        if (hasExternalFolder) {
+            parseFolderLater(externalFolder);
+        }
+        if (!hasExternalFile && !hasExternalFolder) {
+            parseResourceLater(examplesPrefix + ".yml");
+        }
+    }
+
+    private void parseFolderLater(File folder) {
+        File[] files = folder.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().startsWith(".")) continue;
+            if (file.isDirectory()) {
+                parseFolderLater(file);
+            } else if (file.getName().endsWith(".yml")) {
+                parseFileLater(file);
+            }
+        }
+    }
+
+    private void parseFileLater(File file) {
+        String key = getFileKey(file);
+        if (!parsing.containsKey(key)) {
+            parsing.put(key, parsePool.submit(() -> readFile(file)));
+        }
+    }
+
+    private void parseResourceLater(String fileName) {
+        String key = getResourceKey(fileName);
+        if (!parsing.containsKey(key)) {
+            parsing.put(key, parsePool.submit(() -> readResource(fileName)));
+        }
+    }
+
+    private void stopParsing() {
+        if (parsePool != null) {
+            parsePool.shutdownNow();
+            parsePool = null;
+        }
+        parsing.clear();
+    }
+
     private ConfigurationSection loadOverrides(String fileName) throws IOException, InvalidConfigurationException {
         String configFileName = fileName + ".yml";
         File configFile = new File(configFolder, configFileName);
@@ -506,7 +698,7 @@ public class ConfigurationLoadTask implements Runnable {
 
         YamlConfiguration defaultConfig = null;
         try {
-            defaultConfig = CompatibilityLib.getCompatibilityUtils().loadBuiltinConfiguration(defaultsFileName);
+            defaultConfig = parseBuiltin(defaultsFileName);
         } catch (Exception ex) {
             getLogger().severe("Error loading file: " + defaultsFileName);
             throw ex;
@@ -699,16 +891,19 @@ public class ConfigurationLoadTask implements Runnable {
         return config;
     }
 
-    private void addVersionConfigs(ConfigurationSection config, String fileName) throws InvalidConfigurationException, IOException {
+    private String getVersionExample() {
         int[] serverVersion = CompatibilityLib.getServerVersion(plugin);
         int majorVersion = serverVersion[0];
         int minorVersion = serverVersion[1];
-        String versionExample = majorVersion + "." + minorVersion;
+        return majorVersion + "." + minorVersion;
+    }
+
+    private void addVersionConfigs(ConfigurationSection config, String fileName) throws InvalidConfigurationException, IOException {
+        String versionExample = getVersionExample();
         String versionFileName = "examples/versions/" + versionExample + "/" + fileName + ".yml";
-        InputStream versionInput = plugin.getResource(versionFileName);
-        if (versionInput != null)  {
+        ConfigurationSection versionConfig = parseResource(versionFileName);
+        if (versionConfig != null)  {
             try {
-                ConfigurationSection versionConfig = CompatibilityLib.getCompatibilityUtils().loadConfiguration(versionInput, versionFileName);
                 // Version patches will never add to configs, the top-level nodes they are modifying must exist.
                 // This allows them to tweak things from example configs but get safely ignored if not loading
                 // those examples.
@@ -723,7 +918,7 @@ public class ConfigurationLoadTask implements Runnable {
                 throw ex;
             }
         } else {
-            ConfigurationSection versionConfig = ConfigurationUtils.newConfigurationSection();
+            versionConfig = ConfigurationUtils.newConfigurationSection();
             processInheritance(versionExample, versionConfig, fileName, getMainConfiguration(versionExample));
             if (!versionConfig.getKeys(false).isEmpty()) {
                 ConfigurationUtils.addConfigurations(config, versionConfig, true, true);
@@ -820,7 +1015,7 @@ public class ConfigurationLoadTask implements Runnable {
             }
             for (File file : priorityFiles) {
                 try {
-                    ConfigurationSection fileOverrides = CompatibilityLib.getCompatibilityUtils().loadConfiguration(file);
+                    ConfigurationSection fileOverrides = parseFile(file);
                     info(" Loading " + file.getName());
                     config = ConfigurationUtils.addConfigurations(config, fileOverrides, true, false, true);
                 } catch (Exception ex) {
@@ -972,10 +1167,7 @@ public class ConfigurationLoadTask implements Runnable {
         return spellNode;
     }
 
-    private void run(boolean synchronous) {
-        success = true;
-        Logger logger = controller.getLogger();
-
+    private void loadConfigurations(Logger logger) {
         // Load main configuration
         try {
             mainConfiguration = new MagicConfiguration(controller, loadMainConfiguration(), "config");
@@ -986,6 +1178,9 @@ public class ConfigurationLoadTask implements Runnable {
         }
         mainConfigurations.put("", mainConfiguration);
 
+        // Parse everything else in the background while merging
+        parseAll();
+
         // Load other configurations
         loadedConfigurations.clear();
         for (String configurationFile : CONFIG_FILES) {
@@ -1011,6 +1206,20 @@ public class ConfigurationLoadTask implements Runnable {
                 success = false;
             }
         }
+    }
+
+    private void run(boolean synchronous) {
+        success = true;
+        Logger logger = controller.getLogger();
+        cache.resetStatistics();
+        try {
+            loadConfigurations(logger);
+        } finally {
+            stopParsing();
+        }
+        if (cache.isEnabled()) {
+            info("Parsed " + cache.getMisses() + " configuration files, " + cache.getHits() + " were unchanged and loaded from cache");
+        }
 
         // Finalize configuration load
         if (synchronous) {
@@ -1054,6 +1263,21 @@ public class ConfigurationLoadTask implements Runnable {
         return mainConfig;
     }
 
+    /**
+     * Get the configurations any template may read from when it is built:
+     * config.yml and every config file that is not made up of templates.
+     */
+    public List<ConfigurationSection> getSharedConfigurations() {
+        List<ConfigurationSection> shared = new ArrayList<>();
+        shared.add(mainConfiguration);
+        for (String fileName : CONFIG_FILES) {
+            if (!TEMPLATE_FILES.contains(fileName)) {
+                shared.add(loadedConfigurations.get(fileName));
+            }
+        }
+        return shared;
+    }
+
     public ConfigurationSection getMessages() {
         return loadedConfigurations.get("messages");
     }
@@ -0,0 +1,12 @@
+package com.elmakers.mine.bukkit.tasks;
+
+import com.elmakers.mine.bukkit.block.ChunkSnapshotCache;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
+
+public class EntityIndexTask implements Runnable {
+    @Override
+    public void run() {
+        EntityIndex.tick();
+        ChunkSnapshotCache.tick();
+    }
+}
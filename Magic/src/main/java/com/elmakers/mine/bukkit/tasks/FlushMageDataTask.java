@@ -0,0 +1,16 @@
+package com.elmakers.mine.bukkit.tasks;
+
+import com.elmakers.mine.bukkit.data.SQLMageDataStore;
+
+public class FlushMageDataTask implements Runnable {
+    private final SQLMageDataStore dataStore;
+
+    public FlushMageDataTask(SQLMageDataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void run() {
+        dataStore.flush();
+    }
+}
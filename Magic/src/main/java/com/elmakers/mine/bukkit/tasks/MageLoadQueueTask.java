@@ -0,0 +1,16 @@
+package com.elmakers.mine.bukkit.tasks;
+
+import com.elmakers.mine.bukkit.magic.MagicController;
+
+public class MageLoadQueueTask implements Runnable {
+    private final MagicController controller;
+
+    public MageLoadQueueTask(MagicController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public void run() {
+        controller.processMageLoads();
+    }
+}
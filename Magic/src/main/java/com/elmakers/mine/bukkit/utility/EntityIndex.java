@@ -0,0 +1,250 @@
+package com.elmakers.mine.bukkit.utility;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.ComplexEntityPart;
+import org.bukkit.entity.ComplexLivingEntity;
+import org.bukkit.entity.Entity;
+import org.bukkit.util.Vector;
+
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+
+/**
+ * A per-tick cache of entities and their hitboxes, bucketed by chunk.
+ *
+ * <p>Many spells, automata and mobs look for nearby entities every tick, often in the same
+ * chunks. The first query to touch a chunk in a given tick will read its entities and their
+ * bounding boxes, and any other query that tick will reuse them.
+ *
+ * <p>Queries match against the vanilla bounding box, the same as World.getNearbyEntities.
+ * The (scaled) targeting hitbox is worked out when first asked for, and then also cached.
+ *
+ * <p>Entities spawned partway through a tick won't show up until the next tick.
+ *
+ * <p>The cache is invalidated by tick(), which Magic calls once per server tick. If that
+ * is not running, or the index is disabled, queries go straight to the server.
+ */
+public class EntityIndex {
+    // How far an entity's hitbox may extend outside of the chunk it is in
+    static final double MAX_ENTITY_EXTENT = 4;
+
+    private static boolean enabled = true;
+    private static boolean ticking = false;
+    private static long currentTick = 0;
+    private static final Map<UUID, WorldEntities> worlds = new HashMap<>();
+
+    // Stats, for /magic list
+    private static long chunkQueries = 0;
+    private static long chunkLoads = 0;
+
+    public static class IndexedEntity {
+        private final Entity entity;
+        private final BoundingBox bounds;
+        private BoundingBox hitbox;
+
+        IndexedEntity(Entity entity, BoundingBox bounds) {
+            this.entity = entity;
+            this.bounds = bounds;
+        }
+
+        @Nonnull
+        public Entity getEntity() {
+            return entity;
+        }
+
+        /**
+         * The entity's vanilla bounding box, as used to match queries.
+         * This will be null if the index is disabled.
+         */
+        @Nullable
+        public BoundingBox getBounds() {
+            return bounds;
+        }
+
+        /**
+         * The entity's targeting hitbox, see HitboxUtils.
+         * This is shared for the rest of the tick, so copy it before modifying.
+         */
+        @Nonnull
+        public BoundingBox getHitbox() {
+            if (hitbox == null) {
+                hitbox = HitboxUtils.getHitbox(entity);
+            }
+            return hitbox;
+        }
+    }
+
+    private static class WorldEntities {
+        private final LongObjectHashMap<List<IndexedEntity>> chunks = new LongObjectHashMap<>();
+        private long tick = -1;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enabled) {
+            worlds.clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled && ticking;
+    }
+
+    /**
+     * Mark the start of a new tick, any cached entities will be refreshed when next queried.
+     */
+    public static void tick() {
+        ticking = true;
+        currentTick++;
+    }
+
+    public static void clear() {
+        worlds.clear();
+        ticking = false;
+    }
+
+    /**
+     * Increases by one each tick, cached entities are only valid for the tick they were read in.
+     */
+    public static long getCurrentTick() {
+        return currentTick;
+    }
+
+    public static long getChunkQueries() {
+        return chunkQueries;
+    }
+
+    public static long getChunkLoads() {
+        return chunkLoads;
+    }
+
+    /**
+     * A replacement for World.getNearbyEntities, which may use cached entities.
+     */
+    @Nullable
+    public static Collection<Entity> getNearbyEntities(Location location, double x, double y, double z) {
+        if (location == null) return null;
+        if (!isEnabled()) {
+            return CompatibilityLib.getCompatibilityUtils().getNearbyEntities(location, x, y, z);
+        }
+        double maxRange = CompatibilityLib.getCompatibilityUtils().getMaxEntityRange();
+        x = Math.min(x, maxRange);
+        z = Math.min(z, maxRange);
+        BoundingBox bounds = new BoundingBox(location.getX() - x, location.getX() + x,
+                location.getY() - y, location.getY() + y,
+                location.getZ() - z, location.getZ() + z);
+        List<IndexedEntity> indexed = getEntities(location.getWorld(), bounds);
+        List<Entity> entities = new ArrayList<>(indexed.size());
+        for (IndexedEntity entity : indexed) {
+            entities.add(entity.getEntity());
+        }
+        return entities;
+    }
+
+    /**
+     * Find all entities with bounding boxes that intersect the given bounds.
+     */
+    @Nonnull
+    public static List<IndexedEntity> getEntities(World world, BoundingBox bounds) {
+        List<IndexedEntity> results = new ArrayList<>();
+        if (world == null) return results;
+        if (!isEnabled()) {
+            // This is not really expected to be used, but we can still honor the request
+            Vector center = bounds.center();
+            Vector size = bounds.size();
+            Location location = new Location(world, center.getX(), center.getY(), center.getZ());
+            Collection<Entity> entities = CompatibilityLib.getCompatibilityUtils().getNearbyEntities(location, size.getX() / 2, size.getY() / 2, size.getZ() / 2);
+            for (Entity entity : entities) {
+                results.add(new IndexedEntity(entity, null));
+            }
+            return results;
+        }
+
+        WorldEntities worldEntities = getWorldEntities(world);
+        int minChunkX = (int)Math.floor(bounds.getMinX() - MAX_ENTITY_EXTENT) >> 4;
+        int maxChunkX = (int)Math.floor(bounds.getMaxX() + MAX_ENTITY_EXTENT) >> 4;
+        int minChunkZ = (int)Math.floor(bounds.getMinZ() - MAX_ENTITY_EXTENT) >> 4;
+        int maxChunkZ = (int)Math.floor(bounds.getMaxZ() + MAX_ENTITY_EXTENT) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                List<IndexedEntity> chunkEntities = getChunkEntities(world, worldEntities, chunkX, chunkZ);
+                for (IndexedEntity entity : chunkEntities) {
+                    if (entity.bounds.intersects(bounds) && entity.entity.isValid()) {
+                        results.add(entity);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static WorldEntities getWorldEntities(World world) {
+        WorldEntities worldEntities = worlds.get(world.getUID());
+        if (worldEntities == null) {
+            worldEntities = new WorldEntities();
+            worlds.put(world.getUID(), worldEntities);
+        }
+        if (worldEntities.tick != currentTick) {
+            worldEntities.chunks.clear();
+            worldEntities.tick = currentTick;
+        }
+        return worldEntities;
+    }
+
+    /**
+     * Get all of the entities in a chunk, for callers that want to do their own matching.
+     * This list is shared for the rest of the tick, and should not be modified.
+     *
+     * <p>This should only be used while the index is enabled.
+     */
+    @Nonnull
+    public static List<IndexedEntity> getChunkEntities(World world, int chunkX, int chunkZ) {
+        return getChunkEntities(world, getWorldEntities(world), chunkX, chunkZ);
+    }
+
+    private static List<IndexedEntity> getChunkEntities(World world, WorldEntities worldEntities, int chunkX, int chunkZ) {
+        chunkQueries++;
+        long chunkKey = ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        List<IndexedEntity> chunkEntities = worldEntities.chunks.get(chunkKey);
+        if (chunkEntities != null) {
+            return chunkEntities;
+        }
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            chunkEntities = new ArrayList<>(0);
+        } else {
+            chunkLoads++;
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+            Entity[] entities = chunk.getEntities();
+            chunkEntities = new ArrayList<>(entities.length);
+            for (Entity entity : entities) {
+                addEntity(chunkEntities, entity);
+                if (entity instanceof ComplexLivingEntity) {
+                    for (ComplexEntityPart part : ((ComplexLivingEntity)entity).getParts()) {
+                        addEntity(chunkEntities, part);
+                    }
+                }
+            }
+        }
+        worldEntities.chunks.put(chunkKey, chunkEntities);
+        return chunkEntities;
+    }
+
+    private static void addEntity(List<IndexedEntity> chunkEntities, Entity entity) {
+        BoundingBox bounds = CompatibilityLib.getCompatibilityUtils().getHitbox(entity);
+        if (bounds == null) {
+            Vector location = entity.getLocation().toVector();
+            bounds = new BoundingBox(location, location);
+        }
+        chunkEntities.add(new IndexedEntity(entity, bounds));
+    }
+}
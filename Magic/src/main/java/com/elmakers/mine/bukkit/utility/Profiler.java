@@ -0,0 +1,325 @@
+package com.elmakers.mine.bukkit.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * A lightweight instrumenting profiler for spells, actions and batches.
+ *
+ * <p>Timed sections are recorded into a call tree, so the same action will be tracked
+ * separately for each spell that uses it. Counters are LongAdders, which are cheap to update
+ * from many threads, and the tree is only walked when dumping the results.
+ *
+ * <p>When the profiler is not running, start() is a single field check and returns 0,
+ * which stop() ignores. Use it like:
+ *
+ * <pre>
+ * long profile = Profiler.start(key);
+ * try {
+ *     ...
+ * } finally {
+ *     Profiler.stop(profile);
+ * }
+ * </pre>
+ *
+ * <p>Keys may be a String (a spell key or handler name) or a Class (an action or batch type).
+ */
+public class Profiler {
+    private static volatile boolean enabled = false;
+    private static volatile boolean trackAllocations = false;
+    private static volatile Node root = new Node(null, "root");
+    private static long startTime = 0;
+    private static long stopTime = 0;
+
+    private static final ThreadLocal<CallStack> stacks = ThreadLocal.withInitial(CallStack::new);
+    private static final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    public static class Node {
+        private final Node parent;
+        private final Object key;
+        private final Map<Object, Node> children = new ConcurrentHashMap<>();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder selfNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private Node(Node parent, Object key) {
+            this.parent = parent;
+            this.key = key;
+        }
+
+        private Node getChild(Object key) {
+            Node child = children.get(key);
+            if (child == null) {
+                child = children.computeIfAbsent(key, k -> new Node(this, k));
+            }
+            return child;
+        }
+
+        @Nonnull
+        public String getName() {
+            return key instanceof Class ? ((Class<?>)key).getSimpleName() : key.toString();
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getSelfNanos() {
+            return selfNanos.sum();
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes.sum();
+        }
+
+        private String getPath() {
+            if (parent == null || parent.parent == null) {
+                return getName();
+            }
+            return parent.getPath() + ";" + getName();
+        }
+    }
+
+    /**
+     * Totals for one key across every place it shows up in the call tree.
+     */
+    public static class Summary {
+        private final String name;
+        private long calls;
+        private long totalNanos;
+        private long selfNanos;
+        private long allocatedBytes;
+
+        private Summary(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    private static class CallStack {
+        private Node[] nodes = new Node[16];
+        private long[] starts = new long[16];
+        private long[] childNanos = new long[16];
+        private long[] allocations = new long[16];
+        private int depth = 0;
+        private Node root;
+
+        private long push(Object key, boolean allocations) {
+            if (root != Profiler.root) {
+                // Profiler was restarted
+                root = Profiler.root;
+                depth = 0;
+            }
+            if (depth == nodes.length) {
+                int size = depth * 2;
+                nodes = Arrays.copyOf(nodes, size);
+                starts = Arrays.copyOf(starts, size);
+                childNanos = Arrays.copyOf(childNanos, size);
+                this.allocations = Arrays.copyOf(this.allocations, size);
+            }
+            Node parent = depth == 0 ? root : nodes[depth - 1];
+            nodes[depth] = parent.getChild(key);
+            childNanos[depth] = 0;
+            this.allocations[depth] = allocations ? getAllocatedBytes() : -1;
+            long now = System.nanoTime();
+            starts[depth] = now;
+            depth++;
+            return now == 0 ? 1 : now;
+        }
+
+        private void pop(long now) {
+            if (depth == 0 || root != Profiler.root) return;
+            depth--;
+            long elapsed = now - starts[depth];
+            Node node = nodes[depth];
+            nodes[depth] = null;
+            node.calls.increment();
+            node.totalNanos.add(elapsed);
+            node.selfNanos.add(elapsed - childNanos[depth]);
+            if (allocations[depth] >= 0) {
+                long allocated = getAllocatedBytes() - allocations[depth];
+                if (allocated > 0) {
+                    node.allocatedBytes.add(allocated);
+                }
+            }
+            if (depth > 0) {
+                childNanos[depth - 1] += elapsed;
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isTrackingAllocations() {
+        return trackAllocations;
+    }
+
+    /**
+     * Clear any previous results and start profiling.
+     *
+     * @param allocations Also estimate bytes allocated per section. This is more expensive,
+     *                    and not supported on all JVMs.
+     * @return false if allocation tracking was requested but is not available
+     */
+    public static boolean enable(boolean allocations) {
+        boolean allocationsSupported = !allocations || isAllocationTrackingSupported();
+        root = new Node(null, "root");
+        trackAllocations = allocations && allocationsSupported;
+        startTime = System.currentTimeMillis();
+        stopTime = 0;
+        enabled = true;
+        return allocationsSupported;
+    }
+
+    public static void disable() {
+        if (enabled) {
+            stopTime = System.currentTimeMillis();
+        }
+        enabled = false;
+    }
+
+    /**
+     * How long the profiler has been (or was) running, in milliseconds.
+     */
+    public static long getDuration() {
+        if (startTime == 0) return 0;
+        return (stopTime == 0 ? System.currentTimeMillis() : stopTime) - startTime;
+    }
+
+    public static long start(Object key) {
+        if (!enabled) return 0;
+        return stacks.get().push(key, trackAllocations);
+    }
+
+    public static void stop(long start) {
+        if (start == 0) return;
+        stacks.get().pop(System.nanoTime());
+    }
+
+    @Nonnull
+    public static Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Get totals per key, sorted by self time, highest first.
+     */
+    @Nonnull
+    public static List<Summary> getSummaries() {
+        Map<String, Summary> summaries = new HashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+        for (Node node : nodes) {
+            String name = node.getName();
+            Summary summary = summaries.computeIfAbsent(name, Summary::new);
+            summary.calls += node.getCalls();
+            summary.selfNanos += node.getSelfNanos();
+            summary.allocatedBytes += node.getAllocatedBytes();
+            // Don't count recursive calls twice
+            if (!hasAncestor(node, name)) {
+                summary.totalNanos += node.getTotalNanos();
+            }
+        }
+        List<Summary> sorted = new ArrayList<>(summaries.values());
+        sorted.sort(Comparator.comparingLong(Summary::getSelfNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Write out the call tree in the "collapsed stack" format used by flame graph tools,
+     * one line per call path with its self time in microseconds.
+     */
+    public static int writeCollapsed(File file) throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+        int lines = 0;
+        File folder = file.getParentFile();
+        if (folder != null) {
+            folder.mkdirs();
+        }
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            for (Node node : nodes) {
+                long micros = node.getSelfNanos() / 1000;
+                if (micros <= 0) continue;
+                writer.print(node.getPath());
+                writer.print(' ');
+                writer.println(micros);
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static void collect(Node node, Collection<Node> nodes) {
+        for (Node child : node.children.values()) {
+            nodes.add(child);
+            collect(child, nodes);
+        }
+    }
+
+    private static boolean hasAncestor(Node node, String name) {
+        Node parent = node.parent;
+        while (parent != null && parent.parent != null) {
+            if (parent.getName().equals(name)) return true;
+            parent = parent.parent;
+        }
+        return false;
+    }
+
+    private static boolean isAllocationTrackingSupported() {
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return false;
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)threadBean;
+        try {
+            if (!sunBean.isThreadAllocatedMemorySupported()) return false;
+            if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return sunBean.isThreadAllocatedMemoryEnabled();
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,431 @@
+package com.elmakers.mine.bukkit.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BlockIterator;
+import org.bukkit.util.Vector;
+
+import com.elmakers.mine.bukkit.block.ChunkSnapshotCache;
+import com.elmakers.mine.bukkit.block.DefaultMaterials;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+
+/**
+ * Tracks the projectiles in flight, so their collision checks can share a single pass per world per tick.
+ *
+ * <p>After each step, a projectile registers the path it expects to cover on its next step. The first
+ * projectile to look for a target in a tick runs the pass for its world, over the paths of all of the
+ * projectiles there at once:
+ *
+ * <ul>
+ * <li>The entities of every chunk any projectile may pass through are read once from the EntityIndex,
+ * sorted along the X axis, and matched against each path.
+ * <li>Each path is swept through the blocks it crosses, read from shared chunk snapshots, to count
+ * how many of them are the same kind of air as the block it starts in.
+ * </ul>
+ *
+ * <p>Each projectile then only has to check the entities matched to it, and does not need to check
+ * the blocks the sweep found to be clear. If a projectile looks outside of the path it registered,
+ * because it was steered, reflected or slowed down by lag, it falls back to checking entities and
+ * blocks itself.
+ *
+ * <p>Blocks the sweep found to be clear are treated the same as the live block the projectile starts in,
+ * since they are the same material. Chunk snapshots are dropped whenever Magic changes a block in them,
+ * but a block placed in the path by a player or another plugin may not be seen until the snapshot
+ * expires (see chunk_snapshot_max_age).
+ *
+ * <p>Projectile state is kept in parallel arrays per world rather than on the projectiles themselves,
+ * so the pass can run over it without chasing references. How each projectile moves from one step to
+ * the next still depends on its own spell parameters, so that is left to the projectile.
+ */
+public class ProjectileEngine {
+    // Extra room around each projectile's expected path, to allow for small changes in direction
+    private static final double PATH_PADDING = 1;
+    // How much farther than expected a projectile may travel and still use the broad phase
+    private static final double REACH_SCALE = 1.5;
+
+    private static boolean enabled = true;
+    private static final Map<UUID, WorldProjectiles> worlds = new HashMap<>();
+
+    // Stats, for /magic list
+    private static long broadPhases = 0;
+    private static long sharedQueries = 0;
+    private static long fallbackQueries = 0;
+    private static long clearBlocks = 0;
+
+    /**
+     * A handle to a single projectile's registration, which should be removed when it stops flying.
+     */
+    public static class Projectile {
+        private WorldProjectiles projectiles;
+        private int slot = -1;
+
+        /**
+         * Register the path this projectile will cover on its next step.
+         *
+         * @param location Where the projectile will start its next step from
+         * @param direction The direction it will travel in
+         * @param reach How far it is expected to travel
+         * @param padding How far outside of its path it will look for entities
+         */
+        public void update(Location location, Vector direction, double reach, double padding) {
+            World world = location.getWorld();
+            if (!isEnabled() || world == null) {
+                remove();
+                return;
+            }
+            if (projectiles != null && !projectiles.worldId.equals(world.getUID())) {
+                remove();
+            }
+            if (projectiles == null) {
+                projectiles = getWorldProjectiles(world.getUID());
+                slot = projectiles.add(this);
+            }
+            reach *= REACH_SCALE;
+            padding += PATH_PADDING;
+            double x = location.getX();
+            double y = location.getY();
+            double z = location.getZ();
+            double toX = x + direction.getX() * reach;
+            double toY = y + direction.getY() * reach;
+            double toZ = z + direction.getZ() * reach;
+            projectiles.set(slot, Math.min(x, toX) - padding, Math.max(x, toX) + padding,
+                    Math.min(y, toY) - padding, Math.max(y, toY) + padding,
+                    Math.min(z, toZ) - padding, Math.max(z, toZ) + padding);
+
+            // Targeting will walk blocks along the direction of its source location, which goes through
+            // yaw and pitch, so sweep along that same direction
+            Location start = location.clone();
+            start.setDirection(direction);
+            projectiles.setPath(slot, x, y, z, start.getDirection(), reach);
+        }
+
+        public void remove() {
+            if (projectiles != null) {
+                projectiles.remove(slot);
+                projectiles = null;
+                slot = -1;
+            }
+        }
+
+        /**
+         * Find all entities with bounding boxes that intersect the given bounds, the same as
+         * EntityIndex.getEntities, using the entities matched to this projectile's path.
+         *
+         * @return The entities found, or null if the bounds are outside of the registered path
+         */
+        /**
+         * Get the number of blocks along a block walk from the given location, starting with the block
+         * it is in, that are known to be the same kind of air as that first block.
+         *
+         * @return The number of clear blocks, or 0 if the location is not the start of the registered path
+         */
+        public int getClearBlocks(Location source) {
+            World world = source.getWorld();
+            if (projectiles == null || world == null || !projectiles.worldId.equals(world.getUID())) {
+                return 0;
+            }
+            projectiles.broadPhase(world);
+            int clear = projectiles.getClearBlocks(slot, source);
+            clearBlocks += clear;
+            return clear;
+        }
+
+        @Nullable
+        public List<EntityIndex.IndexedEntity> getEntities(World world, BoundingBox bounds) {
+            if (projectiles == null || !EntityIndex.isEnabled() || !projectiles.worldId.equals(world.getUID())) {
+                return null;
+            }
+            projectiles.broadPhase(world);
+            List<EntityIndex.IndexedEntity> candidates = projectiles.candidates.get(slot);
+            if (candidates == null || !projectiles.contains(slot, bounds)) {
+                fallbackQueries++;
+                return null;
+            }
+            sharedQueries++;
+            List<EntityIndex.IndexedEntity> results = new ArrayList<>();
+            for (EntityIndex.IndexedEntity entity : candidates) {
+                if (entity.getBounds().intersects(bounds) && entity.getEntity().isValid()) {
+                    results.add(entity);
+                }
+            }
+            return results;
+        }
+    }
+
+    private static class WorldProjectiles {
+        private final UUID worldId;
+        private int count = 0;
+        private long tick = -1;
+        private Projectile[] projectiles = new Projectile[16];
+        private double[] minX = new double[16];
+        private double[] maxX = new double[16];
+        private double[] minY = new double[16];
+        private double[] maxY = new double[16];
+        private double[] minZ = new double[16];
+        private double[] maxZ = new double[16];
+        private double[] startX = new double[16];
+        private double[] startY = new double[16];
+        private double[] startZ = new double[16];
+        private double[] directionX = new double[16];
+        private double[] directionY = new double[16];
+        private double[] directionZ = new double[16];
+        private double[] reach = new double[16];
+        // Blocks found to be clear in the last sweep, 0 for projectiles that have moved since
+        private int[] clear = new int[16];
+        // Entities matched in the last broad phase, null for projectiles that have moved since
+        private final List<List<EntityIndex.IndexedEntity>> candidates = new ArrayList<>();
+
+        WorldProjectiles(UUID worldId) {
+            this.worldId = worldId;
+        }
+
+        int add(Projectile projectile) {
+            if (count == projectiles.length) {
+                int size = count * 2;
+                projectiles = Arrays.copyOf(projectiles, size);
+                minX = Arrays.copyOf(minX, size);
+                maxX = Arrays.copyOf(maxX, size);
+                minY = Arrays.copyOf(minY, size);
+                maxY = Arrays.copyOf(maxY, size);
+                minZ = Arrays.copyOf(minZ, size);
+                maxZ = Arrays.copyOf(maxZ, size);
+                startX = Arrays.copyOf(startX, size);
+                startY = Arrays.copyOf(startY, size);
+                startZ = Arrays.copyOf(startZ, size);
+                directionX = Arrays.copyOf(directionX, size);
+                directionY = Arrays.copyOf(directionY, size);
+                directionZ = Arrays.copyOf(directionZ, size);
+                reach = Arrays.copyOf(reach, size);
+                clear = Arrays.copyOf(clear, size);
+            }
+            projectiles[count] = projectile;
+            candidates.add(null);
+            return count++;
+        }
+
+        void set(int slot, double minX, double maxX, double minY, double maxY, double minZ, double maxZ) {
+            this.minX[slot] = minX;
+            this.maxX[slot] = maxX;
+            this.minY[slot] = minY;
+            this.maxY[slot] = maxY;
+            this.minZ[slot] = minZ;
+            this.maxZ[slot] = maxZ;
+            // Whatever was matched to the old path no longer applies
+            candidates.set(slot, null);
+            clear[slot] = 0;
+        }
+
+        void setPath(int slot, double x, double y, double z, Vector direction, double reach) {
+            startX[slot] = x;
+            startY[slot] = y;
+            startZ[slot] = z;
+            directionX[slot] = direction.getX();
+            directionY[slot] = direction.getY();
+            directionZ[slot] = direction.getZ();
+            this.reach[slot] = reach;
+        }
+
+        int getClearBlocks(int slot, Location source) {
+            if (clear[slot] == 0 || source.getX() != startX[slot] || source.getY() != startY[slot] || source.getZ() != startZ[slot]) {
+                return 0;
+            }
+            Vector direction = source.getDirection();
+            if (direction.getX() != directionX[slot] || direction.getY() != directionY[slot] || direction.getZ() != directionZ[slot]) {
+                return 0;
+            }
+            return clear[slot];
+        }
+
+        void remove(int slot) {
+            // Move the last projectile into the empty slot, to keep the arrays packed
+            int last = --count;
+            if (slot != last) {
+                projectiles[slot] = projectiles[last];
+                projectiles[slot].slot = slot;
+                minX[slot] = minX[last];
+                maxX[slot] = maxX[last];
+                minY[slot] = minY[last];
+                maxY[slot] = maxY[last];
+                minZ[slot] = minZ[last];
+                maxZ[slot] = maxZ[last];
+                startX[slot] = startX[last];
+                startY[slot] = startY[last];
+                startZ[slot] = startZ[last];
+                directionX[slot] = directionX[last];
+                directionY[slot] = directionY[last];
+                directionZ[slot] = directionZ[last];
+                reach[slot] = reach[last];
+                clear[slot] = clear[last];
+                candidates.set(slot, candidates.get(last));
+            }
+            projectiles[last] = null;
+            candidates.remove(last);
+        }
+
+        boolean contains(int slot, BoundingBox bounds) {
+            return minX[slot] <= bounds.getMinX() && bounds.getMaxX() <= maxX[slot]
+                    && minY[slot] <= bounds.getMinY() && bounds.getMaxY() <= maxY[slot]
+                    && minZ[slot] <= bounds.getMinZ() && bounds.getMaxZ() <= maxZ[slot];
+        }
+
+        void broadPhase(World world) {
+            long currentTick = EntityIndex.getCurrentTick();
+            if (tick == currentTick) return;
+            tick = currentTick;
+            broadPhases++;
+
+            // Read each chunk any of the projectiles may pass through once
+            LongObjectHashMap<List<EntityIndex.IndexedEntity>> chunks = new LongObjectHashMap<>();
+            List<EntityIndex.IndexedEntity> entities = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int minChunkX = (int)Math.floor(minX[i] - EntityIndex.MAX_ENTITY_EXTENT) >> 4;
+                int maxChunkX = (int)Math.floor(maxX[i] + EntityIndex.MAX_ENTITY_EXTENT) >> 4;
+                int minChunkZ = (int)Math.floor(minZ[i] - EntityIndex.MAX_ENTITY_EXTENT) >> 4;
+                int maxChunkZ = (int)Math.floor(maxZ[i] + EntityIndex.MAX_ENTITY_EXTENT) >> 4;
+                for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                    for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                        long chunkKey = ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+                        if (chunks.containsKey(chunkKey)) continue;
+                        List<EntityIndex.IndexedEntity> chunkEntities = EntityIndex.getChunkEntities(world, chunkX, chunkZ);
+                        chunks.put(chunkKey, chunkEntities);
+                        entities.addAll(chunkEntities);
+                    }
+                }
+            }
+
+            // Sort along the X axis, so each projectile only has to look at a slice of the entities
+            entities.sort(Comparator.comparingDouble(entity -> entity.getBounds().getMinX()));
+            int entityCount = entities.size();
+            double[] entityMinX = new double[entityCount];
+            double maxWidth = 0;
+            for (int i = 0; i < entityCount; i++) {
+                BoundingBox bounds = entities.get(i).getBounds();
+                entityMinX[i] = bounds.getMinX();
+                maxWidth = Math.max(maxWidth, bounds.getMaxX() - bounds.getMinX());
+            }
+
+            for (int i = 0; i < count; i++) {
+                List<EntityIndex.IndexedEntity> matched = new ArrayList<>();
+                // Nothing starting farther left than this can reach into this projectile's path
+                int start = Arrays.binarySearch(entityMinX, minX[i] - maxWidth);
+                if (start < 0) {
+                    start = -start - 1;
+                }
+                while (start > 0 && entityMinX[start - 1] >= minX[i] - maxWidth) {
+                    start--;
+                }
+                for (int j = start; j < entityCount && entityMinX[j] <= maxX[i]; j++) {
+                    BoundingBox bounds = entities.get(j).getBounds();
+                    if (bounds.getMaxX() >= minX[i]
+                            && bounds.getMinY() <= maxY[i] && bounds.getMaxY() >= minY[i]
+                            && bounds.getMinZ() <= maxZ[i] && bounds.getMaxZ() >= minZ[i]) {
+                        matched.add(entities.get(j));
+                    }
+                }
+                candidates.set(i, matched);
+            }
+
+            if (ChunkSnapshotCache.isEnabled()) {
+                sweep(world);
+            }
+        }
+
+        private void sweep(World world) {
+            ChunkSnapshotCache blocks = new ChunkSnapshotCache(world);
+            for (int i = 0; i < count; i++) {
+                blocks.prepare((int)Math.floor(minX[i]), (int)Math.floor(minZ[i]), (int)Math.floor(maxX[i]), (int)Math.floor(maxZ[i]));
+            }
+            for (int i = 0; i < count; i++) {
+                clear[i] = sweep(world, blocks, i);
+            }
+        }
+
+        // This walks the same blocks Targeting does, in the same order, so the count lines up with its walk
+        private int sweep(World world, ChunkSnapshotCache blocks, int slot) {
+            Vector start = new Vector(startX[slot], startY[slot], startZ[slot]);
+            Vector direction = new Vector(directionX[slot], directionY[slot], directionZ[slot]);
+            Material air = null;
+            int found = 0;
+            try {
+                BlockIterator iterator = new BlockIterator(world, start, direction, 0, (int)Math.ceil(reach[slot]) + 1);
+                while (iterator.hasNext()) {
+                    Block block = iterator.next();
+                    Material type = blocks.getType(block.getX(), block.getY(), block.getZ());
+                    if (type == null || (air == null && !DefaultMaterials.isAir(type)) || (air != null && type != air)) {
+                        break;
+                    }
+                    air = type;
+                    found++;
+                }
+            } catch (Exception ex) {
+                // BlockIterator will sometimes fail to find its start block, Targeting will do its own walk
+            }
+            return found;
+        }
+    }
+
+    private static WorldProjectiles getWorldProjectiles(UUID worldId) {
+        WorldProjectiles projectiles = worlds.get(worldId);
+        if (projectiles == null) {
+            projectiles = new WorldProjectiles(worldId);
+            worlds.put(worldId, projectiles);
+        }
+        return projectiles;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled && EntityIndex.isEnabled();
+    }
+
+    public static void clear() {
+        for (WorldProjectiles projectiles : worlds.values()) {
+            for (int i = 0; i < projectiles.count; i++) {
+                projectiles.projectiles[i].projectiles = null;
+                projectiles.projectiles[i].slot = -1;
+            }
+        }
+        worlds.clear();
+    }
+
+    public static int getProjectileCount() {
+        int count = 0;
+        for (WorldProjectiles projectiles : worlds.values()) {
+            count += projectiles.count;
+        }
+        return count;
+    }
+
+    public static long getBroadPhases() {
+        return broadPhases;
+    }
+
+    public static long getSharedQueries() {
+        return sharedQueries;
+    }
+
+    public static long getFallbackQueries() {
+        return fallbackQueries;
+    }
+
+    public static long getClearBlocks() {
+        return clearBlocks;
+    }
+}
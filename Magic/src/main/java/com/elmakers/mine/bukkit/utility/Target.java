@@ -39,6 +39,7 @@ public class Target implements Comparable<Target>
     private MaterialAndData locationMaterial;
     private WeakReference<Entity> entityRef;
     private WeakReference<Mage>   mageRef;
+    private BoundingBox entityHitbox;
     private boolean  reverseDistance = false;
 
     private double   distanceSquared    = 100000;
@@ -132,6 +133,18 @@ public class Target implements Comparable<Target>
         calculateScore();
     }
 
+    public Target(Location sourceLocation, Entity entity, BoundingBox hitbox, int range, double hitboxPadding)
+    {
+        this.maxDistanceSquared = range * range;
+        this.source = sourceLocation;
+        this.useHitbox = true;
+        this.hitboxPadding = hitboxPadding;
+        this.entityHitbox = hitbox;
+        this.entityRef = new WeakReference<>(entity);
+        if (entity != null) this.location = CompatibilityLib.getCompatibilityUtils().getEyeLocation(entity);
+        calculateScore();
+    }
+
     public Target(Location sourceLocation, Entity entity, int range, double angle)
     {
         this.maxDistanceSquared = range * range;
@@ -303,7 +316,12 @@ public class Target implements Comparable<Target>
             // Back up just a wee bit
             Vector startPoint = sourceLocation.clone().add(sourceDirection.multiply(-0.1));
             BoundingBox hitbox = null;
-            if (entity != null)
+            if (entityHitbox != null)
+            {
+                // This may be shared, so make a copy before expanding it
+                hitbox = new BoundingBox(entityHitbox);
+            }
+            else if (entity != null)
             {
                 hitbox = HitboxUtils.getHitbox(entity);
             }
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,6 +69,8 @@ public class Targeting {
     private double                              hitboxBlockPadding      = 0;
     private double                              rangeQueryPadding       = 1;
     private boolean                             useHitbox               = true;
+    @Nullable
+    private ProjectileEngine.Projectile         projectile              = null;
     private double                              fov                     = 0.3;
     private double                              closeRange              = 0;
     private double                              closeFOV                = 0;
@@ -217,6 +220,20 @@ public class Targeting {
         this.useHitbox = useHitbox;
     }
 
+    /**
+     * Look up entities through a projectile registered with the ProjectileEngine when possible.
+     */
+    public void setProjectile(@Nullable ProjectileEngine.Projectile projectile) {
+        this.projectile = projectile;
+    }
+
+    /**
+     * How far outside of the targeting path entities are looked for, when using hitboxes.
+     */
+    public double getQueryPadding() {
+        return hitboxPadding + rangeQueryPadding;
+    }
+
     public TargetType getTargetType()
     {
         return targetType;
@@ -419,11 +436,17 @@ public class Targeting {
             return;
         }
 
+        // The ProjectileEngine may already know how many blocks along this walk are the same air as the source block,
+        // which was just found not to be targetable
+        int clearBlocks = projectile == null || yOffset != 0 || targetSpaceRequired || targetMinOffset > 0
+                ? 0 : projectile.getClearBlocks(source);
         Block block = getNextBlock();
         result = TargetingResult.BLOCK;
         while (block != null)
         {
-            if (targetMinOffset <= 0) {
+            if (clearBlocks > 0) {
+                clearBlocks--;
+            } else if (targetMinOffset <= 0) {
                 if (targetSpaceRequired && context instanceof  CastContext) {
                     CastContext castContext = (CastContext)context;
                     if (!castContext.allowPassThrough(block)) {
@@ -462,6 +485,7 @@ public class Targeting {
         double rangeSquaredPadded = rangePadded * rangePadded;
 
         Collection<Entity> entities = null;
+        List<EntityIndex.IndexedEntity> indexed = null;
         boolean debugMessage = true;
         if (source == null && sourceEntity != null) {
             if (sourceEntity instanceof LivingEntity) {
@@ -472,22 +496,30 @@ public class Targeting {
         }
         if (source != null) {
             Vector queryRange = null;
-            Location sourceLocation = source;
             if (useHitbox) {
                 range = Math.min(range, CompatibilityLib.getCompatibilityUtils().getMaxEntityRange());
                 Vector direction = source.getDirection();
                 Location targetLocation = source.clone().add(direction.multiply(range));
                 BoundingBox bounds = new BoundingBox(source.toVector(), targetLocation.toVector());
                 bounds.expand(hitboxPadding + rangeQueryPadding);
-                Vector center = bounds.center();
-                sourceLocation = new Location(source.getWorld(), center.getX(), center.getY(), center.getZ());
                 queryRange = bounds.size();
+
+                // Use the cached hitboxes from the index rather than looking them up again for each target
+                if (projectile != null) {
+                    indexed = projectile.getEntities(source.getWorld(), bounds);
+                }
+                if (indexed == null) {
+                    indexed = EntityIndex.getEntities(source.getWorld(), bounds);
+                }
+                entities = new ArrayList<>(indexed.size());
+                for (EntityIndex.IndexedEntity indexedEntity : indexed) {
+                    entities.add(indexedEntity.getEntity());
+                }
             } else {
                 queryRange = new Vector(range * 2, range * 2, range * 2);
-                sourceLocation = source;
+                entities = EntityIndex.getNearbyEntities(source, range, range, range);
             }
 
-            entities = CompatibilityLib.getCompatibilityUtils().getNearbyEntities(sourceLocation, queryRange.getX() / 2, queryRange.getY() / 2, queryRange.getZ() / 2);
             if (mage.getDebugLevel() > 16) {
                 mage.sendDebugMessage(ChatColor.GREEN + "Targeting " + ChatColor.GOLD + entities.size() + ChatColor.GREEN + " entities from "
                         + ChatColor.GRAY + source.getBlockX()
@@ -511,8 +543,10 @@ public class Targeting {
         }
 
         if (entities == null) return targets;
+        Iterator<EntityIndex.IndexedEntity> hitboxes = indexed == null ? null : indexed.iterator();
         for (Entity entity : entities)
         {
+            BoundingBox hitbox = hitboxes == null ? null : hitboxes.next().getHitbox();
             if (ignoreEntities.contains(entity.getUniqueId())) continue;
             Location entityLocation = entity instanceof LivingEntity ? ((LivingEntity)entity).getEyeLocation() : entity.getLocation();
             if (!entityLocation.getWorld().equals(source.getWorld())) continue;
@@ -521,7 +555,9 @@ public class Targeting {
 
             Target newScore = null;
             int useRange = (int)Math.ceil(range + hitboxPadding);
-            if (useHitbox) {
+            if (hitbox != null) {
+                newScore = new Target(source, entity, hitbox, useRange, hitboxPadding);
+            } else if (useHitbox) {
                 newScore = new Target(source, entity, useRange, useHitbox, hitboxPadding);
             } else {
                 newScore = new Target(source, entity, useRange, fov, closeRange, closeFOV,
@@ -0,0 +1,128 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * A LongObjectHashMap that iterates in insertion order, like a LinkedHashMap.
+ *
+ * <p>Order is tracked with arrays of slot indices rather than entry objects.
+ * Re-putting an existing key does not change its position.
+ */
+public class LinkedLongObjectHashMap<V> extends LongObjectHashMap<V> {
+    private static final int NONE = -1;
+
+    // These are set up in allocate(), which is called from the parent constructor
+    protected int[] before;
+    protected int[] after;
+    protected int head = NONE;
+    protected int tail = NONE;
+
+    public LinkedLongObjectHashMap() {
+        super();
+    }
+
+    public LinkedLongObjectHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        before = new int[capacity];
+        after = new int[capacity];
+        head = NONE;
+        tail = NONE;
+    }
+
+    @Override
+    protected void inserted(int slot) {
+        before[slot] = tail;
+        after[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            after[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    @Override
+    protected void removed(int slot) {
+        int previous = before[slot];
+        int next = after[slot];
+        if (previous == NONE) {
+            head = next;
+        } else {
+            after[previous] = next;
+        }
+        if (next == NONE) {
+            tail = previous;
+        } else {
+            before[next] = previous;
+        }
+    }
+
+    @Override
+    protected void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldAfter = after;
+        int oldHead = head;
+        allocate(capacity);
+        for (int i = oldHead; i != NONE; i = oldAfter[i]) {
+            int slot = hash(oldKeys[i]) & mask;
+            while (states[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            states[slot] = FULL;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            occupied++;
+            inserted(slot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        head = NONE;
+        tail = NONE;
+    }
+
+    @Override
+    protected int firstSlot() {
+        return head;
+    }
+
+    @Override
+    protected int nextSlot(int slot) {
+        return after[slot];
+    }
+
+    /**
+     * Get the value that was inserted first, or null if empty.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V getFirst() {
+        return head == NONE ? null : (V)values[head];
+    }
+
+    /**
+     * Remove and return the value that was inserted first, or null if empty.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V removeFirst() {
+        if (head == NONE) return null;
+        V first = (V)values[head];
+        removeSlot(head);
+        return first;
+    }
+
+    @Override
+    public String toString() {
+        return "LinkedLongObjectHashMap" + Arrays.toString(keys());
+    }
+}
@@ -0,0 +1,139 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to primitive double values.
+ *
+ * <p>See LongObjectHashMap, this avoids boxing both the key and the value.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class LongDoubleHashMap {
+    private static final byte FREE = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+
+    private long[] keys;
+    private double[] values;
+    private byte[] states;
+    private int mask;
+    private int size;
+    private int occupied;
+    private int resizeAt;
+
+    public LongDoubleHashMap() {
+        this(LongObjectHashMap.MINIMUM_CAPACITY);
+    }
+
+    public LongDoubleHashMap(int expectedSize) {
+        allocate(LongObjectHashMap.tableSizeFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+        resizeAt = (int)(capacity * LongObjectHashMap.LOAD_FACTOR);
+        occupied = 0;
+    }
+
+    private int findSlot(long key) {
+        int slot = LongObjectHashMap.hash(key) & mask;
+        while (true) {
+            byte state = states[slot];
+            if (state == FREE) return -1;
+            if (state == FULL && keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Get the value for a key, or the given default if the key is not present.
+     */
+    public double get(long key, double defaultValue) {
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    public void put(long key, double value) {
+        int slot = LongObjectHashMap.hash(key) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            byte state = states[slot];
+            if (state == FREE) break;
+            if (state == FULL && keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            if (state == REMOVED && firstRemoved < 0) {
+                firstRemoved = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (firstRemoved >= 0) {
+            slot = firstRemoved;
+        } else {
+            occupied++;
+        }
+        states[slot] = FULL;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (occupied > resizeAt) {
+            rehash(size > resizeAt / 2 ? states.length << 1 : states.length);
+        }
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) return false;
+        states[slot] = REMOVED;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (size == 0 && occupied == 0) return;
+        Arrays.fill(states, FREE);
+        size = 0;
+        occupied = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        byte[] oldStates = states;
+        allocate(capacity);
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] == FULL) {
+                int slot = LongObjectHashMap.hash(oldKeys[i]) & mask;
+                while (states[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                states[slot] = FULL;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                occupied++;
+            }
+        }
+    }
+}
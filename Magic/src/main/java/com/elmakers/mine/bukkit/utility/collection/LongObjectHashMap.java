@@ -0,0 +1,300 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An open-addressing hash map from primitive long keys to objects.
+ *
+ * <p>This is used for block ids, which are looked up far too often to be boxing a Long
+ * and allocating an entry object each time.
+ *
+ * <p>Null values are not supported, putting a null value will remove the key.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+    protected static final byte FREE = 0;
+    protected static final byte FULL = 1;
+    protected static final byte REMOVED = 2;
+    protected static final float LOAD_FACTOR = 0.75f;
+    protected static final int MINIMUM_CAPACITY = 16;
+
+    protected long[] keys;
+    protected Object[] values;
+    protected byte[] states;
+    protected int mask;
+    protected int size;
+    // Full and removed slots, both of which lengthen probe sequences
+    protected int occupied;
+    protected int resizeAt;
+    protected int modCount;
+
+    private Collection<V> valueCollection;
+
+    public LongObjectHashMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    protected static int tableSizeFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    protected static int hash(long key) {
+        // Block ids pack coordinates into fixed bit ranges, so they need a good mix
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    protected void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+        resizeAt = (int)(capacity * LOAD_FACTOR);
+        occupied = 0;
+    }
+
+    protected int findSlot(long key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            byte state = states[slot];
+            if (state == FREE) return -1;
+            if (state == FULL && keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V)values[slot];
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @return The previous value for this key, or null if there was none
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(long key, @Nullable V value) {
+        if (value == null) {
+            return remove(key);
+        }
+        int slot = hash(key) & mask;
+        int firstRemoved = -1;
+        while (true) {
+            byte state = states[slot];
+            if (state == FREE) break;
+            if (state == FULL && keys[slot] == key) {
+                V previous = (V)values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (state == REMOVED && firstRemoved < 0) {
+                firstRemoved = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (firstRemoved >= 0) {
+            slot = firstRemoved;
+        } else {
+            occupied++;
+        }
+        states[slot] = FULL;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        inserted(slot);
+        if (occupied > resizeAt) {
+            // Only grow if we are actually full, otherwise this just clears out removed slots
+            rehash(size > resizeAt / 2 ? states.length << 1 : states.length);
+        }
+        return null;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) return null;
+        V previous = (V)values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    public void clear() {
+        if (size == 0 && occupied == 0) return;
+        Arrays.fill(states, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+        occupied = 0;
+        modCount++;
+    }
+
+    protected void removeSlot(int slot) {
+        states[slot] = REMOVED;
+        values[slot] = null;
+        size--;
+        modCount++;
+        removed(slot);
+    }
+
+    /**
+     * Called after a new key has been placed in a slot.
+     */
+    protected void inserted(int slot) {
+    }
+
+    /**
+     * Called after a key has been removed from a slot.
+     */
+    protected void removed(int slot) {
+    }
+
+    protected void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        byte[] oldStates = states;
+        allocate(capacity);
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] == FULL) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (states[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                states[slot] = FULL;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                occupied++;
+            }
+        }
+    }
+
+    /**
+     * The first slot to visit when iterating, or -1 if empty.
+     */
+    protected int firstSlot() {
+        return nextFullSlot(0);
+    }
+
+    /**
+     * The slot following the given one when iterating, or -1 if there are no more.
+     */
+    protected int nextSlot(int slot) {
+        return nextFullSlot(slot + 1);
+    }
+
+    private int nextFullSlot(int start) {
+        for (int i = start; i < states.length; i++) {
+            if (states[i] == FULL) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a snapshot of the keys in this map, in iteration order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int index = 0;
+        for (int slot = firstSlot(); slot >= 0; slot = nextSlot(slot)) {
+            result[index++] = keys[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Returns a live view of the values in this map.
+     * Values may be removed through the view or its iterator, but not added.
+     */
+    @Nonnull
+    public Collection<V> values() {
+        if (valueCollection == null) {
+            valueCollection = new ValueCollection();
+        }
+        return valueCollection;
+    }
+
+    private class ValueCollection extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            LongObjectHashMap.this.clear();
+        }
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private int next = firstSlot();
+        private int current = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next < 0) throw new NoSuchElementException();
+            checkModification();
+            current = next;
+            next = nextSlot(current);
+            return (V)values[current];
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) throw new IllegalStateException();
+            checkModification();
+            removeSlot(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkModification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
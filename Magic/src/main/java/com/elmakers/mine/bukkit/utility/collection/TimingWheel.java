@@ -0,0 +1,153 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel, for scheduling a large number of timers measured in ticks.
+ *
+ * <p>Timers due within the next 256 ticks are kept in a slot for the tick they are due on,
+ * so each tick only visits the timers that are due. Timers further out are kept in coarser
+ * wheels of 256 and 65536 ticks per slot, and moved down a level as their time gets closer.
+ *
+ * <p>Scheduling and cancelling are constant time. Cancelled timers are left in place and
+ * skipped when their slot comes up.
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    private final List<List<Timer<T>>> wheels = new ArrayList<>();
+    private long currentTick = 0;
+    private int size = 0;
+
+    public static class Timer<T> {
+        private final T value;
+        private final long deadline;
+        private boolean cancelled;
+
+        private Timer(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * The tick this timer is due on.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public TimingWheel() {
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            wheels.add(null);
+        }
+    }
+
+    /**
+     * Schedule a timer.
+     *
+     * @param delay How many ticks from now the timer is due, at least 1
+     * @return The timer, which can be used to cancel it
+     */
+    public Timer<T> schedule(T value, long delay) {
+        Timer<T> timer = new Timer<>(value, currentTick + Math.max(1, delay));
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    public void cancel(Timer<T> timer) {
+        if (!timer.cancelled) {
+            timer.cancelled = true;
+            size--;
+        }
+    }
+
+    /**
+     * Move ahead one tick.
+     *
+     * @param due Will have the values of all timers due on this tick added to it
+     */
+    public void advance(Collection<T> due) {
+        currentTick++;
+        // Move timers down from the coarser wheels when we reach their slot, farthest out first
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                List<Timer<T>> cascade = takeSlot(level, currentTick);
+                if (cascade != null) {
+                    for (Timer<T> timer : cascade) {
+                        if (!timer.cancelled) {
+                            insert(timer);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Timer<T>> timers = takeSlot(0, currentTick);
+        if (timers == null) return;
+        for (Timer<T> timer : timers) {
+            if (timer.cancelled) continue;
+            timer.cancelled = true;
+            size--;
+            due.add(timer.value);
+        }
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * The number of timers that have not yet fired or been cancelled.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < wheels.size(); i++) {
+            wheels.set(i, null);
+        }
+        size = 0;
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = level * SLOTS + getSlot(level, timer.deadline);
+        List<Timer<T>> slot = wheels.get(index);
+        if (slot == null) {
+            slot = new ArrayList<>();
+            wheels.set(index, slot);
+        }
+        slot.add(timer);
+    }
+
+    private List<Timer<T>> takeSlot(int level, long tick) {
+        int index = level * SLOTS + getSlot(level, tick);
+        List<Timer<T>> slot = wheels.get(index);
+        wheels.set(index, null);
+        return slot;
+    }
+
+    private static int getSlot(int level, long tick) {
+        return (int)((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
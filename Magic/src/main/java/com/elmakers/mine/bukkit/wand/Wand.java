@@ -281,6 +281,7 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
     public static boolean LiveHotbarCooldown = true;
     public static boolean LiveHotbarCharges = true;
     public static boolean LiveHotbarMana = true;
+    public static int HUDRefreshInterval = 1000;
     public static boolean Unbreakable = false;
     public static boolean Unstashable = true;
     public static SoundEffect inventoryOpenSound = null;
@@ -313,6 +314,12 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
     protected BossBarConfiguration bossBarConfiguration;
     protected WandDisplayMode bossBarDisplayMode = WandDisplayMode.COOLDOWN;
 
+    // Change tracking, so the XP bar, boss bar and hotbar are only updated when needed
+    private final WandHUDState hudState = new WandHUDState();
+    private final WandHUDState.Element xpBarHUD = new WandHUDState.Element();
+    private final WandHUDState.Element bossBarHUD = new WandHUDState.Element();
+    private final WandHUDState.Element hotbarStatusHUD = new WandHUDState.Element();
+
     // Action bar
     protected String lastActionBarMessage;
     protected String actionBarMessage;
@@ -352,6 +359,16 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
      */
     @Deprecated
     public Wand(MagicController controller, ItemStack itemStack) {
+        this(controller, itemStack, null);
+    }
+
+    /**
+     * @param wandConfig The wand data already read from this item with itemToConfig, or null to read it here.
+     *     This is modified.
+     * @deprecated Use {@link MagicController#getWand(ItemStack, ConfigurationSection)}.
+     */
+    @Deprecated
+    public Wand(MagicController controller, ItemStack itemStack, @Nullable ConfigurationSection wandConfig) {
         this(controller);
         checkNotNull(itemStack);
 
@@ -364,7 +381,9 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
         boolean isWand = isWand(item);
         boolean isUpgradeItem = isUpgrade(item);
         if (isWand || isUpgradeItem) {
-            ConfigurationSection wandConfig = itemToConfig(item, ConfigurationUtils.newConfigurationSection());
+            if (wandConfig == null) {
+                wandConfig = itemToConfig(item, ConfigurationUtils.newConfigurationSection());
+            }
 
             // Check for template migration
             WandTemplate wandTemplate = controller.getWandTemplate(wandConfig.getString("template"));
@@ -4805,6 +4824,8 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
 
         Player player = mage == null ? null : mage.getPlayer();
         if (player == null) return;
+        // Currencies shown on the HUD are not tracked, so this is how we find out they changed
+        hudState.invalidate();
         updateXPBar();
 
         float mana = getMana();
@@ -5325,10 +5346,20 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
         return xp + (int) (expProgress * Wand.getExpToLevel(expLevel));
     }
 
+    /**
+     * Make sure the XP bar, boss bar and hotbar status are all updated on the next tick.
+     */
+    public void invalidateHUD() {
+        hudState.invalidate();
+    }
+
     protected void updateHotbarStatus() {
         Player player = mage == null ? null : mage.getPlayer();
         if (player != null && LiveHotbar && getMode() == WandMode.INVENTORY && isInventoryOpen()) {
-            mage.updateHotbarStatus();
+            long nextChange = mage.updateHotbarStatus();
+            if (nextChange != Long.MAX_VALUE) {
+                hotbarStatusHUD.rebuildBy(System.currentTimeMillis() + nextChange);
+            }
         }
     }
 
@@ -5365,16 +5396,23 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
 
         // Update UIs, if not in offhand
         if (!isInOffhand) {
-            updateXPBar();
             long now = System.currentTimeMillis();
+            hudState.update(this, mage, player);
+            if (hudState.needsRebuild(xpBarHUD, now, xpBarDisplayMode.isTracked() && levelDisplayMode.isTracked())) {
+                updateXPBar();
+            }
             // Always tick action bar while animating
             if (isActionBarActive()
                     && (now > lastActionBar + actionBarInterval || glyphHotbar.isAnimating())) {
                 lastActionBar = now;
                 updateActionBar();
             }
-            updateHotbarStatus();
-            checkBossBar();
+            if (hudState.needsRebuild(hotbarStatusHUD, now, true)) {
+                updateHotbarStatus();
+            }
+            if (bossBar == null || hudState.needsRebuild(bossBarHUD, now, bossBarDisplayMode.isTracked())) {
+                checkBossBar();
+            }
         }
 
         if (!worn) {
@@ -5411,6 +5449,7 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
     protected void updateRequirements() {
         if (requirementProperties == null) return;
         if (updateRequirementConfiguration()) {
+            hudState.invalidate();
             loadParameters();
             updateName();
             findAndUpdateLore();
@@ -5660,6 +5699,7 @@ public class Wand extends WandProperties implements CostReducer, com.elmakers.mi
             return false;
         }
         isActive = true;
+        hudState.invalidate();
         activationTimestamp = System.currentTimeMillis();
         this.isInOffhand = offhand;
         this.heldSlot = offhand ? OFFHAND_SLOT : player.getInventory().getHeldItemSlot();
@@ -239,6 +239,13 @@ public class WandDisplayMode {
         return displayType == DisplayType.MANA;
     }
 
+    /**
+     * Check to see if this mode only shows values that WandHUDState keeps track of.
+     */
+    public boolean isTracked() {
+        return displayType != DisplayType.ATTRIBUTE;
+    }
+
     public static void addOptions(Collection<String> options) {
         for (DisplayType displayType : DisplayType.values()) {
             switch (displayType) {
@@ -0,0 +1,123 @@
+package com.elmakers.mine.bukkit.wand;
+
+import java.util.Objects;
+
+import org.bukkit.entity.Player;
+
+import com.elmakers.mine.bukkit.api.spell.Spell;
+import com.elmakers.mine.bukkit.magic.Mage;
+
+/**
+ * Tracks the values that a wand's HUD elements are built from, so each element
+ * is only rebuilt and re-sent when something it shows has changed.
+ *
+ * <p>Mana may be held by the wand, its class or the mage, and cooldowns by spells or the mage,
+ * so rather than hooking every place these can change they are compared to a snapshot once per tick.
+ *
+ * <p>Elements can also show placeholders or requirement states that are not tracked here,
+ * so each element is still rebuilt at least once per refresh interval.
+ */
+public class WandHUDState {
+    // Stats, for /magic list
+    private static long rebuilt = 0;
+    private static long skipped = 0;
+
+    private float mana;
+    private float manaMax;
+    private String spellKey;
+    private long spellCooldown;
+    private double spellCharges;
+    private long mageCooldown;
+    private boolean inventoryOpen;
+    private int hotbar;
+    private float experience;
+    private int level;
+    private long version = 0;
+
+    /**
+     * The last version of the tracked values a single HUD element was built from.
+     */
+    public static class Element {
+        private long version = -1;
+        private long deadline;
+
+        /**
+         * Make sure this element is rebuilt by a certain time, such as when a countdown it shows will change.
+         */
+        public void rebuildBy(long time) {
+            deadline = Math.min(deadline, time);
+        }
+    }
+
+    /**
+     * Compare the tracked values to those from the last tick.
+     *
+     * @return true if anything changed
+     */
+    public boolean update(Wand wand, Mage mage, Player player) {
+        float mana = mage.getMana();
+        float manaMax = mage.getEffectiveManaMax();
+        Spell spell = wand.getActiveSpell();
+        String spellKey = spell == null ? null : spell.getKey();
+        long spellCooldown = spell == null ? 0 : spell.getRemainingCooldown();
+        double spellCharges = spell == null ? 0 : spell.getChargesRemaining();
+        long mageCooldown = mage.getRemainingCooldown();
+        boolean inventoryOpen = wand.isInventoryOpen();
+        int hotbar = wand.getCurrentHotbar();
+        float experience = player.getExp();
+        int level = player.getLevel();
+
+        boolean changed = mana != this.mana || manaMax != this.manaMax
+                || !Objects.equals(spellKey, this.spellKey)
+                || spellCooldown != this.spellCooldown || spellCharges != this.spellCharges
+                || mageCooldown != this.mageCooldown
+                || inventoryOpen != this.inventoryOpen || hotbar != this.hotbar
+                || experience != this.experience || level != this.level;
+        if (changed) {
+            this.mana = mana;
+            this.manaMax = manaMax;
+            this.spellKey = spellKey;
+            this.spellCooldown = spellCooldown;
+            this.spellCharges = spellCharges;
+            this.mageCooldown = mageCooldown;
+            this.inventoryOpen = inventoryOpen;
+            this.hotbar = hotbar;
+            this.experience = experience;
+            this.level = level;
+            version++;
+        }
+        return changed;
+    }
+
+    /**
+     * Force all elements to be rebuilt next tick, for changes that are not tracked here.
+     */
+    public void invalidate() {
+        version++;
+    }
+
+    /**
+     * Check to see if an element needs to be rebuilt, and if so mark it as up to date.
+     *
+     * @param tracked false if this element shows values that are not tracked, and
+     *                so needs to be rebuilt every time
+     */
+    public boolean needsRebuild(Element element, long now, boolean tracked) {
+        if (tracked && element.version == version && now < element.deadline) {
+            skipped++;
+            return false;
+        }
+        element.version = version;
+        element.deadline = now + Wand.HUDRefreshInterval;
+        rebuilt++;
+        return true;
+    }
+
+    public static long getRebuilt() {
+        return rebuilt;
+    }
+
+    public static long getSkipped() {
+        return skipped;
+    }
+}
@@ -23,6 +23,7 @@ public class WarpController {
     private CommandBookWarps commandBook;
     private EssentialsWarps essentials;
     private final Map<String, MagicWarp> warps = new HashMap<>();
+    private volatile boolean modified = true;
 
     public WarpController(MagicController controller) {
         this.controller = controller;
@@ -44,6 +45,14 @@ public class WarpController {
         }
     }
 
+    public boolean isModified() {
+        return modified;
+    }
+
+    public void setModified(boolean modified) {
+        this.modified = modified;
+    }
+
     public Collection<String> getCustomWarps() {
         return warps.keySet();
     }
@@ -53,6 +62,7 @@ public class WarpController {
     }
 
     public void setWarp(String warpName, Location location) {
+        modified = true;
         MagicWarp warp = warps.get(warpName);
         if (warp == null) {
             warps.put(warpName, new MagicWarp(warpName, location));
@@ -63,7 +73,9 @@ public class WarpController {
     }
 
     public boolean removeWarp(String warpName) {
-        return warps.remove(warpName) != null;
+        boolean removed = warps.remove(warpName) != null;
+        modified |= removed;
+        return removed;
     }
 
     public int mapWarps(String markerIcon) {
@@ -83,6 +95,7 @@ public class WarpController {
     }
 
     public int importWarps(CommandSender sender) {
+        modified = true;
         if (commandBook != null) {
             for (Map.Entry<String, Location> warpEntry : commandBook.getWarps().entrySet()) {
                 String key = warpEntry.getKey();
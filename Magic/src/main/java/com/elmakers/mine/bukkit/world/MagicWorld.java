@@ -1,5 +1,6 @@
 package com.elmakers.mine.bukkit.world;
 
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Random;
 
@@ -20,6 +21,7 @@ import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.world.block.MagicBlockHandler;
 import com.elmakers.mine.bukkit.world.populator.MagicChunkHandler;
 import com.elmakers.mine.bukkit.world.spawn.MagicSpawnHandler;
+import com.elmakers.mine.bukkit.world.spawn.SpawnRule;
 import com.elmakers.mine.bukkit.world.tasks.CheckWorldCreateTask;
 import com.elmakers.mine.bukkit.world.tasks.CopyWorldTask;
 
@@ -198,6 +200,14 @@ public class MagicWorld {
         return spawnHandler.process(plugin, entity);
     }
 
+    public Collection<SpawnRule> getSpawnRules() {
+        return spawnHandler.getRules();
+    }
+
+    public String getName() {
+        return worldName;
+    }
+
     public BlockResult processBlockBreak(Block block, Player player) {
         return blockBreakHandler.handleBlock(block, player);
     }
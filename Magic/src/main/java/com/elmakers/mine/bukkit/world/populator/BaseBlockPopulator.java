@@ -1,9 +1,12 @@
 package com.elmakers.mine.bukkit.world.populator;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
 import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
@@ -11,10 +14,15 @@ import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 
 import com.elmakers.mine.bukkit.magic.MagicController;
+import com.elmakers.mine.bukkit.utility.CompatibilityLib;
 import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+import com.elmakers.mine.bukkit.utility.platform.DeprecatedUtils;
 import com.elmakers.mine.bukkit.world.BlockResult;
 
 public abstract class BaseBlockPopulator extends MagicChunkPopulator {
+    // Empty chunk sections may be filled with any of these, depending on how they were generated
+    private static final List<Material> AIR_TYPES = getMaterials("AIR", "CAVE_AIR", "VOID_AIR");
+
     private int maxY = 255;
     private int minY = 0;
     private int maxAirY = 255;
@@ -37,25 +45,84 @@ public abstract class BaseBlockPopulator extends MagicChunkPopulator {
         return true;
     }
 
+    /**
+     * Check to see if this populator could do anything with a block of the given type.
+     *
+     * <p>Blocks that fail this are skipped without being looked up, and if air is not a target then
+     * empty chunk sections are skipped entirely.
+     */
+    protected boolean isTarget(Material material) {
+        return true;
+    }
+
+    /**
+     * Check to see if this populator targets any kind of air, in which case empty chunk sections
+     * can not be skipped.
+     */
+    protected boolean isTargetAir() {
+        for (Material air : AIR_TYPES) {
+            if (isTarget(air)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Material> getMaterials(String... names) {
+        // Looked up by name since cave and void air are not on older versions
+        List<Material> materials = new ArrayList<>();
+        for (String name : names) {
+            Material material = Material.getMaterial(name);
+            if (material != null) {
+                materials.add(material);
+            }
+        }
+        return materials;
+    }
+
     @Override
     public void populate(World world, Random random, Chunk chunk) {
+        int worldMinY = CompatibilityLib.getCompatibilityUtils().getMinHeight(world);
+        int minY = Math.max(this.minY, worldMinY);
+        int maxY = Math.min(this.maxY, world.getMaxHeight() - 1);
+        if (minY > maxY) return;
+
+        // Read types and biomes from a snapshot, only looking up blocks this populator wants
+        boolean checkBiomes = biomes != null || notBiomes != null;
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, checkBiomes, false);
+        DeprecatedUtils deprecatedUtils = CompatibilityLib.getDeprecatedUtils();
+        boolean targetAir = isTargetAir();
+        long now = cooldown > 0 ? System.currentTimeMillis() : 0;
         for (int x = 0; x <= 15; x++) {
             for (int z = 0; z <= 15; z++) {
                 for (int y = minY; y <= maxY; y++) {
-                    Block block = chunk.getBlock(x,  y, z);
-                    if (y > maxAirY && block.getType() == Material.AIR) {
+                    if (!targetAir && snapshot.isSectionEmpty((y - worldMinY) >> 4)) {
+                        // Nothing but air in this section
+                        if (y > maxAirY) break;
+                        y = ((y >> 4) << 4) + 15;
+                        if (y > maxAirY) break;
+                        continue;
+                    }
+                    Material type = deprecatedUtils.getType(snapshot, x, y, z);
+                    if (y > maxAirY && type == Material.AIR) {
                         break;
                     }
-                    if (biomes != null && !biomes.contains(block.getBiome()))
-                        continue;
-                    if (notBiomes != null && notBiomes.contains(block.getBiome()))
+                    if (!isTarget(type))
                         continue;
 
-                    long now = System.currentTimeMillis();
+                    // Biomes can change with height, so these are checked per block
+                    if (checkBiomes) {
+                        Biome biome = deprecatedUtils.getBiome(snapshot, x, y, z);
+                        if (biomes != null && !biomes.contains(biome))
+                            continue;
+                        if (notBiomes != null && notBiomes.contains(biome))
+                            continue;
+                    }
+
                     if (cooldown > 0 && now < lastPopulate + cooldown)
                         continue;
 
-                    BlockResult result = populate(block, random);
+                    BlockResult result = populate(chunk.getBlock(x, y, z), random);
                     if (result != BlockResult.SKIP) {
                         lastPopulate = now;
                     }
@@ -6,6 +6,7 @@ import java.util.Random;
 
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 
@@ -34,6 +35,11 @@ public class MagicBlockPopulator extends BaseBlockPopulator {
         return !templateProbability.isEmpty();
     }
 
+    @Override
+    protected boolean isTarget(Material material) {
+        return replace == null || replace.testMaterial(material);
+    }
+
     @Override
     public BlockResult populate(Block block, Random random) {
         if (replace != null && !replace.testBlock(block)) {
@@ -6,6 +6,7 @@ import java.util.Random;
 import java.util.Set;
 import javax.annotation.Nullable;
 
+import org.bukkit.Material;
 import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
@@ -54,6 +55,12 @@ public class ReplacePopulator extends BaseBlockPopulator {
         return replaceMap != null || replaceBiomes != null;
     }
 
+    @Override
+    protected boolean isTarget(Material material) {
+        // Biomes are replaced block by block, so that needs to see everything
+        return replaceBiomes != null || replaceMap.get(material) != null;
+    }
+
     @Override
     @Nullable
     public BlockResult populate(Block block, Random random) {
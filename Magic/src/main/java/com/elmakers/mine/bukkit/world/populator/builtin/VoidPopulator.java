@@ -15,6 +15,11 @@ public class VoidPopulator extends BaseBlockPopulator {
         return true;
     }
 
+    @Override
+    protected boolean isTarget(Material material) {
+        return material != Material.AIR;
+    }
+
     @Override
     public BlockResult populate(Block block, Random random) {
         block.setType(Material.AIR, false);
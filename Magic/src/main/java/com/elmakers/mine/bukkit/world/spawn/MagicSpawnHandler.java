@@ -1,10 +1,13 @@
 package com.elmakers.mine.bukkit.world.spawn;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
 
@@ -27,10 +30,10 @@ public class MagicSpawnHandler {
         this.controller = controller;
     }
 
-    protected SpawnResult processRules(Plugin plugin, LivingEntity entity, List<SpawnRule> rules) {
+    protected SpawnResult processRules(Plugin plugin, SpawnContext context, List<SpawnRule> rules) {
         if (rules != null) {
             for (SpawnRule rule : rules) {
-                SpawnResult result = rule.process(plugin, entity);
+                SpawnResult result = rule.process(plugin, context);
                 if (result != SpawnResult.SKIP) {
                     return result;
                 }
@@ -44,10 +47,14 @@ public class MagicSpawnHandler {
      */
     public boolean process(Plugin plugin, LivingEntity entity) {
         List<SpawnRule> entityRules = entityTypeMap.get(entity.getType());
-        SpawnResult result = processRules(plugin, entity, entityRules);
+        if (entityRules == null && globalRules.isEmpty()) return false;
+
+        // Shared by all of the rules, so each lookup is only done once per spawn
+        SpawnContext context = new SpawnContext(controller, entity);
+        SpawnResult result = processRules(plugin, context, entityRules);
         if (result == SpawnResult.STOP) return false;
         if (result != SpawnResult.SKIP) return true;
-        result = processRules(plugin, entity, globalRules);
+        result = processRules(plugin, context, globalRules);
         return result == SpawnResult.REMOVE || result == SpawnResult.REPLACE;
     }
 
@@ -100,6 +107,17 @@ public class MagicSpawnHandler {
         }
     }
 
+    /**
+     * Get every rule in this world, each listed once even if it targets several entity types.
+     */
+    public Collection<SpawnRule> getRules() {
+        Set<SpawnRule> rules = new LinkedHashSet<>(globalRules);
+        for (List<SpawnRule> entityRules : entityTypeMap.values()) {
+            rules.addAll(entityRules);
+        }
+        return rules;
+    }
+
     @Nullable
     protected SpawnRule createSpawnRule(String className) {
         if (className == null) return null;
@@ -0,0 +1,96 @@
+package com.elmakers.mine.bukkit.world.spawn;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Location;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+
+import com.elmakers.mine.bukkit.magic.MagicController;
+
+/**
+ * What the spawn rules know about one spawning entity.
+ *
+ * <p>Anything that needs a lookup, such as the biome, region tags or the highest block,
+ * is looked up the first time a rule asks for it and then shared with the rest of the rules.
+ */
+public class SpawnContext {
+    private final MagicController controller;
+    private final LivingEntity entity;
+    private final EntityType type;
+    private final Location location;
+    private final long now;
+
+    private Boolean custom;
+    private Boolean npc;
+    private Biome biome;
+    private Integer highestY;
+    private Map<Set<String>, Boolean> taggedRegions;
+
+    public SpawnContext(MagicController controller, LivingEntity entity) {
+        this.controller = controller;
+        this.entity = entity;
+        this.type = entity.getType();
+        this.location = entity.getLocation();
+        this.now = System.currentTimeMillis();
+    }
+
+    public LivingEntity getEntity() {
+        return entity;
+    }
+
+    public EntityType getType() {
+        return type;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public long getTime() {
+        return now;
+    }
+
+    public boolean isCustom() {
+        if (custom == null) {
+            custom = entity.getCustomName() != null;
+        }
+        return custom;
+    }
+
+    public boolean isNPC() {
+        if (npc == null) {
+            npc = controller.isNPC(entity);
+        }
+        return npc;
+    }
+
+    public Biome getBiome() {
+        if (biome == null) {
+            biome = location.getBlock().getBiome();
+        }
+        return biome;
+    }
+
+    public int getHighestY() {
+        if (highestY == null) {
+            highestY = location.getWorld().getHighestBlockAt(location).getY();
+        }
+        return highestY;
+    }
+
+    public boolean inTaggedRegion(Set<String> tags) {
+        if (taggedRegions == null) {
+            taggedRegions = new HashMap<>();
+        }
+        Boolean tagged = taggedRegions.get(tags);
+        if (tagged == null) {
+            tagged = controller.inTaggedRegion(location, tags);
+            taggedRegions.put(tags, tagged);
+        }
+        return tagged;
+    }
+}
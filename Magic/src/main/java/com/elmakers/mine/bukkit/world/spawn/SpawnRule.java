@@ -12,7 +12,6 @@ import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.Location;
 import org.bukkit.block.Biome;
-import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -44,6 +43,11 @@ public abstract class SpawnRule implements Comparable<SpawnRule> {
     protected Set<EntityType> notTypes;
     protected boolean isGlobal;
 
+    // Stats, for /magic list
+    protected long checked;
+    protected long processed;
+    protected long applied;
+
     protected static final Random rand = new Random();
 
     @Nonnull
@@ -134,37 +138,68 @@ public abstract class SpawnRule implements Comparable<SpawnRule> {
 
     @Nonnull
     public SpawnResult process(Plugin plugin, LivingEntity entity) {
+        return process(plugin, new SpawnContext(controller, entity));
+    }
+
+    @Nonnull
+    public SpawnResult process(Plugin plugin, SpawnContext context) {
+        checked++;
+        LivingEntity entity = context.getEntity();
+
+        // Cheap checks first, then the ones that need lookups, which are shared between rules
         if (targetEntityClass != null && !targetEntityClass.isAssignableFrom(entity.getClass())) return SpawnResult.SKIP;
-        if (!targetCustom && entity.getCustomName() != null) return SpawnResult.SKIP;
-        if (!targetNPC && controller.isNPC(entity)) return SpawnResult.SKIP;
-        if (percentChance < rand.nextFloat()) return SpawnResult.SKIP;
-        if (notTypes != null && notTypes.contains(entity.getType())) return SpawnResult.SKIP;
-        long now = System.currentTimeMillis();
-        if (cooldown > 0 && lastSpawn != 0 && now < lastSpawn + cooldown) return SpawnResult.SKIP;
-        Location entityLocation = entity.getLocation();
+        if (notTypes != null && notTypes.contains(context.getType())) return SpawnResult.SKIP;
+        Location entityLocation = context.getLocation();
         int y = entityLocation.getBlockY();
         if (y < minY || y > maxY) return SpawnResult.SKIP;
+        long now = context.getTime();
+        if (cooldown > 0 && lastSpawn != 0 && now < lastSpawn + cooldown) return SpawnResult.SKIP;
+        if (!targetCustom && context.isCustom()) return SpawnResult.SKIP;
+        if (!targetNPC && context.isNPC()) return SpawnResult.SKIP;
+        if (percentChance < rand.nextFloat()) return SpawnResult.SKIP;
 
-        if (tags != null && !controller.inTaggedRegion(entity.getLocation(), tags)) {
-            return SpawnResult.SKIP;
-        }
-        if (biomes != null && !biomes.contains(entity.getLocation().getBlock().getBiome())) return SpawnResult.SKIP;
-        if (notBiomes != null && notBiomes.contains(entity.getLocation().getBlock().getBiome())) return SpawnResult.SKIP;
+        if (biomes != null && !biomes.contains(context.getBiome())) return SpawnResult.SKIP;
+        if (notBiomes != null && notBiomes.contains(context.getBiome())) return SpawnResult.SKIP;
+        if (tags != null && !context.inTaggedRegion(tags)) return SpawnResult.SKIP;
 
         if (!this.allowIndoors) {
             // Bump it up two to miss things like tall grass
-            Block highest = entityLocation.getWorld().getHighestBlockAt(entityLocation);
-            if (highest.getY() - entityLocation.getY() > 3) {
+            if (context.getHighestY() - entityLocation.getY() > 3) {
                 return SpawnResult.SKIP;
             }
         }
+        processed++;
         SpawnResult result = onProcess(plugin, entity);
         if (result == SpawnResult.REPLACE) {
             lastSpawn = now;
         }
+        if (result != SpawnResult.SKIP) {
+            applied++;
+        }
         return result;
     }
 
+    /**
+     * How many spawns this rule has looked at.
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     * How many spawns passed all of this rule's checks.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * How many spawns this rule did something with.
+     */
+    public long getApplied() {
+        return applied;
+    }
+
     @Override
     public int compareTo(SpawnRule other)
     {
@@ -0,0 +1,160 @@
+package com.elmakers.mine.bukkit.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.elmakers.mine.bukkit.api.batch.Batch;
+import com.elmakers.mine.bukkit.magic.Mage;
+
+public class BatchSchedulerTest {
+    private static final long TICK = 50_000_000L;
+    private static final long MILLI = 1_000_000L;
+
+    // Default settings, when load() has not been called
+    private static final long TIME_BUDGET = 10 * MILLI;
+    private static final long MINIMUM_TIME_BUDGET = 2 * MILLI;
+    private static final int MAX_WORK = 5000;
+
+    private long now = 1000 * TICK;
+    private final BatchScheduler scheduler = new BatchScheduler(() -> now);
+
+    private static class Usage {
+        private long nanos;
+        private int calls;
+    }
+
+    /**
+     * A Mage that always has more work, where each call to processPendingBatches takes a fixed amount of time.
+     */
+    private Mage mage(long cost, Usage usage) {
+        Batch batch = Mockito.mock(Batch.class);
+        Mage mage = Mockito.mock(Mage.class);
+        Mockito.when(mage.isPlayer()).thenReturn(true);
+        Mockito.when(mage.hasPendingBatches()).thenReturn(true);
+        Mockito.when(mage.processPendingBatches(any(BatchScheduler.class), anyLong(), anyInt())).thenAnswer(invocation -> {
+            now += cost;
+            usage.nanos += cost;
+            usage.calls++;
+            scheduler.recordWork(batch, 1, 1, cost);
+            return 1;
+        });
+        return mage;
+    }
+
+    private void tick(List<com.elmakers.mine.bukkit.api.magic.Mage> pending, long interval) {
+        scheduler.process(pending);
+        now += interval;
+    }
+
+    @Test
+    public void testFairnessWithDifferentCosts() {
+        Usage cheap = new Usage();
+        Usage expensive = new Usage();
+        List<com.elmakers.mine.bukkit.api.magic.Mage> pending = new ArrayList<>();
+        pending.add(mage(MILLI / 2, cheap));
+        pending.add(mage(2 * MILLI, expensive));
+
+        for (int i = 0; i < 100; i++) {
+            tick(pending, TICK);
+        }
+
+        // Both should get the same share of time, even though one does four times as many steps to use it
+        assertTrue(cheap.nanos > 0 && expensive.nanos > 0);
+        assertEquals((double)cheap.nanos, (double)expensive.nanos, 2 * MILLI);
+        assertTrue(cheap.calls > 3 * expensive.calls);
+
+        // And between them they should have used the whole budget, and not much more
+        long total = cheap.nanos + expensive.nanos;
+        assertTrue(total >= 100 * (TIME_BUDGET - 2 * MILLI));
+        assertTrue(total <= 100 * (TIME_BUDGET + 2 * MILLI));
+    }
+
+    @Test
+    public void testBudgetShrinksWhenTPSDrops() {
+        List<com.elmakers.mine.bukkit.api.magic.Mage> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tick(pending, TICK);
+        }
+        assertEquals(20, scheduler.getTPS(), 0.01);
+        assertEquals(TIME_BUDGET, scheduler.getCurrentBudget());
+
+        // Drop to 10 TPS
+        for (int i = 0; i < 200; i++) {
+            tick(pending, 2 * TICK);
+        }
+        assertEquals(10, scheduler.getTPS(), 0.01);
+        double scale = 10.0 / 18;
+        assertEquals(TIME_BUDGET * scale * scale, scheduler.getCurrentBudget(), 0.01 * MILLI);
+
+        // Very low TPS stops at the minimum budget
+        for (int i = 0; i < 200; i++) {
+            tick(pending, 20 * TICK);
+        }
+        assertEquals(MINIMUM_TIME_BUDGET, scheduler.getCurrentBudget());
+
+        // And it comes back once the server recovers
+        for (int i = 0; i < 200; i++) {
+            tick(pending, TICK);
+        }
+        assertEquals(TIME_BUDGET, scheduler.getCurrentBudget());
+    }
+
+    @Test
+    public void testBudgetLimitsWork() {
+        Usage usage = new Usage();
+        List<com.elmakers.mine.bukkit.api.magic.Mage> pending = new ArrayList<>();
+        pending.add(mage(MILLI, usage));
+        for (int i = 0; i < 200; i++) {
+            tick(pending, 2 * TICK);
+        }
+        usage.nanos = 0;
+        tick(pending, 2 * TICK);
+        assertTrue(usage.nanos < TIME_BUDGET / 2);
+        assertEquals(scheduler.getCurrentBudget(), usage.nanos, MILLI);
+    }
+
+    @Test
+    public void testCostConverges() {
+        Batch batch = Mockito.mock(Batch.class);
+
+        // Before anything is measured, work_per_update is assumed to fill the budget
+        double initialCost = (double)TIME_BUDGET / MAX_WORK;
+        assertEquals(MILLI / (long)initialCost, scheduler.getWorkForTime(batch, MILLI));
+
+        double actualCost = 500;
+        double expected = initialCost;
+        for (int i = 0; i < 60; i++) {
+            scheduler.recordWork(batch, 100, 100, (long)(100 * actualCost));
+            expected += (actualCost - expected) * 0.25;
+            assertEquals(expected, scheduler.getCosts().values().iterator().next(), 0.001);
+        }
+        assertEquals(actualCost, scheduler.getCosts().values().iterator().next(), 0.01);
+        assertEquals(MILLI / actualCost, scheduler.getWorkForTime(batch, MILLI), 1);
+
+        // A sudden change in cost is followed
+        actualCost = 4000;
+        for (int i = 0; i < 60; i++) {
+            scheduler.recordWork(batch, 100, 100, (long)(100 * actualCost));
+        }
+        assertEquals(actualCost, scheduler.getCosts().values().iterator().next(), 0.01);
+    }
+
+    @Test
+    public void testWorkIsCapped() {
+        Batch batch = Mockito.mock(Batch.class);
+        for (int i = 0; i < 40; i++) {
+            scheduler.recordWork(batch, 100, 100, 1);
+        }
+        assertEquals(MAX_WORK, scheduler.getWorkForTime(batch, TIME_BUDGET));
+        assertEquals(1, scheduler.getWorkForTime(batch, 0));
+    }
+}
@@ -0,0 +1,51 @@
+package com.elmakers.mine.bukkit.configuration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class CompiledEquationTest {
+    private static double evaluate(String expression, double... variables) {
+        CompiledEquation equation = CompiledEquation.compile(expression);
+        assertNotNull(expression, equation);
+        double[] frame = new double[equation.getFrameSize()];
+        System.arraycopy(variables, 0, frame, 0, variables.length);
+        return equation.evaluate(frame);
+    }
+
+    @Test
+    public void testPrecedence() {
+        assertEquals(7, evaluate("1 + 2 * 3"), 0);
+        assertEquals(9, evaluate("(1 + 2) * 3"), 0);
+        assertEquals(-4, evaluate("-2^2"), 0);
+        assertEquals(512, evaluate("2^3^2"), 0);
+        assertEquals(0.5, evaluate("2^-1"), 0);
+        assertEquals(1, evaluate("10 % 3"), 0);
+        assertEquals(2, evaluate("8 / 2 / 2"), 0);
+        assertEquals(-6, evaluate("2 * -3"), 0);
+        assertEquals(1500, evaluate("1.5e3"), 0);
+    }
+
+    @Test
+    public void testVariables() {
+        CompiledEquation equation = CompiledEquation.compile("$range * 2 + min(level, 5) - range");
+        assertNotNull(equation);
+        assertArrayEquals(new String[] {"range", "level"}, equation.getVariables());
+        assertEquals(15, evaluate("$range * 2 + min(level, 5) - range", 10, 7), 0);
+        assertEquals(1, evaluate("sin(x) ^ 2 + cos(x) ^ 2", 0.3), 0.000001);
+    }
+
+    @Test
+    public void testUnsupported() {
+        // These should all be left to EquationTransform
+        assertNull(CompiledEquation.compile(""));
+        assertNull(CompiledEquation.compile("2x"));
+        assertNull(CompiledEquation.compile("rand(1, 2)"));
+        assertNull(CompiledEquation.compile("(1 + 2"));
+        assertNull(CompiledEquation.compile("1 +"));
+        assertNull(CompiledEquation.compile("a b"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.elmakers.mine.bukkit.configuration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigurationCacheTest {
+    private static final String YAML = "# A header\n"
+            + "\n"
+            + "fireball:\n"
+            + "  icon: fire_charge\n"
+            + "  enabled: true\n"
+            + "  parameters:\n"
+            + "    range: 32\n"
+            + "    speed: 1.5\n"
+            + "    cooldown: 10000000000\n"
+            + "  actions:\n"
+            + "    cast:\n"
+            + "    - class: Projectile\n"
+            + "      actions:\n"
+            + "      - class: Explosion\n"
+            + "  tags: [fire, ranged]\n"
+            + "message: \"Héllo\"\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ConfigurationCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ConfigurationCache(folder.newFolder("cache"), Logger.getLogger("test"));
+    }
+
+    private static void assertSameValues(YamlConfiguration expected, YamlConfiguration actual) {
+        assertEquals(expected.saveToString(), actual.saveToString());
+        assertEquals(expected.options().header(), actual.options().header());
+    }
+
+    @Test
+    public void testFileRoundTrip() throws Exception {
+        File file = folder.newFile("spells.yml");
+        Files.write(file.toPath(), YAML.getBytes(StandardCharsets.UTF_8));
+        // Make sure this isn't considered to have changed just before it was cached
+        file.setLastModified(System.currentTimeMillis() - 60000);
+
+        YamlConfiguration parsed = cache.load(file);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        YamlConfiguration cached = cache.load(file);
+        assertEquals(1, cache.getHits());
+        assertSameValues(parsed, cached);
+        assertEquals(10000000000L, cached.getLong("fireball.parameters.cooldown"));
+        assertEquals(Arrays.asList("fire", "ranged"), cached.getStringList("fireball.tags"));
+        assertEquals("Héllo", cached.getString("message"));
+        List<Map<?, ?>> actions = cached.getMapList("fireball.actions.cast");
+        assertEquals("Projectile", actions.get(0).get("class"));
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        File file = folder.newFile("spells.yml");
+        Files.write(file.toPath(), YAML.getBytes(StandardCharsets.UTF_8));
+        long modified = System.currentTimeMillis() - 60000;
+        file.setLastModified(modified);
+        cache.load(file);
+
+        // Same size, but different contents
+        Files.write(file.toPath(), YAML.replace("32", "64").getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(modified + 1000);
+        YamlConfiguration changed = cache.load(file);
+        assertEquals(64, changed.getInt("fireball.parameters.range"));
+        assertEquals(2, cache.getMisses());
+
+        // Touched, but not changed
+        file.setLastModified(modified + 2000);
+        cache.load(file);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testResource() throws Exception {
+        byte[] contents = YAML.getBytes(StandardCharsets.UTF_8);
+        YamlConfiguration parsed = cache.load("spells.yml", new ByteArrayInputStream(contents));
+        YamlConfiguration cached = cache.load("spells.yml", new ByteArrayInputStream(contents));
+        assertEquals(1, cache.getHits());
+        assertSameValues(parsed, cached);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache.setEnabled(false);
+        byte[] contents = YAML.getBytes(StandardCharsets.UTF_8);
+        cache.load("spells.yml", new ByteArrayInputStream(contents));
+        cache.load("spells.yml", new ByteArrayInputStream(contents));
+        assertEquals(0, cache.getHits());
+        assertEquals(0, new File(folder.getRoot(), "cache").list().length);
+    }
+}
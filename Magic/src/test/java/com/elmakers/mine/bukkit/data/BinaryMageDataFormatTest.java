@@ -0,0 +1,112 @@
+package com.elmakers.mine.bukkit.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Test;
+
+public class BinaryMageDataFormatTest {
+    private static ConfigurationSection createData() {
+        ConfigurationSection data = new MemoryConfiguration();
+        data.set("name", "Héllo");
+        data.set("created", 1600000000000L);
+        data.set("level", 30);
+        data.set("negative", -12);
+        data.set("experience", 1234.5f);
+        data.set("mana", 150.5);
+        data.set("open_wand", false);
+        data.set("shown_help", true);
+        data.set("kits", Arrays.asList("starter", "starter", "mage"));
+        for (int i = 0; i < 10; i++) {
+            data.set("spells.spell" + i + ".cast_count", i * 10);
+            data.set("spells.spell" + i + ".last_cast", 1600000000000L + i);
+        }
+        StringBuilder lore = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            lore.append("A long line of lore ");
+        }
+        data.set("lore", lore.toString());
+
+        Map<String, Object> undo = new LinkedHashMap<>();
+        undo.put("time", 1600000000000L);
+        undo.put("blocks", Arrays.asList("stone", "dirt"));
+        data.set("undo", Arrays.asList(undo));
+        return data;
+    }
+
+    private static ConfigurationSection roundTrip(ConfigurationSection data) throws IOException {
+        ConfigurationSection loaded = new MemoryConfiguration();
+        BinaryMageDataFormat.fromBytes(BinaryMageDataFormat.toBytes(data), loaded);
+        return loaded;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ConfigurationSection loaded = roundTrip(createData());
+        assertEquals("Héllo", loaded.getString("name"));
+        assertEquals(1600000000000L, loaded.getLong("created"));
+        assertEquals(30, loaded.get("level"));
+        assertEquals(-12, loaded.getInt("negative"));
+        assertEquals(1234.5f, loaded.get("experience"));
+        assertEquals(150.5, loaded.getDouble("mana"), 0);
+        assertFalse(loaded.getBoolean("open_wand", true));
+        assertTrue(loaded.getBoolean("shown_help"));
+        assertEquals(Arrays.asList("starter", "starter", "mage"), loaded.getStringList("kits"));
+        assertEquals(createData().getString("lore"), loaded.getString("lore"));
+
+        ConfigurationSection spells = loaded.getConfigurationSection("spells");
+        assertNotNull(spells);
+        assertEquals(10, spells.getKeys(false).size());
+        assertEquals(90, spells.getInt("spell9.cast_count"));
+        assertEquals(1600000000009L, spells.getLong("spell9.last_cast"));
+
+        List<Map<?, ?>> undo = loaded.getMapList("undo");
+        assertEquals(1, undo.size());
+        assertEquals(1600000000000L, undo.get(0).get("time"));
+        assertEquals(Arrays.asList("stone", "dirt"), undo.get(0).get("blocks"));
+    }
+
+    @Test
+    public void testMapsLoadAsSections() throws IOException {
+        Map<String, Object> wands = new LinkedHashMap<>();
+        wands.put("wand", 1);
+        ConfigurationSection data = new MemoryConfiguration();
+        data.set("wands", wands);
+        ConfigurationSection loaded = roundTrip(data);
+        assertTrue(loaded.isConfigurationSection("wands"));
+        assertEquals(1, loaded.getInt("wands.wand"));
+    }
+
+    @Test
+    public void testSmallerThanYaml() throws IOException {
+        ConfigurationSection data = createData();
+        YamlConfiguration yaml = new YamlConfiguration();
+        for (Map.Entry<String, Object> entry : data.getValues(false).entrySet()) {
+            yaml.set(entry.getKey(), entry.getValue());
+        }
+        assertTrue(BinaryMageDataFormat.toBytes(data).length < yaml.saveToString().getBytes("UTF-8").length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsNewerVersion() throws IOException {
+        byte[] bytes = BinaryMageDataFormat.toBytes(createData());
+        bytes[4] = 100;
+        BinaryMageDataFormat.fromBytes(bytes, new MemoryConfiguration());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherData() throws IOException {
+        BinaryMageDataFormat.fromBytes("name: test".getBytes("UTF-8"), new MemoryConfiguration());
+    }
+}
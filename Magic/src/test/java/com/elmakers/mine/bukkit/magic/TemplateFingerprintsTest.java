@@ -0,0 +1,178 @@
+package com.elmakers.mine.bukkit.magic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.Test;
+
+import com.elmakers.mine.bukkit.api.magic.MageController;
+import com.elmakers.mine.bukkit.api.magic.Messages;
+import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
+import com.elmakers.mine.bukkit.spell.SpellCategory;
+
+public class TemplateFingerprintsTest {
+    private static ConfigurationSection template(String icon, int range) {
+        ConfigurationSection config = new MemoryConfiguration();
+        config.set("icon", icon);
+        config.set("parameters.range", range);
+        config.set("tags", Arrays.asList("fire", "ranged"));
+        return config;
+    }
+
+    private static void load(TemplateFingerprints fingerprints, ConfigurationSection messages, Map<String, ConfigurationSection> spells) {
+        fingerprints.begin(true, messages);
+        for (Map.Entry<String, ConfigurationSection> entry : spells.entrySet()) {
+            fingerprints.hasChanged("spells", entry.getKey(), entry.getValue());
+        }
+        fingerprints.finish("spells");
+    }
+
+    private static SpellCategory category(String key) {
+        Messages messages = (Messages)Proxy.newProxyInstance(Messages.class.getClassLoader(), new Class<?>[] {Messages.class},
+                (proxy, method, args) -> method.getName().equals("get") && args.length == 2 ? args[1] : null);
+        MageController controller = (MageController)Proxy.newProxyInstance(MageController.class.getClassLoader(), new Class<?>[] {MageController.class},
+                (proxy, method, args) -> method.getName().equals("getMessages") ? messages : null);
+        return new SpellCategory(key, controller);
+    }
+
+    private static SpellTemplate spell(String key, SpellCategory category) {
+        return (SpellTemplate)Proxy.newProxyInstance(SpellTemplate.class.getClassLoader(), new Class<?>[] {SpellTemplate.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getKey":
+                        return key;
+                    case "getCategory":
+                        return category;
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    // Follows what MagicController.loadSpells does with categories
+    private static void loadCategory(TemplateFingerprints fingerprints, ConfigurationSection messages,
+            Map<String, ConfigurationSection> spells, Map<String, SpellTemplate> loaded, SpellCategory category) {
+        fingerprints.begin(true, messages);
+        if (fingerprints.isIncremental()) {
+            category.clearSpellTemplates();
+        }
+        Map<String, SpellTemplate> previous = new HashMap<>(loaded);
+        loaded.clear();
+        for (Map.Entry<String, ConfigurationSection> entry : spells.entrySet()) {
+            String key = entry.getKey();
+            SpellTemplate existing = previous.get(key);
+            if (!fingerprints.hasChanged("spells", key, entry.getValue()) && existing != null) {
+                category.addSpellTemplate(existing);
+                loaded.put(key, existing);
+                continue;
+            }
+            SpellTemplate template = spell(key, category);
+            category.addSpellTemplate(template);
+            loaded.put(key, template);
+        }
+        fingerprints.finish("spells");
+    }
+
+    @Test
+    public void testCategoryReload() {
+        TemplateFingerprints fingerprints = new TemplateFingerprints();
+        ConfigurationSection messages = new MemoryConfiguration();
+        SpellCategory combat = category("combat");
+        Map<String, ConfigurationSection> spells = new LinkedHashMap<>();
+        spells.put("fireball", template("fire_charge", 32));
+        spells.put("blink", template("feather", 64));
+        Map<String, SpellTemplate> loaded = new HashMap<>();
+
+        loadCategory(fingerprints, messages, spells, loaded, combat);
+        assertEquals(2, combat.getSpells().size());
+
+        // A rebuilt spell replaces its old template
+        spells.put("fireball", template("fire_charge", 40));
+        loadCategory(fingerprints, messages, spells, loaded, combat);
+        assertTrue(fingerprints.isIncremental());
+        assertEquals(2, combat.getSpells().size());
+        assertTrue(combat.getSpells().contains(loaded.get("fireball")));
+
+        // A removed spell is dropped
+        spells.remove("blink");
+        loadCategory(fingerprints, messages, spells, loaded, combat);
+        assertEquals(1, combat.getSpells().size());
+        assertSame(loaded.get("fireball"), combat.getSpells().iterator().next());
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertEquals(TemplateFingerprints.getFingerprint(template("fire_charge", 32)),
+                TemplateFingerprints.getFingerprint(template("fire_charge", 32)));
+        assertFalse(TemplateFingerprints.getFingerprint(template("fire_charge", 32))
+                .equals(TemplateFingerprints.getFingerprint(template("fire_charge", 33))));
+    }
+
+    @Test
+    public void testIncremental() {
+        TemplateFingerprints fingerprints = new TemplateFingerprints();
+        ConfigurationSection messages = new MemoryConfiguration();
+        messages.set("spells.fireball.name", "Fireball");
+
+        Map<String, ConfigurationSection> spells = new HashMap<>();
+        spells.put("fireball", template("fire_charge", 32));
+        spells.put("blink", template("feather", 64));
+        spells.put("arrow", template("arrow", 16));
+
+        // The first load is always a full load
+        load(fingerprints, messages, spells);
+        assertNull(fingerprints.getChanged("spells"));
+
+        // Nothing changed
+        load(fingerprints, messages, spells);
+        assertTrue(fingerprints.isIncremental());
+        assertTrue(fingerprints.getChanged("spells").isEmpty());
+
+        // One spell changed, one removed and one added
+        spells.put("fireball", template("fire_charge", 40));
+        spells.remove("arrow");
+        spells.put("missile", template("stick", 8));
+        load(fingerprints, messages, spells);
+        assertEquals(new HashSet<>(Arrays.asList("fireball", "arrow", "missile")), fingerprints.getChanged("spells"));
+
+        // Messages changed, so everything has to be reloaded
+        messages.set("spells.fireball.name", "Fire Ball");
+        load(fingerprints, messages, spells);
+        assertFalse(fingerprints.isIncremental());
+        assertNull(fingerprints.getChanged("spells"));
+    }
+
+    @Test
+    public void testDependents() {
+        TemplateFingerprints fingerprints = new TemplateFingerprints();
+        ConfigurationSection messages = new MemoryConfiguration();
+        Map<String, ConfigurationSection> classes = new HashMap<>();
+        classes.put("base", template("stick", 1));
+        classes.put("student", template("book", 2));
+        classes.put("master", template("blaze_rod", 3));
+        classes.put("other", template("dirt", 4));
+        Map<String, String> parents = new HashMap<>();
+        parents.put("student", "base");
+        parents.put("master", "student");
+
+        load(fingerprints, messages, classes);
+        classes.put("base", template("stick", 5));
+        load(fingerprints, messages, classes);
+        fingerprints.addDependents("spells", parents);
+        assertEquals(new HashSet<>(Arrays.asList("base", "student", "master")), fingerprints.getChanged("spells"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.elmakers.mine.bukkit.magic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.elmakers.mine.bukkit.api.magic.Trigger;
+import com.elmakers.mine.bukkit.spell.TriggeredSpell;
+
+public class TriggerTableTest {
+    @Test
+    public void testIdsIgnoreCase() {
+        int id = TriggerIds.getId("test_trigger");
+        assertEquals(id, TriggerIds.getId("Test_Trigger"));
+        assertEquals(id, TriggerIds.findId("TEST_TRIGGER"));
+        assertEquals("test_trigger", TriggerIds.getName(id));
+        assertEquals(-1, TriggerIds.findId("never_triggered"));
+    }
+
+    @Test
+    public void testLookup() {
+        TriggerTable table = new TriggerTable();
+        table.add("fireball", new Trigger(null, "table_damage"));
+        table.add("heal", new Trigger(null, "table_damage"));
+        table.add("blink", new Trigger(null, "table_jump"));
+
+        int damage = TriggerIds.getId("table_damage");
+        int unused = TriggerIds.getId("table_unused");
+        assertTrue(table.has(damage));
+        assertFalse(table.has(unused));
+        assertNull(table.get(unused));
+        List<TriggeredSpell> spells = table.get(damage);
+        assertEquals(2, spells.size());
+        assertEquals("fireball", spells.get(0).getSpellKey());
+        assertEquals("heal", spells.get(1).getSpellKey());
+    }
+
+    @Test
+    public void testClear() {
+        TriggerTable table = new TriggerTable();
+        table.add("fireball", new Trigger(null, "clear_damage"));
+        int damage = TriggerIds.getId("clear_damage");
+
+        // Lists handed out must not change when they can't be reused
+        List<TriggeredSpell> spells = table.get(damage);
+        table.clear(false);
+        assertFalse(table.has(damage));
+        table.add("heal", new Trigger(null, "clear_damage"));
+        assertEquals(1, spells.size());
+        assertEquals("fireball", spells.get(0).getSpellKey());
+        assertNotSame(spells, table.get(damage));
+
+        spells = table.get(damage);
+        table.clear(true);
+        table.add("blink", new Trigger(null, "clear_damage"));
+        assertSame(spells, table.get(damage));
+        assertEquals("blink", spells.get(0).getSpellKey());
+    }
+}
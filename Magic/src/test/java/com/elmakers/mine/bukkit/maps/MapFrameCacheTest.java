@@ -0,0 +1,74 @@
+package com.elmakers.mine.bukkit.maps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapFrameCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MapFrameCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new MapFrameCache(folder.newFolder("frames"));
+    }
+
+    private static MapFrames frames(int count) {
+        byte[][] frames = new byte[count][];
+        long[] frameTimes = new long[count];
+        for (int i = 0; i < count; i++) {
+            frames[i] = new byte[MapFrames.FRAME_SIZE];
+            Arrays.fill(frames[i], (byte)(i + 4));
+            frameTimes[i] = 100 * (i + 1);
+        }
+        return new MapFrames(frames, frameTimes);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        MapFrames saved = frames(3);
+        cache.save("world|0,0|0,0|test.gif", "1234,5678", saved);
+
+        MapFrames loaded = cache.load("world|0,0|0,0|test.gif", "1234,5678");
+        assertNotNull(loaded);
+        assertEquals(3, loaded.size());
+        assertArrayEquals(saved.getFrameTimes(), loaded.getFrameTimes());
+        for (int i = 0; i < saved.size(); i++) {
+            assertArrayEquals(saved.getFrame(i), loaded.getFrame(i));
+        }
+
+        // The source image changed
+        assertNull(cache.load("world|0,0|0,0|test.gif", "1234,9999"));
+        assertNull(cache.load("world|0,0|0,0|other.gif", "1234,5678"));
+
+        cache.remove("world|0,0|0,0|test.gif");
+        assertNull(cache.load("world|0,0|0,0|test.gif", "1234,5678"));
+    }
+
+    @Test
+    public void testEviction() {
+        // Each of these is a little over 1MB
+        cache.setMaxSize(3);
+        cache.put("one", frames(64));
+        cache.put("two", frames(64));
+        cache.put("three", frames(64));
+        assertNull(cache.get("one"));
+        assertNotNull(cache.get("two"));
+
+        // "two" was used more recently than "three"
+        cache.put("four", frames(64));
+        assertNotNull(cache.get("two"));
+        assertNull(cache.get("three"));
+        assertEquals(2, cache.getCount());
+    }
+}
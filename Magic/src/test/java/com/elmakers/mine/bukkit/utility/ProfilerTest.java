@@ -0,0 +1,74 @@
+package com.elmakers.mine.bukkit.utility;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ProfilerTest {
+    @After
+    public void tearDown() {
+        Profiler.disable();
+    }
+
+    private static void time(Object key, Runnable inner) {
+        long profile = Profiler.start(key);
+        try {
+            inner.run();
+        } finally {
+            Profiler.stop(profile);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        Profiler.disable();
+        assertEquals(0, Profiler.start("fireball"));
+        Profiler.stop(0);
+    }
+
+    @Test
+    public void testCallTree() throws Exception {
+        Profiler.enable(false);
+        for (int i = 0; i < 3; i++) {
+            time("fireball", () -> time(String.class, () -> time(Integer.class, () -> { })));
+        }
+        time("blink", () -> time(Integer.class, () -> { }));
+        Profiler.disable();
+
+        // Calls made after stopping are not recorded
+        time("fireball", () -> { });
+
+        Map<String, Profiler.Summary> summaries = new HashMap<>();
+        List<Profiler.Summary> sorted = Profiler.getSummaries();
+        for (Profiler.Summary summary : sorted) {
+            summaries.put(summary.getName(), summary);
+        }
+        assertEquals(4, sorted.size());
+        assertEquals(3, summaries.get("fireball").getCalls());
+        assertEquals(3, summaries.get("String").getCalls());
+        assertEquals(4, summaries.get("Integer").getCalls());
+        assertEquals(1, summaries.get("blink").getCalls());
+        Profiler.Summary fireball = summaries.get("fireball");
+        assertTrue(fireball.getTotalNanos() >= fireball.getSelfNanos());
+        assertTrue(fireball.getTotalNanos() >= summaries.get("String").getTotalNanos());
+
+        File file = File.createTempFile("profile", ".txt");
+        file.deleteOnExit();
+        Profiler.writeCollapsed(file);
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String stack = line.substring(0, line.lastIndexOf(' '));
+            assertTrue(line, stack.equals("fireball") || stack.equals("fireball;String")
+                    || stack.equals("fireball;String;Integer") || stack.equals("blink")
+                    || stack.equals("blink;Integer"));
+        }
+    }
+}
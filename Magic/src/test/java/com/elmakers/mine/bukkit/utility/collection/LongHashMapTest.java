@@ -0,0 +1,103 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongHashMapTest {
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals("zero", map.put(0, "again"));
+        assertEquals("again", map.get(0));
+        assertEquals(2, map.size());
+        assertEquals("minus one", map.remove(-1));
+        assertFalse(map.containsKey(-1));
+        assertNull(map.remove(-1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(1234);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long)i), map.put(key, (long)i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        LinkedLongObjectHashMap<Long> map = new LinkedLongObjectHashMap<>();
+        for (long i = 100; i > 0; i--) {
+            map.put(i * 31, i);
+        }
+        map.remove(50 * 31);
+        map.put(100 * 31, 100L);
+
+        long expected = 100;
+        for (Long value : map.values()) {
+            if (expected == 50) expected--;
+            assertEquals(expected--, (long)value);
+        }
+        assertEquals(Long.valueOf(100), map.removeFirst());
+        assertEquals(Long.valueOf(99), map.getFirst());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        LinkedLongObjectHashMap<Long> map = new LinkedLongObjectHashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        for (Iterator<Long> it = map.values().iterator(); it.hasNext();) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(500, map.size());
+        long[] keys = map.keys();
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i * 2 + 1, keys[i]);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertArrayEquals(new long[0], map.keys());
+    }
+
+    @Test
+    public void testDoubleMap() {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i << 32, i / 2.0);
+        }
+        assertEquals(1000, map.size());
+        assertEquals(250.0, map.get(500L << 32, -1), 0);
+        assertEquals(-1, map.get(5000, -1), 0);
+        assertTrue(map.remove(500L << 32));
+        assertFalse(map.remove(500L << 32));
+        assertFalse(map.containsKey(500L << 32));
+        assertEquals(999, map.size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.elmakers.mine.bukkit.utility.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimingWheelTest {
+    private static int advance(TimingWheel<Long> wheel) {
+        List<Long> due = new ArrayList<>();
+        wheel.advance(due);
+        for (Long deadline : due) {
+            assertEquals((long)deadline, wheel.getCurrentTick());
+        }
+        return due.size();
+    }
+
+    @Test
+    public void testFiresOnDeadline() {
+        Random random = new Random(1234);
+        TimingWheel<Long> wheel = new TimingWheel<>();
+        // Cover all three levels, and timers past the end of the last one
+        long[] ranges = {1, 256, 65536, 1L << 24, (1L << 24) + 100000};
+        long[] delays = new long[2000];
+        int fired = 0;
+        for (int i = 0; i < delays.length; i++) {
+            int level = i % 4;
+            delays[i] = ranges[level] + (long)(random.nextDouble() * (ranges[level + 1] - ranges[level]));
+            // Schedule from partway through a tick range, as blocks are
+            for (int skip = random.nextInt(3); skip > 0; skip--) {
+                fired += advance(wheel);
+            }
+            long deadline = wheel.getCurrentTick() + delays[i];
+            wheel.schedule(deadline, delays[i]);
+        }
+        assertEquals(delays.length, wheel.size() + fired);
+
+        while (wheel.size() > 0) {
+            fired += advance(wheel);
+        }
+        assertEquals(delays.length, fired);
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        TimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 300);
+        wheel.schedule("kept", 300);
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        assertEquals(1, wheel.size());
+        assertTrue(cancelled.isCancelled());
+
+        List<String> due = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            wheel.advance(due);
+        }
+        assertEquals(Arrays.asList("kept"), due);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,54 @@
+package com.elmakers.mine.bukkit.world.populator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Random;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+import org.junit.Test;
+
+import com.elmakers.mine.bukkit.world.BlockResult;
+
+public class BaseBlockPopulatorTest {
+    private static BaseBlockPopulator targeting(final Material target) {
+        return new BaseBlockPopulator() {
+            @Override
+            public boolean onLoad(ConfigurationSection config) {
+                return true;
+            }
+
+            @Override
+            protected boolean isTarget(Material material) {
+                return material == target;
+            }
+
+            @Override
+            public BlockResult populate(Block block, Random random) {
+                return BlockResult.SKIP;
+            }
+        };
+    }
+
+    @Test
+    public void testTargetsAir() {
+        assertTrue(targeting(Material.AIR).isTargetAir());
+    }
+
+    @Test
+    public void testTargetsCaveAir() {
+        Material caveAir = Material.getMaterial("CAVE_AIR");
+        assumeNotNull(caveAir);
+
+        // Sections of cave air are empty too, so must not be skipped
+        assertTrue(targeting(caveAir).isTargetAir());
+    }
+
+    @Test
+    public void testDoesNotTargetAir() {
+        assertFalse(targeting(Material.STONE).isTargetAir());
+    }
+}
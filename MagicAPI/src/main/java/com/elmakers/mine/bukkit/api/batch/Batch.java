@@ -4,7 +4,8 @@ package com.elmakers.mine.bukkit.api.batch;
  * Represents a batched Block update, usually started by a construction Spell.
  *
  * <p>Magic will process pending BlockBatch requests once every tick, up to a
- * maximum number of Block updates per tick (the default is 1,000).
+ * time budget per tick (the default is 10ms). The number of updates requested
+ * from each batch is sized by how long that type of batch has taken per update so far.
  *
  * <p>Every BlockBatch is required to perform only as many updates as requested,
  * and to report how many updates were performed.
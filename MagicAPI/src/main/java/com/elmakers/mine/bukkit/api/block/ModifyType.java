@@ -1,5 +1,5 @@
 package com.elmakers.mine.bukkit.api.block;
 
 public enum ModifyType {
-    NORMAL, NO_PHYSICS, FAST
+    NORMAL, NO_PHYSICS, FAST, BULK
 }
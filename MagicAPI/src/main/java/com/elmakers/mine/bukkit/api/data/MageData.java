@@ -31,6 +31,7 @@ public class MageData {
     private long fallProtectionCount;
     private long fallProtectionDuration;
     private Map<String, ItemStack> boundWands;
+    private Map<String, ConfigurationSection> boundWandConfigurations;
     private Map<Integer, ItemStack> respawnArmor;
     private Map<Integer, ItemStack> respawnInventory;
     private List<ItemStack> storedInventory;
@@ -181,6 +182,19 @@ public class MageData {
         this.boundWands = boundWands;
     }
 
+    /**
+     * The wand data read from each of the bound wand items, by template key.
+     * This is parsed ahead of time when loading, and may be missing entries.
+     */
+    @Nullable
+    public Map<String, ConfigurationSection> getBoundWandConfigurations() {
+        return boundWandConfigurations;
+    }
+
+    public void setBoundWandConfigurations(Map<String, ConfigurationSection> boundWandConfigurations) {
+        this.boundWandConfigurations = boundWandConfigurations;
+    }
+
     public Map<Integer, ItemStack> getRespawnArmor() {
         return respawnArmor;
     }
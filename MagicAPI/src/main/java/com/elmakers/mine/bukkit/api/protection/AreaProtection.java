@@ -0,0 +1,32 @@
+package com.elmakers.mine.bukkit.api.protection;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import com.elmakers.mine.bukkit.api.block.BoundingBox;
+import com.elmakers.mine.bukkit.api.magic.MagicProvider;
+import com.elmakers.mine.bukkit.api.spell.SpellTemplate;
+
+/**
+ * Implemented by a BlockBuildManager or BlockBreakManager that can check a whole area at once.
+ *
+ * <p>Large constructions ask about each chunk they touch before asking about each block. If every
+ * protection manager allows the area, the per-block checks for that chunk are skipped.
+ */
+public interface AreaProtection extends MagicProvider {
+    /**
+     * Check whether a player may build and break every block in an area.
+     *
+     * <p>It is always safe to return false, Magic will then check each block on its own.
+     *
+     * @param player The player building, or null for checks made without one
+     * @param spell The spell being cast, if this is also a CastPermissionManager whose region overrides
+     *     should be checked. Returning true means no region override denies this spell anywhere in the area.
+     * @param world The world the area is in
+     * @param area The area, both corners inclusive
+     * @return true if every block in the area is allowed
+     */
+    boolean checkArea(@Nullable Player player, @Nullable SpellTemplate spell, World world, BoundingBox area);
+}
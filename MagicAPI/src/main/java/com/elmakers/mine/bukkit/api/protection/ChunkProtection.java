@@ -0,0 +1,15 @@
+package com.elmakers.mine.bukkit.api.protection;
+
+import com.elmakers.mine.bukkit.api.magic.MagicProvider;
+
+/**
+ * Implemented by a BlockBuildManager or BlockBreakManager whose answer is always the same for
+ * every block in a chunk, for instance because it protects whole claimed chunks.
+ *
+ * <p>When protection_cache is turned on in config.yml, Magic will only ask these managers about
+ * one block per chunk, and reuse that answer for the rest of the chunk for a short time.
+ * Construction spells also use that one block to check the part of their area in each chunk,
+ * see AreaProtection.
+ */
+public interface ChunkProtection extends MagicProvider {
+}
@@ -0,0 +1,140 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.elmakers.mine.bukkit.block.BlockData;
+import com.elmakers.mine.bukkit.utility.collection.LinkedLongObjectHashMap;
+import com.elmakers.mine.bukkit.utility.collection.LongDoubleHashMap;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+
+/**
+ * Compares the boxed maps UndoRegistry and BlockList used to use with the primitive maps
+ * they use now, for a construction-sized set of block ids.
+ *
+ * <p>Run with "-prof gc" to see the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockIdMapBenchmark {
+    @Param({"1000", "100000"})
+    public int blockCount;
+
+    private long[] blockIds;
+    private final Object value = new Object();
+
+    @Setup
+    public void setup() {
+        // A solid cube of blocks, which is what a construct spell produces
+        int side = (int)Math.ceil(Math.cbrt(blockCount));
+        blockIds = new long[blockCount];
+        int index = 0;
+        for (int x = 0; x < side && index < blockCount; x++) {
+            for (int y = 0; y < side && index < blockCount; y++) {
+                for (int z = 0; z < side && index < blockCount; z++) {
+                    blockIds[index++] = BlockData.getBlockId("world", x - side / 2, y + 64, z - side / 2);
+                }
+            }
+        }
+        Random random = new Random(0);
+        for (int i = blockIds.length - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            long temp = blockIds[i];
+            blockIds[i] = blockIds[swap];
+            blockIds[swap] = temp;
+        }
+    }
+
+    @Benchmark
+    public void boxedModified(Blackhole blackhole) {
+        Map<Long, Object> map = new HashMap<>();
+        for (long id : blockIds) {
+            map.put(id, value);
+        }
+        for (long id : blockIds) {
+            blackhole.consume(map.get(id));
+        }
+        for (long id : blockIds) {
+            map.remove(id);
+        }
+    }
+
+    @Benchmark
+    public void primitiveModified(Blackhole blackhole) {
+        LongObjectHashMap<Object> map = new LongObjectHashMap<>();
+        for (long id : blockIds) {
+            map.put(id, value);
+        }
+        for (long id : blockIds) {
+            blackhole.consume(map.get(id));
+        }
+        for (long id : blockIds) {
+            map.remove(id);
+        }
+    }
+
+    @Benchmark
+    public void boxedBreaking(Blackhole blackhole) {
+        Map<Long, Double> map = new HashMap<>();
+        for (long id : blockIds) {
+            Double current = map.get(id);
+            map.put(id, current == null ? 0.25 : current + 0.25);
+        }
+        for (long id : blockIds) {
+            blackhole.consume(map.containsKey(id));
+        }
+    }
+
+    @Benchmark
+    public void primitiveBreaking(Blackhole blackhole) {
+        LongDoubleHashMap map = new LongDoubleHashMap();
+        for (long id : blockIds) {
+            map.put(id, map.get(id, 0) + 0.25);
+        }
+        for (long id : blockIds) {
+            blackhole.consume(map.containsKey(id));
+        }
+    }
+
+    @Benchmark
+    public void boxedBlockQueue(Blackhole blackhole) {
+        Map<Long, Object> map = new LinkedHashMap<>();
+        for (long id : blockIds) {
+            map.put(id, value);
+        }
+        for (Object block : map.values()) {
+            blackhole.consume(block);
+        }
+    }
+
+    @Benchmark
+    public void primitiveBlockQueue(Blackhole blackhole) {
+        LinkedLongObjectHashMap<Object> map = new LinkedLongObjectHashMap<>();
+        for (long id : blockIds) {
+            map.put(id, value);
+        }
+        for (Object block : map.values()) {
+            blackhole.consume(block);
+        }
+    }
+}
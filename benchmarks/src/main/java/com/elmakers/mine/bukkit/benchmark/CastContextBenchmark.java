@@ -0,0 +1,64 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.action.CastContext;
+import com.elmakers.mine.bukkit.action.CompoundAction;
+import com.elmakers.mine.bukkit.utility.ConfigurationUtils;
+
+/**
+ * The per-cast overhead of the action system: creating a spell's root context, the child
+ * context each compound action copies from it, and starting and finishing a compound action.
+ *
+ * <p>These are mostly interesting for what they allocate, run with "-prof gc" and look at
+ * gc.alloc.rate.norm for the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CastContextBenchmark {
+    private CastContext root;
+    private CompoundAction action;
+    private ConfigurationSection parameters;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        root = new CastContext(Stubs.getSpell());
+        parameters = ConfigurationUtils.newConfigurationSection();
+        action = new CompoundAction() {
+        };
+    }
+
+    @Benchmark
+    public CastContext createRoot() {
+        return new CastContext(Stubs.getSpell());
+    }
+
+    @Benchmark
+    public CastContext copyContext() {
+        return new CastContext(root);
+    }
+
+    @Benchmark
+    public CompoundAction startAndFinish() {
+        action.start(root, parameters);
+        action.finish(root);
+        return action;
+    }
+}
@@ -0,0 +1,166 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.api.data.MageData;
+import com.elmakers.mine.bukkit.api.data.SpellData;
+import com.elmakers.mine.bukkit.api.magic.MageController;
+import com.elmakers.mine.bukkit.api.rp.ResourcePackPreference;
+import com.elmakers.mine.bukkit.data.BinaryMageDataFormat;
+import com.elmakers.mine.bukkit.data.ConfigurationMageDataStore;
+
+/**
+ * Saving and loading player data the way the file and SQL data stores do,
+ * converting a MageData to and from YAML, or to and from the binary format.
+ *
+ * <p>The player here has a lot of spells, classes and custom data, like a long-time player on a
+ * server with a big spell list. Items and undo data are left out since they need a real server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MageDataStoreBenchmark {
+    private static final String MAGE_ID = "00000000-0000-0000-0000-000000000001";
+
+    @Param({"50", "500"})
+    public int spellCount;
+
+    private MageController controller;
+    private MageData mageData;
+    private String serialized;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        controller = Stubs.getController();
+        mageData = createMageData(spellCount);
+        YamlConfiguration saveFile = new YamlConfiguration();
+        ConfigurationMageDataStore.save(controller, mageData, saveFile);
+        serialized = saveFile.saveToString();
+        try {
+            binary = BinaryMageDataFormat.toBytes(saveFile);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static MageData createMageData(int spellCount) {
+        MageData data = new MageData(MAGE_ID);
+        data.setName("Benchmarker");
+        data.setCreatedTime(System.currentTimeMillis());
+        data.setLastCast(System.currentTimeMillis());
+        data.setResourcePackPreference(ResourcePackPreference.DEFAULT);
+        data.setStoredExperience(1234.5f);
+        data.setStoredLevel(30);
+
+        List<SpellData> spells = new ArrayList<>();
+        for (int i = 0; i < spellCount; i++) {
+            SpellData spell = new SpellData("spell" + i);
+            spell.setCastCount(i * 10);
+            spell.setLastCast(System.currentTimeMillis() - i * 1000);
+            spell.setCharges(i % 3);
+            if (i % 4 == 0) {
+                ConfigurationSection variables = new MemoryConfiguration();
+                variables.set("level", i % 5);
+                variables.set("target", "spell" + (i + 1));
+                spell.setVariables(variables);
+            }
+            spells.add(spell);
+        }
+        data.setSpellData(spells);
+
+        ConfigurationSection properties = new MemoryConfiguration();
+        properties.set("mana", 150.5);
+        properties.set("mana_max", 200);
+        properties.set("mana_regeneration", 10);
+        properties.set("path", "master");
+        properties.set("active_spell", "spell0");
+        data.setProperties(properties);
+
+        Map<String, ConfigurationSection> classes = new HashMap<>();
+        for (String className : new String[] {"mage", "warrior", "engineer", "student", "battle"}) {
+            ConfigurationSection classProperties = new MemoryConfiguration();
+            classProperties.set("unlocked", true);
+            classProperties.set("xp", 1000);
+            List<String> classSpells = new ArrayList<>();
+            for (int i = 0; i < spellCount; i += 5) {
+                classSpells.add("spell" + i);
+            }
+            classProperties.set("spells", classSpells);
+            ConfigurationSection spellLevels = classProperties.createSection("spell_levels");
+            for (int i = 0; i < spellCount; i += 10) {
+                spellLevels.set("spell" + i, i % 5 + 1);
+            }
+            classes.put(className, classProperties);
+        }
+        data.setClassProperties(classes);
+        data.setActiveClass("mage");
+
+        ConfigurationSection extraData = new MemoryConfiguration();
+        for (int i = 0; i < 100; i++) {
+            extraData.set("quest" + i + ".stage", i % 7);
+            extraData.set("quest" + i + ".complete", i % 2 == 0);
+        }
+        data.setExtraData(extraData);
+
+        ConfigurationSection variables = new MemoryConfiguration();
+        for (int i = 0; i < 50; i++) {
+            variables.set("counter" + i, i * 3);
+        }
+        data.setVariables(variables);
+        return data;
+    }
+
+    @Benchmark
+    public String save() {
+        YamlConfiguration saveFile = new YamlConfiguration();
+        ConfigurationMageDataStore.save(controller, mageData, saveFile);
+        return saveFile.saveToString();
+    }
+
+    @Benchmark
+    public MageData load() throws InvalidConfigurationException {
+        YamlConfiguration saveFile = new YamlConfiguration();
+        saveFile.loadFromString(serialized);
+        return ConfigurationMageDataStore.load(controller, MAGE_ID, saveFile);
+    }
+
+    @Benchmark
+    public byte[] saveBinary() throws IOException {
+        ConfigurationSection saveFile = new MemoryConfiguration();
+        ConfigurationMageDataStore.save(controller, mageData, saveFile);
+        return BinaryMageDataFormat.toBytes(saveFile);
+    }
+
+    @Benchmark
+    public MageData loadBinary() throws IOException {
+        ConfigurationSection saveFile = new MemoryConfiguration();
+        BinaryMageDataFormat.fromBytes(binary, saveFile);
+        return ConfigurationMageDataStore.load(controller, MAGE_ID, saveFile);
+    }
+}
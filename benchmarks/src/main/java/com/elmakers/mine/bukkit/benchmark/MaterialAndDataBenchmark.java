@@ -0,0 +1,47 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.block.MaterialAndData;
+
+/**
+ * Parsing material keys, as brushes, material sets and block lists all do when loading configs
+ * and, for brushes, on every cast.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterialAndDataBenchmark {
+    @Param({
+        "stone",
+        "white_wool:0",
+        "oak_stairs?facing=north,half=top",
+        "diamond_sword{12345}"
+    })
+    public String materialKey;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+    }
+
+    @Benchmark
+    public MaterialAndData parse() {
+        return new MaterialAndData(materialKey);
+    }
+}
@@ -0,0 +1,105 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.elmakers.mine.bukkit.api.magic.MaterialSet;
+import com.elmakers.mine.bukkit.materials.SimpleMaterialSetManager;
+
+/**
+ * Material set lookups, which happen for nearly every block a spell touches
+ * (transparency, indestructible and destructible checks and so on).
+ *
+ * <p>The sets here are cut down versions of the default ones, covering a plain list,
+ * a list that includes other sets, and a negated set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterialSetBenchmark {
+    private static final int MATERIAL_COUNT = 1024;
+
+    @Param({"all_air", "passthrough", "solid"})
+    public String materialSet;
+
+    private ConfigurationSection materialConfig;
+    private MaterialSet set;
+    private Material[] materials;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        materialConfig = new MemoryConfiguration();
+        materialConfig.set("all_air", Arrays.asList("air", "cave_air", "void_air"));
+        materialConfig.set("all_water", Arrays.asList("water", "bubble_column"));
+        materialConfig.set("all_lava", Arrays.asList("lava"));
+        materialConfig.set("solid", "!all_air,all_water,all_lava,barrier");
+        materialConfig.set("passthrough", Arrays.asList("all_water", "all_air", "snow", "torch", "wall_torch", "fire",
+                "redstone_wire", "rail", "powered_rail", "detector_rail", "activator_rail", "lever", "redstone_torch",
+                "redstone_wall_torch", "stone_button", "oak_button", "sugar_cane", "vine", "lily_pad", "cocoa",
+                "tripwire_hook", "tripwire", "flower_pot", "cobweb", "ladder", "repeater", "comparator",
+                "nether_portal", "end_portal", "end_gateway"));
+
+        SimpleMaterialSetManager manager = new SimpleMaterialSetManager();
+        manager.loadMaterials(materialConfig);
+        set = manager.getMaterialSet(materialSet);
+
+        List<Material> blocks = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (material.isBlock() && !material.name().startsWith("LEGACY_")) {
+                blocks.add(material);
+            }
+        }
+        // Mostly solid blocks, like a real world, with some air and passthrough blocks mixed in
+        Random random = new Random(0);
+        materials = new Material[MATERIAL_COUNT];
+        for (int i = 0; i < materials.length; i++) {
+            int roll = random.nextInt(10);
+            if (roll < 3) {
+                materials[i] = Material.AIR;
+            } else if (roll < 4) {
+                materials[i] = Material.TORCH;
+            } else if (roll < 6) {
+                materials[i] = Material.STONE;
+            } else {
+                materials[i] = blocks.get(random.nextInt(blocks.size()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void testMaterial(Blackhole blackhole) {
+        for (Material material : materials) {
+            blackhole.consume(set.testMaterial(material));
+        }
+    }
+
+    @Benchmark
+    public MaterialSet loadMaterials() {
+        SimpleMaterialSetManager manager = new SimpleMaterialSetManager();
+        manager.loadMaterials(materialConfig);
+        return manager.getMaterialSet(materialSet);
+    }
+}
@@ -0,0 +1,83 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.configuration.ParameterizedConfiguration;
+
+/**
+ * Reading an equation-valued spell parameter, which happens every time a spell with
+ * attribute-based parameters is cast.
+ *
+ * <p>The "rand" expression can't be compiled, so it measures the EquationTransform fallback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParameterizedConfigurationBenchmark {
+    @Param({
+        "20",
+        "level * 2 + 5",
+        "min(range, level * 3) / 2 + sqrt(power)",
+        "rand(1, level)"
+    })
+    public String expression;
+
+    private Parameters configuration;
+
+    private static class Parameters extends ParameterizedConfiguration {
+        private final Map<String, Double> parameters = new HashMap<>();
+
+        Parameters() {
+            super("benchmark");
+        }
+
+        @Override
+        protected Set<String> getParameters() {
+            return parameters.keySet();
+        }
+
+        @Override
+        protected double getParameter(String parameter) {
+            Double value = parameters.get(parameter);
+            return value == null ? 0 : value;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        configuration = new Parameters();
+        configuration.parameters.put("level", 12.0);
+        configuration.parameters.put("range", 32.0);
+        configuration.parameters.put("power", 2.5);
+        configuration.set("value", expression);
+    }
+
+    @Benchmark
+    public double getDouble() {
+        return configuration.getDouble("value", 0);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return configuration.getInt("value", 0);
+    }
+}
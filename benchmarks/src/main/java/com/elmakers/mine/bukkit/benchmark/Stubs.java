@@ -0,0 +1,300 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Entity;
+
+import com.elmakers.mine.bukkit.api.magic.Mage;
+import com.elmakers.mine.bukkit.api.magic.MageContext;
+import com.elmakers.mine.bukkit.api.magic.MageController;
+import com.elmakers.mine.bukkit.api.spell.MageSpell;
+import com.elmakers.mine.bukkit.materials.SimpleMaterialSetManager;
+import com.elmakers.mine.bukkit.utility.BoundingBox;
+import com.elmakers.mine.bukkit.utility.CompatibilityLib;
+import com.elmakers.mine.bukkit.utility.collection.LongObjectHashMap;
+import com.elmakers.mine.bukkit.utility.platform.CompatibilityUtils;
+import com.elmakers.mine.bukkit.utility.platform.Platform;
+
+/**
+ * Just enough of a server for the benchmarks to run offline.
+ *
+ * <p>These are plain dynamic proxies rather than Mockito mocks, so that the time spent in
+ * the stubs stays small and flat and doesn't hide the cost of the code being measured.
+ * Any method not handled here returns null, false or zero.
+ *
+ * <p>Every block in the stub world is stone, so undoing a stone block is a no-op as far as the
+ * world goes and the benchmarks only measure Magic's own bookkeeping.
+ *
+ * <p>Every chunk is loaded, and holds whatever entities were created in it by createEntity.
+ */
+public final class Stubs {
+    public static final String WORLD_NAME = "world";
+    public static final Material BLOCK_TYPE = Material.STONE;
+
+    private static final Logger logger = Logger.getLogger("MagicBenchmarks");
+    private static final UUID worldId = new UUID(0, 1);
+    private static World world;
+    private static MageController controller;
+    private static Mage mage;
+    private static MageSpell spell;
+    private static MageContext context;
+    private static final LongObjectHashMap<List<Entity>> chunkEntities = new LongObjectHashMap<>();
+
+    private Stubs() {
+    }
+
+    public static synchronized void initialize() {
+        if (world != null) return;
+        world = stub(World.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName": return WORLD_NAME;
+                case "getUID": return worldId;
+                case "getMaxHeight": return 256;
+                case "getBlockAt":
+                    if (args.length == 1) {
+                        Location location = (Location)args[0];
+                        return getBlock(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+                    }
+                    return getBlock((Integer)args[0], (Integer)args[1], (Integer)args[2]);
+                case "isChunkLoaded": return true;
+                case "getChunkAt":
+                    if (args.length == 2 && args[0] instanceof Integer) {
+                        return getChunk((Integer)args[0], (Integer)args[1]);
+                    }
+                    return null;
+                default: return null;
+            }
+        });
+
+        Server server = stub(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger": return logger;
+                case "getName": return "Stub";
+                case "getVersion": return "benchmark";
+                case "getBukkitVersion": return "benchmark";
+                case "getWorld": return WORLD_NAME.equals(args[0]) || worldId.equals(args[0]) ? world : null;
+                case "getWorlds": return Collections.singletonList(world);
+                default: return null;
+            }
+        });
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(server);
+        }
+
+        CompatibilityUtils compatibilityUtils = stub(CompatibilityUtils.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isChunkLoaded": return true;
+                case "checkChunk": return true;
+                case "getMaxEntityRange": return 64;
+                case "getEyeLocation": return ((Entity)args[0]).getLocation().add(0, 1.6, 0);
+                case "getHitbox":
+                    if (args[0] instanceof Entity) {
+                        return new BoundingBox(((Entity)args[0]).getLocation().toVector(), -0.3, 0.3, 0, 1.8, -0.3, 0.3);
+                    }
+                    return null;
+                default: return null;
+            }
+        });
+        Platform platform = stub(Platform.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger": return logger;
+                case "isValid": return true;
+                case "isCurrentVersion": return true;
+                case "getCompatibilityUtils": return compatibilityUtils;
+                default: return null;
+            }
+        });
+        CompatibilityLib.initialize(platform);
+
+        SimpleMaterialSetManager materialSetManager = new SimpleMaterialSetManager();
+        controller = stub(MageController.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger": return logger;
+                case "isUndoable": return true;
+                case "getMaterialSetManager": return materialSetManager;
+                default: return null;
+            }
+        });
+        mage = stub(Mage.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getController": return controller;
+                case "getName": return "Mage";
+                case "getWorld": return world;
+                case "getLocation": return new Location(world, 0, 64, 0);
+                default: return null;
+            }
+        });
+        spell = stub(MageSpell.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMage": return mage;
+                case "getController": return controller;
+                case "getKey": return "benchmark";
+                case "getName": return "Benchmark";
+                default: return null;
+            }
+        });
+        context = stub(MageContext.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMage": return mage;
+                case "getController": return controller;
+                case "getLogger": return logger;
+                case "canTarget": return true;
+                default: return null;
+            }
+        });
+    }
+
+    public static World getWorld() {
+        return world;
+    }
+
+    public static MageController getController() {
+        return controller;
+    }
+
+    public static Mage getMage() {
+        return mage;
+    }
+
+    public static MageSpell getSpell() {
+        return spell;
+    }
+
+    /**
+     * A context that can target any entity and no blocks.
+     */
+    public static MageContext getContext() {
+        return context;
+    }
+
+    public static Block getBlock(int x, int y, int z) {
+        return stub(Block.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getX": return x;
+                case "getY": return y;
+                case "getZ": return z;
+                case "getWorld": return world;
+                case "getType": return BLOCK_TYPE;
+                case "getData": return (byte)0;
+                case "getLocation": return new Location(world, x, y, z);
+                case "getState": return getState((Block)proxy);
+                case "getRelative":
+                    if (args[0] instanceof BlockFace) {
+                        BlockFace face = (BlockFace)args[0];
+                        int distance = args.length > 1 ? (Integer)args[1] : 1;
+                        return getBlock(x + face.getModX() * distance, y + face.getModY() * distance, z + face.getModZ() * distance);
+                    }
+                    return getBlock(x + (Integer)args[0], y + (Integer)args[1], z + (Integer)args[2]);
+                default: return null;
+            }
+        });
+    }
+
+    /**
+     * Create an entity and add it to its chunk in the stub world.
+     */
+    public static <T extends Entity> T createEntity(Class<T> type, Location location) {
+        UUID id = UUID.randomUUID();
+        T entity = stub(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId": return id;
+                case "getWorld": return world;
+                case "getLocation": return location.clone();
+                case "getEyeLocation": return location.clone().add(0, 1.6, 0);
+                case "isValid": return true;
+                default: return null;
+            }
+        });
+        long key = getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        List<Entity> entities = chunkEntities.get(key);
+        if (entities == null) {
+            entities = new ArrayList<>();
+            chunkEntities.put(key, entities);
+        }
+        entities.add(entity);
+        return entity;
+    }
+
+    public static void clearEntities() {
+        chunkEntities.clear();
+    }
+
+    private static Chunk getChunk(int chunkX, int chunkZ) {
+        List<Entity> entities = chunkEntities.get(getChunkKey(chunkX, chunkZ));
+        Entity[] entityArray = entities == null ? new Entity[0] : entities.toArray(new Entity[0]);
+        return stub(Chunk.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getX": return chunkX;
+                case "getZ": return chunkZ;
+                case "getWorld": return world;
+                case "isLoaded": return true;
+                case "getEntities": return entityArray;
+                default: return null;
+            }
+        });
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static BlockState getState(Block block) {
+        return stub(BlockState.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getBlock": return block;
+                case "getType": return BLOCK_TYPE;
+                case "getData": return null;
+                case "getRawData": return (byte)0;
+                case "getWorld": return world;
+                case "getX": return block.getX();
+                case "getY": return block.getY();
+                case "getZ": return block.getZ();
+                case "getLocation": return block.getLocation();
+                default: return null;
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        Object proxy = Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals": return self == args[0];
+                case "hashCode": return System.identityHashCode(self);
+                case "toString": return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                default:
+                    Object result = handler.invoke(self, method, args);
+                    return result == null ? getDefault(method) : result;
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object getDefault(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) return null;
+        if (returnType == boolean.class) return false;
+        if (returnType == char.class) return (char)0;
+        if (returnType == byte.class) return (byte)0;
+        if (returnType == short.class) return (short)0;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        if (returnType == float.class) return 0f;
+        return 0d;
+    }
+}
@@ -0,0 +1,103 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.api.magic.MageContext;
+import com.elmakers.mine.bukkit.utility.EntityIndex;
+import com.elmakers.mine.bukkit.utility.Target;
+import com.elmakers.mine.bukkit.utility.Targeting;
+
+/**
+ * Targeting.getAllTargetEntities, finding, scoring and sorting candidate entities.
+ *
+ * <p>Entities are scattered around the caster, most of them in front, and are found through
+ * the EntityIndex reading the stub world's chunks. The index is filled on the first call
+ * and reused after that, as it is for every query after the first in a tick.
+ * "fov" scores by distance and view angle, "hitbox" ray-tests each entity's hitbox.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TargetingBenchmark {
+    private static final int RANGE = 32;
+
+    @Param({"10", "200"})
+    public int entityCount;
+
+    @Param({"fov", "hitbox"})
+    public String mode;
+
+    private Location source;
+    private MageContext context;
+    private Targeting targeting;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        Stubs.clearEntities();
+        context = Stubs.getContext();
+        source = new Location(Stubs.getWorld(), 0, 65.6, 0, 0, 0);
+        Vector facing = source.getDirection();
+
+        Random random = new Random(0);
+        for (int i = 0; i < entityCount; i++) {
+            double distance = random.nextDouble() * RANGE * 1.2;
+            Vector offset = new Vector(random.nextGaussian(), random.nextGaussian() * 0.2, random.nextGaussian());
+            if (random.nextInt(4) != 0) {
+                // Most entities are somewhere in front of the caster
+                offset.multiply(0.3).add(facing);
+            }
+            offset.normalize().multiply(distance);
+            Location location = source.clone().add(offset);
+            location.setY(64);
+            if (i % 5 == 0) {
+                Stubs.createEntity(Entity.class, location);
+            } else {
+                Stubs.createEntity(LivingEntity.class, location);
+            }
+        }
+
+        ConfigurationSection parameters = new MemoryConfiguration();
+        if (mode.equals("hitbox")) {
+            parameters.set("hitbox", true);
+            parameters.set("hitbox_size", 0.5);
+        } else {
+            parameters.set("fov", 0.3);
+        }
+        targeting = new Targeting();
+        targeting.processParameters(parameters);
+
+        // Start the entity index's tick, it goes straight to the server otherwise
+        EntityIndex.setEnabled(true);
+        EntityIndex.tick();
+    }
+
+    @Benchmark
+    public List<Target> getAllTargetEntities() {
+        targeting.start(source);
+        return targeting.getAllTargetEntities(context, RANGE);
+    }
+}
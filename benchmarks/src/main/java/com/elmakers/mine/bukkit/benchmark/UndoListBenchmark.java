@@ -0,0 +1,80 @@
+package com.elmakers.mine.bukkit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.elmakers.mine.bukkit.api.magic.MageController;
+import com.elmakers.mine.bukkit.block.UndoList;
+
+/**
+ * Recording a construction in an UndoList and then either committing it or undoing it.
+ *
+ * <p>Both leave the global undo registry empty again, so every invocation starts from the same state.
+ * The stub world doesn't change when blocks are undone, so this measures the undo bookkeeping
+ * and not the cost of setting blocks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UndoListBenchmark {
+    @Param({"100", "10000"})
+    public int blockCount;
+
+    private MageController controller;
+    private Block[] blocks;
+
+    @Setup
+    public void setup() {
+        Stubs.initialize();
+        controller = Stubs.getController();
+
+        // A solid cube of blocks, which is what a construct spell produces
+        int side = (int)Math.ceil(Math.cbrt(blockCount));
+        blocks = new Block[blockCount];
+        int index = 0;
+        for (int x = 0; x < side && index < blockCount; x++) {
+            for (int y = 0; y < side && index < blockCount; y++) {
+                for (int z = 0; z < side && index < blockCount; z++) {
+                    blocks[index++] = Stubs.getBlock(x - side / 2, y + 64, z - side / 2);
+                }
+            }
+        }
+    }
+
+    private UndoList createList() {
+        UndoList list = new UndoList(controller);
+        for (Block block : blocks) {
+            list.add(block);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public UndoList addAndCommit() {
+        UndoList list = createList();
+        list.commit();
+        return list;
+    }
+
+    @Benchmark
+    public UndoList addAndUndo() {
+        UndoList list = createList();
+        list.undo(true);
+        return list;
+    }
+}